@@ -0,0 +1,124 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import io.netty.buffer.AdaptivePoolingAllocator.ChunkAllocator;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.StringUtil;
+
+/**
+ * A pooling {@link ByteBufAllocator} that sizes its memory from the allocation sizes it actually observes.
+ * <p>
+ * Unlike {@link PooledByteBufAllocator} it has no arenas, size-class tables or thread-local caches. Buffers are
+ * carved out of chunks whose size follows a histogram of recent allocation sizes, the chunks are shared between
+ * threads without locking, and chunks that are no longer used are released back to the OS after they have been idle
+ * for a while ({@code io.netty.allocator.adaptive.chunkIdleTimeoutMillis}). This keeps the resident memory low for
+ * workloads that mostly allocate small buffers or that have many idle threads.
+ * <p>
+ * Threads share a fixed number of magazines, which are picked by thread id and not by size class. Each magazine
+ * carves buffers of all sizes from its current chunk, as a buffer only takes the memory it asked for, and sizes its
+ * next chunk from the histogram of the allocations it served. This keeps a single partially used chunk per magazine,
+ * instead of one per size class and magazine.
+ */
+public final class AdaptiveByteBufAllocator extends AbstractByteBufAllocator
+        implements ByteBufAllocatorMetricProvider {
+
+    /**
+     * Default instance, which prefers direct buffers if possible.
+     */
+    public static final AdaptiveByteBufAllocator DEFAULT =
+            new AdaptiveByteBufAllocator(PlatformDependent.directBufferPreferred());
+
+    private final UnpooledByteBufAllocator chunkAllocator;
+    private final AdaptivePoolingAllocator heap;
+    private final AdaptivePoolingAllocator direct;
+    private final AdaptiveByteBufAllocatorMetric metric = new AdaptiveByteBufAllocatorMetric();
+
+    /**
+     * Create a new instance which uses direct buffers by default if possible.
+     */
+    public AdaptiveByteBufAllocator() {
+        this(PlatformDependent.directBufferPreferred());
+    }
+
+    /**
+     * Create a new instance
+     *
+     * @param preferDirect {@code true} if {@link #buffer(int)} should try to allocate a direct buffer rather than
+     *                     a heap buffer
+     */
+    public AdaptiveByteBufAllocator(boolean preferDirect) {
+        super(preferDirect);
+        // The chunks are never exposed to the user, so leak detection is only done for the buffers carved from them.
+        chunkAllocator = new UnpooledByteBufAllocator(preferDirect, true);
+        heap = new AdaptivePoolingAllocator(this, new ChunkAllocator() {
+            @Override
+            public AbstractByteBuf allocate(int capacity) {
+                return (AbstractByteBuf) chunkAllocator.heapBuffer(capacity, capacity);
+            }
+        });
+        direct = new AdaptivePoolingAllocator(this, new ChunkAllocator() {
+            @Override
+            public AbstractByteBuf allocate(int capacity) {
+                return (AbstractByteBuf) chunkAllocator.directBuffer(capacity, capacity);
+            }
+        });
+    }
+
+    @Override
+    protected ByteBuf newHeapBuffer(int initialCapacity, int maxCapacity) {
+        return toLeakAwareBuffer(heap.allocate(initialCapacity, maxCapacity));
+    }
+
+    @Override
+    protected ByteBuf newDirectBuffer(int initialCapacity, int maxCapacity) {
+        return toLeakAwareBuffer(direct.allocate(initialCapacity, maxCapacity));
+    }
+
+    @Override
+    public boolean isDirectBufferPooled() {
+        return true;
+    }
+
+    @Override
+    public ByteBufAllocatorMetric metric() {
+        return metric;
+    }
+
+    private final class AdaptiveByteBufAllocatorMetric implements ByteBufAllocatorMetric {
+        /**
+         * Returns the heap memory held by the chunks of this allocator, including the parts not handed out yet.
+         */
+        @Override
+        public long usedHeapMemory() {
+            return chunkAllocator.metric().usedHeapMemory();
+        }
+
+        /**
+         * Returns the direct memory held by the chunks of this allocator, including the parts not handed out yet.
+         */
+        @Override
+        public long usedDirectMemory() {
+            return chunkAllocator.metric().usedDirectMemory();
+        }
+
+        @Override
+        public String toString() {
+            return StringUtil.simpleClassName(this) +
+                    "(usedHeapMemory: " + usedHeapMemory() + "; usedDirectMemory: " + usedDirectMemory() + ')';
+        }
+    }
+}
@@ -0,0 +1,729 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import io.netty.util.NettyRuntime;
+import io.netty.util.internal.MathUtil;
+import io.netty.util.internal.ObjectPool;
+import io.netty.util.internal.ObjectPool.Handle;
+import io.netty.util.internal.ObjectPool.ObjectCreator;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.SystemPropertyUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ScatteringByteChannel;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Pool of memory used by {@link AdaptiveByteBufAllocator} for either heap or direct buffers.
+ * <p>
+ * Buffers are carved out of <em>chunks</em> by bumping an offset with a CAS. Each thread picks a
+ * {@link Magazine} by its id; a magazine owns the chunk it is currently carving from, and records a histogram of the
+ * allocation sizes it serves so that the size of the next chunk follows the observed workload instead of a fixed
+ * chunk size. No thread-local caches are used, and no locks are taken on the allocation or release path.
+ * <p>
+ * A chunk is reference counted: the magazine holds one reference while the chunk is current, and every buffer carved
+ * from it holds one more. Once all references are gone the whole chunk is put into a shared queue for reuse, and
+ * chunks that stay in that queue for longer than the idle timeout are released back to the OS.
+ * <p>
+ * Magazines are striped by thread rather than by size class. A buffer only reserves its own size rounded up to
+ * 8 bytes, so buffers of different sizes can share a chunk without rounding waste, and the histogram of a magazine
+ * still sizes its chunks for the largest common allocations. Magazines per size class would instead keep one
+ * partially used chunk per size class and stripe, which multiplies the memory held by current chunks for workloads
+ * that mostly use a few small sizes.
+ */
+final class AdaptivePoolingAllocator {
+
+    /**
+     * Allocates the memory that backs a single chunk.
+     */
+    interface ChunkAllocator {
+        /**
+         * Allocates a new {@link AbstractByteBuf} with exactly {@code capacity} bytes.
+         */
+        AbstractByteBuf allocate(int capacity);
+    }
+
+    static final int MIN_CHUNK_SIZE = 128 * 1024;
+    private static final int MAX_CHUNK_SIZE = 8 * 1024 * 1024;
+    private static final int BUFS_PER_CHUNK = 8;
+    static final int MAX_POOLED_BUF_SIZE = MAX_CHUNK_SIZE / BUFS_PER_CHUNK;
+    private static final int MIN_RESERVATION = 64;
+
+    private static final int HISTO_MIN_BUCKET_SHIFT = 6;
+    private static final int HISTO_MAX_BUCKET_SHIFT = 20;
+    private static final int HISTO_BUCKET_COUNT = HISTO_MAX_BUCKET_SHIFT - HISTO_MIN_BUCKET_SHIFT + 1;
+    private static final int HISTO_UPDATE_INTERVAL = 1024;
+
+    private static final int MAGAZINE_COUNT = Math.min(64,
+            MathUtil.findNextPositivePowerOfTwo(NettyRuntime.availableProcessors() * 2));
+    private static final long CHUNK_IDLE_TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(Math.max(0,
+            SystemPropertyUtil.getLong("io.netty.allocator.adaptive.chunkIdleTimeoutMillis", 10000)));
+
+    private final ByteBufAllocator parent;
+    private final ChunkAllocator chunkAllocator;
+    private final Magazine[] magazines;
+    private final Deque<Chunk> centralQueue = PlatformDependent.newConcurrentDeque();
+    private final AtomicInteger centralQueueSize = new AtomicInteger();
+    private final int maxCentralQueueSize;
+
+    AdaptivePoolingAllocator(ByteBufAllocator parent, ChunkAllocator chunkAllocator) {
+        this.parent = parent;
+        this.chunkAllocator = chunkAllocator;
+        magazines = new Magazine[MAGAZINE_COUNT];
+        for (int i = 0; i < magazines.length; i++) {
+            magazines[i] = new Magazine(this);
+        }
+        maxCentralQueueSize = magazines.length * 2;
+    }
+
+    AdaptiveByteBuf allocate(int initialCapacity, int maxCapacity) {
+        AdaptiveByteBuf buf = AdaptiveByteBuf.newInstance();
+        buf.reuse(maxCapacity);
+        allocate(initialCapacity, buf);
+        return buf;
+    }
+
+    private void allocate(int size, AdaptiveByteBuf buf) {
+        if (size <= MAX_POOLED_BUF_SIZE) {
+            magazines[(int) Thread.currentThread().getId() & magazines.length - 1].allocate(size, buf);
+        } else {
+            // Too big to share a chunk with other buffers, so give it a dedicated chunk that is released to the OS
+            // as soon as the buffer is released.
+            Chunk chunk = new Chunk(this, chunkAllocator.allocate(size), false);
+            chunk.allocatedBytes = size;
+            buf.init(chunk, 0, size, size);
+        }
+    }
+
+    /**
+     * Returns a chunk with at least {@code capacity} bytes, preferring an idle chunk from the central queue.
+     */
+    private Chunk newChunk(int capacity) {
+        for (;;) {
+            Chunk chunk = centralQueue.pollFirst();
+            if (chunk == null) {
+                return new Chunk(this, chunkAllocator.allocate(capacity), true);
+            }
+            centralQueueSize.decrementAndGet();
+            // Do not reuse chunks that are a lot bigger than what we need now, so memory usage can shrink together
+            // with the allocation sizes.
+            if (chunk.capacity >= capacity && chunk.capacity < capacity << 2) {
+                return chunk;
+            }
+            chunk.discard();
+        }
+    }
+
+    /**
+     * Called once the last reference to {@code chunk} was released.
+     */
+    private void onChunkFreed(Chunk chunk) {
+        long now = System.nanoTime();
+        if (chunk.pooled && centralQueueSize.incrementAndGet() <= maxCentralQueueSize) {
+            chunk.resetForReuse(now);
+            centralQueue.offerFirst(chunk);
+        } else {
+            if (chunk.pooled) {
+                centralQueueSize.decrementAndGet();
+            }
+            chunk.releaseMemory();
+        }
+        releaseIdleChunks(now);
+    }
+
+    /**
+     * Releases the chunks that have been sitting in the central queue for longer than the idle timeout. The least
+     * recently used chunks are at the tail of the queue.
+     */
+    void releaseIdleChunks(long now) {
+        for (;;) {
+            Chunk chunk = centralQueue.peekLast();
+            if (chunk == null || now - chunk.idleSinceNanos < CHUNK_IDLE_TIMEOUT_NANOS) {
+                return;
+            }
+            if (centralQueue.removeLastOccurrence(chunk)) {
+                centralQueueSize.decrementAndGet();
+                chunk.discard();
+            }
+        }
+    }
+
+    private static final class Magazine {
+        private static final AtomicReferenceFieldUpdater<Magazine, Chunk> CURRENT_UPDATER =
+                AtomicReferenceFieldUpdater.newUpdater(Magazine.class, Chunk.class, "current");
+
+        private final AdaptivePoolingAllocator parent;
+        private volatile Chunk current;
+
+        // The histogram is updated without synchronization when several threads share a magazine. Losing an update
+        // now and then only skews the statistic slightly, which is fine for sizing chunks.
+        private final int[] histogram = new int[HISTO_BUCKET_COUNT];
+        private int histogramCount;
+        private volatile int preferredChunkSize = MIN_CHUNK_SIZE;
+
+        Magazine(AdaptivePoolingAllocator parent) {
+            this.parent = parent;
+        }
+
+        void allocate(int size, AdaptiveByteBuf buf) {
+            recordAllocationSize(size);
+            int reservation = Math.max(MIN_RESERVATION, size + 7 & ~7);
+            for (;;) {
+                Chunk curr = current;
+                if (curr != null && curr.tryAllocate(size, reservation, buf)) {
+                    return;
+                }
+                Chunk next = parent.newChunk(Math.max(preferredChunkSize, reservation));
+                if (CURRENT_UPDATER.compareAndSet(this, curr, next)) {
+                    if (curr != null) {
+                        // Drop the magazine's reference, the chunk is freed once all of its buffers are released.
+                        curr.release();
+                    }
+                } else {
+                    // Another thread installed a new chunk already.
+                    next.release();
+                }
+            }
+        }
+
+        private void recordAllocationSize(int size) {
+            histogram[sizeBucket(size)]++;
+            if (++histogramCount >= HISTO_UPDATE_INTERVAL) {
+                histogramCount = 0;
+                updatePreferredChunkSize();
+                parent.releaseIdleChunks(System.nanoTime());
+            }
+        }
+
+        private void updatePreferredChunkSize() {
+            final int[] histogram = this.histogram;
+            int total = 0;
+            for (int count : histogram) {
+                total += count;
+            }
+            // Size chunks so they can hold BUFS_PER_CHUNK buffers of the 99th percentile allocation size.
+            int target = total - total / 100;
+            int sum = 0;
+            int bucket = 0;
+            for (; bucket < histogram.length - 1; bucket++) {
+                sum += histogram[bucket];
+                if (sum >= target) {
+                    break;
+                }
+            }
+            int percentileSize = 1 << bucket + HISTO_MIN_BUCKET_SHIFT;
+            preferredChunkSize = Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, percentileSize * BUFS_PER_CHUNK));
+
+            // Decay the old samples so the histogram follows changes in the workload.
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] >>>= 1;
+            }
+        }
+
+        static int sizeBucket(int size) {
+            if (size <= 1 << HISTO_MIN_BUCKET_SHIFT) {
+                return 0;
+            }
+            int log2 = 32 - Integer.numberOfLeadingZeros(size - 1);
+            return Math.min(log2 - HISTO_MIN_BUCKET_SHIFT, HISTO_BUCKET_COUNT - 1);
+        }
+    }
+
+    private static final class Chunk {
+        private static final AtomicIntegerFieldUpdater<Chunk> REFCNT_UPDATER =
+                AtomicIntegerFieldUpdater.newUpdater(Chunk.class, "refCnt");
+        private static final AtomicIntegerFieldUpdater<Chunk> ALLOCATED_UPDATER =
+                AtomicIntegerFieldUpdater.newUpdater(Chunk.class, "allocatedBytes");
+
+        final AdaptivePoolingAllocator parent;
+        final AbstractByteBuf memory;
+        final int capacity;
+        volatile boolean pooled;
+        volatile int allocatedBytes;
+        private volatile int refCnt = 1;
+        long idleSinceNanos;
+
+        Chunk(AdaptivePoolingAllocator parent, AbstractByteBuf memory, boolean pooled) {
+            this.parent = parent;
+            this.memory = memory;
+            this.pooled = pooled;
+            capacity = memory.capacity();
+        }
+
+        boolean tryAllocate(int size, int reservation, AdaptiveByteBuf buf) {
+            // Retain first, the chunk may have been retired and freed concurrently.
+            if (!tryRetain()) {
+                return false;
+            }
+            for (;;) {
+                int used = allocatedBytes;
+                int remaining = capacity - used;
+                if (remaining < size) {
+                    release();
+                    return false;
+                }
+                int reserved = Math.min(reservation, remaining);
+                if (ALLOCATED_UPDATER.compareAndSet(this, used, used + reserved)) {
+                    // The reference we took above is now owned by the buffer.
+                    buf.init(this, used, size, reserved);
+                    return true;
+                }
+            }
+        }
+
+        private boolean tryRetain() {
+            for (;;) {
+                int refCnt = this.refCnt;
+                if (refCnt == 0) {
+                    return false;
+                }
+                if (REFCNT_UPDATER.compareAndSet(this, refCnt, refCnt + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void release() {
+            if (REFCNT_UPDATER.decrementAndGet(this) == 0) {
+                parent.onChunkFreed(this);
+            }
+        }
+
+        /**
+         * Releases the memory of this chunk once the last reference is gone instead of returning it to the pool.
+         */
+        void discard() {
+            pooled = false;
+            release();
+        }
+
+        void resetForReuse(long now) {
+            // Reset the offset before the chunk becomes retainable again.
+            allocatedBytes = 0;
+            idleSinceNanos = now;
+            refCnt = 1;
+        }
+
+        void releaseMemory() {
+            memory.release();
+        }
+    }
+
+    static final class AdaptiveByteBuf extends AbstractReferenceCountedByteBuf {
+        private static final ObjectPool<AdaptiveByteBuf> RECYCLER = ObjectPool.newPool(
+                new ObjectCreator<AdaptiveByteBuf>() {
+                    @Override
+                    public AdaptiveByteBuf newObject(Handle<AdaptiveByteBuf> handle) {
+                        return new AdaptiveByteBuf(handle);
+                    }
+                });
+
+        static AdaptiveByteBuf newInstance() {
+            return RECYCLER.get();
+        }
+
+        private final Handle<AdaptiveByteBuf> recyclerHandle;
+        private ByteBufAllocator allocator;
+        private Chunk chunk;
+        private AbstractByteBuf rootParent;
+        private int adjustment;
+        private int length;
+        private int maxFastCapacity;
+        private ByteBuffer tmpNioBuf;
+
+        private AdaptiveByteBuf(Handle<AdaptiveByteBuf> recyclerHandle) {
+            super(0);
+            this.recyclerHandle = recyclerHandle;
+        }
+
+        void reuse(int maxCapacity) {
+            maxCapacity(maxCapacity);
+            resetRefCnt();
+            setIndex0(0, 0);
+            discardMarks();
+        }
+
+        void init(Chunk chunk, int adjustment, int length, int maxFastCapacity) {
+            this.chunk = chunk;
+            allocator = chunk.parent.parent;
+            rootParent = chunk.memory;
+            this.adjustment = adjustment;
+            this.length = length;
+            this.maxFastCapacity = maxFastCapacity;
+            tmpNioBuf = null;
+        }
+
+        @Override
+        public int capacity() {
+            return length;
+        }
+
+        @Override
+        public int maxFastWritableBytes() {
+            return Math.min(maxFastCapacity, maxCapacity()) - writerIndex;
+        }
+
+        @Override
+        public ByteBuf capacity(int newCapacity) {
+            if (newCapacity == length) {
+                ensureAccessible();
+                return this;
+            }
+            checkNewCapacity(newCapacity);
+            if (newCapacity <= maxFastCapacity) {
+                // Still fits into the memory reserved for this buffer.
+                length = newCapacity;
+                trimIndicesToCapacity(newCapacity);
+                return this;
+            }
+
+            // Reallocation required.
+            Chunk oldChunk = chunk;
+            AbstractByteBuf oldRoot = rootParent;
+            int oldAdjustment = adjustment;
+            int oldLength = length;
+            oldChunk.parent.allocate(newCapacity, this);
+            oldRoot.getBytes(oldAdjustment, rootParent, adjustment, oldLength);
+            oldChunk.release();
+            return this;
+        }
+
+        @Override
+        public ByteBufAllocator alloc() {
+            return allocator;
+        }
+
+        @Override
+        @Deprecated
+        public ByteOrder order() {
+            return ByteOrder.BIG_ENDIAN;
+        }
+
+        @Override
+        public ByteBuf unwrap() {
+            return null;
+        }
+
+        @Override
+        public boolean isDirect() {
+            return rootParent.isDirect();
+        }
+
+        @Override
+        public boolean hasArray() {
+            return rootParent.hasArray();
+        }
+
+        @Override
+        public byte[] array() {
+            ensureAccessible();
+            return rootParent.array();
+        }
+
+        @Override
+        public int arrayOffset() {
+            ensureAccessible();
+            return rootParent.arrayOffset() + adjustment;
+        }
+
+        @Override
+        public boolean hasMemoryAddress() {
+            return rootParent.hasMemoryAddress();
+        }
+
+        @Override
+        public long memoryAddress() {
+            ensureAccessible();
+            return rootParent.memoryAddress() + adjustment;
+        }
+
+        @Override
+        public boolean isContiguous() {
+            return true;
+        }
+
+        @Override
+        protected byte _getByte(int index) {
+            return rootParent._getByte(idx(index));
+        }
+
+        @Override
+        protected short _getShort(int index) {
+            return rootParent._getShort(idx(index));
+        }
+
+        @Override
+        protected short _getShortLE(int index) {
+            return rootParent._getShortLE(idx(index));
+        }
+
+        @Override
+        protected int _getUnsignedMedium(int index) {
+            return rootParent._getUnsignedMedium(idx(index));
+        }
+
+        @Override
+        protected int _getUnsignedMediumLE(int index) {
+            return rootParent._getUnsignedMediumLE(idx(index));
+        }
+
+        @Override
+        protected int _getInt(int index) {
+            return rootParent._getInt(idx(index));
+        }
+
+        @Override
+        protected int _getIntLE(int index) {
+            return rootParent._getIntLE(idx(index));
+        }
+
+        @Override
+        protected long _getLong(int index) {
+            return rootParent._getLong(idx(index));
+        }
+
+        @Override
+        protected long _getLongLE(int index) {
+            return rootParent._getLongLE(idx(index));
+        }
+
+        @Override
+        protected void _setByte(int index, int value) {
+            rootParent._setByte(idx(index), value);
+        }
+
+        @Override
+        protected void _setShort(int index, int value) {
+            rootParent._setShort(idx(index), value);
+        }
+
+        @Override
+        protected void _setShortLE(int index, int value) {
+            rootParent._setShortLE(idx(index), value);
+        }
+
+        @Override
+        protected void _setMedium(int index, int value) {
+            rootParent._setMedium(idx(index), value);
+        }
+
+        @Override
+        protected void _setMediumLE(int index, int value) {
+            rootParent._setMediumLE(idx(index), value);
+        }
+
+        @Override
+        protected void _setInt(int index, int value) {
+            rootParent._setInt(idx(index), value);
+        }
+
+        @Override
+        protected void _setIntLE(int index, int value) {
+            rootParent._setIntLE(idx(index), value);
+        }
+
+        @Override
+        protected void _setLong(int index, long value) {
+            rootParent._setLong(idx(index), value);
+        }
+
+        @Override
+        protected void _setLongLE(int index, long value) {
+            rootParent._setLongLE(idx(index), value);
+        }
+
+        @Override
+        public ByteBuf getBytes(int index, ByteBuf dst, int dstIndex, int length) {
+            checkIndex(index, length);
+            rootParent.getBytes(idx(index), dst, dstIndex, length);
+            return this;
+        }
+
+        @Override
+        public ByteBuf getBytes(int index, byte[] dst, int dstIndex, int length) {
+            checkIndex(index, length);
+            rootParent.getBytes(idx(index), dst, dstIndex, length);
+            return this;
+        }
+
+        @Override
+        public ByteBuf getBytes(int index, ByteBuffer dst) {
+            checkIndex(index, dst.remaining());
+            rootParent.getBytes(idx(index), dst);
+            return this;
+        }
+
+        @Override
+        public ByteBuf getBytes(int index, OutputStream out, int length) throws IOException {
+            checkIndex(index, length);
+            rootParent.getBytes(idx(index), out, length);
+            return this;
+        }
+
+        @Override
+        public int getBytes(int index, GatheringByteChannel out, int length) throws IOException {
+            return out.write(duplicateInternalNioBuffer(index, length));
+        }
+
+        @Override
+        public int readBytes(GatheringByteChannel out, int length) throws IOException {
+            checkReadableBytes(length);
+            int readBytes = out.write(_internalNioBuffer(readerIndex, length));
+            readerIndex += readBytes;
+            return readBytes;
+        }
+
+        @Override
+        public int getBytes(int index, FileChannel out, long position, int length) throws IOException {
+            return out.write(duplicateInternalNioBuffer(index, length), position);
+        }
+
+        @Override
+        public int readBytes(FileChannel out, long position, int length) throws IOException {
+            checkReadableBytes(length);
+            int readBytes = out.write(_internalNioBuffer(readerIndex, length), position);
+            readerIndex += readBytes;
+            return readBytes;
+        }
+
+        // The set operations below go through our own ByteBuffer view instead of the chunk's, as the chunk's
+        // internal ByteBuffer is shared by all the buffers carved out of it.
+
+        @Override
+        public ByteBuf setBytes(int index, ByteBuf src, int srcIndex, int length) {
+            checkSrcIndex(index, length, srcIndex, src.capacity());
+            src.getBytes(srcIndex, _internalNioBuffer(index, length));
+            return this;
+        }
+
+        @Override
+        public ByteBuf setBytes(int index, byte[] src, int srcIndex, int length) {
+            checkSrcIndex(index, length, srcIndex, src.length);
+            _internalNioBuffer(index, length).put(src, srcIndex, length);
+            return this;
+        }
+
+        @Override
+        public ByteBuf setBytes(int index, ByteBuffer src) {
+            int length = src.remaining();
+            checkIndex(index, length);
+            _internalNioBuffer(index, length).put(src);
+            return this;
+        }
+
+        @Override
+        public int setBytes(int index, InputStream in, int length) throws IOException {
+            checkIndex(index, length);
+            byte[] tmp = ByteBufUtil.threadLocalTempArray(length);
+            int readBytes = in.read(tmp, 0, length);
+            if (readBytes <= 0) {
+                return readBytes;
+            }
+            _internalNioBuffer(index, readBytes).put(tmp, 0, readBytes);
+            return readBytes;
+        }
+
+        @Override
+        public int setBytes(int index, ScatteringByteChannel in, int length) throws IOException {
+            try {
+                return in.read(internalNioBuffer(index, length));
+            } catch (ClosedChannelException ignored) {
+                return -1;
+            }
+        }
+
+        @Override
+        public int setBytes(int index, FileChannel in, long position, int length) throws IOException {
+            try {
+                return in.read(internalNioBuffer(index, length), position);
+            } catch (ClosedChannelException ignored) {
+                return -1;
+            }
+        }
+
+        @Override
+        public ByteBuf copy(int index, int length) {
+            checkIndex(index, length);
+            ByteBuf copy = isDirect() ? alloc().directBuffer(length, maxCapacity())
+                    : alloc().heapBuffer(length, maxCapacity());
+            return copy.writeBytes(this, index, length);
+        }
+
+        @Override
+        public int nioBufferCount() {
+            return 1;
+        }
+
+        @Override
+        public ByteBuffer nioBuffer(int index, int length) {
+            return duplicateInternalNioBuffer(index, length);
+        }
+
+        @Override
+        public ByteBuffer[] nioBuffers(int index, int length) {
+            return new ByteBuffer[] { nioBuffer(index, length) };
+        }
+
+        @Override
+        public ByteBuffer internalNioBuffer(int index, int length) {
+            checkIndex(index, length);
+            return _internalNioBuffer(index, length);
+        }
+
+        private ByteBuffer _internalNioBuffer(int index, int length) {
+            ByteBuffer tmpNioBuf = this.tmpNioBuf;
+            if (tmpNioBuf == null) {
+                // Covers the whole reservation so growing the buffer in place does not need a new view.
+                this.tmpNioBuf = tmpNioBuf = rootParent.nioBuffer(adjustment, maxFastCapacity);
+            } else {
+                tmpNioBuf.clear();
+            }
+            tmpNioBuf.limit(index + length).position(index);
+            return tmpNioBuf;
+        }
+
+        private ByteBuffer duplicateInternalNioBuffer(int index, int length) {
+            checkIndex(index, length);
+            // The chunk returns an independent view, so this is safe to use from derived buffers as well.
+            return rootParent.nioBuffer(idx(index), length);
+        }
+
+        @Override
+        protected void deallocate() {
+            Chunk chunk = this.chunk;
+            this.chunk = null;
+            tmpNioBuf = null;
+            chunk.release();
+            recyclerHandle.recycle(this);
+        }
+
+        private int idx(int index) {
+            return index + adjustment;
+        }
+    }
+}
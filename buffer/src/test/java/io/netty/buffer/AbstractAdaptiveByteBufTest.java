@@ -0,0 +1,68 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public abstract class AbstractAdaptiveByteBufTest extends AbstractByteBufTest {
+
+    protected abstract ByteBuf alloc(int length, int maxCapacity);
+
+    @Override
+    protected ByteBuf newBuffer(int length, int maxCapacity) {
+        ByteBuf buffer = alloc(length, maxCapacity);
+        assertEquals(0, buffer.writerIndex());
+        assertEquals(0, buffer.readerIndex());
+        return buffer;
+    }
+
+    @Override
+    @Test
+    public void testMaxFastWritableBytes() {
+        ByteBuf buffer = newBuffer(150, 500).writerIndex(100);
+        assertEquals(50, buffer.writableBytes());
+        assertEquals(150, buffer.capacity());
+        assertEquals(500, buffer.maxCapacity());
+        assertEquals(400, buffer.maxWritableBytes());
+
+        // The reservation is rounded up, so there may be a little more room than requested.
+        int remainingInAlloc = buffer.maxFastWritableBytes();
+        assertTrue(remainingInAlloc >= 50);
+        assertTrue(remainingInAlloc <= 400);
+
+        // Writing up to the reservation must not move the buffer.
+        long addressBefore = buffer.hasMemoryAddress() ? buffer.memoryAddress() : buffer.arrayOffset();
+        buffer.writeBytes(new byte[remainingInAlloc]);
+        assertEquals(addressBefore, buffer.hasMemoryAddress() ? buffer.memoryAddress() : buffer.arrayOffset());
+        assertEquals(0, buffer.maxFastWritableBytes());
+
+        // Should not exceed maxCapacity even if the reservation does.
+        buffer.capacity(500);
+        assertEquals(500 - buffer.writerIndex(), buffer.maxFastWritableBytes());
+        buffer.release();
+    }
+
+    @Test
+    public void testAllocatorIsAdaptive() {
+        ByteBuf buffer = newBuffer(8, 16);
+        assertSame(AdaptiveByteBufAllocator.DEFAULT, buffer.alloc());
+        buffer.release();
+    }
+}
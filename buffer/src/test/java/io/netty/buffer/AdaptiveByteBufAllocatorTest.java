@@ -0,0 +1,163 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AdaptiveByteBufAllocatorTest extends AbstractByteBufAllocatorTest<AdaptiveByteBufAllocator> {
+
+    @Override
+    protected AdaptiveByteBufAllocator newAllocator(boolean preferDirect) {
+        return new AdaptiveByteBufAllocator(preferDirect);
+    }
+
+    @Override
+    protected AdaptiveByteBufAllocator newUnpooledAllocator() {
+        return new AdaptiveByteBufAllocator(false);
+    }
+
+    @Override
+    protected long expectedUsedMemory(AdaptiveByteBufAllocator allocator, int capacity) {
+        return AdaptivePoolingAllocator.MIN_CHUNK_SIZE;
+    }
+
+    @Override
+    protected long expectedUsedMemoryAfterRelease(AdaptiveByteBufAllocator allocator, int capacity) {
+        // The chunk is still the current chunk of the magazine.
+        return AdaptivePoolingAllocator.MIN_CHUNK_SIZE;
+    }
+
+    @Override
+    @Test
+    public void testUnsafeHeapBufferAndUnsafeDirectBuffer() {
+        AdaptiveByteBufAllocator allocator = newUnpooledAllocator();
+        ByteBuf directBuffer = allocator.directBuffer();
+        assertInstanceOf(directBuffer, AdaptivePoolingAllocator.AdaptiveByteBuf.class);
+        assertTrue(directBuffer.isDirect());
+        directBuffer.release();
+
+        ByteBuf heapBuffer = allocator.heapBuffer();
+        assertInstanceOf(heapBuffer, AdaptivePoolingAllocator.AdaptiveByteBuf.class);
+        assertFalse(heapBuffer.isDirect());
+        heapBuffer.release();
+    }
+
+    @Test
+    public void testBuffersShareChunk() {
+        AdaptiveByteBufAllocator allocator = newAllocator(true);
+        ByteBufAllocatorMetric metric = allocator.metric();
+        List<ByteBuf> buffers = new ArrayList<ByteBuf>();
+        for (int i = 0; i < 64; i++) {
+            buffers.add(allocator.directBuffer(1024));
+        }
+        assertEquals(AdaptivePoolingAllocator.MIN_CHUNK_SIZE, metric.usedDirectMemory());
+        for (ByteBuf buffer : buffers) {
+            assertTrue(buffer.release());
+        }
+        assertEquals(AdaptivePoolingAllocator.MIN_CHUNK_SIZE, metric.usedDirectMemory());
+    }
+
+    @Test
+    public void testHugeBufferReleasedImmediately() {
+        AdaptiveByteBufAllocator allocator = newAllocator(true);
+        ByteBufAllocatorMetric metric = allocator.metric();
+        int size = AdaptivePoolingAllocator.MAX_POOLED_BUF_SIZE + 1;
+        ByteBuf buffer = allocator.directBuffer(size);
+        assertEquals(size, metric.usedDirectMemory());
+        assertTrue(buffer.release());
+        assertEquals(0, metric.usedDirectMemory());
+    }
+
+    @Test
+    public void testReallocationKeepsContent() {
+        AdaptiveByteBufAllocator allocator = newAllocator(true);
+        ByteBuf buffer = allocator.directBuffer(16);
+        for (int i = 0; i < 1024; i++) {
+            buffer.writeInt(i);
+        }
+        for (int i = 0; i < 1024; i++) {
+            assertEquals(i, buffer.readInt());
+        }
+        assertTrue(buffer.release());
+    }
+
+    @Test
+    public void testChunkReusedAfterRelease() {
+        AdaptiveByteBufAllocator allocator = newAllocator(true);
+        ByteBufAllocatorMetric metric = allocator.metric();
+        // Fill more than one chunk so the first one is retired from the magazine.
+        List<ByteBuf> buffers = new ArrayList<ByteBuf>();
+        int count = AdaptivePoolingAllocator.MIN_CHUNK_SIZE / 1024 * 3;
+        for (int i = 0; i < count; i++) {
+            buffers.add(allocator.directBuffer(1024));
+        }
+        long used = metric.usedDirectMemory();
+        for (ByteBuf buffer : buffers) {
+            assertTrue(buffer.release());
+        }
+        buffers.clear();
+
+        // The retired chunks are reused instead of allocating new memory.
+        for (int i = 0; i < count; i++) {
+            buffers.add(allocator.directBuffer(1024));
+        }
+        assertEquals(used, metric.usedDirectMemory());
+        for (ByteBuf buffer : buffers) {
+            assertTrue(buffer.release());
+        }
+    }
+
+    @Test
+    public void testReleaseFromOtherThread() throws Exception {
+        final AdaptiveByteBufAllocator allocator = newAllocator(true);
+        final List<ByteBuf> buffers = new ArrayList<ByteBuf>();
+        for (int i = 0; i < 1024; i++) {
+            buffers.add(allocator.directBuffer(512).writeLong(i));
+        }
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        final CountDownLatch latch = new CountDownLatch(1);
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (int i = 0; i < buffers.size(); i++) {
+                        ByteBuf buffer = buffers.get(i);
+                        assertEquals(i, buffer.readLong());
+                        assertTrue(buffer.release());
+                        allocator.directBuffer(512).release();
+                    }
+                } catch (Throwable cause) {
+                    error.set(cause);
+                } finally {
+                    latch.countDown();
+                }
+            }
+        });
+        thread.start();
+        latch.await();
+        assertNull(error.get());
+    }
+}
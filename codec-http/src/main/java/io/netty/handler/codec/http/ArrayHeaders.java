@@ -0,0 +1,1266 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.handler.codec.DefaultHeaders;
+import io.netty.handler.codec.Headers;
+import io.netty.handler.codec.HeadersUtils;
+import io.netty.handler.codec.ValueConverter;
+import io.netty.util.HashingStrategy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static io.netty.util.HashingStrategy.JAVA_HASHER;
+import static io.netty.util.internal.MathUtil.findNextPositivePowerOfTwo;
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+
+/**
+ * An implementation of {@link Headers} which stores the names and values in flat arrays in insertion order, and
+ * finds them through an open-addressing hash index instead of the linked {@link DefaultHeaders.HeaderEntry} objects
+ * of {@link DefaultHeaders}.
+ * <p>
+ * This needs no object per header and keeps the headers close together in memory, which makes adding headers
+ * cheaper and allocates less for messages with many headers. Removing headers leaves holes in the arrays, which are
+ * compacted once the arrays are full.
+ * <p>
+ * Unlike {@link DefaultHeaders}, the entries returned by {@link #iterator()} are created on demand and only reflect
+ * {@link Entry#setValue(Object)} until headers are added or removed afterwards. Iterating therefore allocates, which
+ * makes it slower than iterating {@link DefaultHeaders} unless the entries do not escape.
+ *
+ * @param <K> the type of the header name.
+ * @param <V> the type of the header value.
+ * @param <T> the type to use for return values when the intention is to return {@code this} object.
+ */
+class ArrayHeaders<K, V, T extends Headers<K, V, T>> implements Headers<K, V, T>, DefaultHttpHeaders.Storage<K, V> {
+    private static final int NONE = -1;
+    // The seed of DefaultHeaders, so equal headers have the same hash code whichever of both stores them.
+    private static final int HASH_CODE_SEED = 0xc2b2ae35;
+
+    private final HashingStrategy<K> hashingStrategy;
+    private final ValueConverter<V> valueConverter;
+    private final DefaultHeaders.NameValidator<K> nameValidator;
+
+    // The names and values of the headers in insertion order, interleaved. Removed headers leave a null name
+    // behind until the arrays are compacted.
+    private Object[] entries;
+    // The hash of the name and the position of the next header with the same name of every header, interleaved.
+    private int[] links;
+    // The position of the last header with the same name, only maintained for the first header of every name so
+    // adding a header does not need to walk all headers with the same name.
+    private int[] tails;
+    // Open-addressing index of the first header of every name, storing its position + 1 so 0 marks a free slot.
+    private int[] index;
+    private int indexShift;
+    private int end;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    ArrayHeaders(HashingStrategy<K> nameHashingStrategy, ValueConverter<V> valueConverter) {
+        this(nameHashingStrategy, valueConverter, DefaultHeaders.NameValidator.NOT_NULL);
+    }
+
+    ArrayHeaders(HashingStrategy<K> nameHashingStrategy,
+            ValueConverter<V> valueConverter, DefaultHeaders.NameValidator<K> nameValidator) {
+        this(nameHashingStrategy, valueConverter, nameValidator, 16);
+    }
+
+    /**
+     * Create a new instance.
+     * @param nameHashingStrategy Used to hash and equality compare names.
+     * @param valueConverter Used to convert values to/from native types.
+     * @param nameValidator Used to validate name elements.
+     * @param initialCapacity The number of headers which can be stored before the arrays need to grow.
+     */
+    ArrayHeaders(HashingStrategy<K> nameHashingStrategy,
+            ValueConverter<V> valueConverter, DefaultHeaders.NameValidator<K> nameValidator, int initialCapacity) {
+        this.valueConverter = checkNotNull(valueConverter, "valueConverter");
+        this.nameValidator = checkNotNull(nameValidator, "nameValidator");
+        this.hashingStrategy = checkNotNull(nameHashingStrategy, "nameHashingStrategy");
+        int capacity = findNextPositivePowerOfTwo(Math.max(2, initialCapacity));
+        entries = new Object[capacity << 1];
+        links = new int[capacity << 1];
+        tails = new int[capacity];
+        newIndex(capacity);
+    }
+
+    private int capacity() {
+        return entries.length >>> 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private K name(int pos) {
+        return (K) entries[pos << 1];
+    }
+
+    @SuppressWarnings("unchecked")
+    private V value(int pos) {
+        return (V) entries[(pos << 1) + 1];
+    }
+
+    private int hash(int pos) {
+        return links[pos << 1];
+    }
+
+    private int nextSameName(int pos) {
+        return links[(pos << 1) + 1];
+    }
+
+    private void newIndex(int capacity) {
+        // Keep the load factor of the index at or below 0.5.
+        index = new int[capacity << 1];
+        indexShift = Integer.numberOfLeadingZeros(index.length - 1);
+    }
+
+    private int slot(int hash) {
+        // Fibonacci hashing spreads the bits of the name hashes, which only differ in few bits for short names.
+        return (hash * 0x9E3779B9) >>> indexShift;
+    }
+
+    /**
+     * Returns the position of the first header with the given name, or {@link #NONE}.
+     */
+    private int first(int h, K name) {
+        int mask = index.length - 1;
+        for (int i = slot(h);; i = (i + 1) & mask) {
+            int pos = index[i] - 1;
+            if (pos == NONE) {
+                return NONE;
+            }
+            if (hash(pos) == h && hashingStrategy.equals(name, name(pos))) {
+                return pos;
+            }
+        }
+    }
+
+    private int indexSlot(int pos) {
+        int mask = index.length - 1;
+        int i = slot(hash(pos));
+        while (index[i] != pos + 1) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void removeSlot(int slot) {
+        // Backward shift deletion, so lookups never need to skip deleted slots.
+        int mask = index.length - 1;
+        int hole = slot;
+        for (int i = (slot + 1) & mask; index[i] != 0; i = (i + 1) & mask) {
+            int ideal = slot(hash(index[i] - 1));
+            if (((i - ideal) & mask) >= ((i - hole) & mask)) {
+                index[hole] = index[i];
+                hole = i;
+            }
+        }
+        index[hole] = 0;
+    }
+
+    private void add0(int h, K name, V value) {
+        if (end == capacity()) {
+            // Only compact if at least a quarter of the headers were removed, so adding stays amortized O(1).
+            if (end - size >= end >>> 2) {
+                compact();
+            } else {
+                grow();
+            }
+        }
+        int pos = end++;
+        entries[pos << 1] = name;
+        entries[(pos << 1) + 1] = value;
+        links[pos << 1] = h;
+        links[(pos << 1) + 1] = NONE;
+        link(pos);
+        size++;
+    }
+
+    /**
+     * Adds the header at the given position to the index, or to the end of the headers with the same name.
+     */
+    private void link(int pos) {
+        int h = hash(pos);
+        int mask = index.length - 1;
+        for (int i = slot(h);; i = (i + 1) & mask) {
+            int first = index[i] - 1;
+            if (first == NONE) {
+                index[i] = pos + 1;
+                tails[pos] = pos;
+                return;
+            }
+            if (hash(first) == h && hashingStrategy.equals(name(pos), name(first))) {
+                links[(tails[first] << 1) + 1] = pos;
+                tails[first] = pos;
+                return;
+            }
+        }
+    }
+
+    private void grow() {
+        // The positions do not change, so only the index needs to be rebuilt.
+        int capacity = capacity() << 1;
+        entries = Arrays.copyOf(entries, capacity << 1);
+        links = Arrays.copyOf(links, capacity << 1);
+        tails = Arrays.copyOf(tails, capacity);
+        newIndex(capacity);
+        int mask = index.length - 1;
+        for (int pos = 0; pos < end; pos++) {
+            K name = name(pos);
+            if (name == null) {
+                continue;
+            }
+            int h = hash(pos);
+            for (int i = slot(h);; i = (i + 1) & mask) {
+                int first = index[i] - 1;
+                if (first == NONE) {
+                    index[i] = pos + 1;
+                    break;
+                }
+                if (hash(first) == h && hashingStrategy.equals(name, name(first))) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private void compact() {
+        Object[] oldEntries = entries;
+        int[] oldLinks = links;
+        int oldEnd = end;
+        entries = new Object[oldEntries.length];
+        links = new int[oldLinks.length];
+        Arrays.fill(index, 0);
+        end = 0;
+        for (int i = 0; i < oldEnd; i++) {
+            if (oldEntries[i << 1] != null) {
+                int pos = end++;
+                entries[pos << 1] = oldEntries[i << 1];
+                entries[(pos << 1) + 1] = oldEntries[(i << 1) + 1];
+                links[pos << 1] = oldLinks[i << 1];
+                links[(pos << 1) + 1] = NONE;
+                link(pos);
+            }
+        }
+    }
+
+    private void clear(int pos) {
+        entries[pos << 1] = null;
+        entries[(pos << 1) + 1] = null;
+        size--;
+    }
+
+    /**
+     * Removes all headers with the given name and returns the value of the first one, or {@code null}.
+     */
+    private V remove0(int h, K name) {
+        int pos = first(h, name);
+        if (pos == NONE) {
+            return null;
+        }
+        removeSlot(indexSlot(pos));
+        V value = value(pos);
+        do {
+            clear(pos);
+            pos = nextSameName(pos);
+        } while (pos != NONE);
+        return value;
+    }
+
+    /**
+     * Removes the header at the given position.
+     */
+    private void removeAt(int pos) {
+        int first = first(hash(pos), name(pos));
+        int next = nextSameName(pos);
+        if (first == pos) {
+            int slot = indexSlot(pos);
+            if (next == NONE) {
+                removeSlot(slot);
+            } else {
+                index[slot] = next + 1;
+                tails[next] = tails[pos];
+            }
+        } else {
+            int previous = first;
+            while (nextSameName(previous) != pos) {
+                previous = nextSameName(previous);
+            }
+            links[(previous << 1) + 1] = next;
+            if (next == NONE) {
+                tails[first] = previous;
+            }
+        }
+        clear(pos);
+    }
+
+    @Override
+    public V get(K name) {
+        checkNotNull(name, "name");
+        int pos = first(hashingStrategy.hashCode(name), name);
+        return pos == NONE ? null : value(pos);
+    }
+
+    @Override
+    public V get(K name, V defaultValue) {
+        V value = get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        return value;
+    }
+
+    @Override
+    public V getAndRemove(K name) {
+        checkNotNull(name, "name");
+        return remove0(hashingStrategy.hashCode(name), name);
+    }
+
+    @Override
+    public V getAndRemove(K name, V defaultValue) {
+        V value = getAndRemove(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        return value;
+    }
+
+    @Override
+    public List<V> getAll(K name) {
+        checkNotNull(name, "name");
+        int pos = first(hashingStrategy.hashCode(name), name);
+        if (pos == NONE) {
+            return Collections.emptyList();
+        }
+        List<V> all = new ArrayList<V>(4);
+        do {
+            all.add(value(pos));
+            pos = nextSameName(pos);
+        } while (pos != NONE);
+        return all;
+    }
+
+    /**
+     * Equivalent to {@link #getAll(Object)} but no intermediate list is generated.
+     * @param name the name of the header to retrieve
+     * @return an {@link Iterator} of header values corresponding to {@code name}.
+     */
+    @Override
+    public Iterator<V> valueIterator(K name) {
+        checkNotNull(name, "name");
+        return new ValueIterator(first(hashingStrategy.hashCode(name), name));
+    }
+
+    @Override
+    public List<V> getAllAndRemove(K name) {
+        List<V> all = getAll(name);
+        remove(name);
+        return all;
+    }
+
+    @Override
+    public boolean contains(K name) {
+        return get(name) != null;
+    }
+
+    @Override
+    public boolean containsObject(K name, Object value) {
+        return contains(name, valueConverter.convertObject(checkNotNull(value, "value")));
+    }
+
+    @Override
+    public boolean containsBoolean(K name, boolean value) {
+        return contains(name, valueConverter.convertBoolean(value));
+    }
+
+    @Override
+    public boolean containsByte(K name, byte value) {
+        return contains(name, valueConverter.convertByte(value));
+    }
+
+    @Override
+    public boolean containsChar(K name, char value) {
+        return contains(name, valueConverter.convertChar(value));
+    }
+
+    @Override
+    public boolean containsShort(K name, short value) {
+        return contains(name, valueConverter.convertShort(value));
+    }
+
+    @Override
+    public boolean containsInt(K name, int value) {
+        return contains(name, valueConverter.convertInt(value));
+    }
+
+    @Override
+    public boolean containsLong(K name, long value) {
+        return contains(name, valueConverter.convertLong(value));
+    }
+
+    @Override
+    public boolean containsFloat(K name, float value) {
+        return contains(name, valueConverter.convertFloat(value));
+    }
+
+    @Override
+    public boolean containsDouble(K name, double value) {
+        return contains(name, valueConverter.convertDouble(value));
+    }
+
+    @Override
+    public boolean containsTimeMillis(K name, long value) {
+        return contains(name, valueConverter.convertTimeMillis(value));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean contains(K name, V value) {
+        return contains(name, value, JAVA_HASHER);
+    }
+
+    @Override
+    public final boolean contains(K name, V value, HashingStrategy<? super V> valueHashingStrategy) {
+        checkNotNull(name, "name");
+        for (int pos = first(hashingStrategy.hashCode(name), name); pos != NONE; pos = nextSameName(pos)) {
+            if (valueHashingStrategy.equals(value, value(pos))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public Set<K> names() {
+        if (isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<K> names = new LinkedHashSet<K>(size());
+        for (int pos = 0; pos < end; pos++) {
+            K name = name(pos);
+            if (name != null) {
+                names.add(name);
+            }
+        }
+        return names;
+    }
+
+    @Override
+    public T add(K name, V value) {
+        nameValidator.validateName(name);
+        checkNotNull(value, "value");
+        add0(hashingStrategy.hashCode(name), name, value);
+        return thisT();
+    }
+
+    @Override
+    public T add(K name, Iterable<? extends V> values) {
+        nameValidator.validateName(name);
+        int h = hashingStrategy.hashCode(name);
+        for (V v: values) {
+            add0(h, name, v);
+        }
+        return thisT();
+    }
+
+    @Override
+    public T add(K name, V... values) {
+        nameValidator.validateName(name);
+        int h = hashingStrategy.hashCode(name);
+        for (V v: values) {
+            add0(h, name, v);
+        }
+        return thisT();
+    }
+
+    @Override
+    public T addObject(K name, Object value) {
+        return add(name, valueConverter.convertObject(checkNotNull(value, "value")));
+    }
+
+    @Override
+    public T addObject(K name, Iterable<?> values) {
+        for (Object value : values) {
+            addObject(name, value);
+        }
+        return thisT();
+    }
+
+    @Override
+    public T addObject(K name, Object... values) {
+        for (Object value: values) {
+            addObject(name, value);
+        }
+        return thisT();
+    }
+
+    @Override
+    public T addInt(K name, int value) {
+        return add(name, valueConverter.convertInt(value));
+    }
+
+    @Override
+    public T addLong(K name, long value) {
+        return add(name, valueConverter.convertLong(value));
+    }
+
+    @Override
+    public T addDouble(K name, double value) {
+        return add(name, valueConverter.convertDouble(value));
+    }
+
+    @Override
+    public T addTimeMillis(K name, long value) {
+        return add(name, valueConverter.convertTimeMillis(value));
+    }
+
+    @Override
+    public T addChar(K name, char value) {
+        return add(name, valueConverter.convertChar(value));
+    }
+
+    @Override
+    public T addBoolean(K name, boolean value) {
+        return add(name, valueConverter.convertBoolean(value));
+    }
+
+    @Override
+    public T addFloat(K name, float value) {
+        return add(name, valueConverter.convertFloat(value));
+    }
+
+    @Override
+    public T addByte(K name, byte value) {
+        return add(name, valueConverter.convertByte(value));
+    }
+
+    @Override
+    public T addShort(K name, short value) {
+        return add(name, valueConverter.convertShort(value));
+    }
+
+    @Override
+    public T add(Headers<? extends K, ? extends V, ?> headers) {
+        if (headers == this) {
+            throw new IllegalArgumentException("can't add to itself.");
+        }
+        addImpl(headers);
+        return thisT();
+    }
+
+    protected void addImpl(Headers<? extends K, ? extends V, ?> headers) {
+        if (headers instanceof ArrayHeaders) {
+            @SuppressWarnings("unchecked")
+            final ArrayHeaders<? extends K, ? extends V, ?> arrayHeaders =
+                    (ArrayHeaders<? extends K, ? extends V, ?>) headers;
+            boolean fastest = arrayHeaders.hashingStrategy == hashingStrategy &&
+                    arrayHeaders.nameValidator == nameValidator;
+            for (int pos = 0; pos < arrayHeaders.end; pos++) {
+                K name = arrayHeaders.name(pos);
+                if (name != null) {
+                    V value = arrayHeaders.value(pos);
+                    if (fastest) {
+                        add0(arrayHeaders.hash(pos), name, value);
+                    } else {
+                        add(name, value);
+                    }
+                }
+            }
+        } else {
+            for (Entry<? extends K, ? extends V> header : headers) {
+                add(header.getKey(), header.getValue());
+            }
+        }
+    }
+
+    @Override
+    public T set(K name, V value) {
+        nameValidator.validateName(name);
+        checkNotNull(value, "value");
+        int h = hashingStrategy.hashCode(name);
+        remove0(h, name);
+        add0(h, name, value);
+        return thisT();
+    }
+
+    @Override
+    public T set(K name, Iterable<? extends V> values) {
+        nameValidator.validateName(name);
+        checkNotNull(values, "values");
+
+        int h = hashingStrategy.hashCode(name);
+        remove0(h, name);
+        for (V v: values) {
+            if (v == null) {
+                break;
+            }
+            add0(h, name, v);
+        }
+
+        return thisT();
+    }
+
+    @Override
+    public T set(K name, V... values) {
+        nameValidator.validateName(name);
+        checkNotNull(values, "values");
+
+        int h = hashingStrategy.hashCode(name);
+        remove0(h, name);
+        for (V v: values) {
+            if (v == null) {
+                break;
+            }
+            add0(h, name, v);
+        }
+
+        return thisT();
+    }
+
+    @Override
+    public T setObject(K name, Object value) {
+        checkNotNull(value, "value");
+        V convertedValue = checkNotNull(valueConverter.convertObject(value), "convertedValue");
+        return set(name, convertedValue);
+    }
+
+    @Override
+    public T setObject(K name, Iterable<?> values) {
+        nameValidator.validateName(name);
+
+        int h = hashingStrategy.hashCode(name);
+        remove0(h, name);
+        for (Object v: values) {
+            if (v == null) {
+                break;
+            }
+            add0(h, name, valueConverter.convertObject(v));
+        }
+
+        return thisT();
+    }
+
+    @Override
+    public T setObject(K name, Object... values) {
+        nameValidator.validateName(name);
+
+        int h = hashingStrategy.hashCode(name);
+        remove0(h, name);
+        for (Object v: values) {
+            if (v == null) {
+                break;
+            }
+            add0(h, name, valueConverter.convertObject(v));
+        }
+
+        return thisT();
+    }
+
+    @Override
+    public T setInt(K name, int value) {
+        return set(name, valueConverter.convertInt(value));
+    }
+
+    @Override
+    public T setLong(K name, long value) {
+        return set(name, valueConverter.convertLong(value));
+    }
+
+    @Override
+    public T setDouble(K name, double value) {
+        return set(name, valueConverter.convertDouble(value));
+    }
+
+    @Override
+    public T setTimeMillis(K name, long value) {
+        return set(name, valueConverter.convertTimeMillis(value));
+    }
+
+    @Override
+    public T setFloat(K name, float value) {
+        return set(name, valueConverter.convertFloat(value));
+    }
+
+    @Override
+    public T setChar(K name, char value) {
+        return set(name, valueConverter.convertChar(value));
+    }
+
+    @Override
+    public T setBoolean(K name, boolean value) {
+        return set(name, valueConverter.convertBoolean(value));
+    }
+
+    @Override
+    public T setByte(K name, byte value) {
+        return set(name, valueConverter.convertByte(value));
+    }
+
+    @Override
+    public T setShort(K name, short value) {
+        return set(name, valueConverter.convertShort(value));
+    }
+
+    @Override
+    public T set(Headers<? extends K, ? extends V, ?> headers) {
+        if (headers != this) {
+            clear();
+            addImpl(headers);
+        }
+        return thisT();
+    }
+
+    @Override
+    public T setAll(Headers<? extends K, ? extends V, ?> headers) {
+        if (headers != this) {
+            for (K key : headers.names()) {
+                remove(key);
+            }
+            addImpl(headers);
+        }
+        return thisT();
+    }
+
+    @Override
+    public boolean remove(K name) {
+        return getAndRemove(name) != null;
+    }
+
+    @Override
+    public T clear() {
+        Arrays.fill(entries, 0, end << 1, null);
+        Arrays.fill(index, 0);
+        end = 0;
+        size = 0;
+        return thisT();
+    }
+
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+        return new HeaderIterator();
+    }
+
+    @Override
+    public Boolean getBoolean(K name) {
+        V v = get(name);
+        try {
+            return v != null ? valueConverter.convertToBoolean(v) : null;
+        } catch (RuntimeException ignore) {
+            return null;
+        }
+    }
+
+    @Override
+    public boolean getBoolean(K name, boolean defaultValue) {
+        Boolean v = getBoolean(name);
+        return v != null ? v : defaultValue;
+    }
+
+    @Override
+    public Byte getByte(K name) {
+        V v = get(name);
+        try {
+            return v != null ? valueConverter.convertToByte(v) : null;
+        } catch (RuntimeException ignore) {
+            return null;
+        }
+    }
+
+    @Override
+    public byte getByte(K name, byte defaultValue) {
+        Byte v = getByte(name);
+        return v != null ? v : defaultValue;
+    }
+
+    @Override
+    public Character getChar(K name) {
+        V v = get(name);
+        try {
+            return v != null ? valueConverter.convertToChar(v) : null;
+        } catch (RuntimeException ignore) {
+            return null;
+        }
+    }
+
+    @Override
+    public char getChar(K name, char defaultValue) {
+        Character v = getChar(name);
+        return v != null ? v : defaultValue;
+    }
+
+    @Override
+    public Short getShort(K name) {
+        V v = get(name);
+        try {
+            return v != null ? valueConverter.convertToShort(v) : null;
+        } catch (RuntimeException ignore) {
+            return null;
+        }
+    }
+
+    @Override
+    public short getShort(K name, short defaultValue) {
+        Short v = getShort(name);
+        return v != null ? v : defaultValue;
+    }
+
+    @Override
+    public Integer getInt(K name) {
+        V v = get(name);
+        try {
+            return v != null ? valueConverter.convertToInt(v) : null;
+        } catch (RuntimeException ignore) {
+            return null;
+        }
+    }
+
+    @Override
+    public int getInt(K name, int defaultValue) {
+        Integer v = getInt(name);
+        return v != null ? v : defaultValue;
+    }
+
+    @Override
+    public Long getLong(K name) {
+        V v = get(name);
+        try {
+            return v != null ? valueConverter.convertToLong(v) : null;
+        } catch (RuntimeException ignore) {
+            return null;
+        }
+    }
+
+    @Override
+    public long getLong(K name, long defaultValue) {
+        Long v = getLong(name);
+        return v != null ? v : defaultValue;
+    }
+
+    @Override
+    public Float getFloat(K name) {
+        V v = get(name);
+        try {
+            return v != null ? valueConverter.convertToFloat(v) : null;
+        } catch (RuntimeException ignore) {
+            return null;
+        }
+    }
+
+    @Override
+    public float getFloat(K name, float defaultValue) {
+        Float v = getFloat(name);
+        return v != null ? v : defaultValue;
+    }
+
+    @Override
+    public Double getDouble(K name) {
+        V v = get(name);
+        try {
+            return v != null ? valueConverter.convertToDouble(v) : null;
+        } catch (RuntimeException ignore) {
+            return null;
+        }
+    }
+
+    @Override
+    public double getDouble(K name, double defaultValue) {
+        Double v = getDouble(name);
+        return v != null ? v : defaultValue;
+    }
+
+    @Override
+    public Long getTimeMillis(K name) {
+        V v = get(name);
+        try {
+            return v != null ? valueConverter.convertToTimeMillis(v) : null;
+        } catch (RuntimeException ignore) {
+            return null;
+        }
+    }
+
+    @Override
+    public long getTimeMillis(K name, long defaultValue) {
+        Long v = getTimeMillis(name);
+        return v != null ? v : defaultValue;
+    }
+
+    @Override
+    public Boolean getBooleanAndRemove(K name) {
+        V v = getAndRemove(name);
+        try {
+            return v != null ? valueConverter.convertToBoolean(v) : null;
+        } catch (RuntimeException ignore) {
+            return null;
+        }
+    }
+
+    @Override
+    public boolean getBooleanAndRemove(K name, boolean defaultValue) {
+        Boolean v = getBooleanAndRemove(name);
+        return v != null ? v : defaultValue;
+    }
+
+    @Override
+    public Byte getByteAndRemove(K name) {
+        V v = getAndRemove(name);
+        try {
+            return v != null ? valueConverter.convertToByte(v) : null;
+        } catch (RuntimeException ignore) {
+            return null;
+        }
+    }
+
+    @Override
+    public byte getByteAndRemove(K name, byte defaultValue) {
+        Byte v = getByteAndRemove(name);
+        return v != null ? v : defaultValue;
+    }
+
+    @Override
+    public Character getCharAndRemove(K name) {
+        V v = getAndRemove(name);
+        try {
+            return v != null ? valueConverter.convertToChar(v) : null;
+        } catch (RuntimeException ignore) {
+            return null;
+        }
+    }
+
+    @Override
+    public char getCharAndRemove(K name, char defaultValue) {
+        Character v = getCharAndRemove(name);
+        return v != null ? v : defaultValue;
+    }
+
+    @Override
+    public Short getShortAndRemove(K name) {
+        V v = getAndRemove(name);
+        try {
+            return v != null ? valueConverter.convertToShort(v) : null;
+        } catch (RuntimeException ignore) {
+            return null;
+        }
+    }
+
+    @Override
+    public short getShortAndRemove(K name, short defaultValue) {
+        Short v = getShortAndRemove(name);
+        return v != null ? v : defaultValue;
+    }
+
+    @Override
+    public Integer getIntAndRemove(K name) {
+        V v = getAndRemove(name);
+        try {
+            return v != null ? valueConverter.convertToInt(v) : null;
+        } catch (RuntimeException ignore) {
+            return null;
+        }
+    }
+
+    @Override
+    public int getIntAndRemove(K name, int defaultValue) {
+        Integer v = getIntAndRemove(name);
+        return v != null ? v : defaultValue;
+    }
+
+    @Override
+    public Long getLongAndRemove(K name) {
+        V v = getAndRemove(name);
+        try {
+            return v != null ? valueConverter.convertToLong(v) : null;
+        } catch (RuntimeException ignore) {
+            return null;
+        }
+    }
+
+    @Override
+    public long getLongAndRemove(K name, long defaultValue) {
+        Long v = getLongAndRemove(name);
+        return v != null ? v : defaultValue;
+    }
+
+    @Override
+    public Float getFloatAndRemove(K name) {
+        V v = getAndRemove(name);
+        try {
+            return v != null ? valueConverter.convertToFloat(v) : null;
+        } catch (RuntimeException ignore) {
+            return null;
+        }
+    }
+
+    @Override
+    public float getFloatAndRemove(K name, float defaultValue) {
+        Float v = getFloatAndRemove(name);
+        return v != null ? v : defaultValue;
+    }
+
+    @Override
+    public Double getDoubleAndRemove(K name) {
+        V v = getAndRemove(name);
+        try {
+            return v != null ? valueConverter.convertToDouble(v) : null;
+        } catch (RuntimeException ignore) {
+            return null;
+        }
+    }
+
+    @Override
+    public double getDoubleAndRemove(K name, double defaultValue) {
+        Double v = getDoubleAndRemove(name);
+        return v != null ? v : defaultValue;
+    }
+
+    @Override
+    public Long getTimeMillisAndRemove(K name) {
+        V v = getAndRemove(name);
+        try {
+            return v != null ? valueConverter.convertToTimeMillis(v) : null;
+        } catch (RuntimeException ignore) {
+            return null;
+        }
+    }
+
+    @Override
+    public long getTimeMillisAndRemove(K name, long defaultValue) {
+        Long v = getTimeMillisAndRemove(name);
+        return v != null ? v : defaultValue;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Headers)) {
+            return false;
+        }
+
+        return equals((Headers<K, V, ?>) o, JAVA_HASHER);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public int hashCode() {
+        return hashCode(JAVA_HASHER);
+    }
+
+    /**
+     * Test this object for equality against {@code h2}.
+     * @param h2 The object to check equality for.
+     * @param valueHashingStrategy Defines how values will be compared for equality.
+     * @return {@code true} if this object equals {@code h2} given {@code valueHashingStrategy}.
+     * {@code false} otherwise.
+     */
+    @Override
+    public final boolean equals(Headers<K, V, ?> h2, HashingStrategy<V> valueHashingStrategy) {
+        if (h2.size() != size()) {
+            return false;
+        }
+
+        if (this == h2) {
+            return true;
+        }
+
+        for (K name : names()) {
+            List<V> otherValues = h2.getAll(name);
+            List<V> values = getAll(name);
+            if (otherValues.size() != values.size()) {
+                return false;
+            }
+            for (int i = 0; i < otherValues.size(); i++) {
+                if (!valueHashingStrategy.equals(otherValues.get(i), values.get(i))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Generate a hash code for this object given a {@link HashingStrategy} to generate hash codes for
+     * individual values.
+     * @param valueHashingStrategy Defines how values will be hashed.
+     */
+    @Override
+    public final int hashCode(HashingStrategy<V> valueHashingStrategy) {
+        int result = HASH_CODE_SEED;
+        for (K name : names()) {
+            result = 31 * result + hashingStrategy.hashCode(name);
+            List<V> values = getAll(name);
+            for (int i = 0; i < values.size(); ++i) {
+                result = 31 * result + valueHashingStrategy.hashCode(values.get(i));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return HeadersUtils.toString(getClass(), iterator(), size());
+    }
+
+    protected ValueConverter<V> valueConverter() {
+        return valueConverter;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T thisT() {
+        return (T) this;
+    }
+
+    /**
+     * Returns a deep copy of this instance.
+     */
+    @Override
+    public ArrayHeaders<K, V, T> copy() {
+        ArrayHeaders<K, V, T> copy = new ArrayHeaders<K, V, T>(
+                hashingStrategy, valueConverter, nameValidator, Math.max(size, 2));
+        copy.addImpl(this);
+        return copy;
+    }
+
+    private final class HeaderIterator implements Iterator<Entry<K, V>> {
+        private int next = nextPosition(0);
+
+        @Override
+        public boolean hasNext() {
+            return next < end;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int pos = next;
+            next = nextPosition(pos + 1);
+            return new HeaderEntry(pos);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("read only");
+        }
+
+        private int nextPosition(int pos) {
+            while (pos < end && name(pos) == null) {
+                pos++;
+            }
+            return pos;
+        }
+    }
+
+    private final class HeaderEntry implements Entry<K, V> {
+        private final int pos;
+        private final K key;
+        private V value;
+
+        HeaderEntry(int pos) {
+            this.pos = pos;
+            key = name(pos);
+            value = value(pos);
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            checkNotNull(value, "value");
+            V oldValue = this.value;
+            this.value = value;
+            if (pos < end && name(pos) == key) {
+                entries[(pos << 1) + 1] = value;
+            }
+            return oldValue;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry<?, ?> other = (Entry<?, ?>) o;
+            return (key == null ? other.getKey() == null : key.equals(other.getKey())) &&
+                   (value == null ? other.getValue() == null : value.equals(other.getValue()));
+        }
+
+        @Override
+        public int hashCode() {
+            return (key == null ? 0 : key.hashCode()) ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return key.toString() + '=' + value.toString();
+        }
+    }
+
+    private final class ValueIterator implements Iterator<V> {
+        private int previous = NONE;
+        private int next;
+
+        ValueIterator(int first) {
+            next = first;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != NONE;
+        }
+
+        @Override
+        public V next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            previous = next;
+            next = nextSameName(next);
+            return value(previous);
+        }
+
+        @Override
+        public void remove() {
+            if (previous == NONE) {
+                throw new IllegalStateException();
+            }
+            removeAt(previous);
+            previous = NONE;
+        }
+    }
+}
@@ -47,7 +47,8 @@ public class CombinedHttpHeaders extends DefaultHttpHeaders {
     }
 
     private static final class CombinedHttpHeadersImpl
-            extends DefaultHeaders<CharSequence, CharSequence, CombinedHttpHeadersImpl> {
+            extends DefaultHeaders<CharSequence, CharSequence, CombinedHttpHeadersImpl>
+            implements DefaultHttpHeaders.Storage<CharSequence, CharSequence> {
         /**
          * An estimate of the size of a header value.
          */
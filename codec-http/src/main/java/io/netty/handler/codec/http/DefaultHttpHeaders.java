@@ -19,11 +19,12 @@ import io.netty.handler.codec.CharSequenceValueConverter;
 import io.netty.handler.codec.DateFormatter;
 import io.netty.handler.codec.DefaultHeaders;
 import io.netty.handler.codec.DefaultHeaders.NameValidator;
-import io.netty.handler.codec.DefaultHeadersImpl;
+import io.netty.handler.codec.Headers;
 import io.netty.handler.codec.HeadersUtils;
 import io.netty.handler.codec.ValueConverter;
 import io.netty.util.AsciiString;
 import io.netty.util.ByteProcessor;
+import io.netty.util.HashingStrategy;
 import io.netty.util.internal.PlatformDependent;
 
 import java.util.ArrayList;
@@ -72,7 +73,8 @@ public class DefaultHttpHeaders extends HttpHeaders {
         }
     };
 
-    private final DefaultHeaders<CharSequence, CharSequence, ?> headers;
+    private final Headers<CharSequence, CharSequence, ?> headers;
+    private final Storage<CharSequence, CharSequence> storage;
 
     public DefaultHttpHeaders() {
         this(true);
@@ -95,13 +97,39 @@ public class DefaultHttpHeaders extends HttpHeaders {
     }
 
     protected DefaultHttpHeaders(boolean validate, NameValidator<CharSequence> nameValidator) {
-        this(new DefaultHeadersImpl<CharSequence, CharSequence>(CASE_INSENSITIVE_HASHER,
-                                                                valueConverter(validate),
-                                                                nameValidator));
+        this(new DefaultHeadersImpl(valueConverter(validate), nameValidator));
     }
 
     protected DefaultHttpHeaders(DefaultHeaders<CharSequence, CharSequence, ?> headers) {
+        this(headers, storage(headers));
+    }
+
+    private DefaultHttpHeaders(Headers<CharSequence, CharSequence, ?> headers,
+                               Storage<CharSequence, CharSequence> storage) {
         this.headers = headers;
+        this.storage = storage;
+    }
+
+    /**
+     * Create a new instance which stores the headers in an {@link ArrayHeaders}.
+     *
+     * @see DefaultHttpHeadersFactory#withArrayStorage(boolean)
+     */
+    static DefaultHttpHeaders newArrayHeaders(boolean validate) {
+        ArrayHeadersImpl headers = new ArrayHeadersImpl(validate);
+        return new DefaultHttpHeaders(headers, headers);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Storage<CharSequence, CharSequence> storage(Headers<CharSequence, CharSequence, ?> headers) {
+        return headers instanceof Storage ? (Storage<CharSequence, CharSequence>) headers
+                : new DefaultHeadersStorage<CharSequence, CharSequence>(
+                        (DefaultHeaders<CharSequence, CharSequence, ?>) headers);
+    }
+
+    // Package-private for testing
+    boolean isArrayStorage() {
+        return headers instanceof ArrayHeaders;
     }
 
     @Override
@@ -311,7 +339,7 @@ public class DefaultHttpHeaders extends HttpHeaders {
 
     @Override
     public Iterator<CharSequence> valueCharSequenceIterator(CharSequence name) {
-        return headers.valueIterator(name);
+        return storage.valueIterator(name);
     }
 
     @Override
@@ -341,7 +369,7 @@ public class DefaultHttpHeaders extends HttpHeaders {
 
     @Override
     public boolean contains(CharSequence name, CharSequence value, boolean ignoreCase) {
-        return headers.contains(name, value, ignoreCase ? CASE_INSENSITIVE_HASHER : CASE_SENSITIVE_HASHER);
+        return storage.contains(name, value, ignoreCase ? CASE_INSENSITIVE_HASHER : CASE_SENSITIVE_HASHER);
     }
 
     @Override
@@ -352,17 +380,18 @@ public class DefaultHttpHeaders extends HttpHeaders {
     @Override
     public boolean equals(Object o) {
         return o instanceof DefaultHttpHeaders
-                && headers.equals(((DefaultHttpHeaders) o).headers, CASE_SENSITIVE_HASHER);
+                && storage.equals(((DefaultHttpHeaders) o).headers, CASE_SENSITIVE_HASHER);
     }
 
     @Override
     public int hashCode() {
-        return headers.hashCode(CASE_SENSITIVE_HASHER);
+        return storage.hashCode(CASE_SENSITIVE_HASHER);
     }
 
     @Override
     public HttpHeaders copy() {
-        return new DefaultHttpHeaders(headers.copy());
+        Headers<CharSequence, CharSequence, ?> copy = storage.copy();
+        return new DefaultHttpHeaders(copy, storage(copy));
     }
 
     private static void validateHeaderNameElement(byte value) {
@@ -423,6 +452,74 @@ public class DefaultHttpHeaders extends HttpHeaders {
         return validate ? HttpNameValidator : NameValidator.NOT_NULL;
     }
 
+    /**
+     * The operations of the storage which are not part of {@link Headers}. {@link ArrayHeaders} and the
+     * {@link DefaultHeaders} created by this package implement it with the methods they already have, any other
+     * {@link DefaultHeaders} is wrapped in a {@link DefaultHeadersStorage}.
+     */
+    interface Storage<K, V> {
+        Iterator<V> valueIterator(K name);
+
+        boolean contains(K name, V value, HashingStrategy<? super V> valueHashingStrategy);
+
+        boolean equals(Headers<K, V, ?> h2, HashingStrategy<V> valueHashingStrategy);
+
+        int hashCode(HashingStrategy<V> valueHashingStrategy);
+
+        Headers<K, V, ?> copy();
+    }
+
+    /**
+     * The {@link Storage} of a {@link DefaultHeaders} which does not declare it, like the copy of one.
+     */
+    private static final class DefaultHeadersStorage<K, V> implements Storage<K, V> {
+        private final DefaultHeaders<K, V, ?> headers;
+
+        DefaultHeadersStorage(DefaultHeaders<K, V, ?> headers) {
+            this.headers = headers;
+        }
+
+        @Override
+        public Iterator<V> valueIterator(K name) {
+            return headers.valueIterator(name);
+        }
+
+        @Override
+        public boolean contains(K name, V value, HashingStrategy<? super V> valueHashingStrategy) {
+            return headers.contains(name, value, valueHashingStrategy);
+        }
+
+        @Override
+        public boolean equals(Headers<K, V, ?> h2, HashingStrategy<V> valueHashingStrategy) {
+            return headers.equals(h2, valueHashingStrategy);
+        }
+
+        @Override
+        public int hashCode(HashingStrategy<V> valueHashingStrategy) {
+            return headers.hashCode(valueHashingStrategy);
+        }
+
+        @Override
+        public Headers<K, V, ?> copy() {
+            return headers.copy();
+        }
+    }
+
+    private static final class DefaultHeadersImpl
+            extends DefaultHeaders<CharSequence, CharSequence, DefaultHeadersImpl>
+            implements Storage<CharSequence, CharSequence> {
+        DefaultHeadersImpl(ValueConverter<CharSequence> valueConverter, NameValidator<CharSequence> nameValidator) {
+            super(CASE_INSENSITIVE_HASHER, valueConverter, nameValidator);
+        }
+    }
+
+    private static final class ArrayHeadersImpl extends ArrayHeaders<CharSequence, CharSequence, ArrayHeadersImpl> {
+        ArrayHeadersImpl(boolean validate) {
+            super(CASE_INSENSITIVE_HASHER, DefaultHttpHeaders.valueConverter(validate),
+                    DefaultHttpHeaders.nameValidator(validate));
+        }
+    }
+
     private static class HeaderValueConverter extends CharSequenceValueConverter {
         static final HeaderValueConverter INSTANCE = new HeaderValueConverter();
 
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+/**
+ * Creates {@link DefaultHttpHeaders} with a given configuration, so that the configuration can be chosen once and
+ * passed to the code which creates the headers.
+ * <pre>
+ * DefaultHttpHeadersFactory factory = DefaultHttpHeadersFactory.headersFactory().withArrayStorage(true);
+ * HttpResponse response = new DefaultHttpResponse(HTTP_1_1, OK, factory.newHeaders());
+ * </pre>
+ * The headers of decoded messages are created by the factory passed to {@link HttpRequestDecoder},
+ * {@link HttpResponseDecoder} or {@link HttpServerCodec}.
+ * Instances are immutable, every {@code with...} method returns a new factory.
+ */
+public final class DefaultHttpHeadersFactory {
+    private static final DefaultHttpHeadersFactory DEFAULT = new DefaultHttpHeadersFactory(true, false);
+
+    private final boolean validate;
+    private final boolean arrayStorage;
+
+    private DefaultHttpHeadersFactory(boolean validate, boolean arrayStorage) {
+        this.validate = validate;
+        this.arrayStorage = arrayStorage;
+    }
+
+    /**
+     * Returns the factory which creates the same headers as {@link DefaultHttpHeaders#DefaultHttpHeaders()}.
+     */
+    public static DefaultHttpHeadersFactory headersFactory() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns a factory which validates the headers or not.
+     *
+     * @see DefaultHttpHeaders#DefaultHttpHeaders(boolean)
+     */
+    public DefaultHttpHeadersFactory withValidation(boolean validate) {
+        if (validate == this.validate) {
+            return this;
+        }
+        return new DefaultHttpHeadersFactory(validate, arrayStorage);
+    }
+
+    /**
+     * Returns a factory which stores the headers in flat arrays or in a {@link io.netty.handler.codec.DefaultHeaders}.
+     * <p>
+     * The array storage needs no object per header and finds headers through an open-addressing index, which is
+     * faster for messages with many headers.
+     */
+    public DefaultHttpHeadersFactory withArrayStorage(boolean arrayStorage) {
+        if (arrayStorage == this.arrayStorage) {
+            return this;
+        }
+        return new DefaultHttpHeadersFactory(validate, arrayStorage);
+    }
+
+    /**
+     * Returns {@code true} if the created headers are validated.
+     */
+    public boolean isValidating() {
+        return validate;
+    }
+
+    /**
+     * Returns {@code true} if the created headers use the array storage.
+     */
+    public boolean isArrayStorage() {
+        return arrayStorage;
+    }
+
+    /**
+     * Creates new, empty headers.
+     */
+    public DefaultHttpHeaders newHeaders() {
+        return arrayStorage ? DefaultHttpHeaders.newArrayHeaders(validate) : new DefaultHttpHeaders(validate);
+    }
+}
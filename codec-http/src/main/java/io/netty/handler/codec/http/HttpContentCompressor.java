@@ -15,10 +15,21 @@
  */
 package io.netty.handler.codec.http;
 
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.Brotli;
+import io.netty.handler.codec.compression.BrotliEncoder;
+import io.netty.handler.codec.compression.BrotliOptions;
+import io.netty.handler.codec.compression.CompressionOptions;
+import io.netty.handler.codec.compression.DeflateOptions;
+import io.netty.handler.codec.compression.GzipOptions;
+import io.netty.handler.codec.compression.StandardCompressionOptions;
 import io.netty.handler.codec.compression.ZlibCodecFactory;
 import io.netty.handler.codec.compression.ZlibWrapper;
+import io.netty.handler.codec.compression.Zstd;
+import io.netty.handler.codec.compression.ZstdEncoder;
+import io.netty.handler.codec.compression.ZstdOptions;
 import io.netty.util.internal.ObjectUtil;
 
 /**
@@ -27,12 +38,22 @@ import io.netty.util.internal.ObjectUtil;
  * If there is no matching encoding, no compression is done.  For more
  * information on how this handler modifies the message, please refer to
  * {@link HttpContentEncoder}.
+ * <p>
+ * Handlers created via {@link #HttpContentCompressor(int, CompressionOptions...)} compress in the encodings of
+ * the given {@link CompressionOptions} instead, which may include {@code br} and {@code zstd} if their native
+ * libraries are {@linkplain Brotli#isAvailable() available}.
+ * <p>
+ * Responses which already have a {@code "Content-Encoding"} header are passed through unchanged, so pre-compressed
+ * content can be served by setting the header. {@link #determineEncoding(String)} can be used to pick the variant
+ * the client prefers.
  */
 public class HttpContentCompressor extends HttpContentEncoder {
 
-    private final int compressionLevel;
-    private final int windowBits;
-    private final int memLevel;
+    private final boolean supportsCompressionOptions;
+    private final BrotliOptions brotliOptions;
+    private final GzipOptions gzipOptions;
+    private final DeflateOptions deflateOptions;
+    private final ZstdOptions zstdOptions;
     private final int contentSizeThreshold;
     private ChannelHandlerContext ctx;
 
@@ -104,10 +125,76 @@ public class HttpContentCompressor extends HttpContentEncoder {
      *        number. {@code 0} will enable compression for all responses.
      */
     public HttpContentCompressor(int compressionLevel, int windowBits, int memLevel, int contentSizeThreshold) {
-        this.compressionLevel = ObjectUtil.checkInRange(compressionLevel, 0, 9, "compressionLevel");
-        this.windowBits = ObjectUtil.checkInRange(windowBits, 9, 15, "windowBits");
-        this.memLevel = ObjectUtil.checkInRange(memLevel, 1, 9, "memLevel");
         this.contentSizeThreshold = ObjectUtil.checkPositiveOrZero(contentSizeThreshold, "contentSizeThreshold");
+        gzipOptions = StandardCompressionOptions.gzip(compressionLevel, windowBits, memLevel);
+        deflateOptions = StandardCompressionOptions.deflate(compressionLevel, windowBits, memLevel);
+        brotliOptions = null;
+        zstdOptions = null;
+        supportsCompressionOptions = false;
+    }
+
+    /**
+     * Creates a new handler which compresses in the encodings of the given {@link CompressionOptions}.
+     *
+     * @param compressionOptions
+     *        the {@link CompressionOptions} of the encodings which may be used. Options of an encoding which is not
+     *        available at runtime are ignored.
+     */
+    public HttpContentCompressor(CompressionOptions... compressionOptions) {
+        this(0, compressionOptions);
+    }
+
+    /**
+     * Creates a new handler which compresses in the encodings of the given {@link CompressionOptions}.
+     *
+     * @param contentSizeThreshold
+     *        The response body is compressed when the size of the response
+     *        body exceeds the threshold. The value should be a non negative
+     *        number. {@code 0} will enable compression for all responses.
+     * @param compressionOptions
+     *        the {@link CompressionOptions} of the encodings which may be used. If none are given, all encodings
+     *        which are available at runtime are used with their default options. Options of an encoding which is
+     *        not available at runtime are ignored.
+     */
+    public HttpContentCompressor(int contentSizeThreshold, CompressionOptions... compressionOptions) {
+        this.contentSizeThreshold = ObjectUtil.checkPositiveOrZero(contentSizeThreshold, "contentSizeThreshold");
+        ObjectUtil.checkNotNull(compressionOptions, "compressionOptions");
+        if (compressionOptions.length == 0) {
+            compressionOptions = new CompressionOptions[] {
+                    StandardCompressionOptions.brotli(),
+                    StandardCompressionOptions.gzip(),
+                    StandardCompressionOptions.deflate(),
+                    StandardCompressionOptions.zstd()
+            };
+        }
+        BrotliOptions brotliOptions = null;
+        GzipOptions gzipOptions = null;
+        DeflateOptions deflateOptions = null;
+        ZstdOptions zstdOptions = null;
+        for (CompressionOptions options : compressionOptions) {
+            ObjectUtil.checkNotNull(options, "compressionOptions");
+            if (options instanceof BrotliOptions) {
+                if (Brotli.isAvailable()) {
+                    brotliOptions = (BrotliOptions) options;
+                }
+            } else if (options instanceof GzipOptions) {
+                gzipOptions = (GzipOptions) options;
+            } else if (options instanceof DeflateOptions) {
+                deflateOptions = (DeflateOptions) options;
+            } else if (options instanceof ZstdOptions) {
+                if (Zstd.isAvailable()) {
+                    zstdOptions = (ZstdOptions) options;
+                }
+            } else {
+                throw new IllegalArgumentException("Unsupported " + CompressionOptions.class.getSimpleName() +
+                        ": " + options);
+            }
+        }
+        this.brotliOptions = brotliOptions;
+        this.gzipOptions = gzipOptions;
+        this.deflateOptions = deflateOptions;
+        this.zstdOptions = zstdOptions;
+        supportsCompressionOptions = true;
     }
 
     @Override
@@ -131,6 +218,14 @@ public class HttpContentCompressor extends HttpContentEncoder {
             return null;
         }
 
+        if (supportsCompressionOptions) {
+            String targetContentEncoding = determineEncoding(acceptEncoding);
+            if (targetContentEncoding == null) {
+                return null;
+            }
+            return new Result(targetContentEncoding, newEncoderChannel(targetContentEncoding));
+        }
+
         ZlibWrapper wrapper = determineWrapper(acceptEncoding);
         if (wrapper == null) {
             return null;
@@ -148,11 +243,105 @@ public class HttpContentCompressor extends HttpContentEncoder {
             throw new Error();
         }
 
-        return new Result(
-                targetContentEncoding,
-                new EmbeddedChannel(ctx.channel().id(), ctx.channel().metadata().hasDisconnect(),
-                        ctx.channel().config(), ZlibCodecFactory.newZlibEncoder(
-                        wrapper, compressionLevel, windowBits, memLevel)));
+        return new Result(targetContentEncoding, newEncoderChannel(targetContentEncoding));
+    }
+
+    private EmbeddedChannel newEncoderChannel(String targetContentEncoding) {
+        ChannelHandler encoder;
+        if ("br".equals(targetContentEncoding)) {
+            encoder = new BrotliEncoder(brotliOptions.quality(), brotliOptions.window());
+        } else if ("zstd".equals(targetContentEncoding)) {
+            encoder = new ZstdEncoder(zstdOptions.compressionLevel(), zstdOptions.blockSize());
+        } else if ("gzip".equals(targetContentEncoding)) {
+            encoder = ZlibCodecFactory.newZlibEncoder(ZlibWrapper.GZIP, gzipOptions.compressionLevel(),
+                    gzipOptions.windowBits(), gzipOptions.memLevel());
+        } else {
+            encoder = ZlibCodecFactory.newZlibEncoder(ZlibWrapper.ZLIB, deflateOptions.compressionLevel(),
+                    deflateOptions.windowBits(), deflateOptions.memLevel());
+        }
+        return new EmbeddedChannel(ctx.channel().id(), ctx.channel().metadata().hasDisconnect(),
+                ctx.channel().config(), encoder);
+    }
+
+    /**
+     * Returns the encoding in which the response is compressed for the given {@code "Accept-Encoding"} header, or
+     * {@code null} if it is not compressed. Only the encodings of the {@link CompressionOptions} which were given to
+     * the constructor are considered, and among the encodings with the highest quality value {@code br} is preferred
+     * over {@code zstd}, {@code gzip} and {@code deflate} in this order.
+     * <p>
+     * This method is only used by handlers created with {@link CompressionOptions}, others use
+     * {@link #determineWrapper(String)}.
+     */
+    @SuppressWarnings("FloatingPointEquality")
+    public String determineEncoding(String acceptEncoding) {
+        float starQ = -1.0f;
+        float brQ = -1.0f;
+        float zstdQ = -1.0f;
+        float gzipQ = -1.0f;
+        float deflateQ = -1.0f;
+        for (String encoding : acceptEncoding.split(",")) {
+            float q = 1.0f;
+            int equalsPos = encoding.indexOf('=');
+            if (equalsPos != -1) {
+                try {
+                    q = Float.parseFloat(encoding.substring(equalsPos + 1));
+                } catch (NumberFormatException e) {
+                    // Ignore encoding
+                    q = 0.0f;
+                }
+            }
+            if (encoding.contains("*")) {
+                starQ = q;
+            } else if (encoding.contains("br") && q > brQ) {
+                brQ = q;
+            } else if (encoding.contains("zstd") && q > zstdQ) {
+                zstdQ = q;
+            } else if (encoding.contains("gzip") && q > gzipQ) {
+                gzipQ = q;
+            } else if (encoding.contains("deflate") && q > deflateQ) {
+                deflateQ = q;
+            }
+        }
+        if (brotliOptions == null) {
+            brQ = 0.0f;
+        }
+        if (zstdOptions == null) {
+            zstdQ = 0.0f;
+        }
+        if (gzipOptions == null) {
+            gzipQ = 0.0f;
+        }
+        if (deflateOptions == null) {
+            deflateQ = 0.0f;
+        }
+        float maxQ = Math.max(Math.max(brQ, zstdQ), Math.max(gzipQ, deflateQ));
+        if (maxQ > 0.0f) {
+            if (brQ == maxQ) {
+                return "br";
+            }
+            if (zstdQ == maxQ) {
+                return "zstd";
+            }
+            if (gzipQ == maxQ) {
+                return "gzip";
+            }
+            return "deflate";
+        }
+        if (starQ > 0.0f) {
+            if (brQ == -1.0f) {
+                return "br";
+            }
+            if (zstdQ == -1.0f) {
+                return "zstd";
+            }
+            if (gzipQ == -1.0f) {
+                return "gzip";
+            }
+            if (deflateQ == -1.0f) {
+                return "deflate";
+            }
+        }
+        return null;
     }
 
     @SuppressWarnings("FloatingPointEquality")
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.handler.codec.DateFormatter;
+import io.netty.util.AsciiString;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Provides the current date formatted for the {@code Date} header, see
+ * <a href="https://tools.ietf.org/html/rfc7231#section-7.1.1.2">RFC 7231</a>.
+ * <p>
+ * The value only changes once per second, so it is formatted at most once per second and shared by all threads.
+ * Reading it does not allocate and does not take a lock. Only the date of the second the clock is currently in is
+ * cached, so a thread which formats the date of an older second does not replace the date of a newer one.
+ *
+ * @see HttpServerDateHandler
+ */
+public final class HttpDateCache {
+    private static final AtomicReference<CachedDate> CACHED_DATE = new AtomicReference<CachedDate>();
+
+    private HttpDateCache() {
+    }
+
+    /**
+     * Returns the current date formatted for the {@code Date} header.
+     */
+    public static AsciiString currentDate() {
+        return date(System.currentTimeMillis());
+    }
+
+    static AsciiString date(long currentTimeMillis) {
+        long second = currentTimeMillis / 1000;
+        CachedDate date = CACHED_DATE.get();
+        if (date != null && date.second == second) {
+            return date.value;
+        }
+        // Racing threads may format the same second more than once, which is harmless.
+        CachedDate newDate = new CachedDate(second, new AsciiString(DateFormatter.format(new Date(second * 1000))));
+        // A timestamp which is not in the current second is neither cached nor replaces the cached date, so it can
+        // not keep the date of the current second from being cached.
+        while ((date == null || date.second != second) && second == System.currentTimeMillis() / 1000) {
+            if (CACHED_DATE.compareAndSet(date, newDate)) {
+                break;
+            }
+            date = CACHED_DATE.get();
+        }
+        return newDate.value;
+    }
+
+    private static final class CachedDate {
+        final long second;
+        final AsciiString value;
+
+        CachedDate(long second, AsciiString value) {
+            this.second = second;
+            this.value = value;
+        }
+    }
+}
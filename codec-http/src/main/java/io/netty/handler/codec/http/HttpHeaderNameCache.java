@@ -0,0 +1,162 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.util.AsciiString;
+import io.netty.util.internal.PlatformDependent;
+
+import static io.netty.util.internal.MathUtil.findNextPositivePowerOfTwo;
+
+/**
+ * The well-known header names which {@link HttpObjectDecoder} decodes into shared {@link AsciiString}s instead of
+ * creating a new one for every header. The names are matched case-sensitively to preserve the case in which they
+ * were received, so every name is contained in lower case, as defined in {@link HttpHeaderNames}, and in the
+ * capitalized form commonly used by HTTP/1.x clients and servers.
+ */
+final class HttpHeaderNameCache {
+
+    private static final AsciiString[] NAMES = {
+            HttpHeaderNames.ACCEPT,
+            HttpHeaderNames.ACCEPT_CHARSET,
+            HttpHeaderNames.ACCEPT_ENCODING,
+            HttpHeaderNames.ACCEPT_LANGUAGE,
+            HttpHeaderNames.ACCEPT_RANGES,
+            HttpHeaderNames.ACCESS_CONTROL_REQUEST_HEADERS,
+            HttpHeaderNames.ACCESS_CONTROL_REQUEST_METHOD,
+            HttpHeaderNames.AGE,
+            HttpHeaderNames.ALLOW,
+            HttpHeaderNames.AUTHORIZATION,
+            HttpHeaderNames.CACHE_CONTROL,
+            HttpHeaderNames.CONNECTION,
+            HttpHeaderNames.CONTENT_DISPOSITION,
+            HttpHeaderNames.CONTENT_ENCODING,
+            HttpHeaderNames.CONTENT_LANGUAGE,
+            HttpHeaderNames.CONTENT_LENGTH,
+            HttpHeaderNames.CONTENT_LOCATION,
+            HttpHeaderNames.CONTENT_RANGE,
+            HttpHeaderNames.CONTENT_TYPE,
+            HttpHeaderNames.COOKIE,
+            HttpHeaderNames.DATE,
+            HttpHeaderNames.ETAG,
+            HttpHeaderNames.EXPECT,
+            HttpHeaderNames.EXPIRES,
+            HttpHeaderNames.HOST,
+            HttpHeaderNames.IF_MATCH,
+            HttpHeaderNames.IF_MODIFIED_SINCE,
+            HttpHeaderNames.IF_NONE_MATCH,
+            HttpHeaderNames.IF_RANGE,
+            HttpHeaderNames.IF_UNMODIFIED_SINCE,
+            HttpHeaderNames.KEEP_ALIVE,
+            HttpHeaderNames.LAST_MODIFIED,
+            HttpHeaderNames.LOCATION,
+            HttpHeaderNames.ORIGIN,
+            HttpHeaderNames.PRAGMA,
+            HttpHeaderNames.PROXY_AUTHORIZATION,
+            HttpHeaderNames.RANGE,
+            HttpHeaderNames.REFERER,
+            HttpHeaderNames.RETRY_AFTER,
+            HttpHeaderNames.SEC_WEBSOCKET_ACCEPT,
+            HttpHeaderNames.SEC_WEBSOCKET_EXTENSIONS,
+            HttpHeaderNames.SEC_WEBSOCKET_KEY,
+            HttpHeaderNames.SEC_WEBSOCKET_PROTOCOL,
+            HttpHeaderNames.SEC_WEBSOCKET_VERSION,
+            HttpHeaderNames.SERVER,
+            HttpHeaderNames.SET_COOKIE,
+            HttpHeaderNames.TE,
+            HttpHeaderNames.TRAILER,
+            HttpHeaderNames.TRANSFER_ENCODING,
+            HttpHeaderNames.UPGRADE,
+            HttpHeaderNames.USER_AGENT,
+            HttpHeaderNames.VARY,
+            HttpHeaderNames.VIA,
+            HttpHeaderNames.WWW_AUTHENTICATE,
+            HttpHeaderNames.X_REQUESTED_WITH,
+            // Capitalized names which are not simply the lower case names with every word capitalized.
+            AsciiString.cached("ETag"),
+            AsciiString.cached("Sec-WebSocket-Accept"),
+            AsciiString.cached("Sec-WebSocket-Extensions"),
+            AsciiString.cached("Sec-WebSocket-Key"),
+            AsciiString.cached("Sec-WebSocket-Protocol"),
+            AsciiString.cached("Sec-WebSocket-Version"),
+            AsciiString.cached("TE"),
+            AsciiString.cached("WWW-Authenticate")
+    };
+
+    private static final AsciiString[] TABLE;
+    private static final int MASK;
+
+    static {
+        TABLE = new AsciiString[findNextPositivePowerOfTwo(NAMES.length * 2 * 4)];
+        MASK = TABLE.length - 1;
+        for (AsciiString name : NAMES) {
+            add(name);
+            add(capitalize(name));
+        }
+    }
+
+    private HttpHeaderNameCache() {
+    }
+
+    /**
+     * Returns the well-known header name which is equal to the specified bytes, or {@code null} if there is none.
+     */
+    static AsciiString get(byte[] bytes, int start, int length) {
+        if (length == 0) {
+            return null;
+        }
+        for (int i = hash(bytes, start, length) & MASK;; i = i + 1 & MASK) {
+            AsciiString name = TABLE[i];
+            if (name == null) {
+                return null;
+            }
+            if (name.length() == length &&
+                    PlatformDependent.equals(name.array(), name.arrayOffset(), bytes, start, length)) {
+                return name;
+            }
+        }
+    }
+
+    private static void add(AsciiString name) {
+        if (get(name.array(), name.arrayOffset(), name.length()) != null) {
+            return;
+        }
+        int i = hash(name.array(), name.arrayOffset(), name.length()) & MASK;
+        while (TABLE[i] != null) {
+            i = i + 1 & MASK;
+        }
+        TABLE[i] = name;
+    }
+
+    private static int hash(byte[] bytes, int start, int length) {
+        int hash = length;
+        hash = hash * 31 + bytes[start];
+        hash = hash * 31 + bytes[start + (length >>> 1)];
+        hash = hash * 31 + bytes[start + length - 1];
+        return hash ^ hash >>> 7;
+    }
+
+    private static AsciiString capitalize(AsciiString name) {
+        byte[] bytes = name.toByteArray();
+        boolean startOfWord = true;
+        for (int i = 0; i < bytes.length; i++) {
+            if (startOfWord && bytes[i] >= 'a' && bytes[i] <= 'z') {
+                bytes[i] -= 'a' - 'A';
+            }
+            startOfWord = bytes[i] == '-';
+        }
+        return new AsciiString(bytes, false);
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.handler.codec.HeadersUtils;
+import io.netty.util.internal.ObjectUtil;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+
+import static io.netty.buffer.Unpooled.unreleasableBuffer;
+import static io.netty.buffer.Unpooled.wrappedBuffer;
+import static io.netty.handler.codec.http.HttpObjectEncoder.CRLF_SHORT;
+
+/**
+ * An immutable block of headers which is encoded only once and shared by many {@link HttpMessage}s, for example the
+ * {@code Server}, {@code Content-Type} and {@code Cache-Control} headers which are the same for every response of
+ * an endpoint.
+ * <pre>
+ * static final HttpHeadersBlock COMMON = HttpHeadersBlock.of(new DefaultHttpHeaders()
+ *         .add(HttpHeaderNames.SERVER, "netty")
+ *         .add(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON));
+ *
+ * HttpHeaders headers = COMMON.newHeaders();
+ * headers.add(HttpHeaderNames.CONTENT_LENGTH, content.readableBytes());
+ * FullHttpResponse response = new DefaultFullHttpResponse(HTTP_1_1, OK, content, headers,
+ *         EmptyHttpHeaders.INSTANCE);
+ * </pre>
+ * The {@link HttpHeaders} returned by {@link #newHeaders()} contain the headers of the block and behave like any
+ * other {@link HttpHeaders}. {@link HttpObjectEncoder} only encodes the headers which were added to them and then
+ * copies the pre-encoded block after these. If the block does not fit into the buffer of the initial line, a duplicate
+ * of the block is written instead. Once a header of the block is replaced or removed, the headers detach from the
+ * block and are encoded as usual.
+ * <p>
+ * Headers which are encoded from a block bypass {@link HttpObjectEncoder#encodeHeaders(HttpHeaders, ByteBuf)}.
+ */
+public final class HttpHeadersBlock {
+    private final HttpHeaders headers;
+    private final ByteBuf encoded;
+
+    private HttpHeadersBlock(HttpHeaders headers, ByteBuf encoded) {
+        this.headers = headers;
+        this.encoded = encoded;
+    }
+
+    /**
+     * Creates a new block which contains a copy of the given headers.
+     */
+    public static HttpHeadersBlock of(HttpHeaders headers) {
+        ObjectUtil.checkNotNull(headers, "headers");
+        List<CharSequence> nameValuePairs = new ArrayList<CharSequence>(headers.size() * 2);
+        int encodedLength = 2;
+        Iterator<Entry<CharSequence, CharSequence>> iter = headers.iteratorCharSequence();
+        while (iter.hasNext()) {
+            Entry<CharSequence, CharSequence> header = iter.next();
+            nameValuePairs.add(header.getKey().toString());
+            nameValuePairs.add(header.getValue().toString());
+            encodedLength += header.getKey().length() + header.getValue().length() + 4;
+        }
+
+        // The block lives as long as its users keep it, so it must not be tracked by the leak detector.
+        ByteBuf buf = wrappedBuffer(ByteBuffer.allocateDirect(encodedLength)).clear();
+        for (int i = 0; i < nameValuePairs.size(); i += 2) {
+            HttpHeadersEncoder.encoderHeader(nameValuePairs.get(i), nameValuePairs.get(i + 1), buf);
+        }
+        // The block is always written last, so it also terminates the headers.
+        ByteBufUtil.writeShortBE(buf, CRLF_SHORT);
+
+        return new HttpHeadersBlock(
+                new ReadOnlyHttpHeaders(false, nameValuePairs.toArray(new CharSequence[0])),
+                unreleasableBuffer(buf.asReadOnly()));
+    }
+
+    /**
+     * Returns the read-only headers of this block.
+     */
+    public HttpHeaders headers() {
+        return headers;
+    }
+
+    /**
+     * Returns new {@link HttpHeaders} which contain the headers of this block and validate the headers which are
+     * added to them.
+     */
+    public HttpHeaders newHeaders() {
+        return newHeaders(true);
+    }
+
+    /**
+     * Returns new {@link HttpHeaders} which contain the headers of this block.
+     *
+     * @param validate {@code true} to validate the headers which are added to them.
+     */
+    public HttpHeaders newHeaders(boolean validate) {
+        return new PreEncodedHttpHeaders(this, validate);
+    }
+
+    /**
+     * Returns the number of bytes of the encoded block, including the {@code CRLF} which terminates the headers.
+     */
+    public int encodedLength() {
+        return encoded.readableBytes();
+    }
+
+    /**
+     * Returns a duplicate of the encoded block, which must not be released.
+     */
+    ByteBuf encoded() {
+        return encoded.duplicate();
+    }
+
+    /**
+     * Copies the encoded block into the given buffer.
+     */
+    void encodeTo(ByteBuf buf) {
+        buf.writeBytes(encoded, encoded.readerIndex(), encoded.readableBytes());
+    }
+
+    @Override
+    public String toString() {
+        return HeadersUtils.toString(getClass(), headers.iteratorCharSequence(), headers.size());
+    }
+}
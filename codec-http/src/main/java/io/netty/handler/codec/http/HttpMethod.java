@@ -86,6 +86,11 @@ public class HttpMethod implements Comparable<HttpMethod> {
      */
     public static final HttpMethod CONNECT = new HttpMethod("CONNECT");
 
+    // Ordered by how common the methods are, for valueOfAscii(...).
+    private static final HttpMethod[] methods = {
+            GET, POST, PUT, HEAD, DELETE, OPTIONS, PATCH, CONNECT, TRACE
+    };
+
     private static final EnumNameMap<HttpMethod> methodMap;
 
     static {
@@ -111,6 +116,19 @@ public class HttpMethod implements Comparable<HttpMethod> {
         return result != null ? result : new HttpMethod(name);
     }
 
+    /**
+     * Same as {@link #valueOf(String)}, but does not create a {@link String} if the specified name is a standard
+     * HTTP method name.
+     */
+    static HttpMethod valueOfAscii(AsciiString name) {
+        for (HttpMethod method : methods) {
+            if (method.name.contentEquals(name)) {
+                return method;
+            }
+        }
+        return new HttpMethod(name.toString());
+    }
+
     private final AsciiString name;
 
     /**
@@ -15,6 +15,7 @@
  */
 package io.netty.handler.codec.http;
 
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
 import static io.netty.util.internal.ObjectUtil.checkPositive;
 
 import io.netty.buffer.ByteBuf;
@@ -25,6 +26,7 @@ import io.netty.handler.codec.ByteToMessageDecoder;
 import io.netty.handler.codec.DecoderResult;
 import io.netty.handler.codec.PrematureChannelClosureException;
 import io.netty.handler.codec.TooLongFrameException;
+import io.netty.util.AsciiString;
 import io.netty.util.ByteProcessor;
 import io.netty.util.internal.AppendableCharSequence;
 
@@ -76,6 +78,22 @@ import java.util.List;
  *     The duplicated field-values will be replaced with a single valid Content-Length field.
  *     See <a href="https://tools.ietf.org/html/rfc7230#section-3.3.2">RFC 7230, Section 3.3.2</a>.</td>
  * </tr>
+ * <tr>
+ * <td>{@code zeroCopyParsing}</td>
+ * <td>{@value #DEFAULT_ZERO_COPY_PARSING}</td>
+ * <td>When set to {@code true}, the initial line and the headers are located in the {@link ByteBuf} first and are
+ *     then copied at once into a byte array, instead of being appended character by character to an intermediate
+ *     buffer and split into {@link String}s. The header names and values are {@link AsciiString}s which share the
+ *     byte array, well-known header names (see {@link HttpHeaderNames}), methods and versions are shared
+ *     instances. Subclasses receive the initial line via {@link #createMessage(AsciiString, AsciiString,
+ *     AsciiString)}.</td>
+ * </tr>
+ * <tr>
+ * <td>{@code headersFactory}</td>
+ * <td>{@link DefaultHttpHeadersFactory#headersFactory()}</td>
+ * <td>Creates the headers of the decoded messages, and determines whether they are validated. Messages with many
+ *     headers are decoded faster with {@link DefaultHttpHeadersFactory#withArrayStorage(boolean)}.</td>
+ * </tr>
  * </table>
  *
  * <h3>Chunked Content</h3>
@@ -127,13 +145,16 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
     public static final boolean DEFAULT_VALIDATE_HEADERS = true;
     public static final int DEFAULT_INITIAL_BUFFER_SIZE = 128;
     public static final boolean DEFAULT_ALLOW_DUPLICATE_CONTENT_LENGTHS = false;
+    public static final boolean DEFAULT_ZERO_COPY_PARSING = false;
 
     private static final String EMPTY_VALUE = "";
 
     private final int maxChunkSize;
     private final boolean chunkedSupported;
     protected final boolean validateHeaders;
+    protected final DefaultHttpHeadersFactory headersFactory;
     private final boolean allowDuplicateContentLengths;
+    private final boolean zeroCopyParsing;
     private final HeaderParser headerParser;
     private final LineParser lineParser;
 
@@ -148,6 +169,10 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
 
     private LastHttpContent trailer;
 
+    // The bytes of the headers which were scanned already and their size, only used if zeroCopyParsing is enabled.
+    private int scannedHeaderBytes;
+    private int scannedHeaderSize;
+
     /**
      * The internal state of {@link HttpObjectDecoder}.
      * <em>Internal use only</em>.
@@ -210,6 +235,30 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
             int maxInitialLineLength, int maxHeaderSize, int maxChunkSize,
             boolean chunkedSupported, boolean validateHeaders, int initialBufferSize,
             boolean allowDuplicateContentLengths) {
+        this(maxInitialLineLength, maxHeaderSize, maxChunkSize, chunkedSupported, validateHeaders, initialBufferSize,
+             allowDuplicateContentLengths, DEFAULT_ZERO_COPY_PARSING);
+    }
+
+    /**
+     * Creates a new instance with the specified parameters.
+     */
+    protected HttpObjectDecoder(
+            int maxInitialLineLength, int maxHeaderSize, int maxChunkSize,
+            boolean chunkedSupported, boolean validateHeaders, int initialBufferSize,
+            boolean allowDuplicateContentLengths, boolean zeroCopyParsing) {
+        this(maxInitialLineLength, maxHeaderSize, maxChunkSize, chunkedSupported, initialBufferSize,
+             allowDuplicateContentLengths, zeroCopyParsing,
+             DefaultHttpHeadersFactory.headersFactory().withValidation(validateHeaders));
+    }
+
+    /**
+     * Creates a new instance with the specified parameters. The headers of the decoded messages are created by the
+     * given {@link DefaultHttpHeadersFactory}, which also determines whether they are validated.
+     */
+    protected HttpObjectDecoder(
+            int maxInitialLineLength, int maxHeaderSize, int maxChunkSize,
+            boolean chunkedSupported, int initialBufferSize, boolean allowDuplicateContentLengths,
+            boolean zeroCopyParsing, DefaultHttpHeadersFactory headersFactory) {
         checkPositive(maxInitialLineLength, "maxInitialLineLength");
         checkPositive(maxHeaderSize, "maxHeaderSize");
         checkPositive(maxChunkSize, "maxChunkSize");
@@ -219,8 +268,10 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
         headerParser = new HeaderParser(seq, maxHeaderSize);
         this.maxChunkSize = maxChunkSize;
         this.chunkedSupported = chunkedSupported;
-        this.validateHeaders = validateHeaders;
+        this.headersFactory = checkNotNull(headersFactory, "headersFactory");
+        validateHeaders = headersFactory.isValidating();
         this.allowDuplicateContentLengths = allowDuplicateContentLengths;
+        this.zeroCopyParsing = zeroCopyParsing;
     }
 
     @Override
@@ -233,18 +284,25 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
         case SKIP_CONTROL_CHARS:
             // Fall-through
         case READ_INITIAL: try {
-            AppendableCharSequence line = lineParser.parse(buffer);
-            if (line == null) {
-                return;
-            }
-            String[] initialLine = splitInitialLine(line);
-            if (initialLine.length < 3) {
-                // Invalid initial line - ignore.
-                currentState = State.SKIP_CONTROL_CHARS;
-                return;
-            }
+            if (zeroCopyParsing) {
+                message = readInitialLine(buffer);
+                if (message == null) {
+                    return;
+                }
+            } else {
+                AppendableCharSequence line = lineParser.parse(buffer);
+                if (line == null) {
+                    return;
+                }
+                String[] initialLine = splitInitialLine(line);
+                if (initialLine.length < 3) {
+                    // Invalid initial line - ignore.
+                    currentState = State.SKIP_CONTROL_CHARS;
+                    return;
+                }
 
-            message = createMessage(initialLine);
+                message = createMessage(initialLine);
+            }
             currentState = State.READ_HEADER;
             // fall-through
         } catch (Exception e) {
@@ -252,7 +310,7 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
             return;
         }
         case READ_HEADER: try {
-            State nextState = readHeaders(buffer);
+            State nextState = zeroCopyParsing ? readHeadersZeroCopy(buffer) : readHeaders(buffer);
             if (nextState == null) {
                 return;
             }
@@ -546,6 +604,8 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
         contentLength = Long.MIN_VALUE;
         lineParser.reset();
         headerParser.reset();
+        scannedHeaderBytes = 0;
+        scannedHeaderSize = 0;
         trailer = null;
         if (!isDecodingRequest()) {
             HttpResponse res = (HttpResponse) message;
@@ -630,6 +690,10 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
         name = null;
         value = null;
 
+        return headersRead(message, headers);
+    }
+
+    private State headersRead(HttpMessage message, HttpHeaders headers) {
         // Done parsing initial line and headers. Set decoder result.
         HttpMessageDecoderResult decoderResult = new HttpMessageDecoderResult(lineParser.size, headerParser.size);
         message.setDecoderResult(decoderResult);
@@ -663,6 +727,123 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
         }
     }
 
+    private HttpMessage readInitialLine(ByteBuf buffer) throws Exception {
+        final int maxLength = lineParser.maxLength;
+        final int writerIndex = buffer.writerIndex();
+
+        // Skip the control characters and whitespace in front of the initial line, so that they do not count
+        // against the maximum length of the line.
+        int start = buffer.readerIndex();
+        if (currentState == State.SKIP_CONTROL_CHARS) {
+            while (start < writerIndex) {
+                char c = (char) (buffer.getByte(start) & 0xFF);
+                if (!Character.isISOControl(c) && !Character.isWhitespace(c)) {
+                    currentState = State.READ_INITIAL;
+                    break;
+                }
+                start++;
+            }
+            buffer.readerIndex(start);
+            if (currentState == State.SKIP_CONTROL_CHARS) {
+                return null;
+            }
+        }
+
+        final int limit = start + Math.min(writerIndex - start, maxLength + 1);
+        int lf = buffer.indexOf(start, limit, HttpConstants.LF);
+        if (lf == -1) {
+            if (limit - start > maxLength) {
+                throw lineParser.newException(maxLength);
+            }
+            return null;
+        }
+        int end = lf > start && buffer.getByte(lf - 1) == HttpConstants.CR ? lf - 1 : lf;
+        lineParser.size = end - start;
+
+        byte[] line = new byte[end - start];
+        buffer.getBytes(start, line);
+        buffer.readerIndex(lf + 1);
+
+        int aStart = findNonSPLenient(line, 0);
+        int aEnd = findSPLenient(line, aStart);
+        int bStart = findNonSPLenient(line, aEnd);
+        int bEnd = findSPLenient(line, bStart);
+        int cStart = findNonSPLenient(line, bEnd);
+        int cEnd = findEndOfString(line, 0, line.length);
+        return createMessage(
+                new AsciiString(line, aStart, aEnd - aStart, false),
+                new AsciiString(line, bStart, bEnd - bStart, false),
+                cStart < cEnd ? new AsciiString(line, cStart, cEnd - cStart, false) : AsciiString.EMPTY_STRING);
+    }
+
+    private State readHeadersZeroCopy(ByteBuf buffer) {
+        final int maxLength = headerParser.maxLength;
+        final int readerIndex = buffer.readerIndex();
+        final int writerIndex = buffer.writerIndex();
+
+        // Find the empty line which terminates the headers, continuing where the previous invocation stopped.
+        int size = scannedHeaderSize;
+        int lineStart = readerIndex + scannedHeaderBytes;
+        int lf;
+        for (;;) {
+            int limit = lineStart + Math.min(writerIndex - lineStart, maxLength - size + 1);
+            lf = buffer.indexOf(lineStart, limit, HttpConstants.LF);
+            if (lf == -1) {
+                if (size + limit - lineStart > maxLength) {
+                    throw headerParser.newException(maxLength);
+                }
+                scannedHeaderBytes = lineStart - readerIndex;
+                scannedHeaderSize = size;
+                return null;
+            }
+            int lineEnd = lf > lineStart && buffer.getByte(lf - 1) == HttpConstants.CR ? lf - 1 : lf;
+            if (lineEnd == lineStart) {
+                break;
+            }
+            size += lineEnd - lineStart;
+            lineStart = lf + 1;
+        }
+        headerParser.size = size;
+        scannedHeaderBytes = 0;
+        scannedHeaderSize = 0;
+
+        byte[] bytes = new byte[lineStart - readerIndex];
+        buffer.getBytes(readerIndex, bytes);
+        buffer.readerIndex(lf + 1);
+
+        final HttpMessage message = this.message;
+        final HttpHeaders headers = message.headers();
+        for (int start = 0; start < bytes.length;) {
+            lf = indexOf(bytes, start, HttpConstants.LF);
+            int end = bytes[lf - 1] == HttpConstants.CR ? lf - 1 : lf;
+            byte firstByte = bytes[start];
+            if (name != null && (firstByte == ' ' || firstByte == '\t')) {
+                //please do not make one line from below code
+                //as it breaks +XX:OptimizeStringConcat optimization
+                String trimmedLine = new AsciiString(bytes, start, end - start, false).toString().trim();
+                String valueStr = String.valueOf(value);
+                value = valueStr + ' ' + trimmedLine;
+            } else {
+                if (name != null) {
+                    headers.add(name, value);
+                }
+                splitHeader(bytes, start, end);
+            }
+            start = lf + 1;
+        }
+
+        // Add the last header.
+        if (name != null) {
+            headers.add(name, value);
+        }
+
+        // reset name and value fields
+        name = null;
+        value = null;
+
+        return headersRead(message, headers);
+    }
+
     /**
      * Invoked when a message with both a "Transfer-Encoding: chunked" and a "Content-Length" header field is detected.
      * The default behavior is to <i>remove</i> the Content-Length field, but this method could be overridden
@@ -749,6 +930,15 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
 
     protected abstract boolean isDecodingRequest();
     protected abstract HttpMessage createMessage(String[] initialLine) throws Exception;
+
+    /**
+     * Creates the message from the three parts of the initial line if {@code zeroCopyParsing} is enabled. The last
+     * part is empty if it is missing. The default implementation converts the parts into {@link String}s and calls
+     * {@link #createMessage(String[])}.
+     */
+    protected HttpMessage createMessage(AsciiString first, AsciiString second, AsciiString third) throws Exception {
+        return createMessage(new String[] { first.toString(), second.toString(), third.toString() });
+    }
     protected abstract HttpMessage createInvalidMessage();
 
     private static int getChunkSize(String hex) {
@@ -839,6 +1029,99 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
         }
     }
 
+    private void splitHeader(byte[] bytes, int start, int end) {
+        int nameStart;
+        int nameEnd;
+        int colonEnd;
+        int valueStart;
+
+        // See splitHeader(AppendableCharSequence) for the rules.
+        nameStart = findNonWhitespace(bytes, start, end, false);
+        for (nameEnd = nameStart; nameEnd < end; nameEnd ++) {
+            char ch = (char) (bytes[nameEnd] & 0xFF);
+            if (ch == ':' || (!isDecodingRequest() && isOWS(ch))) {
+                break;
+            }
+        }
+
+        if (nameEnd == end) {
+            // There was no colon present at all.
+            throw new IllegalArgumentException("No colon found");
+        }
+
+        for (colonEnd = nameEnd; colonEnd < end; colonEnd ++) {
+            if (bytes[colonEnd] == ':') {
+                colonEnd ++;
+                break;
+            }
+        }
+
+        AsciiString knownName = HttpHeaderNameCache.get(bytes, nameStart, nameEnd - nameStart);
+        name = knownName != null ? knownName : new AsciiString(bytes, nameStart, nameEnd - nameStart, false);
+        valueStart = findNonWhitespace(bytes, colonEnd, end, true);
+        if (valueStart == end) {
+            value = EMPTY_VALUE;
+        } else {
+            value = new AsciiString(bytes, valueStart, findEndOfString(bytes, start, end) - valueStart, false);
+        }
+    }
+
+    private static int findNonSPLenient(byte[] bytes, int offset) {
+        for (int result = offset; result < bytes.length; ++result) {
+            char c = (char) (bytes[result] & 0xFF);
+            if (isSPLenient(c)) {
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                // Any other whitespace delimiter is invalid
+                throw new IllegalArgumentException("Invalid separator");
+            }
+            return result;
+        }
+        return bytes.length;
+    }
+
+    private static int findSPLenient(byte[] bytes, int offset) {
+        for (int result = offset; result < bytes.length; ++result) {
+            if (isSPLenient((char) (bytes[result] & 0xFF))) {
+                return result;
+            }
+        }
+        return bytes.length;
+    }
+
+    private static int findNonWhitespace(byte[] bytes, int offset, int end, boolean validateOWS) {
+        for (int result = offset; result < end; ++result) {
+            char c = (char) (bytes[result] & 0xFF);
+            if (!Character.isWhitespace(c)) {
+                return result;
+            } else if (validateOWS && !isOWS(c)) {
+                // Only OWS is supported for whitespace
+                throw new IllegalArgumentException("Invalid separator, only a single space or horizontal tab allowed," +
+                        " but received a '" + c + "' (0x" + Integer.toHexString(c) + ")");
+            }
+        }
+        return end;
+    }
+
+    private static int findEndOfString(byte[] bytes, int start, int end) {
+        for (int result = end - 1; result > start; --result) {
+            if (!Character.isWhitespace((char) (bytes[result] & 0xFF))) {
+                return result + 1;
+            }
+        }
+        return start;
+    }
+
+    private static int indexOf(byte[] bytes, int offset, byte value) {
+        for (int i = offset; i < bytes.length; i++) {
+            if (bytes[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     private static int findNonSPLenient(AppendableCharSequence sb, int offset) {
         for (int result = offset; result < sb.length(); ++result) {
             char c = sb.charAtUnsafe(result);
@@ -898,7 +1181,7 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
 
     private static class HeaderParser implements ByteProcessor {
         private final AppendableCharSequence seq;
-        private final int maxLength;
+        final int maxLength;
         int size;
 
         HeaderParser(AppendableCharSequence seq, int maxLength) {
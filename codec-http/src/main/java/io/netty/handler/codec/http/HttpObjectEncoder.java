@@ -98,10 +98,27 @@ public abstract class HttpObjectEncoder<H extends HttpMessage> extends MessageTo
 
             sanitizeHeadersBeforeEncode(m, state == ST_CONTENT_ALWAYS_EMPTY);
 
-            encodeHeaders(m.headers(), buf);
-            ByteBufUtil.writeShortBE(buf, CRLF_SHORT);
+            HttpHeadersBlock block = headersBlock(m.headers());
+            int headersSize;
+            if (block == null) {
+                encodeHeaders(m.headers(), buf);
+                ByteBufUtil.writeShortBE(buf, CRLF_SHORT);
+                headersSize = buf.readableBytes();
+            } else {
+                encodeHeaders(((PreEncodedHttpHeaders) m.headers()).dynamicHeaders(), buf);
+                headersSize = buf.readableBytes() + block.encodedLength();
+                if (buf.writableBytes() >= block.encodedLength()) {
+                    // merge into the buffer of the initial line for performance reasons
+                    block.encodeTo(buf);
+                } else {
+                    // The pre-encoded block also terminates the headers, so nothing may be merged after it.
+                    out.add(buf);
+                    out.add(block.encoded());
+                    buf = null;
+                }
+            }
 
-            headersEncodedSizeAccumulator = HEADERS_WEIGHT_NEW * padSizeForAccumulation(buf.readableBytes()) +
+            headersEncodedSizeAccumulator = HEADERS_WEIGHT_NEW * padSizeForAccumulation(headersSize) +
                                             HEADERS_WEIGHT_HISTORICAL * headersEncodedSizeAccumulator;
         }
 
@@ -150,7 +167,7 @@ public abstract class HttpObjectEncoder<H extends HttpMessage> extends MessageTo
                     if (buf != null) {
                         // We allocated a buffer so add it now.
                         out.add(buf);
-                    } else {
+                    } else if (out.isEmpty()) {
                         // Need to produce some output otherwise an
                         // IllegalStateException will be thrown as we did not write anything
                         // Its ok to just write an EMPTY_BUFFER as if there are reference count issues these will be
@@ -182,6 +199,10 @@ public abstract class HttpObjectEncoder<H extends HttpMessage> extends MessageTo
         }
     }
 
+    private static HttpHeadersBlock headersBlock(HttpHeaders headers) {
+        return headers instanceof PreEncodedHttpHeaders ? ((PreEncodedHttpHeaders) headers).block() : null;
+    }
+
     /**
      * Encode the {@link HttpHeaders} into a {@link ByteBuf}.
      */
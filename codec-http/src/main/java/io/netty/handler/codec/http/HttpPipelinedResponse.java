@@ -0,0 +1,66 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.util.internal.StringUtil;
+
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+
+/**
+ * A message which is part of the response to a specific {@link HttpRequest}, written to a channel with a
+ * {@link HttpServerPipeliningHandler}. It allows to write the responses to pipelined requests in any order, for
+ * example once they were completed by different executors, while the {@link HttpServerPipeliningHandler} writes them
+ * to the connection in the order of the requests.
+ * <p>
+ * The message is usually an {@link HttpObject}, but may also be any other message which is part of the content,
+ * such as a {@link io.netty.channel.FileRegion}. The response to the request is complete once a
+ * {@link LastHttpContent} was written, which includes a {@link FullHttpResponse}.
+ */
+public final class HttpPipelinedResponse {
+    private final HttpRequest request;
+    private final Object message;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param request the request as it was received by the handler which follows the
+     *                {@link HttpServerPipeliningHandler} in the pipeline.
+     * @param message the message which is part of the response to the request.
+     */
+    public HttpPipelinedResponse(HttpRequest request, Object message) {
+        this.request = checkNotNull(request, "request");
+        this.message = checkNotNull(message, "message");
+    }
+
+    /**
+     * Returns the request this message responds to.
+     */
+    public HttpRequest request() {
+        return request;
+    }
+
+    /**
+     * Returns the message which is part of the response.
+     */
+    public Object message() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return StringUtil.simpleClassName(this) + "(request: " + request + ", message: " + message + ')';
+    }
+}
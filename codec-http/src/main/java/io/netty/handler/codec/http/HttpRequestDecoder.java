@@ -18,6 +18,7 @@ package io.netty.handler.codec.http;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelPipeline;
 import io.netty.handler.codec.TooLongFrameException;
+import io.netty.util.AsciiString;
 
 
 /**
@@ -89,11 +90,36 @@ public class HttpRequestDecoder extends HttpObjectDecoder {
               initialBufferSize, allowDuplicateContentLengths);
     }
 
+    public HttpRequestDecoder(
+            int maxInitialLineLength, int maxHeaderSize, int maxChunkSize, boolean validateHeaders,
+            int initialBufferSize, boolean allowDuplicateContentLengths, boolean zeroCopyParsing) {
+        super(maxInitialLineLength, maxHeaderSize, maxChunkSize, DEFAULT_CHUNKED_SUPPORTED, validateHeaders,
+              initialBufferSize, allowDuplicateContentLengths, zeroCopyParsing);
+    }
+
+    /**
+     * Creates a new instance which creates the headers of the decoded requests with the given
+     * {@link DefaultHttpHeadersFactory}.
+     */
+    public HttpRequestDecoder(
+            int maxInitialLineLength, int maxHeaderSize, int maxChunkSize, int initialBufferSize,
+            boolean allowDuplicateContentLengths, boolean zeroCopyParsing, DefaultHttpHeadersFactory headersFactory) {
+        super(maxInitialLineLength, maxHeaderSize, maxChunkSize, DEFAULT_CHUNKED_SUPPORTED, initialBufferSize,
+              allowDuplicateContentLengths, zeroCopyParsing, headersFactory);
+    }
+
     @Override
     protected HttpMessage createMessage(String[] initialLine) throws Exception {
         return new DefaultHttpRequest(
                 HttpVersion.valueOf(initialLine[2]),
-                HttpMethod.valueOf(initialLine[0]), initialLine[1], validateHeaders);
+                HttpMethod.valueOf(initialLine[0]), initialLine[1], headersFactory.newHeaders());
+    }
+
+    @Override
+    protected HttpMessage createMessage(AsciiString method, AsciiString uri, AsciiString version) {
+        return new DefaultHttpRequest(
+                HttpVersion.valueOfAscii(version),
+                HttpMethod.valueOfAscii(method), uri.toString(), headersFactory.newHeaders());
     }
 
     @Override
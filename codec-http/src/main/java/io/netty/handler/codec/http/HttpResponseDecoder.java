@@ -18,6 +18,7 @@ package io.netty.handler.codec.http;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelPipeline;
 import io.netty.handler.codec.TooLongFrameException;
+import io.netty.util.AsciiString;
 
 
 /**
@@ -120,11 +121,39 @@ public class HttpResponseDecoder extends HttpObjectDecoder {
               initialBufferSize, allowDuplicateContentLengths);
     }
 
+    public HttpResponseDecoder(
+            int maxInitialLineLength, int maxHeaderSize, int maxChunkSize, boolean validateHeaders,
+            int initialBufferSize, boolean allowDuplicateContentLengths, boolean zeroCopyParsing) {
+        super(maxInitialLineLength, maxHeaderSize, maxChunkSize, DEFAULT_CHUNKED_SUPPORTED, validateHeaders,
+              initialBufferSize, allowDuplicateContentLengths, zeroCopyParsing);
+    }
+
+    /**
+     * Creates a new instance which creates the headers of the decoded responses with the given
+     * {@link DefaultHttpHeadersFactory}.
+     */
+    public HttpResponseDecoder(
+            int maxInitialLineLength, int maxHeaderSize, int maxChunkSize, int initialBufferSize,
+            boolean allowDuplicateContentLengths, boolean zeroCopyParsing, DefaultHttpHeadersFactory headersFactory) {
+        super(maxInitialLineLength, maxHeaderSize, maxChunkSize, DEFAULT_CHUNKED_SUPPORTED, initialBufferSize,
+              allowDuplicateContentLengths, zeroCopyParsing, headersFactory);
+    }
+
     @Override
     protected HttpMessage createMessage(String[] initialLine) {
         return new DefaultHttpResponse(
                 HttpVersion.valueOf(initialLine[0]),
-                HttpResponseStatus.valueOf(Integer.parseInt(initialLine[1]), initialLine[2]), validateHeaders);
+                HttpResponseStatus.valueOf(Integer.parseInt(initialLine[1]), initialLine[2]),
+                headersFactory.newHeaders());
+    }
+
+    @Override
+    protected HttpMessage createMessage(AsciiString version, AsciiString code, AsciiString reasonPhrase) {
+        HttpResponseStatus status = HttpResponseStatus.valueOf(code.parseInt());
+        if (!status.reasonPhrase().contentEquals(reasonPhrase)) {
+            status = new HttpResponseStatus(status.code(), reasonPhrase.toString());
+        }
+        return new DefaultHttpResponse(HttpVersion.valueOfAscii(version), status, headersFactory.newHeaders());
     }
 
     @Override
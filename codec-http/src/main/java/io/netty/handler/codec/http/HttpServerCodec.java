@@ -85,6 +85,18 @@ public final class HttpServerCodec extends CombinedChannelDuplexHandler<HttpRequ
              new HttpServerResponseEncoder());
     }
 
+    /**
+     * Creates a new instance with the specified decoder options. The headers of the decoded requests are created by
+     * the given {@link DefaultHttpHeadersFactory}.
+     */
+    public HttpServerCodec(int maxInitialLineLength, int maxHeaderSize, int maxChunkSize, int initialBufferSize,
+                           boolean allowDuplicateContentLengths, boolean zeroCopyParsing,
+                           DefaultHttpHeadersFactory headersFactory) {
+        init(new HttpServerRequestDecoder(maxInitialLineLength, maxHeaderSize, maxChunkSize, initialBufferSize,
+                                          allowDuplicateContentLengths, zeroCopyParsing, headersFactory),
+             new HttpServerResponseEncoder());
+    }
+
     /**
      * Upgrades to another protocol from HTTP. Removes the {@link HttpRequestDecoder} and
      * {@link HttpResponseEncoder} from the pipeline.
@@ -117,6 +129,13 @@ public final class HttpServerCodec extends CombinedChannelDuplexHandler<HttpRequ
                   allowDuplicateContentLengths);
         }
 
+        HttpServerRequestDecoder(int maxInitialLineLength, int maxHeaderSize, int maxChunkSize,
+                                 int initialBufferSize, boolean allowDuplicateContentLengths, boolean zeroCopyParsing,
+                                 DefaultHttpHeadersFactory headersFactory) {
+            super(maxInitialLineLength, maxHeaderSize, maxChunkSize, initialBufferSize, allowDuplicateContentLengths,
+                  zeroCopyParsing, headersFactory);
+        }
+
         @Override
         protected void decode(ChannelHandlerContext ctx, ByteBuf buffer, List<Object> out) throws Exception {
             int oldSize = out.size();
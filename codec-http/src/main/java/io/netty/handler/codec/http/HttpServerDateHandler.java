@@ -0,0 +1,61 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+
+/**
+ * Sets the {@code Date} header of every {@link HttpResponse} which does not have one yet, using the value cached by
+ * {@link HttpDateCache}.
+ * <p>
+ * It should be added after the {@link HttpServerCodec}, so that it sees the responses before they are encoded.
+ * <blockquote>
+ * <pre>
+ *  {@link ChannelPipeline} p = ...;
+ *  ...
+ *  p.addLast("serverCodec", new {@link HttpServerCodec}());
+ *  p.addLast("httpDate", {@link HttpServerDateHandler}.INSTANCE);
+ *  ...
+ *  p.addLast("handler", new HttpRequestHandler());
+ *  </pre>
+ * </blockquote>
+ */
+@Sharable
+public final class HttpServerDateHandler extends ChannelOutboundHandlerAdapter {
+
+    /**
+     * The shared instance.
+     */
+    public static final HttpServerDateHandler INSTANCE = new HttpServerDateHandler();
+
+    private HttpServerDateHandler() {
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (msg instanceof HttpResponse) {
+            HttpHeaders headers = ((HttpResponse) msg).headers();
+            if (!headers.contains(HttpHeaderNames.DATE)) {
+                headers.set(HttpHeaderNames.DATE, HttpDateCache.currentDate());
+            }
+        }
+        ctx.write(msg, promise);
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.ReferenceCountUtil;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.netty.util.internal.ObjectUtil.checkPositive;
+
+/**
+ * Writes the responses to pipelined HTTP/1.1 requests in the order of the requests and coalesces their flushes.
+ * <p>
+ * The requests are passed on unchanged and are numbered in the order they were received. A response can be written
+ * either as is, in which case it responds to the oldest request which has not been responded to, or wrapped in a
+ * {@link HttpPipelinedResponse} which identifies the request it responds to. The latter allows to complete responses
+ * out of order, for example from other executors: a response to a later request is held back until the responses to
+ * all preceding requests were written.
+ * <p>
+ * Flushes requested while the channel is reading are deferred until the read is complete, so that all the responses
+ * which were written while processing the requests of a single read are flushed at once. Flushes requested outside
+ * of a read, for example once an asynchronously completed response was written, are coalesced into a single flush
+ * per event loop iteration.
+ * <p>
+ * If {@code maxPendingResponses} requests are waiting for their response, the handler stops reading from the channel
+ * until the oldest one was responded to.
+ * <p>
+ * The handler should be added after {@link HttpServerCodec} and {@link HttpObjectAggregator} if used, so that the
+ * handlers after it receive the same {@link HttpRequest} instances which are passed to
+ * {@link HttpPipelinedResponse}.
+ * <blockquote>
+ * <pre>
+ *  {@link ChannelPipeline} p = ...;
+ *  ...
+ *  p.addLast("serverCodec", new {@link HttpServerCodec}());
+ *  p.addLast("aggregator", new {@link HttpObjectAggregator}(1048576));
+ *  p.addLast("pipelining", <b>new {@link HttpServerPipeliningHandler}()</b>);
+ *  ...
+ *  p.addLast("handler", new HttpRequestHandler());
+ *  </pre>
+ * </blockquote>
+ */
+public class HttpServerPipeliningHandler extends ChannelDuplexHandler {
+    public static final int DEFAULT_MAX_PENDING_RESPONSES = 128;
+
+    private final int maxPendingResponses;
+    // The requests which were not completely responded to yet, in the order they were received.
+    private final ArrayDeque<PendingResponse> pendingResponses = new ArrayDeque<PendingResponse>();
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flushScheduled = false;
+            if (ctx != null) {
+                ctx.flush();
+            }
+        }
+    };
+
+    private ChannelHandlerContext ctx;
+    private boolean reading;
+    private boolean flushPending;
+    private boolean flushScheduled;
+    private boolean autoReadDisabled;
+
+    /**
+     * Creates a new instance which allows {@value #DEFAULT_MAX_PENDING_RESPONSES} pending responses.
+     */
+    public HttpServerPipeliningHandler() {
+        this(DEFAULT_MAX_PENDING_RESPONSES);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param maxPendingResponses the number of requests which may wait for their response before the handler stops
+     *                            reading from the channel.
+     */
+    public HttpServerPipeliningHandler(int maxPendingResponses) {
+        this.maxPendingResponses = checkPositive(maxPendingResponses, "maxPendingResponses");
+    }
+
+    /**
+     * Returns the number of requests which were not completely responded to yet.
+     */
+    public int pendingResponses() {
+        return pendingResponses.size();
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        this.ctx = null;
+        failPendingResponses(new IllegalStateException("HttpServerPipeliningHandler was removed"));
+        if (autoReadDisabled) {
+            autoReadDisabled = false;
+            ctx.channel().config().setAutoRead(true);
+        }
+        if (flushPending) {
+            flushPending = false;
+            ctx.flush();
+        }
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        reading = true;
+        if (msg instanceof HttpRequest) {
+            pendingResponses.add(new PendingResponse((HttpRequest) msg));
+            if (pendingResponses.size() >= maxPendingResponses && ctx.channel().config().isAutoRead()) {
+                autoReadDisabled = true;
+                ctx.channel().config().setAutoRead(false);
+            }
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+        reading = false;
+        if (flushPending) {
+            flushPending = false;
+            ctx.flush();
+        }
+        ctx.fireChannelReadComplete();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        failPendingResponses(new ClosedChannelException());
+        ctx.fireChannelInactive();
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        PendingResponse response;
+        if (msg instanceof HttpPipelinedResponse) {
+            HttpPipelinedResponse pipelined = (HttpPipelinedResponse) msg;
+            msg = pipelined.message();
+            response = pendingResponse(pipelined.request());
+            if (response == null) {
+                ReferenceCountUtil.release(msg);
+                promise.setFailure(new IllegalStateException(
+                        "not a pending request or already responded to: " + pipelined.request()));
+                return;
+            }
+        } else {
+            // Not a response at all, or it responds to the oldest request.
+            response = pendingResponses.peek();
+            if (response == null) {
+                ctx.write(msg, promise);
+                return;
+            }
+        }
+
+        if (response != pendingResponses.peek()) {
+            // Responds to a later request, so hold it back until it is its turn.
+            response.add(msg, promise);
+            return;
+        }
+        ctx.write(msg, promise);
+        if (response.complete(msg)) {
+            pendingResponses.remove();
+            writeCompletedResponses(ctx);
+        }
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        if (reading) {
+            flushPending = true;
+        } else if (!flushScheduled) {
+            flushScheduled = true;
+            ctx.channel().eventLoop().execute(flushTask);
+        }
+    }
+
+    private PendingResponse pendingResponse(HttpRequest request) {
+        for (PendingResponse response : pendingResponses) {
+            if (response.request == request) {
+                return response;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Writes the messages of the responses which were held back and are now in turn, until a response is found
+     * which is not complete yet.
+     */
+    private void writeCompletedResponses(ChannelHandlerContext ctx) {
+        for (;;) {
+            PendingResponse response = pendingResponses.peek();
+            if (response == null || !response.writeTo(ctx)) {
+                break;
+            }
+            pendingResponses.remove();
+        }
+        if (autoReadDisabled && pendingResponses.size() < maxPendingResponses) {
+            autoReadDisabled = false;
+            ctx.channel().config().setAutoRead(true);
+        }
+    }
+
+    private void failPendingResponses(Throwable cause) {
+        PendingResponse response;
+        while ((response = pendingResponses.poll()) != null) {
+            response.fail(cause);
+        }
+    }
+
+    private static final class PendingResponse {
+        final HttpRequest request;
+        // The messages and promises which were held back, or null if there are none.
+        private List<Object> messages;
+        private boolean informational;
+        private boolean complete;
+
+        PendingResponse(HttpRequest request) {
+            this.request = request;
+        }
+
+        void add(Object msg, ChannelPromise promise) {
+            if (messages == null) {
+                messages = new ArrayList<Object>(4);
+            }
+            messages.add(msg);
+            messages.add(promise);
+            complete(msg);
+        }
+
+        /**
+         * Returns {@code true} if the message completes the response.
+         */
+        boolean complete(Object msg) {
+            if (msg instanceof HttpResponse) {
+                // The final response follows an interim response.
+                HttpResponseStatus status = ((HttpResponse) msg).status();
+                informational = status.codeClass() == HttpStatusClass.INFORMATIONAL &&
+                        status.code() != HttpResponseStatus.SWITCHING_PROTOCOLS.code();
+            }
+            if (msg instanceof LastHttpContent && !informational) {
+                complete = true;
+            }
+            return complete;
+        }
+
+        /**
+         * Writes the messages which were held back and returns {@code true} if the response is complete.
+         */
+        boolean writeTo(ChannelHandlerContext ctx) {
+            List<Object> messages = this.messages;
+            if (messages != null) {
+                this.messages = null;
+                for (int i = 0; i < messages.size(); i += 2) {
+                    ctx.write(messages.get(i), (ChannelPromise) messages.get(i + 1));
+                }
+            }
+            return complete;
+        }
+
+        void fail(Throwable cause) {
+            List<Object> messages = this.messages;
+            if (messages != null) {
+                this.messages = null;
+                for (int i = 0; i < messages.size(); i += 2) {
+                    ReferenceCountUtil.release(messages.get(i));
+                    ((ChannelPromise) messages.get(i + 1)).tryFailure(cause);
+                }
+            }
+        }
+    }
+}
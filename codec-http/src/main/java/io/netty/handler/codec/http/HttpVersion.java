@@ -19,6 +19,7 @@ import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
 import static io.netty.util.internal.ObjectUtil.checkNonEmptyAfterTrim;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.util.AsciiString;
 import io.netty.util.CharsetUtil;
 import io.netty.util.internal.ObjectUtil;
 
@@ -80,6 +81,20 @@ public class HttpVersion implements Comparable<HttpVersion> {
         return version;
     }
 
+    /**
+     * Same as {@link #valueOf(String)}, but does not create a {@link String} if the specified text is
+     * {@code "HTTP/1.1"} or {@code "HTTP/1.0"}.
+     */
+    static HttpVersion valueOfAscii(AsciiString text) {
+        if (text.contentEquals(HTTP_1_1_STRING)) {
+            return HTTP_1_1;
+        }
+        if (text.contentEquals(HTTP_1_0_STRING)) {
+            return HTTP_1_0;
+        }
+        return valueOf(text.toString());
+    }
+
     private static HttpVersion version0(String text) {
         if (HTTP_1_1_STRING.equals(text)) {
             return HTTP_1_1;
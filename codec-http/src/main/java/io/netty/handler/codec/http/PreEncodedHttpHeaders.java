@@ -0,0 +1,346 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.handler.codec.HeadersUtils;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * {@link HttpHeaders} which consist of the headers of a {@link HttpHeadersBlock} and the headers which were added to
+ * them. The added headers come first, followed by the headers of the block. As soon as a header of the block is
+ * replaced or removed, the headers of the block are copied and the block is no longer used.
+ */
+final class PreEncodedHttpHeaders extends HttpHeaders {
+    private final boolean validate;
+    private HttpHeadersBlock block;
+    private HttpHeaders headers;
+
+    PreEncodedHttpHeaders(HttpHeadersBlock block, boolean validate) {
+        this(block, validate, new DefaultHttpHeaders(validate));
+    }
+
+    private PreEncodedHttpHeaders(HttpHeadersBlock block, boolean validate, HttpHeaders headers) {
+        this.block = block;
+        this.validate = validate;
+        this.headers = headers;
+    }
+
+    /**
+     * Returns the block of these headers, or {@code null} if they were detached from it.
+     */
+    HttpHeadersBlock block() {
+        return block;
+    }
+
+    /**
+     * Returns the headers which are not part of the {@link #block()}.
+     */
+    HttpHeaders dynamicHeaders() {
+        return headers;
+    }
+
+    private void detach(CharSequence name) {
+        if (block != null && block.headers().contains(name)) {
+            HttpHeaders merged = new DefaultHttpHeaders(validate);
+            merged.add(headers);
+            merged.add(block.headers());
+            headers = merged;
+            block = null;
+        }
+    }
+
+    @Override
+    public String get(String name) {
+        return get((CharSequence) name);
+    }
+
+    @Override
+    public String get(CharSequence name) {
+        String value = headers.get(name);
+        return value != null || block == null ? value : block.headers().get(name);
+    }
+
+    @Override
+    public Integer getInt(CharSequence name) {
+        Integer value = headers.getInt(name);
+        return value != null || block == null ? value : block.headers().getInt(name);
+    }
+
+    @Override
+    public int getInt(CharSequence name, int defaultValue) {
+        Integer value = getInt(name);
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    public Short getShort(CharSequence name) {
+        Short value = headers.getShort(name);
+        return value != null || block == null ? value : block.headers().getShort(name);
+    }
+
+    @Override
+    public short getShort(CharSequence name, short defaultValue) {
+        Short value = getShort(name);
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    public Long getTimeMillis(CharSequence name) {
+        Long value = headers.getTimeMillis(name);
+        return value != null || block == null ? value : block.headers().getTimeMillis(name);
+    }
+
+    @Override
+    public long getTimeMillis(CharSequence name, long defaultValue) {
+        Long value = getTimeMillis(name);
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    public List<String> getAll(String name) {
+        return getAll((CharSequence) name);
+    }
+
+    @Override
+    public List<String> getAll(CharSequence name) {
+        if (block == null) {
+            return headers.getAll(name);
+        }
+        List<String> values = new ArrayList<String>(headers.getAll(name));
+        values.addAll(block.headers().getAll(name));
+        return values;
+    }
+
+    @Override
+    public List<Entry<String, String>> entries() {
+        if (block == null) {
+            return headers.entries();
+        }
+        List<Entry<String, String>> entries = new ArrayList<Entry<String, String>>(size());
+        entries.addAll(headers.entries());
+        entries.addAll(block.headers().entries());
+        return entries;
+    }
+
+    @Override
+    public boolean contains(String name) {
+        return contains((CharSequence) name);
+    }
+
+    @Override
+    public boolean contains(CharSequence name) {
+        return headers.contains(name) || block != null && block.headers().contains(name);
+    }
+
+    @Override
+    public boolean contains(String name, String value, boolean ignoreCase) {
+        return headers.contains(name, value, ignoreCase) ||
+                block != null && block.headers().contains(name, value, ignoreCase);
+    }
+
+    @Override
+    public boolean contains(CharSequence name, CharSequence value, boolean ignoreCase) {
+        return headers.contains(name, value, ignoreCase) ||
+                block != null && block.headers().contains(name, value, ignoreCase);
+    }
+
+    @Override
+    public boolean containsValue(CharSequence name, CharSequence value, boolean ignoreCase) {
+        return headers.containsValue(name, value, ignoreCase) ||
+                block != null && block.headers().containsValue(name, value, ignoreCase);
+    }
+
+    @Deprecated
+    @Override
+    public Iterator<Entry<String, String>> iterator() {
+        return HeadersUtils.iteratorAsString(new Iterable<Entry<CharSequence, CharSequence>>() {
+            @Override
+            public Iterator<Entry<CharSequence, CharSequence>> iterator() {
+                return iteratorCharSequence();
+            }
+        });
+    }
+
+    @Override
+    public Iterator<Entry<CharSequence, CharSequence>> iteratorCharSequence() {
+        if (block == null) {
+            return headers.iteratorCharSequence();
+        }
+        return new ConcatIterator<Entry<CharSequence, CharSequence>>(
+                headers.iteratorCharSequence(), block.headers().iteratorCharSequence());
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return headers.isEmpty() && (block == null || block.headers().isEmpty());
+    }
+
+    @Override
+    public int size() {
+        return block == null ? headers.size() : headers.size() + block.headers().size();
+    }
+
+    @Override
+    public Set<String> names() {
+        if (block == null) {
+            return headers.names();
+        }
+        Set<String> names = new LinkedHashSet<String>(headers.names());
+        names.addAll(block.headers().names());
+        return names;
+    }
+
+    @Override
+    public HttpHeaders add(String name, Object value) {
+        headers.add(name, value);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders add(CharSequence name, Object value) {
+        headers.add(name, value);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders add(String name, Iterable<?> values) {
+        headers.add(name, values);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders add(CharSequence name, Iterable<?> values) {
+        headers.add(name, values);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders addInt(CharSequence name, int value) {
+        headers.addInt(name, value);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders addShort(CharSequence name, short value) {
+        headers.addShort(name, value);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders set(String name, Object value) {
+        return set((CharSequence) name, value);
+    }
+
+    @Override
+    public HttpHeaders set(CharSequence name, Object value) {
+        detach(name);
+        headers.set(name, value);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders set(String name, Iterable<?> values) {
+        return set((CharSequence) name, values);
+    }
+
+    @Override
+    public HttpHeaders set(CharSequence name, Iterable<?> values) {
+        detach(name);
+        headers.set(name, values);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders setInt(CharSequence name, int value) {
+        detach(name);
+        headers.setInt(name, value);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders setShort(CharSequence name, short value) {
+        detach(name);
+        headers.setShort(name, value);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders remove(String name) {
+        return remove((CharSequence) name);
+    }
+
+    @Override
+    public HttpHeaders remove(CharSequence name) {
+        detach(name);
+        headers.remove(name);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders clear() {
+        block = null;
+        headers.clear();
+        return this;
+    }
+
+    @Override
+    public HttpHeaders copy() {
+        return new PreEncodedHttpHeaders(block, validate, headers.copy());
+    }
+
+    private static final class ConcatIterator<T> implements Iterator<T> {
+        private Iterator<T> current;
+        private Iterator<T> next;
+
+        ConcatIterator(Iterator<T> first, Iterator<T> second) {
+            current = first;
+            next = second;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (current.hasNext()) {
+                return true;
+            }
+            if (next != null) {
+                current = next;
+                next = null;
+                return current.hasNext();
+            }
+            return false;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove");
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http.multipart;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link MultipartPartSink} which writes the content of a part to a {@link File}.
+ * <p>
+ * The received buffers are not copied: they are kept until enough content was received and then written with a single
+ * gathering {@link FileChannel#write(ByteBuffer[])}, which saves a system call per buffer.
+ */
+public class FileMultipartPartSink implements MultipartPartSink {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(FileMultipartPartSink.class);
+
+    private static final int DEFAULT_MAX_PENDING_BYTES = 64 * 1024;
+    // Stay well below IOV_MAX.
+    private static final int MAX_PENDING_BUFFERS = 64;
+
+    private final File file;
+    private final int maxPendingBytes;
+    private final List<ByteBuf> pending = new ArrayList<ByteBuf>();
+    private RandomAccessFile accessFile;
+    private FileChannel fileChannel;
+    private int pendingBytes;
+    private long length;
+
+    /**
+     * Creates a new sink which (over)writes the given file.
+     */
+    public FileMultipartPartSink(File file) throws IOException {
+        this(file, DEFAULT_MAX_PENDING_BYTES);
+    }
+
+    /**
+     * Creates a new sink which (over)writes the given file.
+     *
+     * @param maxPendingBytes the number of bytes which are kept in memory before they are written to the file.
+     */
+    public FileMultipartPartSink(File file, int maxPendingBytes) throws IOException {
+        this.file = ObjectUtil.checkNotNull(file, "file");
+        this.maxPendingBytes = ObjectUtil.checkPositiveOrZero(maxPendingBytes, "maxPendingBytes");
+        accessFile = new RandomAccessFile(file, "rw");
+        try {
+            accessFile.setLength(0);
+            fileChannel = accessFile.getChannel();
+        } catch (IOException e) {
+            accessFile.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the file the content is written to.
+     */
+    public File file() {
+        return file;
+    }
+
+    /**
+     * Returns the number of bytes written to this sink so far.
+     */
+    public long length() {
+        return length;
+    }
+
+    @Override
+    public void write(ByteBuf data) throws IOException {
+        if (fileChannel == null) {
+            data.release();
+            throw new IOException("sink closed");
+        }
+        int readable = data.readableBytes();
+        if (readable == 0) {
+            data.release();
+            return;
+        }
+        pending.add(data);
+        pendingBytes += readable;
+        length += readable;
+        if (pendingBytes >= maxPendingBytes || pending.size() >= MAX_PENDING_BUFFERS) {
+            flushPending();
+        }
+    }
+
+    private void flushPending() throws IOException {
+        if (pending.isEmpty()) {
+            return;
+        }
+        try {
+            ByteBuffer[] nioBuffers;
+            if (pending.size() == 1) {
+                nioBuffers = pending.get(0).nioBuffers();
+            } else {
+                List<ByteBuffer> buffers = new ArrayList<ByteBuffer>(pending.size());
+                for (int i = 0; i < pending.size(); i++) {
+                    ByteBuf buf = pending.get(i);
+                    if (buf.nioBufferCount() == 1) {
+                        buffers.add(buf.internalNioBuffer(buf.readerIndex(), buf.readableBytes()));
+                    } else {
+                        for (ByteBuffer buffer : buf.nioBuffers()) {
+                            buffers.add(buffer);
+                        }
+                    }
+                }
+                nioBuffers = buffers.toArray(new ByteBuffer[0]);
+            }
+            long remaining = pendingBytes;
+            while (remaining > 0) {
+                remaining -= fileChannel.write(nioBuffers);
+            }
+        } finally {
+            releasePending();
+        }
+    }
+
+    private void releasePending() {
+        for (int i = 0; i < pending.size(); i++) {
+            pending.get(i).release();
+        }
+        pending.clear();
+        pendingBytes = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (fileChannel == null) {
+            return;
+        }
+        try {
+            flushPending();
+            fileChannel.force(false);
+        } finally {
+            closeFile();
+        }
+    }
+
+    @Override
+    public void abort() {
+        releasePending();
+        if (fileChannel != null) {
+            closeFile();
+            if (!file.delete()) {
+                logger.warn("Failed to delete: {}", file);
+            }
+        }
+    }
+
+    private void closeFile() {
+        try {
+            accessFile.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close a file.", e);
+        }
+        fileChannel = null;
+        accessFile = null;
+    }
+
+    @Override
+    public String toString() {
+        return "FileMultipartPartSink(" + file + ", length: " + length + ')';
+    }
+}
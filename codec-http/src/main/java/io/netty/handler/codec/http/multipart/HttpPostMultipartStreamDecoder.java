@@ -0,0 +1,419 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http.multipart;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.search.AbstractSearchProcessorFactory;
+import io.netty.buffer.search.SearchProcessor;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpConstants;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.codec.http.multipart.HttpPostRequestDecoder.ErrorDataDecoderException;
+import io.netty.util.ByteProcessor;
+import io.netty.util.CharsetUtil;
+import io.netty.util.internal.ObjectUtil;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A streaming decoder of {@code multipart/form-data} bodies.
+ * <p>
+ * Unlike {@link HttpPostMultipartRequestDecoder}, this decoder does not accumulate the undecoded body nor the content
+ * of the parts. It scans every received byte exactly once for the part delimiter with a KMP
+ * {@link SearchProcessor} which keeps its state across chunks, and passes the content of each part as it arrives
+ * to the {@link MultipartPartSink} returned by the {@link MultipartPartSinkFactory} for the headers of the part. The
+ * content is passed as retained slices of the received {@link HttpContent}s, so it is never copied by the decoder.
+ * Only the bytes at the end of a chunk which may be the beginning of a delimiter are kept until the next chunk is
+ * received.
+ * <p>
+ * Nested {@code multipart/mixed} parts are not decoded but passed to the sink as they are.
+ * <p>
+ * You <strong>MUST</strong> call {@link #destroy()} after completion to release all resources.
+ */
+public class HttpPostMultipartStreamDecoder {
+    private static final int DEFAULT_MAX_HEADER_SIZE = 8192;
+
+    private enum State {
+        PREAMBLE,
+        DELIMITER_SUFFIX,
+        HEADERS,
+        CONTENT,
+        EPILOGUE
+    }
+
+    private final MultipartPartSinkFactory sinkFactory;
+    private final int maxHeaderSize;
+    private final int delimiterLength;
+    private final SearchProcessor delimiterProcessor;
+    // The received buffers which were not consumed yet.
+    private final List<ByteBuf> pending = new ArrayList<ByteBuf>(4);
+    private Charset charset;
+    private State state = State.PREAMBLE;
+    // The number of bytes of pending which were scanned for the delimiter already.
+    private int scanned;
+    private int headerSize;
+    private HttpHeaders partHeaders;
+    private MultipartPartSink sink;
+    private boolean destroyed;
+
+    /**
+     * Creates a new decoder for the given {@code multipart/form-data} request.
+     *
+     * @throws ErrorDataDecoderException if the request is not a multipart request.
+     */
+    public HttpPostMultipartStreamDecoder(HttpRequest request, MultipartPartSinkFactory sinkFactory) {
+        this(request, sinkFactory, HttpConstants.DEFAULT_CHARSET, DEFAULT_MAX_HEADER_SIZE);
+    }
+
+    /**
+     * Creates a new decoder for the given {@code multipart/form-data} request.
+     *
+     * @param charset the charset of the headers of the parts, unless the request specifies one.
+     * @param maxHeaderSize the maximum size of the headers of a single part.
+     * @throws ErrorDataDecoderException if the request is not a multipart request.
+     */
+    public HttpPostMultipartStreamDecoder(HttpRequest request, MultipartPartSinkFactory sinkFactory,
+                                          Charset charset, int maxHeaderSize) {
+        ObjectUtil.checkNotNull(request, "request");
+        this.sinkFactory = ObjectUtil.checkNotNull(sinkFactory, "sinkFactory");
+        this.charset = ObjectUtil.checkNotNull(charset, "charset");
+        this.maxHeaderSize = ObjectUtil.checkPositive(maxHeaderSize, "maxHeaderSize");
+
+        String contentType = request.headers().get(HttpHeaderNames.CONTENT_TYPE);
+        if (contentType == null) {
+            throw new ErrorDataDecoderException("No '" + HttpHeaderNames.CONTENT_TYPE + "' header present.");
+        }
+        String[] dataBoundary = HttpPostRequestDecoder.getMultipartDataBoundary(contentType);
+        if (dataBoundary == null) {
+            throw new ErrorDataDecoderException("Not a multipart request: " + contentType);
+        }
+        if (dataBoundary.length > 1 && dataBoundary[1] != null) {
+            try {
+                this.charset = Charset.forName(dataBoundary[1]);
+            } catch (IllegalCharsetNameException e) {
+                throw new ErrorDataDecoderException(e);
+            } catch (UnsupportedCharsetException e) {
+                throw new ErrorDataDecoderException(e);
+            }
+        }
+        // The delimiter is the boundary preceded by a CRLF, see RFC 2046 section 5.1.1.
+        byte[] delimiter = ("\r\n" + dataBoundary[0]).getBytes(CharsetUtil.US_ASCII);
+        delimiterLength = delimiter.length;
+        delimiterProcessor = AbstractSearchProcessorFactory.newKmpSearchProcessorFactory(delimiter)
+                .newSearchProcessor();
+        // The first delimiter is not required to be preceded by a CRLF as the body may start with it.
+        feedCrlf();
+
+        if (request instanceof HttpContent) {
+            offer((HttpContent) request);
+        }
+    }
+
+    /**
+     * Decodes the given content, passing the content of the parts to their sinks.
+     *
+     * @throws ErrorDataDecoderException if the body is malformed or a sink failed.
+     */
+    public HttpPostMultipartStreamDecoder offer(HttpContent content) {
+        checkDestroyed();
+        ByteBuf buf = content.content();
+        if (state != State.EPILOGUE && buf.isReadable()) {
+            pending.add(buf.retain());
+            try {
+                decode();
+            } catch (ErrorDataDecoderException e) {
+                destroy();
+                throw e;
+            } catch (IOException e) {
+                destroy();
+                throw new ErrorDataDecoderException(e);
+            } catch (RuntimeException e) {
+                // Thrown by a sink or its factory.
+                destroy();
+                throw new ErrorDataDecoderException(e);
+            }
+        }
+        if (content instanceof LastHttpContent && state != State.EPILOGUE) {
+            destroy();
+            throw new ErrorDataDecoderException("Multipart body ended before its close delimiter");
+        }
+        return this;
+    }
+
+    /**
+     * Returns {@code true} once the close delimiter of the body was decoded.
+     */
+    public boolean isEndOfData() {
+        return state == State.EPILOGUE;
+    }
+
+    /**
+     * Releases all resources, aborting the sink of a part which was not complete yet.
+     */
+    public void destroy() {
+        if (destroyed) {
+            return;
+        }
+        destroyed = true;
+        skip(readable());
+        if (sink != null) {
+            MultipartPartSink sink = this.sink;
+            this.sink = null;
+            sink.abort();
+        }
+    }
+
+    private void checkDestroyed() {
+        if (destroyed) {
+            throw new IllegalStateException(HttpPostMultipartStreamDecoder.class.getSimpleName()
+                    + " was destroyed already");
+        }
+    }
+
+    private void decode() throws IOException {
+        for (;;) {
+            switch (state) {
+            case PREAMBLE:
+            case CONTENT:
+                if (!findDelimiter()) {
+                    return;
+                }
+                break;
+            case DELIMITER_SUFFIX:
+                if (!decodeDelimiterSuffix()) {
+                    return;
+                }
+                break;
+            case HEADERS:
+                if (!decodeHeaderLine()) {
+                    return;
+                }
+                break;
+            case EPILOGUE:
+                skip(readable());
+                return;
+            default:
+                throw new Error();
+            }
+        }
+    }
+
+    private boolean findDelimiter() throws IOException {
+        int end = forEachByte(scanned, delimiterProcessor);
+        if (end == -1) {
+            scanned = readable();
+            // Keep the bytes which may be the start of a delimiter that continues in the next chunk.
+            int safe = scanned - (delimiterLength - 1);
+            if (safe > 0) {
+                consume(safe);
+                scanned -= safe;
+            }
+            return false;
+        }
+        int delimiterStart = end - delimiterLength + 1;
+        if (delimiterStart > 0) {
+            consume(delimiterStart);
+        }
+        if (sink != null) {
+            MultipartPartSink sink = this.sink;
+            this.sink = null;
+            sink.close();
+        }
+        skip(end + 1 - Math.max(0, delimiterStart));
+        delimiterProcessor.reset();
+        scanned = 0;
+        state = State.DELIMITER_SUFFIX;
+        return true;
+    }
+
+    private boolean decodeDelimiterSuffix() {
+        int readable = readable();
+        if (readable < 2) {
+            return false;
+        }
+        if (getByte(0) == '-' && getByte(1) == '-') {
+            skip(2);
+            state = State.EPILOGUE;
+            return true;
+        }
+        // Skip the transport padding up to the CRLF.
+        for (int i = 0; i < readable; i++) {
+            byte b = getByte(i);
+            if (b == HttpConstants.LF) {
+                skip(i + 1);
+                headerSize = 0;
+                partHeaders = new DefaultHttpHeaders();
+                state = State.HEADERS;
+                return true;
+            }
+            if (b != HttpConstants.SP && b != HttpConstants.HT && b != HttpConstants.CR) {
+                throw new ErrorDataDecoderException("Invalid multipart delimiter");
+            }
+            if (i >= maxHeaderSize) {
+                throw new ErrorDataDecoderException("Multipart delimiter is too long");
+            }
+        }
+        return false;
+    }
+
+    private boolean decodeHeaderLine() throws IOException {
+        int lf = forEachByte(0, ByteProcessor.FIND_LF);
+        if (lf == -1) {
+            if (headerSize + readable() > maxHeaderSize) {
+                throw new ErrorDataDecoderException("Multipart part headers are larger than " + maxHeaderSize);
+            }
+            return false;
+        }
+        headerSize += lf + 1;
+        if (headerSize > maxHeaderSize) {
+            throw new ErrorDataDecoderException("Multipart part headers are larger than " + maxHeaderSize);
+        }
+        int length = lf > 0 && getByte(lf - 1) == HttpConstants.CR ? lf - 1 : lf;
+        if (length == 0) {
+            skip(lf + 1);
+            HttpHeaders headers = partHeaders;
+            partHeaders = null;
+            sink = sinkFactory.newSink(headers);
+            if (sink == null) {
+                throw new ErrorDataDecoderException("sinkFactory returned null for: " + headers);
+            }
+            state = State.CONTENT;
+            return true;
+        }
+        byte[] bytes = new byte[length];
+        readBytes(bytes);
+        skip(lf + 1 - length);
+        String line = new String(bytes, charset);
+        int colon = line.indexOf(':');
+        if (colon <= 0) {
+            throw new ErrorDataDecoderException("Invalid multipart part header: " + line);
+        }
+        try {
+            partHeaders.add(line.substring(0, colon).trim(), line.substring(colon + 1).trim());
+        } catch (IllegalArgumentException e) {
+            throw new ErrorDataDecoderException("Invalid multipart part header: " + line, e);
+        }
+        return true;
+    }
+
+    private void feedCrlf() {
+        try {
+            delimiterProcessor.process(HttpConstants.CR);
+            delimiterProcessor.process(HttpConstants.LF);
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+
+    private int readable() {
+        int readable = 0;
+        for (int i = 0; i < pending.size(); i++) {
+            readable += pending.get(i).readableBytes();
+        }
+        return readable;
+    }
+
+    private byte getByte(int offset) {
+        for (int i = 0; i < pending.size(); i++) {
+            ByteBuf buf = pending.get(i);
+            int readable = buf.readableBytes();
+            if (offset < readable) {
+                return buf.getByte(buf.readerIndex() + offset);
+            }
+            offset -= readable;
+        }
+        throw new IndexOutOfBoundsException();
+    }
+
+    /**
+     * Calls the processor for the pending bytes starting at the given offset and returns the offset of the byte for
+     * which it returned {@code false}, or {@code -1} if it returned {@code true} for all bytes.
+     */
+    private int forEachByte(int offset, ByteProcessor processor) {
+        int base = 0;
+        for (int i = 0; i < pending.size(); i++) {
+            ByteBuf buf = pending.get(i);
+            int readable = buf.readableBytes();
+            if (offset < base + readable) {
+                int start = Math.max(offset - base, 0);
+                int index = buf.forEachByte(buf.readerIndex() + start, readable - start, processor);
+                if (index != -1) {
+                    return base + index - buf.readerIndex();
+                }
+            }
+            base += readable;
+        }
+        return -1;
+    }
+
+    private void readBytes(byte[] dst) {
+        int dstIndex = 0;
+        while (dstIndex < dst.length) {
+            ByteBuf buf = pending.get(0);
+            int length = Math.min(buf.readableBytes(), dst.length - dstIndex);
+            buf.readBytes(dst, dstIndex, length);
+            dstIndex += length;
+            if (!buf.isReadable()) {
+                pending.remove(0).release();
+            }
+        }
+    }
+
+    /**
+     * Passes the given number of pending bytes to the sink of the current part.
+     */
+    private void consume(int length) throws IOException {
+        if (sink == null) {
+            skip(length);
+            return;
+        }
+        while (length > 0) {
+            ByteBuf buf = pending.get(0);
+            ByteBuf data;
+            if (buf.readableBytes() <= length) {
+                pending.remove(0);
+                data = buf;
+            } else {
+                data = buf.readRetainedSlice(length);
+            }
+            length -= data.readableBytes();
+            sink.write(data);
+        }
+    }
+
+    private void skip(int length) {
+        while (length > 0) {
+            ByteBuf buf = pending.get(0);
+            int readable = buf.readableBytes();
+            if (readable <= length) {
+                pending.remove(0).release();
+                length -= readable;
+            } else {
+                buf.skipBytes(length);
+                length = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http.multipart;
+
+import io.netty.buffer.ByteBuf;
+
+import java.io.IOException;
+
+/**
+ * Receives the content of a single part decoded by {@link HttpPostMultipartStreamDecoder}, as it arrives.
+ *
+ * @see MultipartPartSinkFactory
+ */
+public interface MultipartPartSink {
+
+    /**
+     * Writes the next chunk of the content of the part. The ownership of {@code data} is transferred to the sink,
+     * which is responsible for releasing it.
+     */
+    void write(ByteBuf data) throws IOException;
+
+    /**
+     * Called once the whole content of the part was written.
+     */
+    void close() throws IOException;
+
+    /**
+     * Called instead of {@link #close()} if the decoding failed or was stopped before the part was complete. The sink
+     * must release all resources it holds.
+     */
+    void abort();
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http.multipart;
+
+import io.netty.handler.codec.http.HttpHeaders;
+
+import java.io.IOException;
+
+/**
+ * Creates the {@link MultipartPartSink} which receives the content of a part decoded by
+ * {@link HttpPostMultipartStreamDecoder}.
+ */
+public interface MultipartPartSinkFactory {
+
+    /**
+     * Returns the sink for the content of the part with the given headers, which is called as soon as the headers of
+     * the part were decoded and before any of its content.
+     */
+    MultipartPartSink newSink(HttpHeaders partHeaders) throws IOException;
+}
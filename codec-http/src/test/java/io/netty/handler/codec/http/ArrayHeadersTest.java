@@ -0,0 +1,237 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.handler.codec.CharSequenceValueConverter;
+import io.netty.handler.codec.DefaultHeaders;
+import io.netty.handler.codec.DefaultHeadersImpl;
+import io.netty.handler.codec.Headers;
+import io.netty.util.AsciiString;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Random;
+
+import static io.netty.util.AsciiString.CASE_INSENSITIVE_HASHER;
+import static io.netty.util.AsciiString.of;
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link ArrayHeaders}.
+ */
+public class ArrayHeadersTest {
+
+    private static final class TestArrayHeaders extends
+            ArrayHeaders<CharSequence, CharSequence, TestArrayHeaders> {
+        TestArrayHeaders() {
+            super(CASE_INSENSITIVE_HASHER, CharSequenceValueConverter.INSTANCE);
+        }
+    }
+
+    @Test
+    public void testAddGetAndRemove() {
+        TestArrayHeaders headers = new TestArrayHeaders();
+        headers.add(of("name1"), of("value1"), of("value2"));
+        headers.add(of("Name2"), of("value3"));
+        headers.add(of("NAME1"), of("value4"));
+        assertEquals(4, headers.size());
+        assertEquals(of("value1"), headers.get(of("name1")));
+        assertEquals(asList(of("value1"), of("value2"), of("value4")), headers.getAll(of("Name1")));
+        assertEquals(of("value3"), headers.get(of("name2")));
+        assertNull(headers.get(of("name3")));
+        assertTrue(headers.getAll(of("name3")).isEmpty());
+
+        assertEquals(of("value1"), headers.getAndRemove(of("name1")));
+        assertEquals(1, headers.size());
+        assertFalse(headers.contains(of("name1")));
+        assertEquals(of("value3"), headers.get(of("name2")));
+
+        headers.clear();
+        assertTrue(headers.isEmpty());
+        assertNull(headers.get(of("name2")));
+    }
+
+    @Test
+    public void testSetReplacesAllValuesAndKeepsInsertionOrder() {
+        TestArrayHeaders headers = new TestArrayHeaders();
+        headers.add(of("a"), of("1"));
+        headers.add(of("b"), of("2"));
+        headers.add(of("a"), of("3"));
+        headers.set(of("a"), of("4"));
+
+        List<String> entries = new ArrayList<String>();
+        for (Entry<CharSequence, CharSequence> entry : headers) {
+            entries.add(entry.getKey() + "=" + entry.getValue());
+        }
+        assertEquals(asList("b=2", "a=4"), entries);
+    }
+
+    @Test
+    public void testValueIteratorRemove() {
+        TestArrayHeaders headers = new TestArrayHeaders();
+        headers.add(of("a"), of("1"), of("2"), of("3"));
+        headers.add(of("b"), of("4"));
+        Iterator<CharSequence> itr = headers.valueIterator(of("a"));
+        assertEquals(of("1"), itr.next());
+        itr.remove();
+        assertEquals(of("2"), itr.next());
+        assertEquals(of("3"), itr.next());
+        itr.remove();
+        assertFalse(itr.hasNext());
+
+        assertEquals(Collections.<CharSequence>singletonList(of("2")), headers.getAll(of("a")));
+        headers.add(of("a"), of("5"));
+        assertEquals(asList(of("2"), of("5")), headers.getAll(of("a")));
+        assertEquals(3, headers.size());
+    }
+
+    @Test
+    public void testManyValuesForOneName() {
+        TestArrayHeaders headers = new TestArrayHeaders();
+        List<CharSequence> expected = new ArrayList<CharSequence>();
+        for (int i = 0; i < 1000; i++) {
+            headers.add(of("a"), of(String.valueOf(i)));
+            expected.add(of(String.valueOf(i)));
+            headers.add(of("b"), of(String.valueOf(i)));
+        }
+        // Remove values in the middle and at the end of the same name chain, and the holes cause a compaction.
+        Iterator<CharSequence> itr = headers.valueIterator(of("a"));
+        for (int i = 0; itr.hasNext(); i++) {
+            itr.next();
+            if (i % 3 == 0 || i == 999) {
+                itr.remove();
+            }
+        }
+        Iterator<CharSequence> expectedItr = expected.iterator();
+        for (int i = 0; expectedItr.hasNext(); i++) {
+            expectedItr.next();
+            if (i % 3 == 0 || i == 999) {
+                expectedItr.remove();
+            }
+        }
+        headers.remove(of("b"));
+        for (int i = 1000; i < 2000; i++) {
+            headers.add(of("A"), of(String.valueOf(i)));
+            expected.add(of(String.valueOf(i)));
+        }
+        assertEquals(expected, headers.getAll(of("a")));
+        assertEquals(expected.size(), headers.size());
+    }
+
+    @Test
+    public void testEntrySetValue() {
+        TestArrayHeaders headers = new TestArrayHeaders();
+        headers.add(of("a"), of("1"));
+        Entry<CharSequence, CharSequence> entry = headers.iterator().next();
+        entry.setValue(of("2"));
+        assertEquals(of("2"), headers.get(of("a")));
+        assertThrows(UnsupportedOperationException.class, new Executable() {
+            @Override
+            public void execute() {
+                Iterator<Entry<CharSequence, CharSequence>> itr = new TestArrayHeaders().add(of("a"), of("1"))
+                        .iterator();
+                itr.next();
+                itr.remove();
+            }
+        });
+    }
+
+    @Test
+    public void testEqualsAndCopy() {
+        TestArrayHeaders headers = new TestArrayHeaders();
+        headers.add(of("a"), of("1"), of("2"));
+        headers.addInt(of("b"), 3);
+        ArrayHeaders<CharSequence, CharSequence, TestArrayHeaders> copy = headers.copy();
+        assertEquals(headers, copy);
+        assertEquals(headers.hashCode(), copy.hashCode());
+        assertEquals(3, copy.getInt(of("b"), 0));
+
+        DefaultHeadersImpl<CharSequence, CharSequence> defaultHeaders =
+                new DefaultHeadersImpl<CharSequence, CharSequence>(CASE_INSENSITIVE_HASHER,
+                        CharSequenceValueConverter.INSTANCE, DefaultHeaders.NameValidator.NOT_NULL);
+        defaultHeaders.add(headers);
+        assertEquals(headers, defaultHeaders);
+        assertEquals(defaultHeaders, headers);
+    }
+
+    @Test
+    public void testRandomOperationsMatchDefaultHeaders() {
+        Random random = new Random(42);
+        AsciiString[] names = new AsciiString[40];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = of((i % 2 == 0 ? "x-header-" : "X-HEADER-") + i / 2);
+        }
+        for (int round = 0; round < 50; round++) {
+            TestArrayHeaders headers = new TestArrayHeaders();
+            DefaultHeadersImpl<CharSequence, CharSequence> expected =
+                    new DefaultHeadersImpl<CharSequence, CharSequence>(CASE_INSENSITIVE_HASHER,
+                            CharSequenceValueConverter.INSTANCE, DefaultHeaders.NameValidator.NOT_NULL);
+            for (int op = 0; op < 500; op++) {
+                AsciiString name = names[random.nextInt(names.length)];
+                AsciiString value = of(String.valueOf(op));
+                switch (random.nextInt(8)) {
+                    case 0:
+                        assertEquals(expected.remove(name), headers.remove(name));
+                        break;
+                    case 1:
+                        headers.set(name, value);
+                        expected.set(name, value);
+                        break;
+                    case 2:
+                        Iterator<CharSequence> itr = headers.valueIterator(name);
+                        if (itr.hasNext()) {
+                            CharSequence removed = itr.next();
+                            itr.remove();
+                            List<CharSequence> values = expected.getAllAndRemove(name);
+                            values.remove(removed);
+                            expected.add(name, values);
+                            // The remaining values move to the end in the expected headers.
+                            List<CharSequence> remaining = headers.getAllAndRemove(name);
+                            headers.add(name, remaining);
+                        }
+                        break;
+                    default:
+                        headers.add(name, value);
+                        expected.add(name, value);
+                        break;
+                }
+                assertEquals(expected.size(), headers.size());
+                assertEquals(expected.get(name), headers.get(name));
+                assertEquals(expected.getAll(name), headers.getAll(name));
+            }
+            assertEquals(entries(expected), entries(headers));
+            assertEquals(expected.names(), headers.names());
+        }
+    }
+
+    private static List<String> entries(Headers<CharSequence, CharSequence, ?> headers) {
+        List<String> entries = new ArrayList<String>();
+        for (Entry<CharSequence, CharSequence> entry : headers) {
+            entries.add(entry.getKey() + "=" + entry.getValue());
+        }
+        return entries;
+    }
+}
@@ -263,6 +263,43 @@ public class DefaultHttpHeadersTest {
         assertArrayEquals(namesArray, new String[] { HttpHeaderNames.CONTENT_LENGTH.toString() });
     }
 
+    @Test
+    public void arrayStorageBehavesLikeDefaultStorage() {
+        final DefaultHttpHeaders headers = DefaultHttpHeadersFactory.headersFactory().withArrayStorage(true)
+                .newHeaders();
+        DefaultHttpHeaders expected = new DefaultHttpHeaders();
+        for (DefaultHttpHeaders h : asList(headers, expected)) {
+            h.add(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.TEXT_PLAIN);
+            h.add("Vary", "a");
+            h.addInt(HttpHeaderNames.CONTENT_LENGTH, 10);
+            h.add(HttpHeaderNames.VARY, "b");
+            h.set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON);
+        }
+        assertEquals(expected, headers);
+        assertEquals(expected.hashCode(), headers.hashCode());
+        assertEquals(expected.entries().toString(), headers.entries().toString());
+        assertEquals(asList("a", "b"), headers.getAll(HttpHeaderNames.VARY));
+        assertEquals(10, headers.getInt(HttpHeaderNames.CONTENT_LENGTH, 0));
+        assertTrue(headers.contains(HttpHeaderNames.VARY, "B", true));
+        assertFalse(headers.contains(HttpHeaderNames.VARY, "B", false));
+        assertTrue(headers.containsValue(HttpHeaderNames.CONTENT_TYPE, "APPLICATION/JSON", true));
+
+        HttpHeaders copy = headers.copy();
+        assertTrue(((DefaultHttpHeaders) copy).isArrayStorage());
+        assertEquals(expected, copy);
+        assertEquals(headers, expected.copy());
+        headers.remove(HttpHeaderNames.VARY);
+        assertEquals(2, headers.size());
+        assertEquals(4, copy.size());
+
+        assertThrows(IllegalArgumentException.class, new Executable() {
+            @Override
+            public void execute() {
+                headers.add("bad name", "foo");
+            }
+        });
+    }
+
     private static void assertDefaultValues(final DefaultHttpHeaders headers, final HeaderValue headerValue) {
         assertTrue(contentEquals(headerValue.asList().get(0), headers.get(HEADER_NAME)));
         List<CharSequence> expected = headerValue.asList();
@@ -34,7 +34,10 @@ import io.netty.channel.local.LocalChannel;
 import io.netty.channel.local.LocalServerChannel;
 import io.netty.handler.codec.DecoderResult;
 import io.netty.handler.codec.EncoderException;
+import io.netty.handler.codec.compression.BrotliDecoder;
+import io.netty.handler.codec.compression.StandardCompressionOptions;
 import io.netty.handler.codec.compression.ZlibWrapper;
+import io.netty.handler.codec.compression.ZstdDecoder;
 import io.netty.util.CharsetUtil;
 import io.netty.util.ReferenceCountUtil;
 import java.util.UUID;
@@ -99,6 +102,157 @@ public class HttpContentCompressorTest {
         }
     }
 
+    @Test
+    public void testDetermineEncoding() throws Exception {
+        HttpContentCompressor compressor = new HttpContentCompressor(StandardCompressionOptions.gzip(),
+                StandardCompressionOptions.deflate(), StandardCompressionOptions.zstd());
+
+        String[] tests = {
+            // Accept-Encoding -> Content-Encoding
+            "", null,
+            "*", "zstd",
+            "*;q=0.0", null,
+            "gzip", "gzip",
+            "gzip, zstd", "zstd",
+            "gzip, zstd;q=0.5", "gzip",
+            "zstd;q=0, *", "gzip",
+            "zstd, gzip;q=0, deflate", "zstd",
+            "gzip; q=0, deflate", "deflate",
+            " deflate ; q=0 , *;q=0.5", "zstd",
+        };
+        for (int i = 0; i < tests.length; i += 2) {
+            assertEquals(tests[i + 1], compressor.determineEncoding(tests[i]), tests[i]);
+        }
+
+        compressor = new HttpContentCompressor(StandardCompressionOptions.gzip());
+        assertEquals("gzip", compressor.determineEncoding("zstd, gzip;q=0.5, deflate"));
+        assertEquals("gzip", compressor.determineEncoding("*"));
+        assertNull(compressor.determineEncoding("zstd, deflate"));
+
+        compressor = new HttpContentCompressor(StandardCompressionOptions.brotli(), StandardCompressionOptions.gzip(),
+                StandardCompressionOptions.deflate(), StandardCompressionOptions.zstd());
+        tests = new String[] {
+            // Accept-Encoding -> Content-Encoding
+            "*", "br",
+            "gzip, deflate, br", "br",
+            "gzip, br;q=0.5", "gzip",
+            "br;q=0.9, zstd", "zstd",
+            "br;q=0, *", "zstd",
+        };
+        for (int i = 0; i < tests.length; i += 2) {
+            assertEquals(tests[i + 1], compressor.determineEncoding(tests[i]), tests[i]);
+        }
+    }
+
+    @Test
+    public void testBrotliContent() throws Exception {
+        EmbeddedChannel ch = new EmbeddedChannel(new HttpContentCompressor(
+                StandardCompressionOptions.brotli(), StandardCompressionOptions.gzip()));
+        FullHttpRequest req = newRequest();
+        req.headers().set(HttpHeaderNames.ACCEPT_ENCODING, "gzip, deflate, br");
+        assertTrue(ch.writeInbound(req));
+
+        HttpResponse res = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        res.headers().set(HttpHeaderNames.TRANSFER_ENCODING, HttpHeaderValues.CHUNKED);
+        ch.writeOutbound(res);
+        ch.writeOutbound(new DefaultHttpContent(Unpooled.copiedBuffer("Hell", CharsetUtil.US_ASCII)));
+        ch.writeOutbound(new DefaultHttpContent(Unpooled.copiedBuffer("o, w", CharsetUtil.US_ASCII)));
+        ch.writeOutbound(new DefaultLastHttpContent(Unpooled.copiedBuffer("orld", CharsetUtil.US_ASCII)));
+
+        HttpResponse response = ch.readOutbound();
+        assertThat(response.headers().get(HttpHeaderNames.CONTENT_ENCODING), is("br"));
+
+        EmbeddedChannel decoder = new EmbeddedChannel(new BrotliDecoder());
+        for (;;) {
+            HttpContent c = ch.readOutbound();
+            if (c == null) {
+                break;
+            }
+            decoder.writeInbound(c.content());
+        }
+        ByteBuf decompressed = Unpooled.buffer();
+        for (;;) {
+            ByteBuf buf = decoder.readInbound();
+            if (buf == null) {
+                break;
+            }
+            decompressed.writeBytes(buf);
+            buf.release();
+        }
+        assertEquals("Hello, world", decompressed.toString(CharsetUtil.US_ASCII));
+        decompressed.release();
+        assertFalse(decoder.finish());
+        assertTrue(ch.finishAndReleaseAll());
+    }
+
+    @Test
+    public void testPreCompressedContent() throws Exception {
+        HttpContentCompressor compressor = new HttpContentCompressor(
+                StandardCompressionOptions.brotli(), StandardCompressionOptions.gzip());
+        EmbeddedChannel ch = new EmbeddedChannel(compressor);
+        FullHttpRequest req = newRequest();
+        req.headers().set(HttpHeaderNames.ACCEPT_ENCODING, "gzip, br");
+        assertTrue(ch.writeInbound(req));
+
+        // The application serves the pre-compressed variant the client prefers.
+        String encoding = compressor.determineEncoding(req.headers().get(HttpHeaderNames.ACCEPT_ENCODING));
+        assertEquals("br", encoding);
+        byte[] preCompressed = { 0x0b, 0x02, (byte) 0x80, 0x48, 0x69, 0x03 };
+        FullHttpResponse res = new DefaultFullHttpResponse(
+                HttpVersion.HTTP_1_1, HttpResponseStatus.OK, Unpooled.wrappedBuffer(preCompressed));
+        res.headers().set(HttpHeaderNames.CONTENT_ENCODING, encoding);
+        res.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, preCompressed.length);
+        assertTrue(ch.writeOutbound(res));
+
+        FullHttpResponse response = ch.readOutbound();
+        assertEquals("br", response.headers().get(HttpHeaderNames.CONTENT_ENCODING));
+        assertEquals(preCompressed.length, response.headers().getInt(HttpHeaderNames.CONTENT_LENGTH).intValue());
+        assertEquals(Unpooled.wrappedBuffer(preCompressed), response.content());
+        response.release();
+
+        assertTrue(ch.finishAndReleaseAll());
+    }
+
+    @Test
+    public void testZstdContent() throws Exception {
+        EmbeddedChannel ch = new EmbeddedChannel(new HttpContentCompressor(
+                StandardCompressionOptions.gzip(), StandardCompressionOptions.zstd()));
+        FullHttpRequest req = newRequest();
+        req.headers().set(HttpHeaderNames.ACCEPT_ENCODING, "gzip, zstd");
+        assertTrue(ch.writeInbound(req));
+
+        FullHttpResponse res = new DefaultFullHttpResponse(
+                HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                Unpooled.copiedBuffer("Hello, World", CharsetUtil.US_ASCII));
+        assertTrue(ch.writeOutbound(res));
+
+        HttpResponse response = ch.readOutbound();
+        assertThat(response.headers().get(HttpHeaderNames.CONTENT_ENCODING), is("zstd"));
+        assertThat(response.headers().get(HttpHeaderNames.TRANSFER_ENCODING), is("chunked"));
+
+        EmbeddedChannel decoder = new EmbeddedChannel(new ZstdDecoder());
+        for (;;) {
+            HttpContent c = ch.readOutbound();
+            if (c == null) {
+                break;
+            }
+            decoder.writeInbound(c.content());
+        }
+        ByteBuf decompressed = Unpooled.buffer();
+        for (;;) {
+            ByteBuf buf = decoder.readInbound();
+            if (buf == null) {
+                break;
+            }
+            decompressed.writeBytes(buf);
+            buf.release();
+        }
+        assertEquals("Hello, World", decompressed.toString(CharsetUtil.US_ASCII));
+        decompressed.release();
+        assertFalse(decoder.finish());
+        assertTrue(ch.finishAndReleaseAll());
+    }
+
     @Test
     public void testSplitContent() throws Exception {
         EmbeddedChannel ch = new EmbeddedChannel(new HttpContentCompressor());
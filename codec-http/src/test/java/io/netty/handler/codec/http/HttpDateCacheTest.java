@@ -0,0 +1,80 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.DateFormatter;
+import io.netty.util.AsciiString;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpDateCacheTest {
+
+    @Test
+    public void testDateIsCachedPerSecond() {
+        assertCurrentDateIsCached();
+    }
+
+    @Test
+    public void testOtherSecondsAreNotCached() {
+        long now = System.currentTimeMillis();
+        AsciiString older = HttpDateCache.date(now - 60000);
+        assertEquals(DateFormatter.format(new Date(now - 60000)), older.toString());
+        assertNotSame(older, HttpDateCache.date(now - 60000));
+        AsciiString later = HttpDateCache.date(now + 60000);
+        assertEquals(DateFormatter.format(new Date(now + 60000)), later.toString());
+        assertNotSame(later, HttpDateCache.date(now + 60000));
+
+        // Neither keeps the current second from being cached.
+        assertCurrentDateIsCached();
+    }
+
+    private static void assertCurrentDateIsCached() {
+        AsciiString date;
+        AsciiString again;
+        long second;
+        do {
+            second = System.currentTimeMillis() / 1000;
+            date = HttpDateCache.currentDate();
+            again = HttpDateCache.currentDate();
+        } while (second != System.currentTimeMillis() / 1000);
+        assertEquals(DateFormatter.format(new Date(second * 1000)), date.toString());
+        assertSame(date, again);
+    }
+
+    @Test
+    public void testServerDateHandler() {
+        EmbeddedChannel channel = new EmbeddedChannel(HttpServerDateHandler.INSTANCE);
+        HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        assertTrue(channel.writeOutbound(response));
+        assertSame(response, channel.readOutbound());
+        assertTrue(DateFormatter.parseHttpDate(response.headers().get(HttpHeaderNames.DATE)) != null);
+
+        HttpResponse withDate = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        withDate.headers().set(HttpHeaderNames.DATE, "Tue, 15 Nov 1994 08:12:31 GMT");
+        assertTrue(channel.writeOutbound(withDate));
+        assertSame(withDate, channel.readOutbound());
+        assertEquals("Tue, 15 Nov 1994 08:12:31 GMT", withDate.headers().get(HttpHeaderNames.DATE));
+        assertFalse(channel.finish());
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.CharsetUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpHeadersBlockTest {
+    private static final HttpHeadersBlock BLOCK = HttpHeadersBlock.of(new DefaultHttpHeaders()
+            .add(HttpHeaderNames.SERVER, "netty")
+            .add(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.TEXT_PLAIN)
+            .add(HttpHeaderNames.VARY, "a")
+            .add(HttpHeaderNames.VARY, "b"));
+
+    @Test
+    public void testBlockIsImmutable() {
+        HttpHeaders source = new DefaultHttpHeaders().add(HttpHeaderNames.SERVER, "netty");
+        HttpHeadersBlock block = HttpHeadersBlock.of(source);
+        source.set(HttpHeaderNames.SERVER, "other");
+        assertEquals("netty", block.headers().get(HttpHeaderNames.SERVER));
+        assertEquals("server: netty\r\n\r\n".length(), block.encodedLength());
+
+        ByteBuf encoded = block.encoded();
+        assertTrue(encoded.isReadOnly());
+        assertFalse(encoded.release());
+        assertEquals("server: netty\r\n\r\n", encoded.toString(CharsetUtil.US_ASCII));
+    }
+
+    @Test
+    public void testHeadersView() {
+        HttpHeaders headers = BLOCK.newHeaders();
+        headers.add(HttpHeaderNames.VARY, "c");
+        headers.addInt(HttpHeaderNames.CONTENT_LENGTH, 5);
+
+        assertEquals(6, headers.size());
+        assertFalse(headers.isEmpty());
+        assertEquals("netty", headers.get(HttpHeaderNames.SERVER));
+        assertEquals(5, headers.getInt(HttpHeaderNames.CONTENT_LENGTH, -1));
+        assertEquals(Arrays.asList("c", "a", "b"), headers.getAll(HttpHeaderNames.VARY));
+        assertTrue(headers.contains(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.TEXT_PLAIN, true));
+        assertTrue(headers.names().contains("vary"));
+        assertEquals(6, headers.entries().size());
+        assertSame(BLOCK, ((PreEncodedHttpHeaders) headers).block());
+
+        HttpHeaders copy = headers.copy();
+        copy.remove(HttpHeaderNames.CONTENT_LENGTH);
+        assertSame(BLOCK, ((PreEncodedHttpHeaders) copy).block());
+        assertEquals("5", headers.get(HttpHeaderNames.CONTENT_LENGTH));
+    }
+
+    @Test
+    public void testModifyingBlockHeaderDetaches() {
+        HttpHeaders headers = BLOCK.newHeaders();
+        headers.add(HttpHeaderNames.CONTENT_LENGTH, 0);
+        headers.set(HttpHeaderNames.VARY, "c");
+
+        assertNull(((PreEncodedHttpHeaders) headers).block());
+        assertEquals(Arrays.asList("c"), headers.getAll(HttpHeaderNames.VARY));
+        assertEquals("netty", headers.get(HttpHeaderNames.SERVER));
+        assertEquals(4, headers.size());
+        // The block itself is not modified.
+        assertEquals(Arrays.asList("a", "b"), BLOCK.headers().getAll(HttpHeaderNames.VARY));
+
+        headers = BLOCK.newHeaders();
+        headers.remove(HttpHeaderNames.SERVER);
+        assertNull(((PreEncodedHttpHeaders) headers).block());
+        assertFalse(headers.contains(HttpHeaderNames.SERVER));
+
+        headers = BLOCK.newHeaders();
+        headers.clear();
+        assertTrue(headers.isEmpty());
+    }
+
+    @Test
+    public void testEncodeResponse() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpResponseEncoder());
+        HttpHeaders headers = BLOCK.newHeaders();
+        headers.add(HttpHeaderNames.CONTENT_LENGTH, 5);
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                Unpooled.copiedBuffer("hello", CharsetUtil.US_ASCII), headers, EmptyHttpHeaders.INSTANCE);
+        assertTrue(channel.writeOutbound(response));
+
+        // The block and the content are merged into the buffer of the initial line.
+        assertEquals("HTTP/1.1 200 OK\r\ncontent-length: 5\r\n" +
+                "server: netty\r\ncontent-type: text/plain\r\nvary: a\r\nvary: b\r\n\r\nhello",
+                readOutbound(channel));
+        assertNull(channel.readOutbound());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testEncodeResponseWithLargeBlock() {
+        String value = new String(new char[1024]).replace('\0', 'a');
+        HttpHeadersBlock block = HttpHeadersBlock.of(new DefaultHttpHeaders().add("x-large", value));
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpResponseEncoder());
+        HttpHeaders headers = block.newHeaders();
+        headers.add(HttpHeaderNames.CONTENT_LENGTH, 5);
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                Unpooled.copiedBuffer("hello", CharsetUtil.US_ASCII), headers, EmptyHttpHeaders.INSTANCE);
+        assertTrue(channel.writeOutbound(response));
+
+        // The block does not fit into the buffer of the initial line, so it is written on its own.
+        assertEquals("HTTP/1.1 200 OK\r\ncontent-length: 5\r\n", readOutbound(channel));
+        assertEquals("x-large: " + value + "\r\n\r\n", readOutbound(channel));
+        assertEquals("hello", readOutbound(channel));
+        assertNull(channel.readOutbound());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testEncodeResponseWithoutContent() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpResponseEncoder());
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.NO_CONTENT,
+                Unpooled.EMPTY_BUFFER, BLOCK.newHeaders(), EmptyHttpHeaders.INSTANCE);
+        assertTrue(channel.writeOutbound(response));
+
+        assertEquals("HTTP/1.1 204 No Content\r\n" +
+                "server: netty\r\ncontent-type: text/plain\r\nvary: a\r\nvary: b\r\n\r\n",
+                readOutbound(channel));
+        assertNull(channel.readOutbound());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testEncodeDetachedHeaders() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpResponseEncoder());
+        HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                BLOCK.newHeaders());
+        response.headers().set(HttpHeaderNames.SERVER, "other");
+        response.headers().set(HttpHeaderNames.TRANSFER_ENCODING, HttpHeaderValues.CHUNKED);
+        assertTrue(channel.writeOutbound(response));
+
+        assertEquals("HTTP/1.1 200 OK\r\ncontent-type: text/plain\r\nvary: a\r\nvary: b\r\nserver: other\r\n" +
+                "transfer-encoding: chunked\r\n\r\n", readOutbound(channel));
+        assertNull(channel.readOutbound());
+        assertFalse(channel.finish());
+    }
+
+    private static String readOutbound(EmbeddedChannel channel) {
+        ByteBuf buf = channel.readOutbound();
+        try {
+            return buf.toString(CharsetUtil.US_ASCII);
+        } finally {
+            buf.release();
+        }
+    }
+}
@@ -17,13 +17,18 @@ package io.netty.handler.codec.http;
 
 import io.netty.buffer.Unpooled;
 import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.DecoderResult;
+import io.netty.handler.codec.DecoderResultProvider;
 import io.netty.handler.codec.TooLongFrameException;
 import io.netty.util.AsciiString;
 import io.netty.util.CharsetUtil;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map.Entry;
 
 import static io.netty.handler.codec.http.HttpHeaderNames.*;
 import static io.netty.handler.codec.http.HttpHeadersTestUtils.of;
@@ -34,7 +39,9 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class HttpRequestDecoderTest {
@@ -507,4 +514,153 @@ public class HttpRequestDecoderTest {
         assertTrue(request.decoderResult().cause() instanceof IllegalArgumentException);
         assertFalse(channel.finish());
     }
+
+    @Test
+    public void testZeroCopyParsing() {
+        String[] requests = {
+                new String(CONTENT_CRLF_DELIMITERS, CharsetUtil.US_ASCII),
+                new String(CONTENT_LF_DELIMITERS, CharsetUtil.US_ASCII),
+                new String(CONTENT_MIXED_DELIMITERS, CharsetUtil.US_ASCII),
+                "GET /some/path HTTP/1.1\r\n" +
+                        "X-Multi: value1\r\n" +
+                        " value2\r\n" +
+                        "\tvalue3\r\n" +
+                        "x-custom:\r\n" +
+                        "Content-Length:   0  \r\n\r\n",
+                "PROPFIND  /dav   HTTP/1.0\r\nhost: localhost\r\n\r\n",
+                "GET /\r\n\r\n",
+                "GET / HTTP/1.1\r\nHost: localhost\r\nNo-Colon\r\n\r\n",
+                "GET / HTTP/1.1\r\nTransfer-Encoding : chunked\r\n\r\n",
+                "GET / HTTP/1.1\r\nContent-Length:\u000b1\r\n\r\n",
+                "GET /\u000bsome/path HTTP/1.1\r\n\r\n",
+                "POST / HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n" +
+                        "5\r\nhello\r\n0\r\nX-Trailer: trailer\r\n\r\n",
+                "GET /some/very/long/path/which/does/not/fit/into/the/limit HTTP/1.1\r\n\r\n",
+                "GET / HTTP/1.1\r\nX-Long: 012345678901234567890123456789012345678901234567890123456789\r\n\r\n",
+        };
+        for (String request : requests) {
+            byte[] content = request.getBytes(CharsetUtil.ISO_8859_1);
+            for (int fragmentSize = 1; fragmentSize <= content.length; fragmentSize++) {
+                assertEquals(decode(content, fragmentSize, false), decode(content, fragmentSize, true), request);
+            }
+        }
+    }
+
+    private static List<String> decode(byte[] content, int fragmentSize, boolean zeroCopyParsing) {
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new HttpRequestDecoder(48, 64, 1024, true, 128, false, zeroCopyParsing));
+        for (int i = 0; i < content.length; i += fragmentSize) {
+            channel.writeInbound(Unpooled.copiedBuffer(content, i, Math.min(fragmentSize, content.length - i)));
+        }
+        channel.finish();
+
+        List<String> decoded = new ArrayList<String>();
+        for (;;) {
+            Object msg = channel.readInbound();
+            if (msg == null) {
+                return decoded;
+            }
+            DecoderResult result = ((DecoderResultProvider) msg).decoderResult();
+            decoded.add(result.isSuccess() ? "success" : result.cause().getClass().getName());
+            if (msg instanceof HttpRequest) {
+                HttpRequest request = (HttpRequest) msg;
+                decoded.add(request.method() + " " + request.uri() + " " + request.protocolVersion());
+                if (result.isSuccess()) {
+                    HttpMessageDecoderResult messageResult = (HttpMessageDecoderResult) result;
+                    decoded.add(messageResult.initialLineLength() + " " + messageResult.headerSize());
+                    decoded.add(request.headers().entries().toString());
+                }
+            }
+            if (msg instanceof HttpContent) {
+                decoded.add(((HttpContent) msg).content().toString(CharsetUtil.ISO_8859_1));
+                ((HttpContent) msg).release();
+            }
+            if (msg instanceof LastHttpContent) {
+                decoded.add(((LastHttpContent) msg).trailingHeaders().entries().toString());
+            }
+        }
+    }
+
+    @Test
+    public void testZeroCopyParsingWithLeadingControlCharsInMultipleSteps() {
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new HttpRequestDecoder(4096, 8192, 8192, true, 128, false, true));
+        byte[] content = "\r\n\r\nGET /some/path HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(CharsetUtil.US_ASCII);
+        for (int i = 0; i < content.length; i++) {
+            channel.writeInbound(Unpooled.copiedBuffer(content, i, 1));
+        }
+        HttpRequest req = channel.readInbound();
+        assertTrue(req.decoderResult().isSuccess());
+        assertEquals("/some/path", req.uri());
+        assertEquals("localhost", req.headers().get(HOST));
+        assertTrue(channel.finishAndReleaseAll());
+    }
+
+    @Test
+    public void testZeroCopyParsingLeadingControlCharsDoNotCountTowardsMaxInitialLineLength() {
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new HttpRequestDecoder(16, 8192, 8192, true, 128, false, true));
+        assertFalse(channel.writeInbound(Unpooled.copiedBuffer("\r\n\r\n\r\n\r\n\r\n\r\n\r\n\r\n",
+                CharsetUtil.US_ASCII)));
+        assertTrue(channel.writeInbound(Unpooled.copiedBuffer("GET /a HTTP/1.1\r\n\r\n",
+                CharsetUtil.US_ASCII)));
+        HttpRequest req = channel.readInbound();
+        assertTrue(req.decoderResult().isSuccess());
+        assertEquals("/a", req.uri());
+        assertEquals(15, ((HttpMessageDecoderResult) req.decoderResult()).initialLineLength());
+        assertTrue(channel.finishAndReleaseAll());
+    }
+
+    @Test
+    public void testZeroCopyParsingSharesWellKnownInstances() {
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new HttpRequestDecoder(4096, 8192, 8192, true, 128, false, true));
+        String requestStr = "GET /some/path HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "X-Custom: custom\r\n\r\n";
+        assertTrue(channel.writeInbound(Unpooled.copiedBuffer(requestStr + requestStr, CharsetUtil.US_ASCII)));
+        HttpRequest req1 = channel.readInbound();
+        assertSame(LastHttpContent.EMPTY_LAST_CONTENT, channel.readInbound());
+        HttpRequest req2 = channel.readInbound();
+        assertSame(LastHttpContent.EMPTY_LAST_CONTENT, channel.readInbound());
+
+        assertSame(HttpMethod.GET, req1.method());
+        assertSame(HttpVersion.HTTP_1_1, req1.protocolVersion());
+        Iterator<Entry<CharSequence, CharSequence>> headers1 = req1.headers().iteratorCharSequence();
+        Iterator<Entry<CharSequence, CharSequence>> headers2 = req2.headers().iteratorCharSequence();
+        Entry<CharSequence, CharSequence> host = headers1.next();
+        assertEquals("Host", host.getKey().toString());
+        assertSame(host.getKey(), headers2.next().getKey());
+        Entry<CharSequence, CharSequence> custom = headers1.next();
+        assertEquals("X-Custom", custom.getKey().toString());
+        assertNotSame(custom.getKey(), headers2.next().getKey());
+        assertThat(custom.getValue(), instanceOf(AsciiString.class));
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testHeadersFactory() {
+        testHeadersFactory(false);
+        testHeadersFactory(true);
+    }
+
+    private static void testHeadersFactory(boolean zeroCopyParsing) {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpRequestDecoder(4096, 8192, 8192, 128, false,
+                zeroCopyParsing, DefaultHttpHeadersFactory.headersFactory().withArrayStorage(true)));
+        String requestStr = "GET /some/path HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "Accept: text/html\r\n" +
+                "Accept: text/plain\r\n\r\n";
+        assertTrue(channel.writeInbound(Unpooled.copiedBuffer(requestStr, CharsetUtil.US_ASCII)));
+        HttpRequest req = channel.readInbound();
+        assertSame(LastHttpContent.EMPTY_LAST_CONTENT, channel.readInbound());
+
+        assertTrue(((DefaultHttpHeaders) req.headers()).isArrayStorage());
+        assertEquals("localhost", req.headers().get(HOST));
+        List<String> accept = req.headers().getAll(ACCEPT);
+        assertEquals(2, accept.size());
+        assertEquals("text/html", accept.get(0));
+        assertEquals("text/plain", accept.get(1));
+        assertFalse(channel.finish());
+    }
 }
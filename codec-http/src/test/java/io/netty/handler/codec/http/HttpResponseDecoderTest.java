@@ -747,4 +747,37 @@ public class HttpResponseDecoderTest {
         c.release();
         assertFalse(channel.finish());
     }
+
+    @Test
+    public void testZeroCopyParsing() {
+        String responseStr = "HTTP/1.1 200 OK\r\n" +
+                "Content-Length: 11\r\n" +
+                "X-Header : value\r\n\r\n" +
+                "Lorem ipsum" +
+                "HTTP/1.0 299 Custom Reason\r\n\r\n";
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new HttpResponseDecoder(4096, 8192, 8192, true, 128, false, true));
+        assertTrue(channel.writeInbound(Unpooled.copiedBuffer(responseStr, CharsetUtil.US_ASCII)));
+
+        HttpResponse response = channel.readInbound();
+        assertTrue(response.decoderResult().isSuccess());
+        assertThat(response.protocolVersion(), sameInstance(HttpVersion.HTTP_1_1));
+        assertThat(response.status(), sameInstance(HttpResponseStatus.OK));
+        assertEquals("11", response.headers().get(HttpHeaderNames.CONTENT_LENGTH));
+        assertEquals("value", response.headers().get("X-Header"));
+        HttpMessageDecoderResult decoderResult = (HttpMessageDecoderResult) response.decoderResult();
+        assertThat(decoderResult.initialLineLength(), is(15));
+        assertThat(decoderResult.headerSize(), is(34));
+        LastHttpContent content = channel.readInbound();
+        assertEquals("Lorem ipsum", content.content().toString(CharsetUtil.US_ASCII));
+        content.release();
+
+        response = channel.readInbound();
+        assertThat(response.protocolVersion(), sameInstance(HttpVersion.HTTP_1_0));
+        assertEquals(299, response.status().code());
+        assertEquals("Custom Reason", response.status().reasonPhrase());
+        assertThat(channel.finish(), is(true));
+        assertThat(channel.readInbound(), instanceOf(LastHttpContent.class));
+        assertNull(channel.readInbound());
+    }
 }
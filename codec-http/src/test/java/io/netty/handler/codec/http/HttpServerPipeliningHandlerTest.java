@@ -0,0 +1,211 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.CharsetUtil;
+import org.junit.jupiter.api.Test;
+
+import java.nio.channels.ClosedChannelException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpServerPipeliningHandlerTest {
+
+    @Test
+    public void testOutOfOrderResponsesAreWrittenInOrder() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpServerPipeliningHandler());
+        HttpRequest request1 = request("/1");
+        HttpRequest request2 = request("/2");
+        HttpRequest request3 = request("/3");
+        assertTrue(channel.writeInbound(request1, request2, request3));
+
+        FullHttpResponse response1 = response("1");
+        FullHttpResponse response2 = response("2");
+        FullHttpResponse response3 = response("3");
+        ChannelFuture future3 = channel.writeAndFlush(new HttpPipelinedResponse(request3, response3));
+        ChannelFuture future2 = channel.writeAndFlush(new HttpPipelinedResponse(request2, response2));
+        channel.runPendingTasks();
+        assertNull(channel.readOutbound());
+        assertFalse(future2.isDone());
+        assertFalse(future3.isDone());
+        assertEquals(3, pipelining(channel).pendingResponses());
+
+        // A response which is not wrapped responds to the oldest request.
+        channel.writeAndFlush(response1);
+        channel.runPendingTasks();
+        assertTrue(future2.isSuccess());
+        assertTrue(future3.isSuccess());
+        assertSame(response1, channel.readOutbound());
+        assertSame(response2, channel.readOutbound());
+        assertSame(response3, channel.readOutbound());
+        assertEquals(0, pipelining(channel).pendingResponses());
+
+        release(response1, response2, response3);
+        assertTrue(channel.finishAndReleaseAll());
+    }
+
+    @Test
+    public void testResponseWithMultipleParts() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpServerPipeliningHandler());
+        HttpRequest request1 = request("/1");
+        HttpRequest request2 = request("/2");
+        assertTrue(channel.writeInbound(request1, request2));
+
+        HttpResponse head2 = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        channel.write(new HttpPipelinedResponse(request2, head2));
+        channel.write(new HttpPipelinedResponse(request2, LastHttpContent.EMPTY_LAST_CONTENT));
+        HttpResponse continue1 = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.CONTINUE);
+        channel.write(new HttpPipelinedResponse(request1, continue1));
+        flush(channel);
+        assertSame(continue1, channel.readOutbound());
+        assertNull(channel.readOutbound());
+
+        HttpResponse head1 = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        HttpContent content1 = new DefaultHttpContent(Unpooled.copiedBuffer("1", CharsetUtil.US_ASCII));
+        channel.write(new HttpPipelinedResponse(request1, head1));
+        channel.write(new HttpPipelinedResponse(request1, content1));
+        flush(channel);
+        assertSame(head1, channel.readOutbound());
+        assertSame(content1, channel.readOutbound());
+        assertNull(channel.readOutbound());
+
+        channel.write(new HttpPipelinedResponse(request1, LastHttpContent.EMPTY_LAST_CONTENT));
+        flush(channel);
+        assertSame(LastHttpContent.EMPTY_LAST_CONTENT, channel.readOutbound());
+        assertSame(head2, channel.readOutbound());
+        assertSame(LastHttpContent.EMPTY_LAST_CONTENT, channel.readOutbound());
+        content1.release();
+        assertTrue(channel.finishAndReleaseAll());
+    }
+
+    @Test
+    public void testFlushesAreCoalescedPerRead() {
+        final int[] flushes = new int[1];
+        EmbeddedChannel channel = new EmbeddedChannel(new ChannelOutboundHandlerAdapter() {
+            @Override
+            public void flush(ChannelHandlerContext ctx) {
+                flushes[0]++;
+                ctx.flush();
+            }
+        }, new HttpServerPipeliningHandler());
+        ChannelInboundHandlerAdapter handler = new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                ctx.writeAndFlush(response(((HttpRequest) msg).uri()));
+            }
+        };
+        channel.pipeline().addLast(handler);
+        flushes[0] = 0;
+        channel.writeInbound(request("/1"), request("/2"), request("/3"));
+        assertEquals(1, flushes[0]);
+        for (String uri : new String[] { "/1", "/2", "/3" }) {
+            FullHttpResponse response = channel.readOutbound();
+            assertEquals(uri, response.content().toString(CharsetUtil.US_ASCII));
+            response.release();
+        }
+
+        // Flushes outside of a read are coalesced per event loop iteration.
+        HttpRequest request4 = request("/4");
+        HttpRequest request5 = request("/5");
+        channel.pipeline().remove(handler);
+        channel.writeInbound(request4, request5);
+        channel.write(new HttpPipelinedResponse(request5, response("/5")));
+        channel.write(new HttpPipelinedResponse(request4, response("/4")));
+        flushes[0] = 0;
+        channel.flush();
+        channel.flush();
+        assertEquals(0, flushes[0]);
+        channel.runPendingTasks();
+        assertEquals(1, flushes[0]);
+        assertEquals(0, pipelining(channel).pendingResponses());
+        assertTrue(channel.finishAndReleaseAll());
+    }
+
+    @Test
+    public void testMaxPendingResponses() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpServerPipeliningHandler(2));
+        HttpRequest request1 = request("/1");
+        channel.writeInbound(request1);
+        assertTrue(channel.config().isAutoRead());
+        channel.writeInbound(request("/2"));
+        assertFalse(channel.config().isAutoRead());
+
+        channel.writeAndFlush(new HttpPipelinedResponse(request1, response("1")));
+        assertTrue(channel.config().isAutoRead());
+        assertTrue(channel.finishAndReleaseAll());
+    }
+
+    @Test
+    public void testResponseToUnknownRequestFails() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpServerPipeliningHandler());
+        FullHttpResponse response = response("1");
+        ChannelFuture future = channel.writeAndFlush(new HttpPipelinedResponse(request("/"), response));
+        assertTrue(future.cause() instanceof IllegalStateException);
+        assertEquals(0, response.refCnt());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testHeldBackResponsesFailOnClose() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpServerPipeliningHandler());
+        HttpRequest request2 = request("/2");
+        channel.writeInbound(request("/1"), request2);
+        FullHttpResponse response = response("2");
+        ChannelFuture future = channel.writeAndFlush(new HttpPipelinedResponse(request2, response));
+        assertFalse(future.isDone());
+
+        channel.close();
+        assertTrue(future.cause() instanceof ClosedChannelException);
+        assertEquals(0, response.refCnt());
+        channel.finishAndReleaseAll();
+    }
+
+    private static void flush(EmbeddedChannel channel) {
+        channel.flushOutbound();
+        channel.runPendingTasks();
+    }
+
+    private static HttpServerPipeliningHandler pipelining(EmbeddedChannel channel) {
+        return channel.pipeline().get(HttpServerPipeliningHandler.class);
+    }
+
+    private static HttpRequest request(String uri) {
+        return new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, uri);
+    }
+
+    private static FullHttpResponse response(String content) {
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                Unpooled.copiedBuffer(content, CharsetUtil.US_ASCII));
+        HttpUtil.setContentLength(response, content.length());
+        return response;
+    }
+
+    private static void release(FullHttpResponse... responses) {
+        for (FullHttpResponse response : responses) {
+            response.release();
+        }
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http.multipart;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.multipart.HttpPostRequestDecoder.ErrorDataDecoderException;
+import io.netty.util.CharsetUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpPostMultipartStreamDecoderTest {
+    private static final String BOUNDARY = "dLV9Wyq26L_-JQxk6ferf-RT153LhOO";
+    private static final String BODY =
+            "preamble\r\n" +
+            "--" + BOUNDARY + "\r\n" +
+            "Content-Disposition: form-data; name=\"field\"\r\n" +
+            "\r\n" +
+            "value\r\n" +
+            "--" + BOUNDARY + "  \r\n" +
+            "Content-Disposition: form-data; name=\"file\"; filename=\"a.txt\"\r\n" +
+            "Content-Type: text/plain\r\n" +
+            "\r\n" +
+            "line1\r\n--" + BOUNDARY.substring(0, 10) + "\r\n\r\n--" +
+            BOUNDARY.substring(0, BOUNDARY.length() - 1) + "\r\n" +
+            "--" + BOUNDARY + "\r\n" +
+            "Content-Disposition: form-data; name=\"empty\"\r\n" +
+            "\r\n" +
+            "\r\n" +
+            "--" + BOUNDARY + "--\r\n" +
+            "epilogue";
+
+    @Test
+    public void testDecodeAllSplits() {
+        byte[] body = BODY.getBytes(CharsetUtil.US_ASCII);
+        for (int split = 0; split <= body.length; split++) {
+            CollectingSinkFactory factory = new CollectingSinkFactory();
+            HttpPostMultipartStreamDecoder decoder = new HttpPostMultipartStreamDecoder(newRequest(), factory);
+            ByteBuf first = Unpooled.wrappedBuffer(body, 0, split);
+            ByteBuf last = Unpooled.wrappedBuffer(body, split, body.length - split);
+            decoder.offer(new DefaultHttpContent(first));
+            decoder.offer(new DefaultLastHttpContent(last));
+            assertTrue(decoder.isEndOfData());
+            decoder.destroy();
+            // The decoder released all its references, the caller still owns the content.
+            assertEquals(1, first.refCnt());
+            assertEquals(1, last.refCnt());
+            first.release();
+            last.release();
+            assertParts(factory);
+        }
+    }
+
+    @Test
+    public void testDecodeByteByByte() {
+        byte[] body = BODY.getBytes(CharsetUtil.US_ASCII);
+        CollectingSinkFactory factory = new CollectingSinkFactory();
+        HttpPostMultipartStreamDecoder decoder = new HttpPostMultipartStreamDecoder(newRequest(), factory);
+        for (byte b : body) {
+            decoder.offer(new DefaultHttpContent(Unpooled.wrappedBuffer(new byte[] { b })));
+        }
+        decoder.offer(new DefaultLastHttpContent());
+        assertTrue(decoder.isEndOfData());
+        decoder.destroy();
+        assertParts(factory);
+    }
+
+    @Test
+    public void testBodyStartingWithBoundary() {
+        CollectingSinkFactory factory = new CollectingSinkFactory();
+        HttpPostMultipartStreamDecoder decoder = new HttpPostMultipartStreamDecoder(newRequest(), factory);
+        decoder.offer(new DefaultLastHttpContent(Unpooled.copiedBuffer(
+                "--" + BOUNDARY + "\r\n\r\ncontent\r\n--" + BOUNDARY + "--", CharsetUtil.US_ASCII)));
+        decoder.destroy();
+        assertEquals(1, factory.sinks.size());
+        assertTrue(factory.sinks.get(0).headers.isEmpty());
+        assertEquals("content", factory.sinks.get(0).content());
+    }
+
+    @Test
+    public void testFileSink() throws Exception {
+        final File file = File.createTempFile("multipart", ".tmp");
+        file.deleteOnExit();
+        final FileMultipartPartSink[] sink = new FileMultipartPartSink[1];
+        HttpPostMultipartStreamDecoder decoder = new HttpPostMultipartStreamDecoder(newRequest(),
+                new MultipartPartSinkFactory() {
+                    @Override
+                    public MultipartPartSink newSink(HttpHeaders partHeaders) throws IOException {
+                        return sink[0] = new FileMultipartPartSink(file, 1024);
+                    }
+                });
+        byte[] content = new byte[100000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        decoder.offer(new DefaultHttpContent(Unpooled.copiedBuffer("--" + BOUNDARY + "\r\n" +
+                "Content-Disposition: form-data; name=\"file\"; filename=\"a.bin\"\r\n\r\n", CharsetUtil.US_ASCII)));
+        for (int i = 0; i < content.length; i += 777) {
+            decoder.offer(new DefaultHttpContent(
+                    Unpooled.wrappedBuffer(content, i, Math.min(777, content.length - i))));
+        }
+        decoder.offer(new DefaultLastHttpContent(
+                Unpooled.copiedBuffer("\r\n--" + BOUNDARY + "--\r\n", CharsetUtil.US_ASCII)));
+        decoder.destroy();
+        assertEquals(content.length, sink[0].length());
+        assertArrayEquals(content, Files.readAllBytes(file.toPath()));
+    }
+
+    @Test
+    public void testMissingCloseDelimiter() {
+        CollectingSinkFactory factory = new CollectingSinkFactory();
+        final HttpPostMultipartStreamDecoder decoder = new HttpPostMultipartStreamDecoder(newRequest(), factory);
+        final ByteBuf content = Unpooled.copiedBuffer(
+                "--" + BOUNDARY + "\r\n\r\ncontent without end", CharsetUtil.US_ASCII);
+        assertThrows(ErrorDataDecoderException.class, new Executable() {
+            @Override
+            public void execute() {
+                decoder.offer(new DefaultLastHttpContent(content));
+            }
+        });
+        assertTrue(content.release());
+        assertEquals(1, factory.sinks.size());
+        assertTrue(factory.sinks.get(0).aborted);
+        assertFalse(factory.sinks.get(0).closed);
+    }
+
+    @Test
+    public void testHeadersTooLarge() {
+        final HttpPostMultipartStreamDecoder decoder = new HttpPostMultipartStreamDecoder(
+                newRequest(), new CollectingSinkFactory(), CharsetUtil.UTF_8, 64);
+        final StringBuilder headers = new StringBuilder("--" + BOUNDARY + "\r\n");
+        for (int i = 0; i < 8; i++) {
+            headers.append("X-Header-").append(i).append(": value\r\n");
+        }
+        assertThrows(ErrorDataDecoderException.class, new Executable() {
+            @Override
+            public void execute() {
+                decoder.offer(new DefaultHttpContent(Unpooled.copiedBuffer(headers, CharsetUtil.US_ASCII)));
+            }
+        });
+    }
+
+    @Test
+    public void testInvalidHeaderName() {
+        CollectingSinkFactory factory = new CollectingSinkFactory();
+        final HttpPostMultipartStreamDecoder decoder = new HttpPostMultipartStreamDecoder(newRequest(), factory);
+        final ByteBuf content = Unpooled.copiedBuffer(
+                "--" + BOUNDARY + "\r\nInvalid Name: value\r\n\r\ncontent", CharsetUtil.US_ASCII);
+        ErrorDataDecoderException e = assertThrows(ErrorDataDecoderException.class, new Executable() {
+            @Override
+            public void execute() {
+                decoder.offer(new DefaultHttpContent(content));
+            }
+        });
+        assertTrue(e.getCause() instanceof IllegalArgumentException);
+        // The decoder was destroyed and released its reference.
+        assertTrue(content.release());
+        assertTrue(factory.sinks.isEmpty());
+    }
+
+    @Test
+    public void testSinkFailure() {
+        final HttpPostMultipartStreamDecoder decoder = new HttpPostMultipartStreamDecoder(newRequest(),
+                new MultipartPartSinkFactory() {
+                    @Override
+                    public MultipartPartSink newSink(HttpHeaders partHeaders) {
+                        throw new IllegalStateException();
+                    }
+                });
+        final ByteBuf content = Unpooled.copiedBuffer("--" + BOUNDARY + "\r\n\r\ncontent", CharsetUtil.US_ASCII);
+        ErrorDataDecoderException e = assertThrows(ErrorDataDecoderException.class, new Executable() {
+            @Override
+            public void execute() {
+                decoder.offer(new DefaultHttpContent(content));
+            }
+        });
+        assertTrue(e.getCause() instanceof IllegalStateException);
+        assertTrue(content.release());
+    }
+
+    private static void assertParts(CollectingSinkFactory factory) {
+        assertEquals(3, factory.sinks.size());
+        CollectingSink field = factory.sinks.get(0);
+        assertEquals("form-data; name=\"field\"", field.headers.get(HttpHeaderNames.CONTENT_DISPOSITION));
+        assertEquals("value", field.content());
+        assertTrue(field.closed);
+
+        CollectingSink file = factory.sinks.get(1);
+        assertEquals("text/plain", file.headers.get(HttpHeaderNames.CONTENT_TYPE));
+        assertEquals("line1\r\n--" + BOUNDARY.substring(0, 10) + "\r\n\r\n--" +
+                BOUNDARY.substring(0, BOUNDARY.length() - 1), file.content());
+        assertTrue(file.closed);
+
+        CollectingSink empty = factory.sinks.get(2);
+        assertEquals("", empty.content());
+        assertTrue(empty.closed);
+    }
+
+    private static HttpRequest newRequest() {
+        HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/upload");
+        request.headers().set(HttpHeaderNames.CONTENT_TYPE, "multipart/form-data; boundary=" + BOUNDARY);
+        return request;
+    }
+
+    private static final class CollectingSinkFactory implements MultipartPartSinkFactory {
+        final List<CollectingSink> sinks = new ArrayList<CollectingSink>();
+
+        @Override
+        public MultipartPartSink newSink(HttpHeaders partHeaders) {
+            CollectingSink sink = new CollectingSink(partHeaders);
+            sinks.add(sink);
+            return sink;
+        }
+    }
+
+    private static final class CollectingSink implements MultipartPartSink {
+        final HttpHeaders headers;
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        boolean closed;
+        boolean aborted;
+
+        CollectingSink(HttpHeaders headers) {
+            this.headers = headers;
+        }
+
+        @Override
+        public void write(ByteBuf data) {
+            assertFalse(closed);
+            try {
+                byte[] bytes = new byte[data.readableBytes()];
+                data.readBytes(bytes);
+                out.write(bytes, 0, bytes.length);
+            } finally {
+                data.release();
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        @Override
+        public void abort() {
+            aborted = true;
+        }
+
+        String content() {
+            return new String(out.toByteArray(), CharsetUtil.US_ASCII);
+        }
+    }
+}
@@ -63,6 +63,7 @@ import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
  *   <li>{@link #headerSensitivityDetector(SensitivityDetector)}</li>
  *   <li>{@link #encoderEnforceMaxConcurrentStreams(boolean)}</li>
  *   <li>{@link #encoderIgnoreMaxHeaderListSize(boolean)}</li>
+ *   <li>{@link #encoderIgnorePriority(boolean)}</li>
  * </ul>
  *
  * <h3>Exposing necessary methods in a subclass</h3>
@@ -104,6 +105,7 @@ public abstract class AbstractHttp2ConnectionHandlerBuilder<T extends Http2Conne
     private SensitivityDetector headerSensitivityDetector;
     private Boolean encoderEnforceMaxConcurrentStreams;
     private Boolean encoderIgnoreMaxHeaderListSize;
+    private boolean encoderIgnorePriority;
     private Http2PromisedRequestVerifier promisedRequestVerifier = ALWAYS_VERIFY;
     private boolean autoAckSettingsFrame = true;
     private boolean autoAckPingFrame = true;
@@ -380,6 +382,28 @@ public abstract class AbstractHttp2ConnectionHandlerBuilder<T extends Http2Conne
         return self();
     }
 
+    /**
+     * Returns if the encoder ignores stream priorities when distributing the connection flow-control window.
+     */
+    protected boolean encoderIgnorePriority() {
+        return encoderIgnorePriority;
+    }
+
+    /**
+     * Sets if the encoder ignores stream priorities and serves the streams round-robin via
+     * {@link RoundRobinStreamByteDistributor} instead of {@link WeightedFairQueueByteDistributor}. This avoids the
+     * cost of maintaining the priority tree when the remote peer does not use priorities, which
+     * <a href="https://www.rfc-editor.org/rfc/rfc9113.html#section-5.3">RFC 9113</a> deprecated. It has no effect if
+     * a remote flow controller was set on the {@link #connection(Http2Connection)} already.
+     * @param ignorePriority {@code true} to ignore stream priorities.
+     * @return this.
+     */
+    protected B encoderIgnorePriority(boolean ignorePriority) {
+        enforceNonCodecConstraints("encoderIgnorePriority");
+        encoderIgnorePriority = ignorePriority;
+        return self();
+    }
+
     /**
      * Does nothing, do not call.
      *
@@ -518,6 +542,10 @@ public abstract class AbstractHttp2ConnectionHandlerBuilder<T extends Http2Conne
             writer = new Http2OutboundFrameLogger(writer, frameLogger);
         }
 
+        if (encoderIgnorePriority && connection.remote().flowController() == null) {
+            connection.remote().flowController(new DefaultHttp2RemoteFlowController(connection,
+                    new RoundRobinStreamByteDistributor(connection)));
+        }
         Http2ConnectionEncoder encoder = new DefaultHttp2ConnectionEncoder(connection, writer);
         boolean encoderEnforceMaxConcurrentStreams = encoderEnforceMaxConcurrentStreams();
 
@@ -36,6 +36,8 @@ import io.netty.channel.RecvByteBufAllocator;
 import io.netty.channel.VoidChannelPromise;
 import io.netty.channel.WriteBufferWaterMark;
 import io.netty.handler.codec.http2.Http2FrameCodec.DefaultHttp2FrameStream;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
 import io.netty.util.DefaultAttributeMap;
 import io.netty.util.ReferenceCountUtil;
 import io.netty.util.internal.StringUtil;
@@ -54,7 +56,7 @@ import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import static io.netty.handler.codec.http2.Http2CodecUtil.isStreamIdValid;
 import static java.lang.Math.min;
 
-abstract class AbstractHttp2StreamChannel extends DefaultAttributeMap implements Http2StreamChannel {
+abstract class AbstractHttp2StreamChannel implements Http2StreamChannel {
 
     static final Http2FrameStreamVisitor WRITABLE_VISITOR = new Http2FrameStreamVisitor() {
         @Override
@@ -147,12 +149,16 @@ abstract class AbstractHttp2StreamChannel extends DefaultAttributeMap implements
         REQUESTED
     }
 
-    private final Http2StreamChannelConfig config = new Http2StreamChannelConfig(this);
     private final Http2ChannelUnsafe unsafe = new Http2ChannelUnsafe();
-    private final ChannelId channelId;
     private final ChannelPipeline pipeline;
-    private final DefaultHttp2FrameStream stream;
-    private final ChannelPromise closePromise;
+    // Not final as the channel may be reused for another stream, see reset(...).
+    private Http2StreamChannelConfig config = new Http2StreamChannelConfig(this);
+    private DefaultAttributeMap attributes = new DefaultAttributeMap();
+    private ChannelId channelId;
+    private DefaultHttp2FrameStream stream;
+    private ChannelPromise closePromise;
+    // The handler to add once a reused channel is registered again.
+    private ChannelHandler inboundHandler;
 
     private volatile boolean registered;
 
@@ -163,6 +169,8 @@ abstract class AbstractHttp2StreamChannel extends DefaultAttributeMap implements
     private Runnable fireChannelWritabilityChangedTask;
 
     private boolean outboundClosed;
+    // Set once a frame that ends the stream was written through this channel.
+    private boolean endStreamWritten;
     private int flowControlledBytes;
 
     /**
@@ -203,6 +211,35 @@ abstract class AbstractHttp2StreamChannel extends DefaultAttributeMap implements
         }
     }
 
+    /**
+     * Prepares this closed and deregistered channel to be used for another stream, which resets all state of the
+     * channel including its attributes and {@link ChannelConfig}. Only the now empty {@link ChannelPipeline} is kept,
+     * the given {@code inboundHandler} is added to it once the channel is registered again. The pipeline already went
+     * through a registration, so adding it right away would call {@link ChannelHandler#handlerAdded} before the
+     * channel is registered.
+     */
+    void reset(DefaultHttp2FrameStream stream, int id, ChannelHandler inboundHandler) {
+        assert !isOpen() && !registered;
+        this.stream = stream;
+        stream.attachment = this;
+        closePromise = pipeline.newPromise();
+        channelId = new Http2StreamChannelId(parent().id(), id);
+        config = new Http2StreamChannelConfig(this);
+        attributes = new DefaultAttributeMap();
+        this.inboundHandler = inboundHandler;
+
+        totalPendingSize = 0;
+        unwritable = 0;
+        outboundClosed = false;
+        endStreamWritten = false;
+        flowControlledBytes = 0;
+        readStatus = ReadStatus.IDLE;
+        inboundBuffer = null;
+        firstFrameWritten = false;
+        readCompletePending = false;
+        unsafe.reset();
+    }
+
     private void incrementPendingOutboundBytes(long size, boolean invokeLater) {
         if (size == 0) {
             return;
@@ -292,6 +329,14 @@ abstract class AbstractHttp2StreamChannel extends DefaultAttributeMap implements
         outboundClosed = true;
     }
 
+    /**
+     * Returns {@code true} if a frame that ends the stream was written through this channel, so its handlers are done
+     * writing to the stream.
+     */
+    boolean isEndStreamWritten() {
+        return endStreamWritten;
+    }
+
     void streamClosed() {
         unsafe.readEOS();
         // Attempt to drain any queued data from the queue and deliver it to the application before closing this
@@ -309,6 +354,16 @@ abstract class AbstractHttp2StreamChannel extends DefaultAttributeMap implements
         return config;
     }
 
+    @Override
+    public <T> Attribute<T> attr(AttributeKey<T> key) {
+        return attributes.attr(key);
+    }
+
+    @Override
+    public <T> boolean hasAttr(AttributeKey<T> key) {
+        return attributes.hasAttr(key);
+    }
+
     @Override
     public boolean isOpen() {
         return !closePromise.isDone();
@@ -585,6 +640,12 @@ abstract class AbstractHttp2StreamChannel extends DefaultAttributeMap implements
         private boolean closeInitiated;
         private boolean readEOS;
 
+        void reset() {
+            writeDoneAndNoFlush = false;
+            closeInitiated = false;
+            readEOS = false;
+        }
+
         @Override
         public void connect(final SocketAddress remoteAddress,
                             SocketAddress localAddress, final ChannelPromise promise) {
@@ -624,6 +685,11 @@ abstract class AbstractHttp2StreamChannel extends DefaultAttributeMap implements
             }
 
             registered = true;
+            ChannelHandler inboundHandler = AbstractHttp2StreamChannel.this.inboundHandler;
+            if (inboundHandler != null) {
+                AbstractHttp2StreamChannel.this.inboundHandler = null;
+                pipeline().addLast(inboundHandler);
+            }
 
             promise.setSuccess();
 
@@ -738,11 +804,15 @@ abstract class AbstractHttp2StreamChannel extends DefaultAttributeMap implements
                     }
                     // The user can fire `deregister` events multiple times but we only want to fire the pipeline
                     // event if the channel was actually registered.
-                    if (registered) {
+                    final boolean deregistered = registered;
+                    if (deregistered) {
                         registered = false;
                         pipeline.fireChannelUnregistered();
                     }
                     safeSetSuccess(promise);
+                    if (deregistered && !isOpen()) {
+                        closedAndDeregistered();
+                    }
                 }
             });
         }
@@ -920,6 +990,9 @@ abstract class AbstractHttp2StreamChannel extends DefaultAttributeMap implements
             try {
                 if (msg instanceof Http2StreamFrame) {
                     Http2StreamFrame frame = validateStreamFrame((Http2StreamFrame) msg).stream(stream());
+                    if (isEndStream(frame)) {
+                        endStreamWritten = true;
+                    }
                     writeHttp2StreamFrame(frame, promise);
                 } else {
                     String msgStr = msg.toString();
@@ -1014,6 +1087,13 @@ abstract class AbstractHttp2StreamChannel extends DefaultAttributeMap implements
             return cause;
         }
 
+        private boolean isEndStream(Http2StreamFrame frame) {
+            if (frame instanceof Http2HeadersFrame) {
+                return ((Http2HeadersFrame) frame).isEndStream();
+            }
+            return frame instanceof Http2DataFrame && ((Http2DataFrame) frame).isEndStream();
+        }
+
         private Http2StreamFrame validateStreamFrame(Http2StreamFrame frame) {
             if (frame.stream() != null && frame.stream() != stream) {
                 String msgString = frame.toString();
@@ -1103,4 +1183,12 @@ abstract class AbstractHttp2StreamChannel extends DefaultAttributeMap implements
     protected abstract boolean isParentReadInProgress();
     protected abstract void addChannelToReadCompletePendingQueue();
     protected abstract ChannelHandlerContext parentContext();
+
+    /**
+     * Called once the channel was closed and all events for it were fired, so it could be reused via
+     * {@link #reset(DefaultHttp2FrameStream, int, ChannelHandler)}.
+     */
+    protected void closedAndDeregistered() {
+        // NOOP
+    }
 }
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http2.Http2HeadersEncoder.HeaderIndexing;
+import io.netty.handler.codec.http2.Http2HeadersEncoder.IndexingPolicy;
+import io.netty.util.AsciiString;
+import io.netty.util.internal.UnstableApi;
+
+import static io.netty.util.internal.MathUtil.findNextPositivePowerOfTwo;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * An {@link IndexingPolicy} which adapts to the observed churn of the values of every header name.
+ * <p>
+ * Values of headers like request ids, timestamps or trace contexts are different for every request. Adding them to
+ * the dynamic table is not only useless but also evicts entries like {@code :authority} or {@code user-agent}, which
+ * then have to be sent as literals again. This policy remembers the hashes of the last values of every header name
+ * and encodes the headers whose values were mostly not seen recently
+ * {@linkplain HeaderIndexing#WITHOUT_INDEXING without indexing}. Names whose values are stable are indexed
+ * {@linkplain HeaderIndexing#INCREMENTAL incrementally}, and the credentials in {@code authorization} and
+ * {@code proxy-authorization} are {@linkplain HeaderIndexing#NEVER_INDEXED never indexed}. The encoder does not ask
+ * the policy about the headers which are in the static table, so they are not tracked.
+ * <p>
+ * This policy keeps state about the encoded headers, so every encoder needs its own instance.
+ */
+@UnstableApi
+public final class AdaptiveHpackIndexingPolicy implements IndexingPolicy {
+    // The number of recent value hashes which are remembered per name.
+    private static final int RECENT_VALUES = 8;
+    // The number of values which need to be seen for a name before it may not be indexed.
+    private static final int MIN_OBSERVATIONS = 8;
+    // The observations are halved once they reach this value so the policy adapts when the traffic changes.
+    private static final int MAX_OBSERVATIONS = 64;
+    private static final int DEFAULT_MAX_TRACKED_NAMES = 128;
+    private static final float DEFAULT_MAX_CHURN = 0.75f;
+    private static final int MAX_BUCKETS = 128;
+
+    // A hash table of the tracked names, so looking up a name neither needs to copy nor to hash it twice.
+    private final NameStats[] stats;
+    private final int hashMask;
+    private final int maxTrackedNames;
+    private final float maxChurn;
+    private int trackedNames;
+
+    /**
+     * Creates a new policy which does not index the headers whose values were not seen recently in 75% of the cases.
+     */
+    public AdaptiveHpackIndexingPolicy() {
+        this(DEFAULT_MAX_CHURN, DEFAULT_MAX_TRACKED_NAMES);
+    }
+
+    /**
+     * Creates a new policy.
+     *
+     * @param maxChurn the share of values of a header name in the range {@code (0, 1]} which were not seen recently
+     * at which the header is no longer indexed.
+     * @param maxTrackedNames the maximum number of header names which are tracked. Headers with other names are
+     * always indexed.
+     */
+    public AdaptiveHpackIndexingPolicy(float maxChurn, int maxTrackedNames) {
+        if (!(maxChurn > 0 && maxChurn <= 1)) {
+            throw new IllegalArgumentException("maxChurn: " + maxChurn + " (expected: > 0 and <= 1)");
+        }
+        if (maxTrackedNames < 0) {
+            throw new IllegalArgumentException("maxTrackedNames: " + maxTrackedNames + " (expected: >= 0)");
+        }
+        this.maxChurn = maxChurn;
+        this.maxTrackedNames = maxTrackedNames;
+        stats = new NameStats[findNextPositivePowerOfTwo(max(1, min(maxTrackedNames, MAX_BUCKETS)))];
+        hashMask = stats.length - 1;
+    }
+
+    @Override
+    public HeaderIndexing indexing(CharSequence name, CharSequence value) {
+        if (HttpHeaderNames.AUTHORIZATION.contentEqualsIgnoreCase(name) ||
+                HttpHeaderNames.PROXY_AUTHORIZATION.contentEqualsIgnoreCase(name)) {
+            return HeaderIndexing.NEVER_INDEXED;
+        }
+        int nameHash = AsciiString.hashCode(name);
+        NameStats nameStats = get(name, nameHash);
+        if (nameStats == null) {
+            if (trackedNames >= maxTrackedNames) {
+                return HeaderIndexing.INCREMENTAL;
+            }
+            int index = nameHash & hashMask;
+            nameStats = new NameStats(AsciiString.of(name), nameHash, stats[index]);
+            stats[index] = nameStats;
+            trackedNames++;
+        }
+        return nameStats.observe(AsciiString.hashCode(value)) ? HeaderIndexing.INCREMENTAL
+                                                               : HeaderIndexing.WITHOUT_INDEXING;
+    }
+
+    /**
+     * Returns the churn of the values of the given header name in the range {@code [0, 1]}, or {@code -1} if the name
+     * is not tracked.
+     */
+    float churn(CharSequence name) {
+        NameStats nameStats = get(name, AsciiString.hashCode(name));
+        return nameStats == null ? -1 : nameStats.churn();
+    }
+
+    private NameStats get(CharSequence name, int nameHash) {
+        for (NameStats e = stats[nameHash & hashMask]; e != null; e = e.next) {
+            if (e.nameHash == nameHash && e.name.contentEquals(name)) {
+                return e;
+            }
+        }
+        return null;
+    }
+
+    private final class NameStats {
+        final AsciiString name;
+        final int nameHash;
+        final NameStats next;
+        private final int[] recentHashes = new int[RECENT_VALUES];
+        private int recentCount;
+        private int nextRecent;
+        private int observations;
+        private int misses;
+
+        NameStats(AsciiString name, int nameHash, NameStats next) {
+            this.name = name;
+            this.nameHash = nameHash;
+            this.next = next;
+        }
+
+        /**
+         * Records the value with the given hash and returns {@code true} if the header should be indexed.
+         */
+        boolean observe(int valueHash) {
+            if (observations == MAX_OBSERVATIONS) {
+                observations >>>= 1;
+                misses >>>= 1;
+            }
+            observations++;
+            if (!isRecent(valueHash)) {
+                misses++;
+                recentHashes[nextRecent] = valueHash;
+                nextRecent = (nextRecent + 1) & (RECENT_VALUES - 1);
+                if (recentCount < RECENT_VALUES) {
+                    recentCount++;
+                }
+            }
+            return observations < MIN_OBSERVATIONS || churn() < maxChurn;
+        }
+
+        private boolean isRecent(int valueHash) {
+            for (int i = 0; i < recentCount; i++) {
+                if (recentHashes[i] == valueHash) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        float churn() {
+            return (float) misses / observations;
+        }
+    }
+}
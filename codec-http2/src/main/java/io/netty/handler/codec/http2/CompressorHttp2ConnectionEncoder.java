@@ -17,27 +17,46 @@ package io.netty.handler.codec.http2;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
 import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.compression.Brotli;
+import io.netty.handler.codec.compression.BrotliEncoder;
+import io.netty.handler.codec.compression.BrotliOptions;
+import io.netty.handler.codec.compression.CompressionOptions;
+import io.netty.handler.codec.compression.DeflateOptions;
+import io.netty.handler.codec.compression.GzipOptions;
+import io.netty.handler.codec.compression.StandardCompressionOptions;
 import io.netty.handler.codec.compression.ZlibCodecFactory;
 import io.netty.handler.codec.compression.ZlibWrapper;
+import io.netty.handler.codec.compression.Zstd;
+import io.netty.handler.codec.compression.ZstdEncoder;
+import io.netty.handler.codec.compression.ZstdOptions;
 import io.netty.util.concurrent.PromiseCombiner;
 import io.netty.util.internal.ObjectUtil;
 import io.netty.util.internal.UnstableApi;
 
+import static io.netty.handler.codec.http.HttpHeaderNames.ACCEPT_ENCODING;
 import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_ENCODING;
 import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_LENGTH;
+import static io.netty.handler.codec.http.HttpHeaderValues.BR;
 import static io.netty.handler.codec.http.HttpHeaderValues.DEFLATE;
 import static io.netty.handler.codec.http.HttpHeaderValues.GZIP;
 import static io.netty.handler.codec.http.HttpHeaderValues.IDENTITY;
 import static io.netty.handler.codec.http.HttpHeaderValues.X_DEFLATE;
 import static io.netty.handler.codec.http.HttpHeaderValues.X_GZIP;
+import static io.netty.handler.codec.http.HttpHeaderValues.ZSTD;
 
 /**
  * A decorating HTTP2 encoder that will compress data frames according to the {@code content-encoding} header for each
  * stream. The compression provided by this class will be applied to the data for the entire stream.
+ * <p>
+ * If the listener returned by {@link #acceptEncodingListener(Http2FrameListener)} is installed, the encoding of the
+ * streams opened by the remote peer is instead negotiated from the {@code accept-encoding} header of the peer, like
+ * {@code HttpContentCompressor} does for HTTP/1. Headers which already have a {@code content-encoding} are then
+ * considered pre-compressed, and their data is passed through unchanged.
  */
 @UnstableApi
 public class CompressorHttp2ConnectionEncoder extends DecoratingHttp2ConnectionEncoder {
@@ -45,10 +64,12 @@ public class CompressorHttp2ConnectionEncoder extends DecoratingHttp2ConnectionE
     public static final int DEFAULT_WINDOW_BITS = 15;
     public static final int DEFAULT_MEM_LEVEL = 8;
 
-    private final int compressionLevel;
-    private final int windowBits;
-    private final int memLevel;
+    private final BrotliOptions brotliOptions;
+    private final GzipOptions gzipOptions;
+    private final DeflateOptions deflateOptions;
+    private final ZstdOptions zstdOptions;
     private final Http2Connection.PropertyKey propertyKey;
+    private final Http2Connection.PropertyKey acceptEncodingKey;
 
     public CompressorHttp2ConnectionEncoder(Http2ConnectionEncoder delegate) {
         this(delegate, DEFAULT_COMPRESSION_LEVEL, DEFAULT_WINDOW_BITS, DEFAULT_MEM_LEVEL);
@@ -56,12 +77,48 @@ public class CompressorHttp2ConnectionEncoder extends DecoratingHttp2ConnectionE
 
     public CompressorHttp2ConnectionEncoder(Http2ConnectionEncoder delegate, int compressionLevel, int windowBits,
                                             int memLevel) {
+        this(delegate, StandardCompressionOptions.gzip(compressionLevel, windowBits, memLevel),
+                StandardCompressionOptions.deflate(compressionLevel, windowBits, memLevel));
+    }
+
+    /**
+     * Creates a new encoder which compresses streams whose {@code content-encoding} is one of the encodings of the
+     * given {@link CompressionOptions}. Options of an encoding which is not available at runtime are ignored.
+     */
+    public CompressorHttp2ConnectionEncoder(Http2ConnectionEncoder delegate,
+                                            CompressionOptions... compressionOptions) {
         super(delegate);
-        this.compressionLevel = ObjectUtil.checkInRange(compressionLevel, 0, 9, "compressionLevel");
-        this.windowBits = ObjectUtil.checkInRange(windowBits, 9, 15, "windowBits");
-        this.memLevel = ObjectUtil.checkInRange(memLevel, 1, 9, "memLevel");
+        ObjectUtil.checkNotNull(compressionOptions, "compressionOptions");
+        BrotliOptions brotliOptions = null;
+        GzipOptions gzipOptions = null;
+        DeflateOptions deflateOptions = null;
+        ZstdOptions zstdOptions = null;
+        for (CompressionOptions options : compressionOptions) {
+            ObjectUtil.checkNotNull(options, "compressionOptions");
+            if (options instanceof BrotliOptions) {
+                if (Brotli.isAvailable()) {
+                    brotliOptions = (BrotliOptions) options;
+                }
+            } else if (options instanceof GzipOptions) {
+                gzipOptions = (GzipOptions) options;
+            } else if (options instanceof DeflateOptions) {
+                deflateOptions = (DeflateOptions) options;
+            } else if (options instanceof ZstdOptions) {
+                if (Zstd.isAvailable()) {
+                    zstdOptions = (ZstdOptions) options;
+                }
+            } else {
+                throw new IllegalArgumentException("Unsupported " + CompressionOptions.class.getSimpleName() +
+                        ": " + options);
+            }
+        }
+        this.brotliOptions = brotliOptions;
+        this.gzipOptions = gzipOptions;
+        this.deflateOptions = deflateOptions;
+        this.zstdOptions = zstdOptions;
 
         propertyKey = connection().newKey();
+        acceptEncodingKey = connection().newKey();
         connection().addListener(new Http2ConnectionAdapter() {
             @Override
             public void onStreamRemoved(Http2Stream stream) {
@@ -135,7 +192,7 @@ public class CompressorHttp2ConnectionEncoder extends DecoratingHttp2ConnectionE
             boolean endStream, ChannelPromise promise) {
         try {
             // Determine if compression is required and sanitize the headers.
-            EmbeddedChannel compressor = newCompressor(ctx, headers, endStream);
+            EmbeddedChannel compressor = newCompressor(ctx, streamId, headers, endStream);
 
             // Write the headers and create the stream object.
             ChannelFuture future = super.writeHeaders(ctx, streamId, headers, padding, endStream, promise);
@@ -156,7 +213,7 @@ public class CompressorHttp2ConnectionEncoder extends DecoratingHttp2ConnectionE
             final boolean endOfStream, final ChannelPromise promise) {
         try {
             // Determine if compression is required and sanitize the headers.
-            EmbeddedChannel compressor = newCompressor(ctx, headers, endOfStream);
+            EmbeddedChannel compressor = newCompressor(ctx, streamId, headers, endOfStream);
 
             // Write the headers and create the stream object.
             ChannelFuture future = super.writeHeaders(ctx, streamId, headers, streamDependency, weight, exclusive,
@@ -184,16 +241,118 @@ public class CompressorHttp2ConnectionEncoder extends DecoratingHttp2ConnectionE
      */
     protected EmbeddedChannel newContentCompressor(ChannelHandlerContext ctx, CharSequence contentEncoding)
             throws Http2Exception {
-        if (GZIP.contentEqualsIgnoreCase(contentEncoding) || X_GZIP.contentEqualsIgnoreCase(contentEncoding)) {
-            return newCompressionChannel(ctx, ZlibWrapper.GZIP);
+        if (gzipOptions != null &&
+                (GZIP.contentEqualsIgnoreCase(contentEncoding) || X_GZIP.contentEqualsIgnoreCase(contentEncoding))) {
+            return newCompressionChannel(ctx, ZlibCodecFactory.newZlibEncoder(ZlibWrapper.GZIP,
+                    gzipOptions.compressionLevel(), gzipOptions.windowBits(), gzipOptions.memLevel()));
         }
-        if (DEFLATE.contentEqualsIgnoreCase(contentEncoding) || X_DEFLATE.contentEqualsIgnoreCase(contentEncoding)) {
-            return newCompressionChannel(ctx, ZlibWrapper.ZLIB);
+        if (deflateOptions != null && (DEFLATE.contentEqualsIgnoreCase(contentEncoding) ||
+                X_DEFLATE.contentEqualsIgnoreCase(contentEncoding))) {
+            return newCompressionChannel(ctx, ZlibCodecFactory.newZlibEncoder(ZlibWrapper.ZLIB,
+                    deflateOptions.compressionLevel(), deflateOptions.windowBits(), deflateOptions.memLevel()));
+        }
+        if (brotliOptions != null && BR.contentEqualsIgnoreCase(contentEncoding)) {
+            return newCompressionChannel(ctx, new BrotliEncoder(brotliOptions.quality(), brotliOptions.window()));
+        }
+        if (zstdOptions != null && ZSTD.contentEqualsIgnoreCase(contentEncoding)) {
+            return newCompressionChannel(ctx, new ZstdEncoder(zstdOptions.compressionLevel(),
+                    zstdOptions.blockSize()));
         }
         // 'identity' or unsupported
         return null;
     }
 
+    /**
+     * Returns the encoding in which a stream is compressed for the given {@code accept-encoding} header of the remote
+     * peer, or {@code null} if it is not compressed. Only the encodings which this encoder was configured with are
+     * considered, and among the encodings with the highest quality value {@code br} is preferred over {@code zstd},
+     * {@code gzip} and {@code deflate} in this order.
+     *
+     * @param acceptEncoding the value of the {@code accept-encoding} header of the remote peer
+     * @see #acceptEncodingListener(Http2FrameListener)
+     */
+    protected CharSequence determineEncoding(CharSequence acceptEncoding) {
+        CharSequence[] encodings = { BR, ZSTD, GZIP, DEFLATE };
+        boolean[] supported = { brotliOptions != null, zstdOptions != null, gzipOptions != null,
+                deflateOptions != null };
+        float[] qValues = { -1.0f, -1.0f, -1.0f, -1.0f };
+        float starQ = -1.0f;
+        for (String encoding : acceptEncoding.toString().split(",")) {
+            float q = 1.0f;
+            int equalsPos = encoding.indexOf('=');
+            if (equalsPos != -1) {
+                try {
+                    q = Float.parseFloat(encoding.substring(equalsPos + 1));
+                } catch (NumberFormatException e) {
+                    // Ignore encoding
+                    q = 0.0f;
+                }
+            }
+            if (encoding.contains("*")) {
+                starQ = q;
+                continue;
+            }
+            for (int i = 0; i < encodings.length; i++) {
+                if (encoding.contains(encodings[i]) && q > qValues[i]) {
+                    qValues[i] = q;
+                    break;
+                }
+            }
+        }
+        int best = -1;
+        for (int i = 0; i < encodings.length; i++) {
+            if (supported[i] && qValues[i] > 0.0f && (best == -1 || qValues[i] > qValues[best])) {
+                best = i;
+            }
+        }
+        if (best != -1) {
+            return encodings[best];
+        }
+        if (starQ > 0.0f) {
+            for (int i = 0; i < encodings.length; i++) {
+                if (supported[i] && qValues[i] == -1.0f) {
+                    return encodings[i];
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns a {@link Http2FrameListener} which records the {@code accept-encoding} header of the streams opened by
+     * the remote peer and then delegates to the given {@code listener}. The encoding of these streams is then
+     * negotiated via {@link #determineEncoding(CharSequence)} unless their headers already have a
+     * {@code content-encoding}, in which case the data is considered pre-compressed and passed through.
+     */
+    public Http2FrameListener acceptEncodingListener(Http2FrameListener listener) {
+        return new Http2FrameListenerDecorator(listener) {
+            @Override
+            public void onHeadersRead(ChannelHandlerContext ctx, int streamId, Http2Headers headers, int padding,
+                                      boolean endStream) throws Http2Exception {
+                recordAcceptEncoding(streamId, headers);
+                super.onHeadersRead(ctx, streamId, headers, padding, endStream);
+            }
+
+            @Override
+            public void onHeadersRead(ChannelHandlerContext ctx, int streamId, Http2Headers headers,
+                                      int streamDependency, short weight, boolean exclusive, int padding,
+                                      boolean endStream) throws Http2Exception {
+                recordAcceptEncoding(streamId, headers);
+                super.onHeadersRead(ctx, streamId, headers, streamDependency, weight, exclusive, padding, endStream);
+            }
+        };
+    }
+
+    private void recordAcceptEncoding(int streamId, Http2Headers headers) {
+        Http2Stream stream = connection().stream(streamId);
+        if (stream != null && !connection().local().isValidStreamId(streamId) &&
+                stream.getProperty(acceptEncodingKey) == null) {
+            CharSequence acceptEncoding = headers.get(ACCEPT_ENCODING);
+            // An empty value still marks the stream as negotiated, so nothing is compressed for it.
+            stream.setProperty(acceptEncodingKey, acceptEncoding == null ? "" : acceptEncoding);
+        }
+    }
+
     /**
      * Returns the expected content encoding of the decoded content. Returning {@code contentEncoding} is the default
      * behavior, which is the case for most compressors.
@@ -209,12 +368,11 @@ public class CompressorHttp2ConnectionEncoder extends DecoratingHttp2ConnectionE
     /**
      * Generate a new instance of an {@link EmbeddedChannel} capable of compressing data
      * @param ctx the context.
-     * @param wrapper Defines what type of encoder should be used
+     * @param encoder the encoder which compresses the data
      */
-    private EmbeddedChannel newCompressionChannel(final ChannelHandlerContext ctx, ZlibWrapper wrapper) {
+    private static EmbeddedChannel newCompressionChannel(final ChannelHandlerContext ctx, ChannelHandler encoder) {
         return new EmbeddedChannel(ctx.channel().id(), ctx.channel().metadata().hasDisconnect(),
-                ctx.channel().config(), ZlibCodecFactory.newZlibEncoder(wrapper, compressionLevel, windowBits,
-                memLevel));
+                ctx.channel().config(), encoder);
     }
 
     /**
@@ -222,18 +380,28 @@ public class CompressorHttp2ConnectionEncoder extends DecoratingHttp2ConnectionE
      * modify the {@code content-encoding} header contained in {@code headers}.
      *
      * @param ctx the context.
+     * @param streamId the stream for which the headers are written
      * @param headers Object representing headers which are to be written
      * @param endOfStream Indicates if the stream has ended
      * @return The channel used to compress data.
      * @throws Http2Exception if any problems occur during initialization.
      */
-    private EmbeddedChannel newCompressor(ChannelHandlerContext ctx, Http2Headers headers, boolean endOfStream)
-            throws Http2Exception {
+    private EmbeddedChannel newCompressor(ChannelHandlerContext ctx, int streamId, Http2Headers headers,
+                                          boolean endOfStream) throws Http2Exception {
         if (endOfStream) {
             return null;
         }
 
         CharSequence encoding = headers.get(CONTENT_ENCODING);
+        Http2Stream stream = connection().stream(streamId);
+        CharSequence acceptEncoding = stream == null ? null : (CharSequence) stream.getProperty(acceptEncodingKey);
+        if (acceptEncoding != null) {
+            if (encoding != null) {
+                // The content is pre-compressed.
+                return null;
+            }
+            encoding = determineEncoding(acceptEncoding);
+        }
         if (encoding == null) {
             encoding = IDENTITY;
         }
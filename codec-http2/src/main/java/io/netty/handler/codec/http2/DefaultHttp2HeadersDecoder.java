@@ -31,6 +31,7 @@ public class DefaultHttp2HeadersDecoder implements Http2HeadersDecoder, Http2Hea
 
     private final HpackDecoder hpackDecoder;
     private final boolean validateHeaders;
+    private final boolean decodeLazily;
     private long maxHeaderListSizeGoAway;
 
     /**
@@ -73,13 +74,33 @@ public class DefaultHttp2HeadersDecoder implements Http2HeadersDecoder, Http2Hea
         this(validateHeaders, new HpackDecoder(maxHeaderListSize));
     }
 
+    /**
+     * Create a new instance.
+     * @param validateHeaders {@code true} to validate headers are valid according to the RFC.
+     * @param maxHeaderListSize This is the only setting that can be configured before notifying the peer.
+     *  This is because <a href="https://tools.ietf.org/html/rfc7540#section-6.5.1">SETTINGS_MAX_HEADER_LIST_SIZE</a>
+     *  allows a lower than advertised limit from being enforced, and the default limit is unlimited
+     *  (which is dangerous).
+     * @param decodeLazily {@code true} to decode into read-only {@link Http2Headers} which are backed by a copy of
+     *  the header block and decode Huffman encoded values on first access. This saves work if only a few of the
+     *  headers are accessed. {@link #newHeaders()} is not used in this case.
+     */
+    public DefaultHttp2HeadersDecoder(boolean validateHeaders, long maxHeaderListSize, boolean decodeLazily) {
+        this(validateHeaders, new HpackDecoder(maxHeaderListSize), decodeLazily);
+    }
+
     /**
      * Exposed Used for testing only! Default values used in the initial settings frame are overridden intentionally
      * for testing but violate the RFC if used outside the scope of testing.
      */
     DefaultHttp2HeadersDecoder(boolean validateHeaders, HpackDecoder hpackDecoder) {
+        this(validateHeaders, hpackDecoder, false);
+    }
+
+    DefaultHttp2HeadersDecoder(boolean validateHeaders, HpackDecoder hpackDecoder, boolean decodeLazily) {
         this.hpackDecoder = ObjectUtil.checkNotNull(hpackDecoder, "hpackDecoder");
         this.validateHeaders = validateHeaders;
+        this.decodeLazily = decodeLazily;
         this.maxHeaderListSizeGoAway =
                 Http2CodecUtil.calculateMaxHeaderListSizeGoAway(hpackDecoder.getMaxHeaderListSize());
     }
@@ -122,8 +143,13 @@ public class DefaultHttp2HeadersDecoder implements Http2HeadersDecoder, Http2Hea
     @Override
     public Http2Headers decodeHeaders(int streamId, ByteBuf headerBlock) throws Http2Exception {
         try {
-            final Http2Headers headers = newHeaders();
-            hpackDecoder.decode(streamId, headerBlock, headers, validateHeaders);
+            final Http2Headers headers;
+            if (decodeLazily) {
+                headers = hpackDecoder.decodeLazily(streamId, headerBlock, validateHeaders);
+            } else {
+                headers = newHeaders();
+                hpackDecoder.decode(streamId, headerBlock, headers, validateHeaders);
+            }
             headerArraySizeAccumulator = HEADERS_COUNT_WEIGHT_NEW * headers.size() +
                                          HEADERS_COUNT_WEIGHT_HISTORICAL * headerArraySizeAccumulator;
             return headers;
@@ -52,6 +52,27 @@ public class DefaultHttp2HeadersEncoder implements Http2HeadersEncoder, Http2Hea
                 new HpackEncoder(ignoreMaxHeaderListSize, dynamicTableArraySizeHint, huffCodeThreshold));
     }
 
+    /**
+     * Creates a new encoder which uses the given {@link IndexingPolicy} to decide which headers are added to the
+     * dynamic table. As the policy may keep state about the encoded headers, it must not be shared with other
+     * encoders unless it is stateless.
+     */
+    public DefaultHttp2HeadersEncoder(SensitivityDetector sensitivityDetector, IndexingPolicy indexingPolicy) {
+        this(sensitivityDetector, indexingPolicy, false, 16, HpackEncoder.HUFF_CODE_THRESHOLD);
+    }
+
+    /**
+     * Creates a new encoder which uses the given {@link IndexingPolicy} to decide which headers are added to the
+     * dynamic table. As the policy may keep state about the encoded headers, it must not be shared with other
+     * encoders unless it is stateless.
+     */
+    public DefaultHttp2HeadersEncoder(SensitivityDetector sensitivityDetector, IndexingPolicy indexingPolicy,
+                                      boolean ignoreMaxHeaderListSize, int dynamicTableArraySizeHint,
+                                      int huffCodeThreshold) {
+        this(sensitivityDetector, new HpackEncoder(ignoreMaxHeaderListSize, dynamicTableArraySizeHint,
+                huffCodeThreshold, indexingPolicy));
+    }
+
     /**
      * Exposed Used for testing only! Default values used in the initial settings frame are overridden intentionally
      * for testing but violate the RFC if used outside the scope of testing.
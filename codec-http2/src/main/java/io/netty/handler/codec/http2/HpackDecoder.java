@@ -32,9 +32,13 @@
 package io.netty.handler.codec.http2;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http2.HpackUtil.IndexType;
 import io.netty.util.AsciiString;
 
+import java.util.Arrays;
+
 import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_HEADER_TABLE_SIZE;
 import static io.netty.handler.codec.http2.Http2CodecUtil.MAX_HEADER_LIST_SIZE;
 import static io.netty.handler.codec.http2.Http2CodecUtil.MAX_HEADER_TABLE_SIZE;
@@ -47,6 +51,7 @@ import static io.netty.handler.codec.http2.Http2Exception.connectionError;
 import static io.netty.handler.codec.http2.Http2Exception.streamError;
 import static io.netty.handler.codec.http2.Http2Headers.PseudoHeaderName.getPseudoHeader;
 import static io.netty.handler.codec.http2.Http2Headers.PseudoHeaderName.hasPseudoHeaderFormat;
+import static io.netty.handler.codec.http2.DefaultHttp2Headers.HTTP2_NAME_VALIDATOR;
 import static io.netty.util.AsciiString.EMPTY_STRING;
 import static io.netty.util.internal.ObjectUtil.checkPositive;
 
@@ -132,6 +137,26 @@ final class HpackDecoder {
         sink.finish();
     }
 
+    /**
+     * Decode the header block into read-only headers which are backed by a copy of the block.
+     * <p>
+     * Unlike {@link #decode(int, ByteBuf, Http2Headers, boolean)} the literal values which are not added to the
+     * dynamic table are not copied but refer to the copy of the block, and the ones which are Huffman encoded are only
+     * decoded into a string on first access. Their encoding is still checked while decoding the block, which also
+     * yields the decoded length that is used to enforce the maximum header list size.
+     * <p>
+     * This method assumes the entire header block is contained in {@code in}.
+     */
+    public Http2Headers decodeLazily(int streamId, ByteBuf in, boolean validateHeaders) throws Http2Exception {
+        byte[] block = ByteBufUtil.getBytes(in);
+        in.skipBytes(block.length);
+        ReadOnlyHeadersSink sink = new ReadOnlyHeadersSink(streamId, block, huffmanDecoder, maxHeaderListSize,
+                validateHeaders);
+        decode(Unpooled.wrappedBuffer(block), sink);
+        sink.finish();
+        return sink.headers();
+    }
+
     private void decode(ByteBuf in, Sink sink) throws Http2Exception {
         int index = 0;
         int nameLength = 0;
@@ -250,7 +275,13 @@ final class HpackDecoder {
                         throw notEnoughDataException(in);
                     }
 
-                    name = readStringLiteral(in, nameLength, huffmanEncoded);
+                    name = null;
+                    if (!huffmanEncoded && indexType != IndexType.INCREMENTAL) {
+                        name = sink.rawLiteral(in, nameLength);
+                    }
+                    if (name == null) {
+                        name = readStringLiteral(in, nameLength, huffmanEncoded);
+                    }
 
                     state = READ_LITERAL_HEADER_VALUE_LENGTH_PREFIX;
                     break;
@@ -287,8 +318,11 @@ final class HpackDecoder {
                         throw notEnoughDataException(in);
                     }
 
-                    CharSequence value = readStringLiteral(in, valueLength, huffmanEncoded);
-                    insertHeader(sink, name, value, indexType);
+                    if (indexType == IndexType.INCREMENTAL ||
+                            !sink.appendLiteralToHeaderList(name, in, valueLength, huffmanEncoded)) {
+                        CharSequence value = readStringLiteral(in, valueLength, huffmanEncoded);
+                        insertHeader(sink, name, value, indexType);
+                    }
                     state = READ_HEADER_REPRESENTATION;
                     break;
 
@@ -519,10 +553,23 @@ final class HpackDecoder {
 
     private interface Sink {
         void appendToHeaderList(CharSequence name, CharSequence value);
+
+        /**
+         * Appends the literal value at the reader index of {@code in} without decoding it, in which case the value
+         * is skipped and {@code true} is returned.
+         */
+        boolean appendLiteralToHeaderList(CharSequence name, ByteBuf in, int length, boolean huffmanEncoded)
+                throws Http2Exception;
+
+        /**
+         * Returns the literal at the reader index of {@code in} without copying it, or {@code null} if it must be
+         * copied.
+         */
+        AsciiString rawLiteral(ByteBuf in, int length);
         void finish() throws Http2Exception;
     }
 
-    private static final class Http2HeadersSink implements Sink {
+    private static class Http2HeadersSink implements Sink {
         private final Http2Headers headers;
         private final long maxHeaderListSize;
         private final int streamId;
@@ -550,24 +597,120 @@ final class HpackDecoder {
 
         @Override
         public void appendToHeaderList(CharSequence name, CharSequence value) {
-            headersLength += HpackHeaderField.sizeOf(name, value);
+            if (accept(name, HpackHeaderField.sizeOf(name, value))) {
+                headers.add(name, value);
+            }
+        }
+
+        @Override
+        public boolean appendLiteralToHeaderList(CharSequence name, ByteBuf in, int length, boolean huffmanEncoded)
+                throws Http2Exception {
+            return false;
+        }
+
+        @Override
+        public AsciiString rawLiteral(ByteBuf in, int length) {
+            return null;
+        }
+
+        /**
+         * Accounts for a header of the given size and returns {@code true} if it should be stored.
+         */
+        final boolean accept(CharSequence name, long size) {
+            headersLength += size;
             exceededMaxLength |= headersLength > maxHeaderListSize;
 
             if (exceededMaxLength || validationException != null) {
                 // We don't store the header since we've already failed validation requirements.
-                return;
+                return false;
             }
 
             if (validate) {
                 try {
-                    previousType = HpackDecoder.validate(streamId, name, previousType);
+                    previousType = validate(name, previousType);
                 } catch (Http2Exception ex) {
                     validationException = ex;
-                    return;
+                    return false;
                 }
             }
+            return true;
+        }
+
+        HeaderType validate(CharSequence name, HeaderType previousType) throws Http2Exception {
+            return HpackDecoder.validate(streamId, name, previousType);
+        }
+    }
+
+    private static final class ReadOnlyHeadersSink extends Http2HeadersSink {
+        private final byte[] block;
+        private final HpackHuffmanDecoder huffmanDecoder;
+        private AsciiString[] headers = new AsciiString[16];
+        private long[] huffmanValues;
+        private int size;
+
+        ReadOnlyHeadersSink(int streamId, byte[] block, HpackHuffmanDecoder huffmanDecoder, long maxHeaderListSize,
+                            boolean validate) {
+            super(streamId, null, maxHeaderListSize, validate);
+            this.block = block;
+            this.huffmanDecoder = huffmanDecoder;
+        }
+
+        @Override
+        HeaderType validate(CharSequence name, HeaderType previousType) throws Http2Exception {
+            // ReadOnlyHttp2Headers do not validate the names like DefaultHttp2Headers, so it is done here.
+            HTTP2_NAME_VALIDATOR.validateName(name);
+            return super.validate(name, previousType);
+        }
+
+        @Override
+        public void appendToHeaderList(CharSequence name, CharSequence value) {
+            if (accept(name, HpackHeaderField.sizeOf(name, value))) {
+                add(name, (AsciiString) value);
+            }
+        }
+
+        @Override
+        public boolean appendLiteralToHeaderList(CharSequence name, ByteBuf in, int length, boolean huffmanEncoded)
+                throws Http2Exception {
+            if (!huffmanEncoded) {
+                appendToHeaderList(name, rawLiteral(in, length));
+                return true;
+            }
+            int offset = in.readerIndex();
+            int decodedLength = huffmanDecoder.decodedLength(in, length);
+            in.skipBytes(length);
+            if (accept(name, name.length() + decodedLength + HpackHeaderField.HEADER_ENTRY_OVERHEAD)) {
+                add(name, null);
+                if (huffmanValues == null) {
+                    huffmanValues = new long[headers.length >>> 1];
+                }
+                huffmanValues[(size - 1) >>> 1] = (long) offset << 32 | length;
+            }
+            return true;
+        }
+
+        @Override
+        public AsciiString rawLiteral(ByteBuf in, int length) {
+            // The block is not modified, so the literal can refer to it.
+            AsciiString literal = new AsciiString(block, in.readerIndex(), length, false);
+            in.skipBytes(length);
+            return literal;
+        }
+
+        private void add(CharSequence name, AsciiString value) {
+            if (size == headers.length) {
+                headers = Arrays.copyOf(headers, size << 1);
+                if (huffmanValues != null) {
+                    huffmanValues = Arrays.copyOf(huffmanValues, size);
+                }
+            }
+            headers[size++] = (AsciiString) name;
+            headers[size++] = value;
+        }
 
-            headers.add(name, value);
+        Http2Headers headers() {
+            return new ReadOnlyHttp2Headers(size == headers.length ? headers : Arrays.copyOf(headers, size),
+                    block, huffmanValues);
         }
     }
 }
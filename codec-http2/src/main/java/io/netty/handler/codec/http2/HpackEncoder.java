@@ -33,6 +33,8 @@ package io.netty.handler.codec.http2;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.handler.codec.http2.HpackUtil.IndexType;
+import io.netty.handler.codec.http2.Http2HeadersEncoder.HeaderIndexing;
+import io.netty.handler.codec.http2.Http2HeadersEncoder.IndexingPolicy;
 import io.netty.handler.codec.http2.Http2HeadersEncoder.SensitivityDetector;
 import io.netty.util.AsciiString;
 import io.netty.util.CharsetUtil;
@@ -51,6 +53,7 @@ import static io.netty.handler.codec.http2.Http2CodecUtil.headerListSizeExceeded
 import static io.netty.handler.codec.http2.Http2Error.PROTOCOL_ERROR;
 import static io.netty.handler.codec.http2.Http2Exception.connectionError;
 import static io.netty.util.internal.MathUtil.findNextPositivePowerOfTwo;
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
 
@@ -72,6 +75,7 @@ final class HpackEncoder {
     private final byte hashMask;
     private final boolean ignoreMaxHeaderListSize;
     private final int huffCodeThreshold;
+    private final IndexingPolicy indexingPolicy;
     private long size;
     private long maxHeaderTableSize;
     private long maxHeaderListSize;
@@ -94,6 +98,15 @@ final class HpackEncoder {
      * Creates a new encoder.
      */
     HpackEncoder(boolean ignoreMaxHeaderListSize, int arraySizeHint, int huffCodeThreshold) {
+        this(ignoreMaxHeaderListSize, arraySizeHint, huffCodeThreshold, Http2HeadersEncoder.ALWAYS_INDEX);
+    }
+
+    /**
+     * Creates a new encoder.
+     */
+    HpackEncoder(boolean ignoreMaxHeaderListSize, int arraySizeHint, int huffCodeThreshold,
+                 IndexingPolicy indexingPolicy) {
+        this.indexingPolicy = checkNotNull(indexingPolicy, "indexingPolicy");
         this.ignoreMaxHeaderListSize = ignoreMaxHeaderListSize;
         maxHeaderTableSize = DEFAULT_HEADER_TABLE_SIZE;
         maxHeaderListSize = MAX_HEADER_LIST_SIZE;
@@ -160,15 +173,25 @@ final class HpackEncoder {
             return;
         }
 
+        // The header fields of the static table are never added to the dynamic table, so they are encoded by their
+        // index without asking the indexing policy.
+        int staticTableIndex = HpackStaticTable.getIndexInsensitive(name, value);
+        if (staticTableIndex != HpackStaticTable.NOT_FOUND) {
+            // Section 6.1. Indexed Header Field Representation
+            encodeInteger(out, 0x80, 7, staticTableIndex);
+            return;
+        }
+
+        HeaderIndexing indexing = indexingPolicy.indexing(name, value);
+        if (indexing == HeaderIndexing.NEVER_INDEXED) {
+            encodeLiteral(out, name, value, IndexType.NEVER, getNameIndex(name));
+            return;
+        }
+
         // If the peer will only use the static table
         if (maxHeaderTableSize == 0) {
-            int staticTableIndex = HpackStaticTable.getIndexInsensitive(name, value);
-            if (staticTableIndex == HpackStaticTable.NOT_FOUND) {
-                int nameIndex = HpackStaticTable.getIndex(name);
-                encodeLiteral(out, name, value, IndexType.NONE, nameIndex);
-            } else {
-                encodeInteger(out, 0x80, 7, staticTableIndex);
-            }
+            int nameIndex = HpackStaticTable.getIndex(name);
+            encodeLiteral(out, name, value, IndexType.NONE, nameIndex);
             return;
         }
 
@@ -184,16 +207,12 @@ final class HpackEncoder {
             int index = getIndex(headerField.index) + HpackStaticTable.length;
             // Section 6.1. Indexed Header Field Representation
             encodeInteger(out, 0x80, 7, index);
+        } else if (indexing == HeaderIndexing.WITHOUT_INDEXING) {
+            encodeLiteral(out, name, value, IndexType.NONE, getNameIndex(name));
         } else {
-            int staticTableIndex = HpackStaticTable.getIndexInsensitive(name, value);
-            if (staticTableIndex != HpackStaticTable.NOT_FOUND) {
-                // Section 6.1. Indexed Header Field Representation
-                encodeInteger(out, 0x80, 7, staticTableIndex);
-            } else {
-                ensureCapacity(headerSize);
-                encodeLiteral(out, name, value, IndexType.INCREMENTAL, getNameIndex(name));
-                add(name, value, headerSize);
-            }
+            ensureCapacity(headerSize);
+            encodeLiteral(out, name, value, IndexType.INCREMENTAL, getNameIndex(name));
+            add(name, value, headerSize);
         }
     }
 
@@ -4711,6 +4711,30 @@ final class HpackHuffmanDecoder implements ByteProcessor {
         }
     }
 
+    /**
+     * Checks the given Huffman coded string literal without decoding it into a new string and without changing the
+     * reader index of {@code buf}.
+     *
+     * @param buf the string literal to be checked
+     * @return the length of the decoded string literal
+     * @throws Http2Exception EOS Decoded
+     */
+    int decodedLength(ByteBuf buf, int length) throws Http2Exception {
+        if (length == 0) {
+            return 0;
+        }
+        try {
+            if (buf.forEachByte(buf.readerIndex(), length, this) != -1 ||
+                    (state & HUFFMAN_COMPLETE_SHIFT) != HUFFMAN_COMPLETE_SHIFT) {
+                throw BAD_ENCODING;
+            }
+            return k;
+        } finally {
+            k = 0;
+            state = 0;
+        }
+    }
+
     /**
      * <strong>This should never be called from anything but this class itself!</strong>
      */
@@ -4728,8 +4752,11 @@ final class HpackHuffmanDecoder implements ByteProcessor {
             return false;
         }
         if ((state & HUFFMAN_EMIT_SYMBOL_SHIFT) != 0) {
-            // state is always positive so can cast without mask here
-            dest[k++] = (byte) state;
+            if (dest != null) {
+                // state is always positive so can cast without mask here
+                dest[k] = (byte) state;
+            }
+            k++;
         }
         return true;
     }
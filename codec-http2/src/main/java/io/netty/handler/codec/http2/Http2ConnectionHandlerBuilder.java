@@ -87,6 +87,11 @@ public final class Http2ConnectionHandlerBuilder
         return super.encoderIgnoreMaxHeaderListSize(encoderIgnoreMaxHeaderListSize);
     }
 
+    @Override
+    public Http2ConnectionHandlerBuilder encoderIgnorePriority(boolean ignorePriority) {
+        return super.encoderIgnorePriority(ignorePriority);
+    }
+
     @Override
     public Http2ConnectionHandlerBuilder headerSensitivityDetector(SensitivityDetector headerSensitivityDetector) {
         return super.headerSensitivityDetector(headerSensitivityDetector);
@@ -158,6 +158,11 @@ public class Http2FrameCodecBuilder extends
         return super.encoderIgnoreMaxHeaderListSize(ignoreMaxHeaderListSize);
     }
 
+    @Override
+    public Http2FrameCodecBuilder encoderIgnorePriority(boolean ignorePriority) {
+        return super.encoderIgnorePriority(ignorePriority);
+    }
+
     @Override
     @Deprecated
     public Http2FrameCodecBuilder initialHuffmanDecodeCapacity(int initialHuffmanDecodeCapacity) {
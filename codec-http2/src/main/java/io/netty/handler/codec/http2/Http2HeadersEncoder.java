@@ -74,6 +74,45 @@ public interface Http2HeadersEncoder {
         boolean isSensitive(CharSequence name, CharSequence value);
     }
 
+    /**
+     * The <a href="https://tools.ietf.org/html/rfc7541#section-6.2">literal representation</a> of a header field
+     * which is not in the static or dynamic table.
+     */
+    enum HeaderIndexing {
+        /**
+         * The header field is added to the dynamic table.
+         */
+        INCREMENTAL,
+        /**
+         * The header field is not added to the dynamic table.
+         */
+        WITHOUT_INDEXING,
+        /**
+         * The header field is not added to the dynamic table and intermediaries must not add it either.
+         */
+        NEVER_INDEXED
+    }
+
+    /**
+     * Determines whether a header field that is not sensitive is added to the
+     * <a href="https://tools.ietf.org/html/rfc7541#section-2.3.2">dynamic table</a>. Header fields which are already
+     * in the dynamic table are encoded as an index regardless of the policy, unless it returns
+     * {@link HeaderIndexing#NEVER_INDEXED}. The policy is not asked about header fields which are in the
+     * <a href="https://tools.ietf.org/html/rfc7541#section-2.3.1">static table</a>, they are always encoded as an
+     * index.
+     * <p>
+     * A policy may keep state about the encoded headers, in which case it must be used by a single encoder only.
+     */
+    interface IndexingPolicy {
+        /**
+         * Returns how the given header field is encoded if it is not in the dynamic table yet.
+         *
+         * @param name The name for the header.
+         * @param value The value of the header.
+         */
+        HeaderIndexing indexing(CharSequence name, CharSequence value);
+    }
+
     /**
      * Encodes the given headers and writes the output headers block to the given output buffer.
      *
@@ -107,4 +146,14 @@ public interface Http2HeadersEncoder {
             return true;
         }
     };
+
+    /**
+     * Always return {@link HeaderIndexing#INCREMENTAL} for {@link IndexingPolicy#indexing(CharSequence, CharSequence)}.
+     */
+    IndexingPolicy ALWAYS_INDEX = new IndexingPolicy() {
+        @Override
+        public HeaderIndexing indexing(CharSequence name, CharSequence value) {
+            return HeaderIndexing.INCREMENTAL;
+        }
+    };
 }
@@ -29,9 +29,12 @@ import io.netty.handler.codec.http2.Http2FrameCodec.DefaultHttp2FrameStream;
 import io.netty.util.ReferenceCounted;
 import io.netty.util.internal.ObjectUtil;
 import io.netty.util.internal.UnstableApi;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
 
 import javax.net.ssl.SSLException;
 import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Queue;
 
 import static io.netty.handler.codec.http2.Http2Error.INTERNAL_ERROR;
@@ -82,10 +85,24 @@ import static io.netty.handler.codec.http2.Http2Exception.connectionError;
  * window. {@link ChannelHandler}s are free to ignore the channel's writability, in which case the excessive writes will
  * be buffered by the parent channel. It's important to note that only {@link Http2DataFrame}s are subject to
  * HTTP/2 flow control.
+ *
+ * <h3>Reusing Child Channels</h3>
+ *
+ * By default a new child channel is created for every inbound stream. Connections with many short-lived streams can
+ * instead pool the child channels of closed inbound streams, see
+ * {@link #Http2MultiplexHandler(ChannelHandler, ChannelHandler, int, Http2StreamChannelRecycler)}. A pooled channel is
+ * reset by a {@link Http2StreamChannelRecycler} once it was closed and deregistered, and is then used for a later
+ * stream of the same connection. Only channels whose handlers wrote the end of their stream are reused, so the
+ * channels of streams that were reset before, which may still be written to by an asynchronous operation, are
+ * discarded. Applications that enable pooling must not use a child channel or its {@link Channel#closeFuture()} after
+ * they ended its stream, as the same instance may already serve another stream. Frames that were bound to the
+ * {@link Http2FrameStream} of a previous stream fail to be written.
  */
 @UnstableApi
 public final class Http2MultiplexHandler extends Http2ChannelDuplexHandler {
 
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(Http2MultiplexHandler.class);
+
     static final ChannelFutureListener CHILD_CHANNEL_REGISTRATION_LISTENER = new ChannelFutureListener() {
         @Override
         public void operationComplete(ChannelFuture future) {
@@ -95,6 +112,10 @@ public final class Http2MultiplexHandler extends Http2ChannelDuplexHandler {
 
     private final ChannelHandler inboundStreamHandler;
     private final ChannelHandler upgradeStreamHandler;
+    private final int maxPooledStreamChannels;
+    private final Http2StreamChannelRecycler streamChannelRecycler;
+    // Only used if pooling is enabled, and reused in LIFO order as the last closed channel is most likely still cached.
+    private final Deque<Http2MultiplexHandlerStreamChannel> streamChannelPool;
     private final Queue<AbstractHttp2StreamChannel> readCompletePendingQueue =
             new MaxCapacityQueue<AbstractHttp2StreamChannel>(new ArrayDeque<AbstractHttp2StreamChannel>(8),
                     // Choose 100 which is what is used most of the times as default.
@@ -127,6 +148,30 @@ public final class Http2MultiplexHandler extends Http2ChannelDuplexHandler {
     public Http2MultiplexHandler(ChannelHandler inboundStreamHandler, ChannelHandler upgradeStreamHandler) {
         this.inboundStreamHandler = ObjectUtil.checkNotNull(inboundStreamHandler, "inboundStreamHandler");
         this.upgradeStreamHandler = upgradeStreamHandler;
+        maxPooledStreamChannels = 0;
+        streamChannelRecycler = null;
+        streamChannelPool = null;
+    }
+
+    /**
+     * Creates a new instance which reuses the {@link Channel}s of closed inbound streams for later inbound streams.
+     *
+     * @param inboundStreamHandler the {@link ChannelHandler} that will be added to the {@link ChannelPipeline} of
+     *                             the {@link Channel}s created for new inbound streams.
+     * @param upgradeStreamHandler the {@link ChannelHandler} that will be added to the {@link ChannelPipeline} of the
+     *                             upgraded {@link Channel}.
+     * @param maxPooledStreamChannels the maximum number of closed {@link Channel}s that are kept for reuse by this
+     *                                handler, and so per parent {@link Channel}.
+     * @param streamChannelRecycler resets the {@link Channel}s of closed inbound streams before they are pooled.
+     */
+    public Http2MultiplexHandler(ChannelHandler inboundStreamHandler, ChannelHandler upgradeStreamHandler,
+                                 int maxPooledStreamChannels, Http2StreamChannelRecycler streamChannelRecycler) {
+        this.inboundStreamHandler = ObjectUtil.checkNotNull(inboundStreamHandler, "inboundStreamHandler");
+        this.upgradeStreamHandler = upgradeStreamHandler;
+        this.maxPooledStreamChannels = ObjectUtil.checkPositive(maxPooledStreamChannels, "maxPooledStreamChannels");
+        this.streamChannelRecycler = ObjectUtil.checkNotNull(streamChannelRecycler, "streamChannelRecycler");
+        streamChannelPool = new ArrayDeque<Http2MultiplexHandlerStreamChannel>(
+                Math.min(maxPooledStreamChannels, Http2CodecUtil.SMALLEST_MAX_CONCURRENT_STREAMS));
     }
 
     static void registerDone(ChannelFuture future) {
@@ -154,6 +199,9 @@ public final class Http2MultiplexHandler extends Http2ChannelDuplexHandler {
     @Override
     protected void handlerRemoved0(ChannelHandlerContext ctx) {
         readCompletePendingQueue.clear();
+        if (streamChannelPool != null) {
+            streamChannelPool.clear();
+        }
     }
 
     @Override
@@ -234,7 +282,7 @@ public final class Http2MultiplexHandler extends Http2ChannelDuplexHandler {
                             ch = new Http2MultiplexHandlerStreamChannel(stream, upgradeStreamHandler);
                             ch.closeOutbound();
                         } else {
-                            ch = new Http2MultiplexHandlerStreamChannel(stream, inboundStreamHandler);
+                            ch = newInboundStreamChannel(stream);
                         }
                         ChannelFuture future = ctx.channel().eventLoop().register(ch);
                         if (future.isDone()) {
@@ -259,6 +307,42 @@ public final class Http2MultiplexHandler extends Http2ChannelDuplexHandler {
         ctx.fireUserEventTriggered(evt);
     }
 
+    private AbstractHttp2StreamChannel newInboundStreamChannel(DefaultHttp2FrameStream stream) {
+        if (streamChannelPool == null) {
+            return new Http2MultiplexHandlerStreamChannel(stream, inboundStreamHandler);
+        }
+        Http2MultiplexHandlerStreamChannel ch = streamChannelPool.pollFirst();
+        if (ch == null) {
+            ch = new Http2MultiplexHandlerStreamChannel(stream, inboundStreamHandler);
+            ch.recyclable = true;
+        } else {
+            // All handlers were removed from the pipeline once the channel was deregistered.
+            ch.reset(stream, ++idCount, inboundStreamHandler);
+        }
+        return ch;
+    }
+
+    private void recycle(Http2MultiplexHandlerStreamChannel ch) {
+        // Only reuse the channel if it can not receive any more events for its stream, and if its handlers ended the
+        // stream themselves. A stream that was reset or closed before may still have a handler that writes to it
+        // later on, for example once an asynchronous operation completed, which must then fail instead of writing
+        // to the stream that reused the channel.
+        if (streamChannelPool.size() >= maxPooledStreamChannels || ctx.isRemoved() || !ctx.channel().isActive() ||
+                ch.stream().state() != Http2Stream.State.CLOSED || !ch.isEndStreamWritten()) {
+            return;
+        }
+        try {
+            if (!streamChannelRecycler.reset(ch)) {
+                return;
+            }
+        } catch (Throwable cause) {
+            logger.warn("Failed to reset {}, it will not be reused.", ch, cause);
+            return;
+        }
+        ((DefaultHttp2FrameStream) ch.stream()).attachment = null;
+        streamChannelPool.offerFirst(ch);
+    }
+
     // TODO: This is most likely not the best way to expose this, need to think more about it.
     Http2StreamChannel newOutboundStream() {
         return new Http2MultiplexHandlerStreamChannel((DefaultHttp2FrameStream) newStream(), null);
@@ -354,6 +438,8 @@ public final class Http2MultiplexHandler extends Http2ChannelDuplexHandler {
     }
 
     private final class Http2MultiplexHandlerStreamChannel extends AbstractHttp2StreamChannel {
+        // Only set for channels of inbound streams if pooling is enabled.
+        boolean recyclable;
 
         Http2MultiplexHandlerStreamChannel(DefaultHttp2FrameStream stream, ChannelHandler inboundHandler) {
             super(stream, ++idCount, inboundHandler);
@@ -377,5 +463,12 @@ public final class Http2MultiplexHandler extends Http2ChannelDuplexHandler {
         protected ChannelHandlerContext parentContext() {
             return ctx;
         }
+
+        @Override
+        protected void closedAndDeregistered() {
+            if (recyclable) {
+                recycle(this);
+            }
+        }
     }
 }
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.channel.ChannelConfig;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelPipeline;
+import io.netty.util.internal.UnstableApi;
+
+/**
+ * Resets the closed {@link Http2StreamChannel}s of inbound streams, so {@link Http2MultiplexHandler} can reuse them
+ * and their {@link ChannelPipeline} for later streams of the same connection instead of creating new ones.
+ *
+ * <p>The {@link ChannelHandler}s of a channel are removed from its pipeline once it is closed and deregistered, and
+ * the inbound stream handler is added again when it is registered for the next stream, just like for a new channel.
+ * The attributes of a reused channel are cleared and its {@link ChannelConfig} is restored to the defaults.
+ */
+@UnstableApi
+public interface Http2StreamChannelRecycler {
+
+    /**
+     * Called once the given channel was closed and deregistered, before it is added to the pool. Implementations
+     * must release any state of the previous stream which the application keeps outside of the channel, and may
+     * still read the attributes of the channel to do so.
+     *
+     * @return {@code true} if the channel can be reused, {@code false} if it should be discarded.
+     */
+    boolean reset(Http2StreamChannel channel) throws Exception;
+}
@@ -15,6 +15,7 @@
  */
 package io.netty.handler.codec.http2;
 
+import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.Headers;
 import io.netty.util.AsciiString;
 import io.netty.util.HashingStrategy;
@@ -47,6 +48,11 @@ public final class ReadOnlyHttp2Headers implements Http2Headers {
     private static final byte PSEUDO_HEADER_TOKEN = (byte) ':';
     private final AsciiString[] pseudoHeaders;
     private final AsciiString[] otherHeaders;
+    // Only used for headers created by HpackDecoder#decodeLazily(...), whose Huffman encoded values are decoded on
+    // first access. The values are null in otherHeaders until then.
+    private final byte[] huffmanBlock;
+    // The offset in huffmanBlock << 32 | the encoded length, per header pair.
+    private final long[] huffmanValues;
 
     /**
      * Used to create read only object designed to represent trailers.
@@ -123,6 +129,20 @@ public final class ReadOnlyHttp2Headers implements Http2Headers {
         }
         this.pseudoHeaders = pseudoHeaders;
         this.otherHeaders = otherHeaders;
+        huffmanBlock = null;
+        huffmanValues = null;
+    }
+
+    /**
+     * Creates headers from a decoded HPACK header block. The values of the pairs for which {@code huffmanValues}
+     * holds an offset into {@code huffmanBlock} are {@code null} and decoded on first access.
+     */
+    ReadOnlyHttp2Headers(AsciiString[] headers, byte[] huffmanBlock, long[] huffmanValues) {
+        assert (headers.length & 1) == 0;
+        pseudoHeaders = EMPTY_ASCII_STRINGS;
+        otherHeaders = headers;
+        this.huffmanBlock = huffmanBlock;
+        this.huffmanValues = huffmanValues;
     }
 
     private static IllegalArgumentException newInvalidArraySizeException() {
@@ -151,6 +171,32 @@ public final class ReadOnlyHttp2Headers implements Http2Headers {
         }
     }
 
+    private AsciiString valueAt(AsciiString[] headers, int index) {
+        AsciiString value = headers[index];
+        if (value == null) {
+            value = decodeHuffmanValue(index);
+        }
+        return value;
+    }
+
+    private AsciiString decodeHuffmanValue(int index) {
+        assert huffmanValues != null;
+        long encoded = huffmanValues[index >>> 1];
+        int offset = (int) (encoded >>> 32);
+        int length = (int) encoded;
+        AsciiString value;
+        try {
+            value = new HpackHuffmanDecoder().decode(Unpooled.wrappedBuffer(huffmanBlock, offset, length), length);
+        } catch (Http2Exception e) {
+            // Cannot happen, as HpackDecoder checked the encoding when it decoded the block.
+            throw new IllegalStateException("Invalid Huffman encoded value of header '" + otherHeaders[index - 1] +
+                    '\'', e);
+        }
+        // Racing threads decode the same value, so it is fine to publish it without synchronization.
+        otherHeaders[index] = value;
+        return value;
+    }
+
     private AsciiString get0(CharSequence name) {
         final int nameHash = AsciiString.hashCode(name);
 
@@ -166,7 +212,7 @@ public final class ReadOnlyHttp2Headers implements Http2Headers {
         for (int i = 0; i < otherHeadersEnd; i += 2) {
             AsciiString roName = otherHeaders[i];
             if (roName.hashCode() == nameHash && roName.contentEqualsIgnoreCase(name)) {
-                return otherHeaders[i + 1];
+                return valueAt(otherHeaders, i + 1);
             }
         }
         return null;
@@ -210,7 +256,7 @@ public final class ReadOnlyHttp2Headers implements Http2Headers {
         for (int i = 0; i < otherHeadersEnd; i += 2) {
             AsciiString roName = otherHeaders[i];
             if (roName.hashCode() == nameHash && roName.contentEqualsIgnoreCase(name)) {
-                values.add(otherHeaders[i + 1]);
+                values.add(valueAt(otherHeaders, i + 1));
             }
         }
 
@@ -757,14 +803,16 @@ public final class ReadOnlyHttp2Headers implements Http2Headers {
                 || contains(name, nameHash, value, valueHash, strategy, pseudoHeaders);
     }
 
-    private static boolean contains(CharSequence name, int nameHash, CharSequence value, int valueHash,
-                                    HashingStrategy<CharSequence> hashingStrategy, AsciiString[] headers) {
+    private boolean contains(CharSequence name, int nameHash, CharSequence value, int valueHash,
+                             HashingStrategy<CharSequence> hashingStrategy, AsciiString[] headers) {
         final int headersEnd = headers.length - 1;
         for (int i = 0; i < headersEnd; i += 2) {
             AsciiString roName = headers[i];
-            AsciiString roValue = headers[i + 1];
-            if (roName.hashCode() == nameHash && roValue.hashCode() == valueHash &&
-                roName.contentEqualsIgnoreCase(name) && hashingStrategy.equals(roValue, value)) {
+            if (roName.hashCode() != nameHash || !roName.contentEqualsIgnoreCase(name)) {
+                continue;
+            }
+            AsciiString roValue = valueAt(headers, i + 1);
+            if (roValue.hashCode() == valueHash && hashingStrategy.equals(roValue, value)) {
                 return true;
             }
         }
@@ -821,7 +869,7 @@ public final class ReadOnlyHttp2Headers implements Http2Headers {
                 AsciiString roName = current[i];
                 if (roName.hashCode() == nameHash && roName.contentEqualsIgnoreCase(name)) {
                     if (i + 1 < current.length) {
-                        next = current[i + 1];
+                        next = valueAt(current, i + 1);
                         i += 2;
                     }
                     return;
@@ -855,7 +903,7 @@ public final class ReadOnlyHttp2Headers implements Http2Headers {
                 throw new NoSuchElementException();
             }
             key = current[i];
-            value = current[i + 1];
+            value = valueAt(current, i + 1);
             i += 2;
             if (i == current.length && current == pseudoHeaders) {
                 current = otherHeaders;
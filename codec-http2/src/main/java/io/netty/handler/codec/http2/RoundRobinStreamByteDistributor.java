@@ -0,0 +1,207 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.util.internal.UnstableApi;
+
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_MAX_FRAME_SIZE;
+import static io.netty.handler.codec.http2.Http2CodecUtil.streamableBytes;
+import static io.netty.handler.codec.http2.Http2Error.INTERNAL_ERROR;
+import static io.netty.handler.codec.http2.Http2Exception.connectionError;
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+import static io.netty.util.internal.ObjectUtil.checkPositive;
+import static java.lang.Math.min;
+
+/**
+ * A {@link StreamByteDistributor} that ignores stream priority and serves the streams which have data to send in
+ * round-robin order, allocating at most a fixed quantum of bytes to a stream per turn.
+ * <p>
+ * Only the streams which have data to send are linked into the round-robin queue, so unlike
+ * {@link WeightedFairQueueByteDistributor} no state is kept for idle streams and unlike
+ * {@link UniformStreamByteDistributor} removing a stream from the queue does not depend on the number of queued
+ * streams. Every operation is {@code O(1)} per stream and no allocations are done while distributing bytes.
+ */
+@UnstableApi
+public final class RoundRobinStreamByteDistributor implements StreamByteDistributor {
+    private final Http2Connection.PropertyKey stateKey;
+
+    // The queue of streams which have data to send, linked via State.prev and State.next.
+    private State head;
+    private State tail;
+
+    /**
+     * The maximum number of bytes that are allocated to a stream before the next stream is served.
+     */
+    private int quantum = DEFAULT_MAX_FRAME_SIZE;
+    private long totalStreamableBytes;
+
+    public RoundRobinStreamByteDistributor(Http2Connection connection) {
+        // Add a state for the connection.
+        stateKey = connection.newKey();
+        Http2Stream connectionStream = connection.connectionStream();
+        connectionStream.setProperty(stateKey, new State(connectionStream));
+
+        // Register for notification of new streams.
+        connection.addListener(new Http2ConnectionAdapter() {
+            @Override
+            public void onStreamAdded(Http2Stream stream) {
+                stream.setProperty(stateKey, new State(stream));
+            }
+
+            @Override
+            public void onStreamClosed(Http2Stream stream) {
+                state(stream).close();
+            }
+        });
+    }
+
+    /**
+     * Sets the maximum number of bytes that are allocated to a stream in one turn. Defaults to 16KiB, the default
+     * maximum frame size.
+     *
+     * @param quantum the maximum number of bytes that are allocated to a stream in one turn. Must be > 0.
+     */
+    public void quantum(int quantum) {
+        this.quantum = checkPositive(quantum, "quantum");
+    }
+
+    @Override
+    public void updateStreamableBytes(StreamState streamState) {
+        state(streamState.stream()).updateStreamableBytes(streamableBytes(streamState),
+                                                          streamState.hasFrame(),
+                                                          streamState.windowSize());
+    }
+
+    @Override
+    public void updateDependencyTree(int childStreamId, int parentStreamId, short weight, boolean exclusive) {
+        // This class ignores priority and dependency!
+    }
+
+    @Override
+    public boolean distribute(int maxBytes, Writer writer) throws Http2Exception {
+        State state;
+        while ((state = head) != null) {
+            if (maxBytes == 0 && state.streamableBytes > 0) {
+                // Stop at the first state that can't send, it stays at the head of the queue. Note that empty
+                // frames at the head of the queue will always be written.
+                break;
+            }
+            state.removeFromQueue();
+
+            // Allocate at most a quantum to this stream, the write re-enqueues it if it has more data to send.
+            int chunk = min(quantum, min(maxBytes, state.streamableBytes));
+            maxBytes -= chunk;
+            state.write(chunk, writer);
+        }
+        return totalStreamableBytes > 0;
+    }
+
+    private State state(Http2Stream stream) {
+        return checkNotNull(stream, "stream").getProperty(stateKey);
+    }
+
+    /**
+     * The remote flow control state for a single stream.
+     */
+    private final class State {
+        final Http2Stream stream;
+        State prev;
+        State next;
+        int streamableBytes;
+        boolean enqueued;
+        boolean writing;
+
+        State(Http2Stream stream) {
+            this.stream = stream;
+        }
+
+        void updateStreamableBytes(int newStreamableBytes, boolean hasFrame, int windowSize) {
+            assert hasFrame || newStreamableBytes == 0 :
+                "hasFrame: " + hasFrame + " newStreamableBytes: " + newStreamableBytes;
+
+            int delta = newStreamableBytes - streamableBytes;
+            if (delta != 0) {
+                streamableBytes = newStreamableBytes;
+                totalStreamableBytes += delta;
+            }
+            // Only enqueue states which have frames and can write them. If the window is zero we only want to
+            // enqueue if we are not writing. If we are writing that means we gave the state a chance to write zero
+            // length frames, and we wait until updateStreamableBytes is called again before it is allowed to write.
+            // States which can't write anymore, e.g. because the window has gone negative, are removed right away
+            // as this is cheap.
+            if (hasFrame && (windowSize > 0 || (windowSize == 0 && !writing))) {
+                addToQueue();
+            } else {
+                removeFromQueue();
+            }
+        }
+
+        /**
+         * Write any allocated bytes for the given stream and updates the streamable bytes,
+         * assuming all of the bytes will be written.
+         */
+        void write(int numBytes, Writer writer) throws Http2Exception {
+            writing = true;
+            try {
+                // Write the allocated bytes.
+                writer.write(stream, numBytes);
+            } catch (Throwable t) {
+                throw connectionError(INTERNAL_ERROR, t, "byte distribution write error");
+            } finally {
+                writing = false;
+            }
+        }
+
+        void addToQueue() {
+            if (!enqueued) {
+                enqueued = true;
+                prev = tail;
+                if (tail == null) {
+                    head = this;
+                } else {
+                    tail.next = this;
+                }
+                tail = this;
+            }
+        }
+
+        void removeFromQueue() {
+            if (enqueued) {
+                enqueued = false;
+                if (prev == null) {
+                    head = next;
+                } else {
+                    prev.next = next;
+                }
+                if (next == null) {
+                    tail = prev;
+                } else {
+                    next.prev = prev;
+                }
+                prev = null;
+                next = null;
+            }
+        }
+
+        void close() {
+            // Remove this state from the queue.
+            removeFromQueue();
+
+            // Clear the streamable bytes.
+            updateStreamableBytes(0, false, 0);
+        }
+    }
+}
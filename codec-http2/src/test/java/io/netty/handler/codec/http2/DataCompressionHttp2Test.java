@@ -28,6 +28,7 @@ import io.netty.channel.ChannelPromise;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.compression.StandardCompressionOptions;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http2.Http2TestUtil.Http2Runnable;
@@ -48,6 +49,7 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.util.Random;
 import java.util.concurrent.CountDownLatch;
+import java.util.zip.GZIPOutputStream;
 
 import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_PRIORITY_WEIGHT;
 import static io.netty.handler.codec.http2.Http2TestUtil.runInChannel;
@@ -61,6 +63,7 @@ import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.anyShort;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 
 /**
@@ -77,6 +80,8 @@ public class DataCompressionHttp2Test {
     private Http2FrameListener clientListener;
 
     private Http2ConnectionEncoder clientEncoder;
+    private volatile CompressorHttp2ConnectionEncoder serverEncoder;
+    private volatile Http2ConnectionHandler serverHandler;
     private ServerBootstrap sb;
     private Bootstrap cb;
     private Channel serverChannel;
@@ -262,6 +267,137 @@ public class DataCompressionHttp2Test {
         }
     }
 
+    @Test
+    public void zstdEncodingMultipleMessages() throws Exception {
+        final String text1 = "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaabbbbbbbbbbbbbbbbbbbbbbbbbbbbbccccccccccccccccccccccc";
+        final String text2 = "dddddddddddddddddddeeeeeeeeeeeeeeeeeeeffffffffffffffffffff";
+        final ByteBuf data1 = Unpooled.copiedBuffer(text1.getBytes());
+        final ByteBuf data2 = Unpooled.copiedBuffer(text2.getBytes());
+        bootstrapEnv(data1.readableBytes() + data2.readableBytes());
+        try {
+            final Http2Headers headers = new DefaultHttp2Headers().method(POST).path(PATH)
+                    .set(HttpHeaderNames.CONTENT_ENCODING, HttpHeaderValues.ZSTD);
+
+            runInChannel(clientChannel, new Http2Runnable() {
+                @Override
+                public void run() throws Http2Exception {
+                    clientEncoder.writeHeaders(ctxClient(), 3, headers, 0, false, newPromiseClient());
+                    clientEncoder.writeData(ctxClient(), 3, data1.retain(), 0, false, newPromiseClient());
+                    clientEncoder.writeData(ctxClient(), 3, data2.retain(), 0, true, newPromiseClient());
+                    clientHandler.flush(ctxClient());
+                }
+            });
+            awaitServer();
+            assertEquals(text1 + text2, serverOut.toString(CharsetUtil.UTF_8.name()));
+        } finally {
+            data1.release();
+            data2.release();
+        }
+    }
+
+    @Test
+    public void brotliEncodingMultipleMessages() throws Exception {
+        final String text1 = "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaabbbbbbbbbbbbbbbbbbbbbbbbbbbbbccccccccccccccccccccccc";
+        final String text2 = "dddddddddddddddddddeeeeeeeeeeeeeeeeeeeffffffffffffffffffff";
+        final ByteBuf data1 = Unpooled.copiedBuffer(text1.getBytes());
+        final ByteBuf data2 = Unpooled.copiedBuffer(text2.getBytes());
+        bootstrapEnv(data1.readableBytes() + data2.readableBytes());
+        try {
+            final Http2Headers headers = new DefaultHttp2Headers().method(POST).path(PATH)
+                    .set(HttpHeaderNames.CONTENT_ENCODING, HttpHeaderValues.BR);
+
+            runInChannel(clientChannel, new Http2Runnable() {
+                @Override
+                public void run() throws Http2Exception {
+                    clientEncoder.writeHeaders(ctxClient(), 3, headers, 0, false, newPromiseClient());
+                    clientEncoder.writeData(ctxClient(), 3, data1.retain(), 0, false, newPromiseClient());
+                    clientEncoder.writeData(ctxClient(), 3, data2.retain(), 0, true, newPromiseClient());
+                    clientHandler.flush(ctxClient());
+                }
+            });
+            awaitServer();
+            assertEquals(text1 + text2, serverOut.toString(CharsetUtil.UTF_8.name()));
+        } finally {
+            data1.release();
+            data2.release();
+        }
+    }
+
+    @Test
+    public void encodingNegotiatedFromAcceptEncoding() throws Exception {
+        final Http2Headers responseHeaders = new DefaultHttp2Headers().status("200");
+        assertEquals(text(), respond("gzip;q=0.5, br", responseHeaders, Unpooled.copiedBuffer(text().getBytes())));
+        assertEquals(HttpHeaderValues.BR, responseHeaders.get(HttpHeaderNames.CONTENT_ENCODING));
+    }
+
+    @Test
+    public void preCompressedContentIsPassedThrough() throws Exception {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        GZIPOutputStream gzip = new GZIPOutputStream(compressed);
+        gzip.write(text().getBytes());
+        gzip.close();
+
+        final Http2Headers responseHeaders = new DefaultHttp2Headers().status("200")
+                .set(HttpHeaderNames.CONTENT_ENCODING, HttpHeaderValues.GZIP)
+                .setInt(HttpHeaderNames.CONTENT_LENGTH, compressed.size());
+        // The client decompresses the data once, so it would not match if the server had compressed it again.
+        assertEquals(text(), respond("br", responseHeaders, Unpooled.wrappedBuffer(compressed.toByteArray())));
+        assertEquals(HttpHeaderValues.GZIP, responseHeaders.get(HttpHeaderNames.CONTENT_ENCODING));
+        assertEquals(compressed.size(), (int) responseHeaders.getInt(HttpHeaderNames.CONTENT_LENGTH));
+    }
+
+    private static String text() {
+        return "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaabbbbbbbbbbbbbbbbbbbbbbbbbbbbbccccccccccccccccccccccc";
+    }
+
+    /**
+     * Sends a request with the given {@code accept-encoding} from the client and responds to it from the server.
+     * Returns the response body as seen by the client after decompression.
+     */
+    private String respond(String acceptEncoding, final Http2Headers responseHeaders, final ByteBuf body)
+            throws Exception {
+        bootstrapEnv(0);
+        final ByteArrayOutputStream clientOut = new ByteArrayOutputStream();
+        final CountDownLatch clientLatch = new CountDownLatch(1);
+        doAnswer(new Answer<Integer>() {
+            @Override
+            public Integer answer(InvocationOnMock in) throws Throwable {
+                ByteBuf buf = (ByteBuf) in.getArguments()[2];
+                int processedBytes = buf.readableBytes() + (Integer) in.getArguments()[3];
+                buf.readBytes(clientOut, buf.readableBytes());
+                if (in.getArgument(4)) {
+                    clientLatch.countDown();
+                }
+                return processedBytes;
+            }
+        }).when(clientListener).onDataRead(any(ChannelHandlerContext.class), anyInt(),
+                any(ByteBuf.class), anyInt(), anyBoolean());
+
+        final Http2Headers headers = new DefaultHttp2Headers().method(GET).path(PATH)
+                .set(HttpHeaderNames.ACCEPT_ENCODING, acceptEncoding);
+        runInChannel(clientChannel, new Http2Runnable() {
+            @Override
+            public void run() throws Http2Exception {
+                clientEncoder.writeHeaders(ctxClient(), 3, headers, 0, false, newPromiseClient());
+                clientHandler.flush(ctxClient());
+            }
+        });
+        verify(serverListener, timeout(5000)).onHeadersRead(any(ChannelHandlerContext.class), eq(3),
+                any(Http2Headers.class), anyInt(), anyShort(), anyBoolean(), anyInt(), eq(false));
+
+        runInChannel(serverConnectedChannel, new Http2Runnable() {
+            @Override
+            public void run() throws Http2Exception {
+                ChannelHandlerContext ctx = serverConnectedChannel.pipeline().firstContext();
+                serverEncoder.writeHeaders(ctx, 3, responseHeaders, 0, false, ctx.newPromise());
+                serverEncoder.writeData(ctx, 3, body, 0, true, ctx.newPromise());
+                serverHandler.flush(ctx);
+            }
+        });
+        assertTrue(clientLatch.await(5, SECONDS));
+        return clientOut.toString(CharsetUtil.UTF_8.name());
+    }
+
     private void bootstrapEnv(int serverOutSize) throws Exception {
         final CountDownLatch prefaceWrittenLatch = new CountDownLatch(1);
         serverOut = new ByteArrayOutputStream(serverOutSize);
@@ -310,14 +446,19 @@ public class DataCompressionHttp2Test {
                         new DefaultHttp2RemoteFlowController(serverConnection));
                 serverConnection.local().flowController(
                         new DefaultHttp2LocalFlowController(serverConnection).frameWriter(frameWriter));
-                Http2ConnectionEncoder encoder = new CompressorHttp2ConnectionEncoder(
-                        new DefaultHttp2ConnectionEncoder(serverConnection, frameWriter));
+                CompressorHttp2ConnectionEncoder encoder = new CompressorHttp2ConnectionEncoder(
+                        new DefaultHttp2ConnectionEncoder(serverConnection, frameWriter),
+                        StandardCompressionOptions.brotli(), StandardCompressionOptions.gzip(),
+                        StandardCompressionOptions.deflate(), StandardCompressionOptions.zstd());
                 Http2ConnectionDecoder decoder =
                         new DefaultHttp2ConnectionDecoder(serverConnection, encoder, new DefaultHttp2FrameReader());
                 Http2ConnectionHandler connectionHandler = new Http2ConnectionHandlerBuilder()
-                        .frameListener(new DelegatingDecompressorFrameListener(serverConnection, serverListener))
+                        .frameListener(encoder.acceptEncodingListener(
+                                new DelegatingDecompressorFrameListener(serverConnection, serverListener)))
                         .codec(decoder, encoder).build();
                 p.addLast(connectionHandler);
+                serverEncoder = encoder;
+                serverHandler = connectionHandler;
                 serverChannelLatch.countDown();
             }
         });
@@ -334,7 +475,9 @@ public class DataCompressionHttp2Test {
                 clientConnection.local().flowController(
                         new DefaultHttp2LocalFlowController(clientConnection).frameWriter(frameWriter));
                 clientEncoder = new CompressorHttp2ConnectionEncoder(
-                        new DefaultHttp2ConnectionEncoder(clientConnection, frameWriter));
+                        new DefaultHttp2ConnectionEncoder(clientConnection, frameWriter),
+                        StandardCompressionOptions.brotli(), StandardCompressionOptions.gzip(),
+                        StandardCompressionOptions.deflate(), StandardCompressionOptions.zstd());
 
                 Http2ConnectionDecoder decoder =
                         new DefaultHttp2ConnectionDecoder(clientConnection, clientEncoder,
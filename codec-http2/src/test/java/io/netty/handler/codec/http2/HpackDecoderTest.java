@@ -39,6 +39,8 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import java.util.Arrays;
+
 import static io.netty.handler.codec.http2.HpackDecoder.decodeULE128;
 import static io.netty.handler.codec.http2.Http2HeadersEncoder.NEVER_SENSITIVE;
 import static io.netty.util.AsciiString.EMPTY_STRING;
@@ -48,6 +50,8 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
@@ -671,4 +675,103 @@ public class HpackDecoderTest {
             in2.release();
         }
     }
+
+    @Test
+    public void testDecodeLazily() throws Http2Exception {
+        // Huffman encode all strings, and only index the x-indexed header.
+        HpackEncoder hpackEncoder = new HpackEncoder(false, 16, 0, new Http2HeadersEncoder.IndexingPolicy() {
+            @Override
+            public Http2HeadersEncoder.HeaderIndexing indexing(CharSequence name, CharSequence value) {
+                return "x-indexed".contentEquals(name) ? Http2HeadersEncoder.HeaderIndexing.INCREMENTAL
+                                                      : Http2HeadersEncoder.HeaderIndexing.WITHOUT_INDEXING;
+            }
+        });
+        Http2Headers toEncode = new DefaultHttp2Headers()
+                .method("GET")
+                .path("/some/path?query=value")
+                .scheme("https")
+                .authority("example.com")
+                .add("x-indexed", "indexed value")
+                .add("x-huffman", "some huffman encoded value")
+                .add("x-huffman", "another value")
+                .add("x-empty", "");
+        ByteBuf in = Unpooled.buffer();
+        try {
+            for (int i = 0; i < 2; i++) {
+                in.clear();
+                hpackEncoder.encodeHeaders(1, in, toEncode, NEVER_SENSITIVE);
+                Http2Headers decoded = hpackDecoder.decodeLazily(1, in, true);
+                assertFalse(in.isReadable());
+                // The headers do not refer to the released block.
+                in.setZero(0, in.capacity());
+
+                assertEquals(toEncode.size(), decoded.size());
+                assertEquals("/some/path?query=value", decoded.path().toString());
+                assertEquals(Arrays.<CharSequence>asList(of("some huffman encoded value"), of("another value")),
+                        decoded.getAll("x-huffman"));
+                assertTrue(decoded.contains("x-indexed", "indexed value"));
+                assertEquals(EMPTY_STRING, decoded.get("x-empty"));
+                assertNull(decoded.get("x-missing"));
+
+                Http2Headers copy = new DefaultHttp2Headers().add(decoded);
+                assertEquals(toEncode, copy);
+            }
+            assertEquals(1, hpackDecoder.length());
+        } finally {
+            in.release();
+        }
+    }
+
+    @Test
+    public void testDecodeLazilyEnforcesMaxHeaderListSize() throws Http2Exception {
+        HpackEncoder hpackEncoder = new HpackEncoder(true, 16, 0);
+        Http2Headers toEncode = new DefaultHttp2Headers()
+                .add("long", String.format("%0300d", 0));
+        ByteBuf in = Unpooled.buffer();
+        try {
+            hpackDecoder.setMaxHeaderListSize(200);
+            hpackEncoder.encodeHeaders(1, in, toEncode, Http2HeadersEncoder.ALWAYS_SENSITIVE);
+            hpackDecoder.decodeLazily(1, in, true);
+            fail();
+        } catch (Http2Exception e) {
+            assertTrue(e instanceof Http2Exception.HeaderListSizeException);
+        } finally {
+            in.release();
+        }
+    }
+
+    @Test
+    public void testDecodeLazilyUsesDecodedLengthOfHuffmanValues() throws Http2Exception {
+        HpackEncoder hpackEncoder = new HpackEncoder(true, 16, 0);
+        // Every '0' is Huffman encoded in 5 bits, so the value only fits into the limit with its encoded length.
+        Http2Headers toEncode = new DefaultHttp2Headers()
+                .add("long", String.format("%0300d", 0));
+        ByteBuf in = Unpooled.buffer();
+        try {
+            hpackDecoder.setMaxHeaderListSize(250);
+            hpackEncoder.encodeHeaders(1, in, toEncode, Http2HeadersEncoder.ALWAYS_SENSITIVE);
+            assertTrue(in.readableBytes() < 250 - 32);
+            hpackDecoder.decodeLazily(1, in, true);
+            fail();
+        } catch (Http2Exception e) {
+            assertTrue(e instanceof Http2Exception.HeaderListSizeException);
+        } finally {
+            in.release();
+        }
+    }
+
+    @Test
+    public void testDecodeLazilyBadHuffmanValue() throws Http2Exception {
+        // Literal without indexing with the new name "a" and a value of 30 set bits, which encode EOS.
+        ByteBuf in = Unpooled.wrappedBuffer(new byte[] {
+                0x00, 0x01, 'a', (byte) 0x84, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF });
+        try {
+            hpackDecoder.decodeLazily(1, in, true);
+            fail();
+        } catch (Http2Exception e) {
+            assertEquals(Http2Error.COMPRESSION_ERROR, e.error());
+        } finally {
+            in.release();
+        }
+    }
 }
@@ -17,12 +17,18 @@ package io.netty.handler.codec.http2;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.util.AsciiString;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_HEADER_LIST_SIZE;
 import static io.netty.handler.codec.http2.Http2CodecUtil.MAX_HEADER_TABLE_SIZE;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
 public class HpackEncoderTest {
@@ -98,4 +104,116 @@ public class HpackEncoderTest {
             buf.release();
         }
     }
+
+    @Test
+    public void testIndexingPolicy() throws Http2Exception {
+        hpackEncoder = new HpackEncoder(false, 16, HpackEncoder.HUFF_CODE_THRESHOLD,
+                new Http2HeadersEncoder.IndexingPolicy() {
+                    @Override
+                    public Http2HeadersEncoder.HeaderIndexing indexing(CharSequence name, CharSequence value) {
+                        if ("x-request-id".contentEquals(name)) {
+                            return Http2HeadersEncoder.HeaderIndexing.WITHOUT_INDEXING;
+                        }
+                        if ("x-token".contentEquals(name)) {
+                            return Http2HeadersEncoder.HeaderIndexing.NEVER_INDEXED;
+                        }
+                        return Http2HeadersEncoder.HeaderIndexing.INCREMENTAL;
+                    }
+                });
+        Http2Headers headers = new DefaultHttp2Headers()
+                .add("x-request-id", "1")
+                .add("x-token", "secret")
+                .add("x-service", "echo");
+        ByteBuf buf = Unpooled.buffer();
+        try {
+            hpackEncoder.encodeHeaders(3, buf, headers, Http2HeadersEncoder.NEVER_SENSITIVE);
+            assertEquals(1, hpackEncoder.length());
+            assertEquals("x-service", hpackEncoder.getHeaderField(0).name.toString());
+            // Literal Header Field without Indexing, then Never Indexed, both with a new name.
+            assertEquals(0x00, buf.getByte(0));
+            assertEquals(0x10, buf.getByte(3 + "x-request-id".length() + "1".length()));
+
+            Http2Headers decoded = new DefaultHttp2Headers();
+            hpackDecoder.decode(3, buf, decoded, true);
+            assertEquals(headers, decoded);
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    public void testIndexingPolicyIsNotAskedAboutStaticTableFields() throws Http2Exception {
+        final List<String> asked = new ArrayList<String>();
+        hpackEncoder = new HpackEncoder(false, 16, HpackEncoder.HUFF_CODE_THRESHOLD,
+                new Http2HeadersEncoder.IndexingPolicy() {
+                    @Override
+                    public Http2HeadersEncoder.HeaderIndexing indexing(CharSequence name, CharSequence value) {
+                        asked.add(name.toString());
+                        return Http2HeadersEncoder.HeaderIndexing.NEVER_INDEXED;
+                    }
+                });
+        Http2Headers headers = new DefaultHttp2Headers()
+                .method("GET")
+                .add("x-service", "echo");
+        ByteBuf buf = Unpooled.buffer();
+        try {
+            hpackEncoder.encodeHeaders(3, buf, headers, Http2HeadersEncoder.NEVER_SENSITIVE);
+            assertEquals(Collections.singletonList("x-service"), asked);
+            // Indexed Header Field of :method GET
+            assertEquals((byte) 0x82, buf.getByte(0));
+            assertEquals(0, hpackEncoder.length());
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    public void testAdaptiveIndexingPolicy() throws Http2Exception {
+        AdaptiveHpackIndexingPolicy policy = new AdaptiveHpackIndexingPolicy();
+        hpackEncoder = new HpackEncoder(false, 16, HpackEncoder.HUFF_CODE_THRESHOLD, policy);
+        ByteBuf buf = Unpooled.buffer();
+        try {
+            for (int i = 0; i < 32; i++) {
+                Http2Headers headers = new DefaultHttp2Headers()
+                        .scheme("https")
+                        .authority("example.com")
+                        .add("user-agent", "grpc-java/1.40")
+                        .add("x-request-id", "request-" + i)
+                        .add("authorization", "Bearer token");
+                buf.clear();
+                hpackEncoder.encodeHeaders(3, buf, headers, Http2HeadersEncoder.NEVER_SENSITIVE);
+                Http2Headers decoded = new DefaultHttp2Headers();
+                hpackDecoder.decode(3, buf, decoded, true);
+                assertEquals(headers, decoded);
+            }
+            assertTrue(policy.churn(":authority") < 0.1f);
+            assertTrue(policy.churn("x-request-id") > 0.9f);
+            assertEquals(-1f, policy.churn("authorization"), 0f);
+            // Found in the static table, so not tracked.
+            assertEquals(-1f, policy.churn(":scheme"), 0f);
+
+            // Only :authority, user-agent and the request ids of the warm-up are in the dynamic table.
+            assertEquals(9, hpackEncoder.length());
+            for (int i = 0; i < hpackEncoder.length(); i++) {
+                String name = hpackEncoder.getHeaderField(i).name.toString();
+                assertTrue(name, !"authorization".equals(name));
+            }
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    public void testAdaptiveIndexingPolicyNameTypes() {
+        AdaptiveHpackIndexingPolicy policy = new AdaptiveHpackIndexingPolicy(0.5f, 1);
+        assertEquals(Http2HeadersEncoder.HeaderIndexing.INCREMENTAL, policy.indexing("x-request-id", "1"));
+        assertEquals(1f, policy.churn(new StringBuilder("x-request-id")), 0f);
+        assertEquals(Http2HeadersEncoder.HeaderIndexing.INCREMENTAL,
+                policy.indexing(AsciiString.of("x-request-id"), "1"));
+        assertEquals(0.5f, policy.churn("x-request-id"), 0f);
+
+        // Only a single name is tracked.
+        policy.indexing("x-trace-id", "1");
+        assertEquals(-1f, policy.churn("x-trace-id"), 0f);
+    }
 }
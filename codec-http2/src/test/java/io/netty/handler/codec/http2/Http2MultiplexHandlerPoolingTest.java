@@ -0,0 +1,298 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelId;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
+import org.junit.After;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the pooling of child channels by {@link Http2MultiplexHandler}.
+ */
+public class Http2MultiplexHandlerPoolingTest {
+    private static final AttributeKey<String> KEY = AttributeKey.valueOf(Http2MultiplexHandlerPoolingTest.class, "key");
+
+    private final Http2Headers request = new DefaultHttp2Headers().method("GET").scheme("https")
+            .authority("example.org").path("/");
+    private final Http2Headers response = new DefaultHttp2Headers().status("200");
+    private final RecordingInitializer initializer = new RecordingInitializer();
+    private EmbeddedChannel parentChannel;
+    private Http2FrameInboundWriter frameInboundWriter;
+    private int resets;
+
+    private void setUp(int maxPooledStreamChannels, Http2StreamChannelRecycler recycler) {
+        parentChannel = new EmbeddedChannel();
+        frameInboundWriter = new Http2FrameInboundWriter(parentChannel);
+        parentChannel.connect(new InetSocketAddress(0));
+        parentChannel.pipeline().addLast(new Http2FrameCodecBuilder(true)
+                .frameWriter(Http2TestUtil.mockedFrameWriter()).build());
+        parentChannel.pipeline().addLast(
+                new Http2MultiplexHandler(initializer, null, maxPooledStreamChannels, recycler));
+        parentChannel.runPendingTasks();
+        parentChannel.pipeline().fireChannelActive();
+        parentChannel.writeInbound(Http2CodecUtil.connectionPrefaceBuf());
+        frameInboundWriter.writeInboundSettings(new Http2Settings());
+        frameInboundWriter.writeInboundSettingsAck();
+        Object msg;
+        while ((msg = parentChannel.readInbound()) != null) {
+            ReferenceCountUtil.release(msg);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        if (parentChannel != null) {
+            parentChannel.finishAndReleaseAll();
+        }
+    }
+
+    private Http2StreamChannel openStream(int streamId) {
+        int channels = initializer.registered.size();
+        frameInboundWriter.writeInboundHeaders(streamId, request, 0, false);
+        parentChannel.runPendingTasks();
+        assertEquals(channels + 1, initializer.registered.size());
+        Http2StreamChannel channel = initializer.registered.get(channels);
+        assertEquals(streamId, channel.stream().id());
+        assertTrue(channel.isActive());
+        return channel;
+    }
+
+    private void closeStream(Http2StreamChannel channel) {
+        assertTrue(channel.writeAndFlush(new DefaultHttp2HeadersFrame(response, true)).isSuccess());
+        frameInboundWriter.writeInboundData(channel.stream().id(), Unpooled.EMPTY_BUFFER, 0, true);
+        parentChannel.runPendingTasks();
+        assertFalse(channel.isOpen());
+        assertFalse(channel.isRegistered());
+    }
+
+    private void resetStream(Http2StreamChannel channel) {
+        frameInboundWriter.writeInboundRstStream(channel.stream().id(), Http2Error.CANCEL.code());
+        parentChannel.runPendingTasks();
+        assertFalse(channel.isOpen());
+        assertFalse(channel.isRegistered());
+    }
+
+    private final Http2StreamChannelRecycler countingRecycler = new Http2StreamChannelRecycler() {
+        @Override
+        public boolean reset(Http2StreamChannel channel) throws Exception {
+            resets++;
+            channel.attr(KEY).set(null);
+            return true;
+        }
+    };
+
+    @Test
+    public void testChannelIsReused() {
+        setUp(4, countingRecycler);
+
+        Http2StreamChannel first = openStream(3);
+        ChannelId firstId = first.id();
+        ChannelFuture firstCloseFuture = first.closeFuture();
+        first.attr(KEY).set("first");
+        closeStream(first);
+        assertEquals(1, resets);
+        assertNull(first.attr(KEY).get());
+        assertNull(first.pipeline().first());
+
+        Http2StreamChannel second = openStream(5);
+        assertSame(first, second);
+        assertNotEquals(firstId, second.id());
+        assertNotSame(firstCloseFuture, second.closeFuture());
+        assertTrue(firstCloseFuture.isDone());
+        assertFalse(second.closeFuture().isDone());
+        // The pipeline was initialized again.
+        assertEquals(2, initializer.initialized);
+        assertNotNull(second.pipeline().first());
+        assertTrue(second.isWritable());
+
+        closeStream(second);
+        assertEquals(2, resets);
+    }
+
+    @Test
+    public void testPoolIsBounded() {
+        setUp(1, countingRecycler);
+
+        Http2StreamChannel first = openStream(3);
+        Http2StreamChannel second = openStream(5);
+        assertNotSame(first, second);
+        closeStream(first);
+        closeStream(second);
+        // The pool was full already when the second channel was closed.
+        assertEquals(1, resets);
+
+        assertSame(first, openStream(7));
+        Http2StreamChannel third = openStream(9);
+        assertNotSame(first, third);
+        assertNotSame(second, third);
+    }
+
+    @Test
+    public void testResetStreamIsNotReused() {
+        setUp(1, countingRecycler);
+
+        Http2StreamChannel first = openStream(3);
+        resetStream(first);
+        assertEquals(0, resets);
+        Http2StreamChannel second = openStream(5);
+        assertNotSame(first, second);
+
+        // A write that completes only after the stream was reset must fail, and not reach a stream that reused
+        // the channel.
+        ChannelFuture future = first.writeAndFlush(new DefaultHttp2HeadersFrame(response, true));
+        assertTrue(future.cause() instanceof ClosedChannelException);
+    }
+
+    @Test
+    public void testFrameOfPreviousStreamFails() {
+        setUp(1, countingRecycler);
+
+        Http2StreamChannel first = openStream(3);
+        Http2FrameStream firstStream = first.stream();
+        closeStream(first);
+
+        Http2StreamChannel second = openStream(5);
+        assertSame(first, second);
+        ChannelFuture future = second.writeAndFlush(new DefaultHttp2HeadersFrame(response, true).stream(firstStream));
+        assertTrue(future.cause() instanceof IllegalArgumentException);
+        assertTrue(second.isActive());
+    }
+
+    @Test
+    public void testReuseClearsState() {
+        setUp(1, new Http2StreamChannelRecycler() {
+            @Override
+            public boolean reset(Http2StreamChannel channel) {
+                // The attributes of the previous stream are still available to the recycler.
+                assertEquals("first", channel.attr(KEY).get());
+                return true;
+            }
+        });
+
+        Http2StreamChannel first = openStream(3);
+        int defaultWriteSpinCount = first.config().getWriteSpinCount();
+        first.attr(KEY).set("first");
+        first.config().setWriteSpinCount(defaultWriteSpinCount + 1);
+        closeStream(first);
+
+        Http2StreamChannel second = openStream(5);
+        assertSame(first, second);
+        assertFalse(second.hasAttr(KEY));
+        assertEquals(defaultWriteSpinCount, second.config().getWriteSpinCount());
+    }
+
+    @Test
+    public void testHandlerIsAddedToRegisteredChannelOnReuse() {
+        setUp(1, countingRecycler);
+
+        closeStream(openStream(3));
+        openStream(5);
+        assertEquals(2, initializer.addedToRegisteredChannel.size());
+        assertTrue(initializer.addedToRegisteredChannel.get(0));
+        assertTrue(initializer.addedToRegisteredChannel.get(1));
+    }
+
+    @Test
+    public void testRecyclerDiscardsChannel() {
+        setUp(1, new Http2StreamChannelRecycler() {
+            @Override
+            public boolean reset(Http2StreamChannel channel) {
+                resets++;
+                return false;
+            }
+        });
+
+        Http2StreamChannel first = openStream(3);
+        closeStream(first);
+        assertEquals(1, resets);
+        assertNotSame(first, openStream(5));
+    }
+
+    @Test
+    public void testRecyclerThrows() {
+        setUp(1, new Http2StreamChannelRecycler() {
+            @Override
+            public boolean reset(Http2StreamChannel channel) throws Exception {
+                resets++;
+                throw new Exception("expected");
+            }
+        });
+
+        Http2StreamChannel first = openStream(3);
+        closeStream(first);
+        assertEquals(1, resets);
+        assertNotSame(first, openStream(5));
+    }
+
+    @Sharable
+    private static final class RecordingInitializer extends ChannelInitializer<Channel> {
+        final List<Http2StreamChannel> registered = new ArrayList<Http2StreamChannel>();
+        final List<Boolean> addedToRegisteredChannel = new ArrayList<Boolean>();
+        int initialized;
+
+        @Override
+        public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+            addedToRegisteredChannel.add(ctx.channel().isRegistered());
+            super.handlerAdded(ctx);
+        }
+
+        @Override
+        protected void initChannel(Channel ch) {
+            initialized++;
+            ch.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+                @Override
+                public void channelRegistered(ChannelHandlerContext ctx) {
+                    registered.add((Http2StreamChannel) ctx.channel());
+                    ctx.fireChannelRegistered();
+                }
+
+                @Override
+                public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                    ReferenceCountUtil.release(msg);
+                }
+
+                @Override
+                public void userEventTriggered(ChannelHandlerContext ctx, Object evt) {
+                    ReferenceCountUtil.release(evt);
+                }
+            });
+        }
+    }
+}
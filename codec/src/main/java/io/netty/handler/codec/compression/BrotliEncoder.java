@@ -0,0 +1,280 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import com.aayushatharva.brotli4j.encoder.BrotliOutputStream;
+import com.aayushatharva.brotli4j.encoder.Encoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.ChannelPromiseNotifier;
+import io.netty.handler.codec.EncoderException;
+import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.internal.ObjectUtil;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compresses a {@link ByteBuf} into a <a href="https://github.com/google/brotli">brotli</a> stream.
+ * <p>
+ * Every {@link ChannelHandlerContext#flush() flush} emits everything written so far, so the peer can decompress it
+ * without waiting for the end of the stream. The stream is ended when the encoder is {@link #close() closed}.
+ * <p>
+ * See <a href="https://tools.ietf.org/html/rfc7932">RFC 7932</a> for the format.
+ */
+public final class BrotliEncoder extends MessageToByteEncoder<ByteBuf> {
+
+    static final int DEFAULT_QUALITY = 4;
+    static final int DEFAULT_WINDOW = 22;
+    // How long close(ctx, promise) waits for the end of the stream to be written before it closes the channel anyway,
+    // so a peer which does not read anymore cannot keep a closing channel open.
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+    private final int quality;
+    private final int window;
+
+    private final Sink sink = new Sink();
+    private BrotliOutputStream stream;
+    /**
+     * {@code true} if the compressor may hold data which was not flushed yet.
+     */
+    private boolean pending;
+    private volatile boolean finished;
+    private volatile ChannelHandlerContext ctx;
+
+    /**
+     * Creates a new brotli encoder with the default quality ({@code 4}) and window ({@code 22}), which are suited
+     * for compressing dynamic content on the fly.
+     */
+    public BrotliEncoder() {
+        this(DEFAULT_QUALITY);
+    }
+
+    /**
+     * Creates a new brotli encoder with the default window ({@code 22}).
+     *
+     * @param quality
+     *        the quality from {@code 0} to {@code 11}. Higher qualities compress better but slower.
+     */
+    public BrotliEncoder(int quality) {
+        this(quality, DEFAULT_WINDOW);
+    }
+
+    /**
+     * Creates a new brotli encoder.
+     *
+     * @param quality
+     *        the quality from {@code 0} to {@code 11}. Higher qualities compress better but slower.
+     * @param window
+     *        the base two logarithm of the size of the sliding window from {@code 10} to {@code 24}. Larger
+     *        windows compress better at the expense of memory usage.
+     */
+    public BrotliEncoder(int quality, int window) {
+        super(true);
+        try {
+            Brotli.ensureAvailability();
+        } catch (Throwable cause) {
+            throw new IllegalStateException("Brotli is not available", cause);
+        }
+        this.quality = ObjectUtil.checkInRange(quality, 0, 11, "quality");
+        this.window = ObjectUtil.checkInRange(window, 10, 24, "window");
+    }
+
+    @Override
+    protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, ByteBuf msg, boolean preferDirect) {
+        // The compressor only emits data once it has enough input, so start small.
+        return preferDirect ? ctx.alloc().ioBuffer() : ctx.alloc().heapBuffer();
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, ByteBuf in, ByteBuf out) {
+        if (finished) {
+            throw new EncoderException("encoder is closed");
+        }
+        if (!in.isReadable()) {
+            return;
+        }
+        sink.out = out;
+        try {
+            in.readBytes(stream(), in.readableBytes());
+        } catch (IOException e) {
+            throw new CompressionException(e);
+        } finally {
+            sink.out = null;
+        }
+        pending = true;
+    }
+
+    @Override
+    public void flush(final ChannelHandlerContext ctx) throws Exception {
+        if (!finished && pending) {
+            final ByteBuf buf = ctx.alloc().ioBuffer();
+            sink.out = buf;
+            try {
+                stream.flush();
+            } catch (IOException e) {
+                buf.release();
+                throw new CompressionException(e);
+            } finally {
+                sink.out = null;
+            }
+            pending = false;
+            ctx.write(buf);
+        }
+        ctx.flush();
+    }
+
+    private ChannelFuture finishEncode(final ChannelHandlerContext ctx, ChannelPromise promise) {
+        if (finished) {
+            promise.setSuccess();
+            return promise;
+        }
+        finished = true;
+
+        final ByteBuf footer = ctx.alloc().ioBuffer();
+        sink.out = footer;
+        try {
+            stream().close();
+        } catch (IOException e) {
+            footer.release();
+            promise.setFailure(new CompressionException(e));
+            return promise;
+        } finally {
+            sink.out = null;
+            stream = null;
+        }
+        return ctx.writeAndFlush(footer, promise);
+    }
+
+    private BrotliOutputStream stream() throws IOException {
+        if (stream == null) {
+            stream = new BrotliOutputStream(sink, new Encoder.Parameters().setQuality(quality).setWindow(window));
+        }
+        return stream;
+    }
+
+    /**
+     * Returns {@code true} if and only if the stream has been ended.
+     */
+    public boolean isClosed() {
+        return finished;
+    }
+
+    /**
+     * Close this {@link BrotliEncoder} and so end the stream.
+     *
+     * The returned {@link ChannelFuture} will be notified once the operation completes.
+     */
+    public ChannelFuture close() {
+        return close(ctx().newPromise());
+    }
+
+    /**
+     * Close this {@link BrotliEncoder} and so end the stream.
+     * The given {@link ChannelFuture} will be notified once the operation
+     * completes and will also be returned.
+     */
+    public ChannelFuture close(final ChannelPromise promise) {
+        ChannelHandlerContext ctx = ctx();
+        EventExecutor executor = ctx.executor();
+        if (executor.inEventLoop()) {
+            return finishEncode(ctx, promise);
+        } else {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    ChannelFuture f = finishEncode(ctx(), promise);
+                    f.addListener(new ChannelPromiseNotifier(promise));
+                }
+            });
+            return promise;
+        }
+    }
+
+    @Override
+    public void close(final ChannelHandlerContext ctx, final ChannelPromise promise) throws Exception {
+        ChannelFuture f = finishEncode(ctx, ctx.newPromise());
+        f.addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture f) throws Exception {
+                ctx.close(promise);
+            }
+        });
+
+        if (!f.isDone()) {
+            // Ensure the channel is closed even if the write operation completes in time.
+            ctx.executor().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    ctx.close(promise);
+                }
+            }, CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    private ChannelHandlerContext ctx() {
+        ChannelHandlerContext ctx = this.ctx;
+        if (ctx == null) {
+            throw new IllegalStateException("not added to a pipeline");
+        }
+        return ctx;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        super.handlerRemoved(ctx);
+        if (stream != null) {
+            // Releases the native encoder, the remaining output is discarded as the sink has no buffer.
+            try {
+                stream.close();
+            } catch (IOException ignore) {
+                // ignore
+            }
+            stream = null;
+        }
+    }
+
+    /**
+     * Writes the output of the compressor into the current buffer.
+     */
+    private static final class Sink extends OutputStream {
+        ByteBuf out;
+
+        @Override
+        public void write(int b) {
+            if (out != null) {
+                out.writeByte(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            if (out != null) {
+                out.writeBytes(b, off, len);
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.util.internal.ObjectUtil;
+
+/**
+ * {@link CompressionOptions} for the brotli algorithm.
+ */
+public final class BrotliOptions implements CompressionOptions {
+
+    static final BrotliOptions DEFAULT = new BrotliOptions(BrotliEncoder.DEFAULT_QUALITY, BrotliEncoder.DEFAULT_WINDOW);
+
+    private final int quality;
+    private final int window;
+
+    /**
+     * @see StandardCompressionOptions#brotli()
+     * @see StandardCompressionOptions#brotli(int, int)
+     */
+    BrotliOptions(int quality, int window) {
+        this.quality = ObjectUtil.checkInRange(quality, 0, 11, "quality");
+        this.window = ObjectUtil.checkInRange(window, 10, 24, "window");
+    }
+
+    public int quality() {
+        return quality;
+    }
+
+    public int window() {
+        return window;
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+/**
+ * Creates the {@link CompressionOptions} of the supported compression algorithms.
+ */
+public final class StandardCompressionOptions {
+
+    private StandardCompressionOptions() {
+    }
+
+    /**
+     * Returns {@link BrotliOptions} with the default quality ({@code 4}) and window ({@code 22}).
+     */
+    public static BrotliOptions brotli() {
+        return BrotliOptions.DEFAULT;
+    }
+
+    /**
+     * Creates {@link BrotliOptions}.
+     *
+     * @param quality
+     *        the quality from {@code 0} to {@code 11}. Higher qualities compress better but slower.
+     * @param window
+     *        the base two logarithm of the size of the sliding window from {@code 10} to {@code 24}.
+     */
+    public static BrotliOptions brotli(int quality, int window) {
+        return new BrotliOptions(quality, window);
+    }
+
+    /**
+     * Returns {@link GzipOptions} with the default compression level ({@code 6}), window size ({@code 15}) and
+     * memory level ({@code 8}).
+     */
+    public static GzipOptions gzip() {
+        return GzipOptions.DEFAULT;
+    }
+
+    /**
+     * Creates {@link GzipOptions}.
+     *
+     * @param compressionLevel
+     *        {@code 1} yields the fastest compression and {@code 9} yields the
+     *        best compression.  {@code 0} means no compression.
+     * @param windowBits
+     *        The base two logarithm of the size of the history buffer.  The
+     *        value should be in the range {@code 9} to {@code 15} inclusive.
+     * @param memLevel
+     *        How much memory should be allocated for the internal compression
+     *        state.  {@code 1} uses minimum memory and {@code 9} uses maximum
+     *        memory.
+     */
+    public static GzipOptions gzip(int compressionLevel, int windowBits, int memLevel) {
+        return new GzipOptions(compressionLevel, windowBits, memLevel);
+    }
+
+    /**
+     * Returns {@link DeflateOptions} with the default compression level ({@code 6}), window size ({@code 15}) and
+     * memory level ({@code 8}).
+     */
+    public static DeflateOptions deflate() {
+        return DeflateOptions.DEFAULT;
+    }
+
+    /**
+     * Creates {@link DeflateOptions}.
+     *
+     * @see #gzip(int, int, int)
+     */
+    public static DeflateOptions deflate(int compressionLevel, int windowBits, int memLevel) {
+        return new DeflateOptions(compressionLevel, windowBits, memLevel);
+    }
+
+    /**
+     * Returns {@link ZstdOptions} with the default compression level ({@code 3}) and block size ({@code 64 KiB}).
+     */
+    public static ZstdOptions zstd() {
+        return ZstdOptions.DEFAULT;
+    }
+
+    /**
+     * Creates {@link ZstdOptions}.
+     *
+     * @param compressionLevel
+     *        the compression level in the range {@code 1} to {@code 22}.
+     * @param blockSize
+     *        the number of bytes which are buffered before they are compressed, unless the encoder is flushed first.
+     */
+    public static ZstdOptions zstd(int compressionLevel, int blockSize) {
+        return new ZstdOptions(compressionLevel, blockSize);
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+final class ZstdConstants {
+
+    /**
+     * Default compression level
+     */
+    static final int DEFAULT_COMPRESSION_LEVEL = 3;
+
+    /**
+     * Min compression level
+     */
+    static final int MIN_COMPRESSION_LEVEL = 1;
+
+    /**
+     * Max compression level
+     */
+    static final int MAX_COMPRESSION_LEVEL = 22;
+
+    /**
+     * Default block size, the amount of data which is buffered before it is passed to the compressor
+     */
+    static final int DEFAULT_BLOCK_SIZE = 1 << 16;  // 64 KiB
+
+    /**
+     * Max block size
+     */
+    static final int MAX_BLOCK_SIZE = 1 << 25;  // 32 MiB
+
+    /**
+     * Default size of the buffers which hold the decompressed data
+     */
+    static final int DEFAULT_OUTPUT_BUFFER_SIZE = 1 << 17;  // 128 KiB
+
+    /**
+     * How long closing the channel waits for the end of the zstd frame to be written. The frame end is tiny, so if it
+     * is not written by then the peer stopped reading, and waiting any longer would only keep the channel open.
+     */
+    static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+    private ZstdConstants() { }
+}
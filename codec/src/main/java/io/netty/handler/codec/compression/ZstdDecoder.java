@@ -0,0 +1,174 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import com.github.luben.zstd.ZstdDecompressCtx;
+import com.github.luben.zstd.ZstdException;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.util.internal.ObjectUtil;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static io.netty.handler.codec.compression.ZstdConstants.DEFAULT_OUTPUT_BUFFER_SIZE;
+
+/**
+ * Uncompresses a {@link ByteBuf} encoded with the <a href="https://facebook.github.io/zstd">Zstandard</a> format,
+ * which may consist of several concatenated frames.
+ * <p>
+ * The data is decompressed as it arrives, so the content of a frame is emitted before the frame is complete.
+ */
+public final class ZstdDecoder extends ByteToMessageDecoder {
+
+    static {
+        try {
+            Zstd.ensureAvailability();
+        } catch (Throwable throwable) {
+            throw new ExceptionInInitializerError(throwable);
+        }
+    }
+
+    private static final int MIN_OUTPUT_BUFFER_SIZE = 1024;
+
+    private final int outputBufferSize;
+    private final byte[] dictionary;
+    private ZstdDecompressCtx decompressCtx;
+    private boolean destroyed;
+
+    /**
+     * Creates a new ZstdDecoder with a default 128kB output buffer
+     */
+    public ZstdDecoder() {
+        this(DEFAULT_OUTPUT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a new ZstdDecoder
+     * @param outputBufferSize the maximum size of the buffers which hold the decompressed data
+     */
+    public ZstdDecoder(int outputBufferSize) {
+        this(outputBufferSize, null);
+    }
+
+    /**
+     * Creates a new ZstdDecoder which uses a dictionary
+     * @param outputBufferSize the maximum size of the buffers which hold the decompressed data
+     * @param dictionary the dictionary the data was compressed with, or {@code null} if none was used
+     */
+    public ZstdDecoder(int outputBufferSize, byte[] dictionary) {
+        this.outputBufferSize = ObjectUtil.checkPositive(outputBufferSize, "outputBufferSize");
+        this.dictionary = dictionary == null ? null : dictionary.clone();
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        decompressCtx = new ZstdDecompressCtx();
+        if (dictionary != null) {
+            decompressCtx.loadDict(dictionary);
+        }
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        if (destroyed) {
+            // Skip data received after the stream was found to be corrupted.
+            in.skipBytes(in.readableBytes());
+            return;
+        }
+
+        if (!in.isReadable()) {
+            return;
+        }
+
+        try {
+            if (in.isDirect() && in.nioBufferCount() == 1) {
+                decompress(ctx, in, out);
+            } else {
+                // The decompressor only accepts direct memory.
+                ByteBuf copy = ctx.alloc().directBuffer(in.readableBytes());
+                try {
+                    copy.writeBytes(in, in.readerIndex(), in.readableBytes());
+                    decompress(ctx, copy, out);
+                    in.skipBytes(copy.readerIndex());
+                } finally {
+                    copy.release();
+                }
+            }
+        } catch (ZstdException e) {
+            destroy();
+            throw new DecompressionException("Zstd stream corrupted", e);
+        } catch (Exception e) {
+            destroy();
+            throw e;
+        }
+    }
+
+    private void decompress(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+        ByteBuffer src = in.internalNioBuffer(in.readerIndex(), in.readableBytes());
+        int srcStart = src.position();
+        // Guess the size of the first buffer from the input, the following ones use the full size.
+        int bufferSize = Math.min(outputBufferSize, Math.max(MIN_OUTPUT_BUFFER_SIZE, src.remaining() << 2));
+        for (;;) {
+            int consumed = src.position();
+            ByteBuf decompressed = ctx.alloc().directBuffer(bufferSize);
+            boolean full;
+            try {
+                ByteBuffer dst = decompressed.internalNioBuffer(0, bufferSize);
+                int dstStart = dst.position();
+                // Returns true at the end of a frame, the next frame is decompressed by the following call.
+                decompressCtx.decompressDirectByteBufferStream(dst, src);
+                decompressed.writerIndex(dst.position() - dstStart);
+                full = !dst.hasRemaining();
+            } catch (RuntimeException e) {
+                decompressed.release();
+                throw e;
+            }
+            boolean progress = decompressed.isReadable() || src.position() != consumed;
+            if (decompressed.isReadable()) {
+                out.add(decompressed);
+            } else {
+                decompressed.release();
+            }
+            // The decompressor may hold more output if the buffer was filled completely.
+            if (!progress || !full && !src.hasRemaining()) {
+                break;
+            }
+            bufferSize = outputBufferSize;
+        }
+        in.skipBytes(src.position() - srcStart);
+    }
+
+    private void destroy() {
+        if (!destroyed) {
+            destroyed = true;
+            if (decompressCtx != null) {
+                decompressCtx.close();
+                decompressCtx = null;
+            }
+        }
+    }
+
+    @Override
+    protected void handlerRemoved0(ChannelHandlerContext ctx) throws Exception {
+        try {
+            destroy();
+        } finally {
+            super.handlerRemoved0(ctx);
+        }
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import com.github.luben.zstd.EndDirective;
+import com.github.luben.zstd.ZstdCompressCtx;
+import com.github.luben.zstd.ZstdException;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.ChannelPromiseNotifier;
+import io.netty.handler.codec.EncoderException;
+import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.internal.ObjectUtil;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import static io.netty.handler.codec.compression.ZstdConstants.CLOSE_TIMEOUT_SECONDS;
+import static io.netty.handler.codec.compression.ZstdConstants.DEFAULT_BLOCK_SIZE;
+import static io.netty.handler.codec.compression.ZstdConstants.DEFAULT_COMPRESSION_LEVEL;
+import static io.netty.handler.codec.compression.ZstdConstants.MAX_BLOCK_SIZE;
+import static io.netty.handler.codec.compression.ZstdConstants.MAX_COMPRESSION_LEVEL;
+import static io.netty.handler.codec.compression.ZstdConstants.MIN_COMPRESSION_LEVEL;
+
+/**
+ * Compresses a {@link ByteBuf} into a <a href="https://facebook.github.io/zstd">Zstandard</a> frame.
+ * <p>
+ * The data is buffered until a block of {@code blockSize} bytes is complete and then passed to the streaming
+ * compressor. Every {@link ChannelHandlerContext#flush() flush} emits everything written so far, so the peer can
+ * decompress it without waiting for the end of the frame. The frame is ended when the encoder is
+ * {@link #close() closed}.
+ * <p>
+ * See <a href="https://tools.ietf.org/html/rfc8878">RFC 8878</a> for the format.
+ */
+public final class ZstdEncoder extends MessageToByteEncoder<ByteBuf> {
+
+    private final int compressionLevel;
+    private final int blockSize;
+    private final byte[] dictionary;
+
+    private ZstdCompressCtx compressCtx;
+    /**
+     * Holds the data which was not passed to the compressor yet.
+     */
+    private ByteBuf buffer;
+    /**
+     * {@code true} if the compressor may hold data which was not flushed yet.
+     */
+    private boolean pending;
+    private volatile boolean finished;
+    private volatile ChannelHandlerContext ctx;
+
+    /**
+     * Creates a new Zstd encoder with the default compression level ({@code 3}) and block size ({@code 64 KiB}).
+     */
+    public ZstdEncoder() {
+        this(DEFAULT_COMPRESSION_LEVEL);
+    }
+
+    /**
+     * Creates a new Zstd encoder with the default block size ({@code 64 KiB}).
+     *
+     * @param compressionLevel
+     *        the compression level from {@code 1} to {@code 22}. Higher levels compress better but slower.
+     */
+    public ZstdEncoder(int compressionLevel) {
+        this(compressionLevel, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Creates a new Zstd encoder.
+     *
+     * @param compressionLevel
+     *        the compression level from {@code 1} to {@code 22}. Higher levels compress better but slower.
+     * @param blockSize
+     *        the amount of data which is buffered before it is passed to the compressor, up to {@code 32 MiB}.
+     */
+    public ZstdEncoder(int compressionLevel, int blockSize) {
+        this(compressionLevel, blockSize, null);
+    }
+
+    /**
+     * Creates a new Zstd encoder which uses a dictionary. The peer must use the same dictionary to decompress the
+     * data.
+     *
+     * @param compressionLevel
+     *        the compression level from {@code 1} to {@code 22}. Higher levels compress better but slower.
+     * @param blockSize
+     *        the amount of data which is buffered before it is passed to the compressor, up to {@code 32 MiB}.
+     * @param dictionary
+     *        the dictionary, or {@code null} to not use one.
+     */
+    public ZstdEncoder(int compressionLevel, int blockSize, byte[] dictionary) {
+        super(true);
+        try {
+            Zstd.ensureAvailability();
+        } catch (Throwable cause) {
+            throw new IllegalStateException("Zstd is not available", cause);
+        }
+        this.compressionLevel = ObjectUtil.checkInRange(compressionLevel,
+                MIN_COMPRESSION_LEVEL, MAX_COMPRESSION_LEVEL, "compressionLevel");
+        this.blockSize = ObjectUtil.checkInRange(blockSize, 1, MAX_BLOCK_SIZE, "blockSize");
+        this.dictionary = dictionary == null ? null : dictionary.clone();
+    }
+
+    @Override
+    protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, ByteBuf msg, boolean preferDirect) {
+        if (buffer == null) {
+            throw new IllegalStateException("not added to a pipeline");
+        }
+        // Output is only produced once a block is complete, and the compressor only accepts direct memory.
+        long input = (long) buffer.readableBytes() + msg.readableBytes();
+        long compressed = input - input % blockSize;
+        if (compressed == 0) {
+            return Unpooled.EMPTY_BUFFER;
+        }
+        return ctx.alloc().directBuffer(
+                (int) Math.min(com.github.luben.zstd.Zstd.compressBound(compressed), Integer.MAX_VALUE - 8));
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, ByteBuf in, ByteBuf out) {
+        if (finished) {
+            throw new EncoderException("encoder is closed");
+        }
+
+        final ByteBuf buffer = this.buffer;
+        int length;
+        while ((length = in.readableBytes()) > 0) {
+            final int nextChunkSize = Math.min(length, buffer.writableBytes());
+            in.readBytes(buffer, nextChunkSize);
+
+            if (!buffer.isWritable()) {
+                compress(out, EndDirective.CONTINUE);
+            }
+        }
+    }
+
+    private void compress(ByteBuf out, EndDirective directive) {
+        ByteBuffer src = buffer.internalNioBuffer(buffer.readerIndex(), buffer.readableBytes());
+        try {
+            for (;;) {
+                out.ensureWritable((int) com.github.luben.zstd.Zstd.compressBound(src.remaining()));
+                int writerIndex = out.writerIndex();
+                ByteBuffer dst = out.internalNioBuffer(writerIndex, out.writableBytes());
+                int position = dst.position();
+                boolean done = compressCtx.compressDirectByteBufferStream(dst, src, directive);
+                out.writerIndex(writerIndex + dst.position() - position);
+                // With CONTINUE the compressor keeps what it did not emit yet, and only needs to consume the input.
+                if (directive == EndDirective.CONTINUE ? !src.hasRemaining() : done) {
+                    break;
+                }
+            }
+        } catch (ZstdException e) {
+            throw new CompressionException(e);
+        }
+        buffer.clear();
+        pending = directive == EndDirective.CONTINUE;
+    }
+
+    @Override
+    public void flush(final ChannelHandlerContext ctx) throws Exception {
+        if (!finished && buffer != null && (pending || buffer.isReadable())) {
+            final ByteBuf buf = ctx.alloc().directBuffer();
+            try {
+                compress(buf, EndDirective.FLUSH);
+            } catch (CompressionException e) {
+                buf.release();
+                throw e;
+            }
+            ctx.write(buf);
+        }
+        ctx.flush();
+    }
+
+    private ChannelFuture finishEncode(final ChannelHandlerContext ctx, ChannelPromise promise) {
+        if (finished) {
+            promise.setSuccess();
+            return promise;
+        }
+        finished = true;
+
+        final ByteBuf footer = ctx.alloc().directBuffer();
+        try {
+            compress(footer, EndDirective.END);
+        } catch (CompressionException e) {
+            footer.release();
+            promise.setFailure(e);
+            return promise;
+        }
+        return ctx.writeAndFlush(footer, promise);
+    }
+
+    /**
+     * Returns {@code true} if and only if the frame has been ended.
+     */
+    public boolean isClosed() {
+        return finished;
+    }
+
+    /**
+     * Close this {@link ZstdEncoder} and so end the frame.
+     *
+     * The returned {@link ChannelFuture} will be notified once the operation completes.
+     */
+    public ChannelFuture close() {
+        return close(ctx().newPromise());
+    }
+
+    /**
+     * Close this {@link ZstdEncoder} and so end the frame.
+     * The given {@link ChannelFuture} will be notified once the operation
+     * completes and will also be returned.
+     */
+    public ChannelFuture close(final ChannelPromise promise) {
+        ChannelHandlerContext ctx = ctx();
+        EventExecutor executor = ctx.executor();
+        if (executor.inEventLoop()) {
+            return finishEncode(ctx, promise);
+        } else {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    ChannelFuture f = finishEncode(ctx(), promise);
+                    f.addListener(new ChannelPromiseNotifier(promise));
+                }
+            });
+            return promise;
+        }
+    }
+
+    @Override
+    public void close(final ChannelHandlerContext ctx, final ChannelPromise promise) throws Exception {
+        ChannelFuture f = finishEncode(ctx, ctx.newPromise());
+        f.addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture f) throws Exception {
+                ctx.close(promise);
+            }
+        });
+
+        if (!f.isDone()) {
+            // Ensure the channel is closed even if the write operation completes in time.
+            ctx.executor().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    ctx.close(promise);
+                }
+            }, CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    private ChannelHandlerContext ctx() {
+        ChannelHandlerContext ctx = this.ctx;
+        if (ctx == null) {
+            throw new IllegalStateException("not added to a pipeline");
+        }
+        return ctx;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        this.ctx = ctx;
+        compressCtx = new ZstdCompressCtx();
+        compressCtx.setLevel(compressionLevel);
+        if (dictionary != null) {
+            compressCtx.loadDict(dictionary);
+        }
+        buffer = ctx.alloc().directBuffer(blockSize);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        super.handlerRemoved(ctx);
+        if (buffer != null) {
+            buffer.release();
+            buffer = null;
+        }
+        if (compressCtx != null) {
+            compressCtx.close();
+            compressCtx = null;
+        }
+    }
+}
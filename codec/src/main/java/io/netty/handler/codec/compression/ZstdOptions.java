@@ -0,0 +1,53 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.util.internal.ObjectUtil;
+
+import static io.netty.handler.codec.compression.ZstdConstants.DEFAULT_BLOCK_SIZE;
+import static io.netty.handler.codec.compression.ZstdConstants.DEFAULT_COMPRESSION_LEVEL;
+import static io.netty.handler.codec.compression.ZstdConstants.MAX_BLOCK_SIZE;
+import static io.netty.handler.codec.compression.ZstdConstants.MAX_COMPRESSION_LEVEL;
+import static io.netty.handler.codec.compression.ZstdConstants.MIN_COMPRESSION_LEVEL;
+
+/**
+ * {@link CompressionOptions} for the Zstandard algorithm.
+ */
+public final class ZstdOptions implements CompressionOptions {
+
+    static final ZstdOptions DEFAULT = new ZstdOptions(DEFAULT_COMPRESSION_LEVEL, DEFAULT_BLOCK_SIZE);
+
+    private final int compressionLevel;
+    private final int blockSize;
+
+    /**
+     * @see StandardCompressionOptions#zstd()
+     * @see StandardCompressionOptions#zstd(int, int)
+     */
+    ZstdOptions(int compressionLevel, int blockSize) {
+        this.compressionLevel = ObjectUtil.checkInRange(compressionLevel,
+                MIN_COMPRESSION_LEVEL, MAX_COMPRESSION_LEVEL, "compressionLevel");
+        this.blockSize = ObjectUtil.checkInRange(blockSize, 1, MAX_BLOCK_SIZE, "blockSize");
+    }
+
+    public int compressionLevel() {
+        return compressionLevel;
+    }
+
+    public int blockSize() {
+        return blockSize;
+    }
+}
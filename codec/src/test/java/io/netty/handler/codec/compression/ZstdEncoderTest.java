@@ -0,0 +1,90 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ZstdEncoderTest extends AbstractEncoderTest {
+
+    @Override
+    protected EmbeddedChannel createChannel() {
+        return new EmbeddedChannel(new ZstdEncoder());
+    }
+
+    @Override
+    protected ByteBuf decompress(ByteBuf compressed, int originalLength) throws Exception {
+        byte[] compressedArray = new byte[compressed.readableBytes()];
+        compressed.readBytes(compressedArray);
+        compressed.release();
+
+        byte[] decompressed = com.github.luben.zstd.Zstd.decompress(compressedArray, originalLength);
+        return Unpooled.wrappedBuffer(decompressed);
+    }
+
+    @Test
+    public void testFlushEmitsBufferedData() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(new ZstdEncoder(3, 1024));
+        byte[] data = new byte[100];
+        rand.nextBytes(data);
+        assertTrue(channel.writeOutbound(Unpooled.wrappedBuffer(data)));
+
+        // The frame is not ended yet, but everything written so far can be decompressed.
+        EmbeddedChannel decoder = new EmbeddedChannel(new ZstdDecoder());
+        ByteBuf msg;
+        while ((msg = channel.readOutbound()) != null) {
+            decoder.writeInbound(msg);
+        }
+        ByteBuf decompressed = Unpooled.buffer();
+        while ((msg = decoder.readInbound()) != null) {
+            decompressed.writeBytes(msg);
+            msg.release();
+        }
+        assertEquals(Unpooled.wrappedBuffer(data), decompressed);
+        decompressed.release();
+
+        assertTrue(channel.finishAndReleaseAll());
+        assertFalse(decoder.finish());
+    }
+
+    @Test
+    public void testInvalidCompressionLevel() {
+        assertThrows(IllegalArgumentException.class, new Executable() {
+            @Override
+            public void execute() {
+                new ZstdEncoder(23);
+            }
+        });
+    }
+
+    @Test
+    public void testInvalidBlockSize() {
+        assertThrows(IllegalArgumentException.class, new Executable() {
+            @Override
+            public void execute() {
+                new ZstdEncoder(3, 0);
+            }
+        });
+    }
+}
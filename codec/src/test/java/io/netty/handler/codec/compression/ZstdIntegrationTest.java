@@ -0,0 +1,113 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.CharsetUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ZstdIntegrationTest extends AbstractIntegrationTest {
+
+    private static final byte[] DICTIONARY = "{\"id\": 1, \"name\": \"netty\", \"tags\": [\"nio\", \"async\"]}"
+            .getBytes(CharsetUtil.US_ASCII);
+
+    @Override
+    protected EmbeddedChannel createEncoder() {
+        return new EmbeddedChannel(new ZstdEncoder());
+    }
+
+    @Override
+    protected EmbeddedChannel createDecoder() {
+        return new EmbeddedChannel(new ZstdDecoder());
+    }
+
+    @Test
+    public void testDictionary() {
+        byte[] data = "{\"id\": 2, \"name\": \"netty\", \"tags\": [\"nio\", \"async\", \"event-driven\"]}"
+                .getBytes(CharsetUtil.US_ASCII);
+        EmbeddedChannel encoder = new EmbeddedChannel(new ZstdEncoder(3, 1024, DICTIONARY));
+        EmbeddedChannel decoder = new EmbeddedChannel(new ZstdDecoder(1024, DICTIONARY));
+        assertTrue(encoder.writeOutbound(Unpooled.wrappedBuffer(data)));
+        assertTrue(encoder.finish());
+        ByteBuf compressed = readAll(encoder, true);
+        assertTrue(compressed.readableBytes() < data.length);
+
+        decoder.writeInbound(compressed);
+        ByteBuf decompressed = readAll(decoder, false);
+        assertEquals(Unpooled.wrappedBuffer(data), decompressed);
+        decompressed.release();
+        assertFalse(decoder.finish());
+    }
+
+    @Test
+    public void testConcatenatedFrames() {
+        byte[] first = "first frame".getBytes(CharsetUtil.US_ASCII);
+        byte[] second = "second frame".getBytes(CharsetUtil.US_ASCII);
+        CompositeByteBuf compressed = Unpooled.compositeBuffer();
+        compressed.addComponent(true, Unpooled.wrappedBuffer(com.github.luben.zstd.Zstd.compress(first)));
+        compressed.addComponent(true, Unpooled.wrappedBuffer(com.github.luben.zstd.Zstd.compress(second)));
+
+        EmbeddedChannel decoder = new EmbeddedChannel(new ZstdDecoder());
+        decoder.writeInbound(compressed);
+        ByteBuf decompressed = readAll(decoder, false);
+        assertEquals("first framesecond frame", decompressed.toString(CharsetUtil.US_ASCII));
+        decompressed.release();
+        assertFalse(decoder.finish());
+    }
+
+    @Test
+    public void testSmallOutputBuffer() {
+        byte[] data = new byte[10000];
+        EmbeddedChannel decoder = new EmbeddedChannel(new ZstdDecoder(16));
+        decoder.writeInbound(Unpooled.wrappedBuffer(com.github.luben.zstd.Zstd.compress(data)));
+        ByteBuf decompressed = readAll(decoder, false);
+        assertEquals(Unpooled.wrappedBuffer(data), decompressed);
+        decompressed.release();
+        assertFalse(decoder.finish());
+    }
+
+    @Test
+    public void testCorrupted() {
+        final EmbeddedChannel decoder = new EmbeddedChannel(new ZstdDecoder());
+        assertThrows(DecompressionException.class, new Executable() {
+            @Override
+            public void execute() {
+                decoder.writeInbound(Unpooled.wrappedBuffer(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9 }));
+            }
+        });
+        // Data after the corruption is discarded.
+        assertFalse(decoder.writeInbound(Unpooled.wrappedBuffer(new byte[] { 1 })));
+        assertFalse(decoder.finish());
+    }
+
+    private static ByteBuf readAll(EmbeddedChannel channel, boolean outbound) {
+        CompositeByteBuf all = Unpooled.compositeBuffer();
+        ByteBuf msg;
+        while ((msg = outbound ? channel.<ByteBuf>readOutbound() : channel.<ByteBuf>readInbound()) != null) {
+            all.addComponent(true, msg);
+        }
+        return all;
+    }
+}
@@ -15,6 +15,10 @@
  */
 package io.netty.util;
 
+import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
 /**
  * Key which can be used to access {@link Attribute} out of the {@link AttributeMap}. Be aware that it is not be
  * possible to have multiple keys with the same name.
@@ -24,13 +28,37 @@ package io.netty.util;
 @SuppressWarnings("UnusedDeclaration") // 'T' is used only at compile time
 public final class AttributeKey<T> extends AbstractConstant<AttributeKey<T>> {
 
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(AttributeKey.class);
+
+    /**
+     * The maximum number of keys which can be created via {@link #newIndexedInstance(String)} and still get a
+     * dedicated slot in each {@link DefaultAttributeMap}.
+     */
+    static final int MAX_INDEXED_KEYS =
+            Math.max(0, SystemPropertyUtil.getInt("io.netty.attributeKey.maxIndexedKeys", 16));
+
+    static {
+        if (logger.isDebugEnabled()) {
+            logger.debug("-Dio.netty.attributeKey.maxIndexedKeys: {}", MAX_INDEXED_KEYS);
+        }
+    }
+
+    private static final Object indexLock = new Object();
+    // Guarded by indexLock and only incremented once a key which got it was added to the pool.
+    private static int nextIndex;
+    // Set only while the current thread creates a key through newIndexedInstance(...), so the pool assigns it an index
+    private static final ThreadLocal<Boolean> creatingIndexed = new ThreadLocal<Boolean>();
+
     private static final ConstantPool<AttributeKey<Object>> pool = new ConstantPool<AttributeKey<Object>>() {
         @Override
         protected AttributeKey<Object> newConstant(int id, String name) {
-            return new AttributeKey<Object>(id, name);
+            return new AttributeKey<Object>(id, name,
+                    creatingIndexed.get() == Boolean.TRUE && nextIndex < MAX_INDEXED_KEYS ? nextIndex : -1);
         }
     };
 
+    private final int index;
+
     /**
      * Returns the singleton instance of the {@link AttributeKey} which has the specified {@code name}.
      */
@@ -55,12 +83,48 @@ public final class AttributeKey<T> extends AbstractConstant<AttributeKey<T>> {
         return (AttributeKey<T>) pool.newInstance(name);
     }
 
+    /**
+     * Creates a new {@link AttributeKey} for the given {@code name} which gets a dense index and so can be accessed
+     * through a fixed slot of {@link DefaultAttributeMap}, without any search or copy-on-write. Fails with an
+     * {@link IllegalArgumentException} if a {@link AttributeKey} for the given {@code name} exists.
+     * <p>
+     * Such keys are meant to be registered up front (usually as {@code static final} fields) for attributes which are
+     * accessed in hot code paths. Once {@code io.netty.attributeKey.maxIndexedKeys} keys were created this way, new
+     * ones behave like keys created via {@link #newInstance(String)}.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> AttributeKey<T> newIndexedInstance(String name) {
+        synchronized (indexLock) {
+            AttributeKey<T> key;
+            creatingIndexed.set(Boolean.TRUE);
+            try {
+                key = (AttributeKey<T>) pool.newInstance(name);
+            } finally {
+                creatingIndexed.remove();
+            }
+            // The key won the race to be added to the pool, so the index is used up only now.
+            if (key.index >= 0) {
+                nextIndex++;
+            }
+            return key;
+        }
+    }
+
     @SuppressWarnings("unchecked")
     public static <T> AttributeKey<T> valueOf(Class<?> firstNameComponent, String secondNameComponent) {
         return (AttributeKey<T>) pool.valueOf(firstNameComponent, secondNameComponent);
     }
 
-    private AttributeKey(int id, String name) {
+    private AttributeKey(int id, String name, int index) {
         super(id, name);
+        this.index = index;
+    }
+
+    /**
+     * Returns the dense index of this key, or {@code -1} if it was not created via
+     * {@link #newIndexedInstance(String)}.
+     */
+    int index() {
+        return index;
     }
 }
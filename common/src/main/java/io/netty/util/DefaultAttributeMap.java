@@ -19,17 +19,24 @@ import io.netty.util.internal.ObjectUtil;
 
 import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
  * Default {@link AttributeMap} implementation which not exibit any blocking behaviour on attribute lookup while using a
  * copy-on-write approach on the modify path.<br> Attributes lookup and remove exibit {@code O(logn)} time worst-case
- * complexity, hence {@code attribute::set(null)} is to be preferred to {@code remove}.
+ * complexity, hence {@code attribute::set(null)} is to be preferred to {@code remove}.<br>
+ * Attributes of keys created via {@link AttributeKey#newIndexedInstance(String)} are stored in a fixed slot instead,
+ * which makes their lookup, insertion and removal {@code O(1)} and free of any copy.
  */
 public class DefaultAttributeMap implements AttributeMap {
 
     private static final AtomicReferenceFieldUpdater<DefaultAttributeMap, DefaultAttribute[]> ATTRIBUTES_UPDATER =
             AtomicReferenceFieldUpdater.newUpdater(DefaultAttributeMap.class, DefaultAttribute[].class, "attributes");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<DefaultAttributeMap, AtomicReferenceArray> INDEXED_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(DefaultAttributeMap.class, AtomicReferenceArray.class,
+                                                   "indexedAttributes");
     private static final DefaultAttribute[] EMPTY_ATTRIBUTES = new DefaultAttribute[0];
 
     /**
@@ -82,11 +89,17 @@ public class DefaultAttributeMap implements AttributeMap {
     }
 
     private volatile DefaultAttribute[] attributes = EMPTY_ATTRIBUTES;
+    // Lazily created on the first access through an indexed key
+    private volatile AtomicReferenceArray<DefaultAttribute> indexedAttributes;
 
     @SuppressWarnings("unchecked")
     @Override
     public <T> Attribute<T> attr(AttributeKey<T> key) {
         ObjectUtil.checkNotNull(key, "key");
+        final int slot = key.index();
+        if (slot >= 0) {
+            return indexedAttr(key, slot);
+        }
         DefaultAttribute newAttribute = null;
         for (;;) {
             final DefaultAttribute[] attributes = this.attributes;
@@ -119,13 +132,49 @@ public class DefaultAttributeMap implements AttributeMap {
         }
     }
 
+    @SuppressWarnings("unchecked")
+    private <T> Attribute<T> indexedAttr(AttributeKey<T> key, int slot) {
+        AtomicReferenceArray<DefaultAttribute> indexedAttributes = this.indexedAttributes;
+        if (indexedAttributes == null) {
+            indexedAttributes = new AtomicReferenceArray<DefaultAttribute>(AttributeKey.MAX_INDEXED_KEYS);
+            if (!INDEXED_UPDATER.compareAndSet(this, null, indexedAttributes)) {
+                indexedAttributes = this.indexedAttributes;
+            }
+        }
+        DefaultAttribute newAttribute = null;
+        for (;;) {
+            final DefaultAttribute attribute = indexedAttributes.get(slot);
+            if (attribute != null && !attribute.isRemoved()) {
+                return attribute;
+            }
+            // let's try to fill the empty slot or replace the removed attribute with a new one
+            if (newAttribute == null) {
+                newAttribute = new DefaultAttribute<T>(this, key);
+            }
+            if (indexedAttributes.compareAndSet(slot, attribute, newAttribute)) {
+                return newAttribute;
+            }
+        }
+    }
+
     @Override
     public <T> boolean hasAttr(AttributeKey<T> key) {
         ObjectUtil.checkNotNull(key, "key");
+        final int slot = key.index();
+        if (slot >= 0) {
+            final AtomicReferenceArray<DefaultAttribute> indexedAttributes = this.indexedAttributes;
+            return indexedAttributes != null && indexedAttributes.get(slot) != null;
+        }
         return searchAttributeByKey(attributes, key) >= 0;
     }
 
     private <T> void removeAttributeIfMatch(AttributeKey<T> key, DefaultAttribute<T> value) {
+        final int slot = key.index();
+        if (slot >= 0) {
+            // the slot was necessarily created when value was
+            indexedAttributes.compareAndSet(slot, value, null);
+            return;
+        }
         for (;;) {
             final DefaultAttribute[] attributes = this.attributes;
             final int index = searchAttributeByKey(attributes, key);
@@ -18,6 +18,7 @@ package io.netty.util;
 
 import io.netty.util.concurrent.FastThreadLocal;
 import io.netty.util.internal.ObjectPool;
+import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.SystemPropertyUtil;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
@@ -25,6 +26,7 @@ import io.netty.util.internal.logging.InternalLoggerFactory;
 import java.lang.ref.WeakReference;
 import java.util.Arrays;
 import java.util.Map;
+import java.util.Queue;
 import java.util.WeakHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
@@ -35,6 +37,13 @@ import static java.lang.Math.min;
 
 /**
  * Light-weight object pool based on a thread-local stack.
+ * <p>
+ * By default objects that are recycled by another thread than the one that created them are handed back through a
+ * chain of {@code WeakOrderQueue}s. If {@code io.netty.recycler.useMpscQueue} is {@code true} (or the
+ * {@link #Recycler(int, int, int, boolean)} constructor is used) each thread instead owns a bounded MPSC queue that
+ * other threads recycle into, and which the owner drains in batches of {@code io.netty.recycler.chunkSize}
+ * objects. This avoids the weak references and the per-thread queue bookkeeping, which is cheaper when objects are
+ * routinely released on another thread than the one that allocated them.
  *
  * @param <T> the type of the pooled object
  */
@@ -59,6 +68,8 @@ public abstract class Recycler<T> {
     private static final int LINK_CAPACITY;
     private static final int RATIO;
     private static final int DELAYED_QUEUE_RATIO;
+    private static final boolean USE_MPSC_QUEUE;
+    private static final int DEFAULT_CHUNK_SIZE;
 
     static {
         // In the future, we might have different maxCapacity for different object types.
@@ -92,6 +103,9 @@ public abstract class Recycler<T> {
 
         INITIAL_CAPACITY = min(DEFAULT_MAX_CAPACITY_PER_THREAD, 256);
 
+        USE_MPSC_QUEUE = SystemPropertyUtil.getBoolean("io.netty.recycler.useMpscQueue", false);
+        DEFAULT_CHUNK_SIZE = max(1, SystemPropertyUtil.getInt("io.netty.recycler.chunkSize", 32));
+
         if (logger.isDebugEnabled()) {
             if (DEFAULT_MAX_CAPACITY_PER_THREAD == 0) {
                 logger.debug("-Dio.netty.recycler.maxCapacityPerThread: disabled");
@@ -99,12 +113,16 @@ public abstract class Recycler<T> {
                 logger.debug("-Dio.netty.recycler.linkCapacity: disabled");
                 logger.debug("-Dio.netty.recycler.ratio: disabled");
                 logger.debug("-Dio.netty.recycler.delayedQueue.ratio: disabled");
+                logger.debug("-Dio.netty.recycler.useMpscQueue: disabled");
+                logger.debug("-Dio.netty.recycler.chunkSize: disabled");
             } else {
                 logger.debug("-Dio.netty.recycler.maxCapacityPerThread: {}", DEFAULT_MAX_CAPACITY_PER_THREAD);
                 logger.debug("-Dio.netty.recycler.maxSharedCapacityFactor: {}", MAX_SHARED_CAPACITY_FACTOR);
                 logger.debug("-Dio.netty.recycler.linkCapacity: {}", LINK_CAPACITY);
                 logger.debug("-Dio.netty.recycler.ratio: {}", RATIO);
                 logger.debug("-Dio.netty.recycler.delayedQueue.ratio: {}", DELAYED_QUEUE_RATIO);
+                logger.debug("-Dio.netty.recycler.useMpscQueue: {}", USE_MPSC_QUEUE);
+                logger.debug("-Dio.netty.recycler.chunkSize: {}", DEFAULT_CHUNK_SIZE);
             }
         }
     }
@@ -114,6 +132,22 @@ public abstract class Recycler<T> {
     private final int interval;
     private final int maxDelayedQueuesPerThread;
     private final int delayedQueueInterval;
+    private final boolean useMpscQueue;
+    private final int chunkSize;
+
+    private final FastThreadLocal<LocalPool<T>> localPool = new FastThreadLocal<LocalPool<T>>() {
+        @Override
+        protected LocalPool<T> initialValue() {
+            return new LocalPool<T>(Recycler.this, Thread.currentThread(), maxCapacityPerThread, interval, chunkSize);
+        }
+
+        @Override
+        protected void onRemoval(LocalPool<T> value) {
+            // Nothing drains the queue anymore, so objects recycled from now on are dropped.
+            value.owner = null;
+            value.pooledHandles = null;
+        }
+    };
 
     private final FastThreadLocal<Stack<T>> threadLocal = new FastThreadLocal<Stack<T>>() {
         @Override
@@ -153,6 +187,28 @@ public abstract class Recycler<T> {
 
     protected Recycler(int maxCapacityPerThread, int maxSharedCapacityFactor,
                        int ratio, int maxDelayedQueuesPerThread, int delayedQueueRatio) {
+        this(maxCapacityPerThread, maxSharedCapacityFactor, ratio, maxDelayedQueuesPerThread, delayedQueueRatio,
+                USE_MPSC_QUEUE, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a new instance which may use a bounded MPSC queue per thread instead of {@code WeakOrderQueue}s to
+     * recycle objects released by other threads.
+     *
+     * @param maxCapacityPerThread the maximum number of pooled objects per thread.
+     * @param ratio                only one out of {@code ratio} objects that were never recycled before is pooled.
+     * @param chunkSize            the number of objects the owner thread takes from its queue in one batch.
+     * @param useMpscQueue         {@code true} to recycle through a bounded MPSC queue per thread.
+     */
+    protected Recycler(int maxCapacityPerThread, int ratio, int chunkSize, boolean useMpscQueue) {
+        this(maxCapacityPerThread, MAX_SHARED_CAPACITY_FACTOR, ratio, MAX_DELAYED_QUEUES_PER_THREAD,
+                DELAYED_QUEUE_RATIO, useMpscQueue, chunkSize);
+    }
+
+    private Recycler(int maxCapacityPerThread, int maxSharedCapacityFactor, int ratio,
+                     int maxDelayedQueuesPerThread, int delayedQueueRatio, boolean useMpscQueue, int chunkSize) {
+        this.useMpscQueue = useMpscQueue;
+        this.chunkSize = max(1, chunkSize);
         interval = max(0, ratio);
         delayedQueueInterval = max(0, delayedQueueRatio);
         if (maxCapacityPerThread <= 0) {
@@ -171,6 +227,19 @@ public abstract class Recycler<T> {
         if (maxCapacityPerThread == 0) {
             return newObject((Handle<T>) NOOP_HANDLE);
         }
+        if (useMpscQueue) {
+            LocalPool<T> pool = localPool.get();
+            MpscHandle<T> handle = pool.claim();
+            if (handle == null) {
+                handle = pool.newHandle();
+                if (handle == null) {
+                    // Not pooled, see io.netty.recycler.ratio.
+                    return newObject((Handle<T>) NOOP_HANDLE);
+                }
+                handle.value = newObject(handle);
+            }
+            return handle.value;
+        }
         Stack<T> stack = threadLocal.get();
         DefaultHandle<T> handle = stack.pop();
         if (handle == null) {
@@ -188,6 +257,14 @@ public abstract class Recycler<T> {
         if (handle == NOOP_HANDLE) {
             return false;
         }
+        if (handle instanceof MpscHandle) {
+            MpscHandle<T> h = (MpscHandle<T>) handle;
+            if (h.pool.parent != this) {
+                return false;
+            }
+            h.recycle(o);
+            return true;
+        }
 
         DefaultHandle<T> h = (DefaultHandle<T>) handle;
         if (h.stack.parent != this) {
@@ -199,10 +276,16 @@ public abstract class Recycler<T> {
     }
 
     final int threadLocalCapacity() {
+        if (useMpscQueue) {
+            return maxCapacityPerThread;
+        }
         return threadLocal.get().elements.length;
     }
 
     final int threadLocalSize() {
+        if (useMpscQueue) {
+            return localPool.get().size();
+        }
         return threadLocal.get().size;
     }
 
@@ -252,6 +335,139 @@ public abstract class Recycler<T> {
         }
     }
 
+    private static final class MpscHandle<T> implements Handle<T> {
+        private static final int STATE_CLAIMED = 0;
+        private static final int STATE_AVAILABLE = 1;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<MpscHandle> STATE_UPDATER =
+                AtomicIntegerFieldUpdater.newUpdater(MpscHandle.class, "state");
+
+        final LocalPool<T> pool;
+        T value;
+        private volatile int state;
+
+        MpscHandle(LocalPool<T> pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public void recycle(Object object) {
+            if (object != value) {
+                throw new IllegalArgumentException("object does not belong to handle");
+            }
+            if (!STATE_UPDATER.compareAndSet(this, STATE_CLAIMED, STATE_AVAILABLE)) {
+                throw new IllegalStateException("recycled already");
+            }
+            pool.release(this);
+        }
+
+        void toClaimed() {
+            STATE_UPDATER.lazySet(this, STATE_CLAIMED);
+        }
+    }
+
+    /**
+     * The objects pooled by one thread when {@code io.netty.recycler.useMpscQueue} is used.
+     * <p>
+     * Other threads recycle into a bounded MPSC queue. The owner recycles into, and allocates from, a small batch
+     * array that it refills from the queue {@code chunkSize} objects at a time, so it only touches the queue once
+     * per batch.
+     */
+    private static final class LocalPool<T> {
+        final Recycler<T> parent;
+        volatile Thread owner;
+        // Set to null once the owner is gone, so the pooled objects can be collected even if handles of objects
+        // that are still in use refer to this pool.
+        volatile Queue<MpscHandle<T>> pooledHandles;
+        private final MpscHandle<?>[] batch;
+        private int batchSize;
+        private final int interval;
+        private int handleRecycleCount;
+
+        LocalPool(Recycler<T> parent, Thread owner, int maxCapacity, int interval, int chunkSize) {
+            this.parent = parent;
+            this.owner = owner;
+            this.interval = interval;
+            // The queue grows in chunks up to its capacity, so a pool which only ever holds a few objects stays small.
+            int capacity = max(4, maxCapacity);
+            pooledHandles = PlatformDependent.newMpscQueue(max(2, min(chunkSize, capacity >> 1)), capacity);
+            batch = new MpscHandle<?>[min(chunkSize, maxCapacity)];
+            // Start at interval so the first object is pooled, like Stack does.
+            handleRecycleCount = interval;
+        }
+
+        @SuppressWarnings("unchecked")
+        MpscHandle<T> claim() {
+            int size = batchSize;
+            if (size == 0) {
+                size = drain();
+                if (size == 0) {
+                    return null;
+                }
+            }
+            size--;
+            MpscHandle<T> handle = (MpscHandle<T>) batch[size];
+            batch[size] = null;
+            batchSize = size;
+            handle.toClaimed();
+            return handle;
+        }
+
+        private int drain() {
+            final Queue<MpscHandle<T>> pooledHandles = this.pooledHandles;
+            if (pooledHandles == null) {
+                return 0;
+            }
+            final MpscHandle<?>[] batch = this.batch;
+            int size = 0;
+            while (size < batch.length) {
+                MpscHandle<T> handle = pooledHandles.poll();
+                if (handle == null) {
+                    break;
+                }
+                batch[size++] = handle;
+            }
+            batchSize = size;
+            return size;
+        }
+
+        void release(MpscHandle<T> handle) {
+            Thread owner = this.owner;
+            if (owner == Thread.currentThread() && batchSize < batch.length) {
+                batch[batchSize++] = handle;
+            } else if (owner != null && isTerminated(owner)) {
+                // The owner died without removing this pool, so nothing will ever take objects from the queue.
+                this.owner = null;
+                pooledHandles = null;
+            } else {
+                Queue<MpscHandle<T>> pooledHandles = this.pooledHandles;
+                if (pooledHandles != null) {
+                    // Dropped if the queue is full.
+                    pooledHandles.offer(handle);
+                }
+            }
+        }
+
+        private static boolean isTerminated(Thread owner) {
+            // Thread.getState() is known to be slow on J9.
+            return PlatformDependent.isJ9Jvm() ? !owner.isAlive() : owner.getState() == Thread.State.TERMINATED;
+        }
+
+        MpscHandle<T> newHandle() {
+            if (handleRecycleCount < interval) {
+                handleRecycleCount++;
+                return null;
+            }
+            handleRecycleCount = 0;
+            return new MpscHandle<T>(this);
+        }
+
+        int size() {
+            Queue<MpscHandle<T>> pooledHandles = this.pooledHandles;
+            return batchSize + (pooledHandles == null ? 0 : pooledHandles.size());
+        }
+    }
+
     private static final FastThreadLocal<Map<Stack<?>, WeakOrderQueue>> DELAYED_RECYCLED =
             new FastThreadLocal<Map<Stack<?>, WeakOrderQueue>>() {
         @Override
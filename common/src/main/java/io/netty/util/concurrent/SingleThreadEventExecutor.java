@@ -87,8 +87,11 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
     private final boolean addTaskWakesUp;
     private final int maxPendingTasks;
     private final RejectedExecutionHandler rejectedExecutionHandler;
+    private final SingleThreadEventExecutorMetrics metrics = new SingleThreadEventExecutorMetrics(this);
 
     private long lastExecutionTime;
+    // When the task returned by takeTask() started to run, or -1 if no such task is running.
+    private long takenTaskStartTime = -1;
 
     @SuppressWarnings({ "FieldMayBeFinal", "unused" })
     private volatile int state = ST_NOT_STARTED;
@@ -207,7 +210,7 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
      */
     protected Runnable pollTask() {
         assert inEventLoop();
-        return pollTaskFrom(taskQueue);
+        return dequeued(pollTaskFrom(taskQueue));
     }
 
     protected static Runnable pollTaskFrom(Queue<Runnable> taskQueue) {
@@ -247,7 +250,7 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
                 } catch (InterruptedException e) {
                     // Ignore
                 }
-                return task;
+                return taken(task);
             } else {
                 long delayNanos = scheduledTask.delayNanos();
                 Runnable task = null;
@@ -269,12 +272,20 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
                 }
 
                 if (task != null) {
-                    return task;
+                    return taken(task);
                 }
             }
         }
     }
 
+    private Runnable taken(Runnable task) {
+        if (dequeued(task) != null) {
+            // Executors which take tasks one by one report the end of the task via updateLastExecutionTime().
+            takenTaskStartTime = ScheduledFutureTask.nanoTime();
+        }
+        return task;
+    }
+
     private boolean fetchFromScheduledTaskQueue() {
         if (scheduledTaskQueue == null || scheduledTaskQueue.isEmpty()) {
             return true;
@@ -306,6 +317,7 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
             return false;
         }
         do {
+            metrics.scheduledTaskDue((ScheduledFutureTask<?>) scheduledTask);
             safeExecute(scheduledTask);
         } while ((scheduledTask = pollScheduledTask(nanoTime)) != null);
         return true;
@@ -349,14 +361,53 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
         if (isShutdown()) {
             reject();
         }
-        return taskQueue.offer(task);
+        metrics.sampleEnqueue(task);
+        if (taskQueue.offer(task)) {
+            return true;
+        }
+        metrics.cancelSample(task);
+        return false;
     }
 
     /**
      * @see Queue#remove(Object)
      */
     protected boolean removeTask(Runnable task) {
-        return taskQueue.remove(ObjectUtil.checkNotNull(task, "task"));
+        if (taskQueue.remove(ObjectUtil.checkNotNull(task, "task"))) {
+            metrics.cancelSample(task);
+            return true;
+        }
+        return false;
+    }
+
+    private Runnable dequeued(Runnable task) {
+        if (task != null) {
+            metrics.dequeued(task);
+        }
+        return task;
+    }
+
+    /**
+     * Returns the {@link SingleThreadEventExecutorMetrics} of this executor.
+     */
+    public SingleThreadEventExecutorMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Records that the executor processed I/O for the given number of ready channels, which took the given time.
+     * Sub-classes which do I/O call this once per iteration of their event loop.
+     */
+    protected final void recordIo(int readyChannels, long ioTimeNanos) {
+        metrics.recordIo(readyChannels, ioTimeNanos);
+    }
+
+    /**
+     * Records that the executor thread was woken up. Sub-classes which override {@link #wakeup(boolean)} call this
+     * whenever they actually wake up the executor thread.
+     */
+    protected final void recordWakeup() {
+        metrics.recordWakeup();
     }
 
     /**
@@ -368,6 +419,8 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
         assert inEventLoop();
         boolean fetchedAll;
         boolean ranAtLeastOne = false;
+        // Taken unconditionally as tasks may be added after any emptiness check and would still run below.
+        final long startTime = ScheduledFutureTask.nanoTime();
 
         do {
             fetchedAll = fetchFromScheduledTaskQueue();
@@ -378,6 +431,7 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
 
         if (ranAtLeastOne) {
             lastExecutionTime = ScheduledFutureTask.nanoTime();
+            metrics.recordTaskTime(lastExecutionTime - startTime);
         }
         afterRunningAllTasks();
         return ranAtLeastOne;
@@ -417,13 +471,13 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
      * @return {@code true} if at least one task was executed.
      */
     protected final boolean runAllTasksFrom(Queue<Runnable> taskQueue) {
-        Runnable task = pollTaskFrom(taskQueue);
+        Runnable task = dequeued(pollTaskFrom(taskQueue));
         if (task == null) {
             return false;
         }
         for (;;) {
             safeExecute(task);
-            task = pollTaskFrom(taskQueue);
+            task = dequeued(pollTaskFrom(taskQueue));
             if (task == null) {
                 return true;
             }
@@ -436,7 +490,7 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
      * @return {@code true} if at least {@link Runnable#run()} was called.
      */
     private boolean runExistingTasksFrom(Queue<Runnable> taskQueue) {
-        Runnable task = pollTaskFrom(taskQueue);
+        Runnable task = dequeued(pollTaskFrom(taskQueue));
         if (task == null) {
             return false;
         }
@@ -444,7 +498,7 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
         safeExecute(task);
         // Use taskQueue.poll() directly rather than pollTaskFrom() since the latter may
         // silently consume more than one item from the queue (skips over WAKEUP_TASK instances)
-        while (remaining-- > 0 && (task = taskQueue.poll()) != null) {
+        while (remaining-- > 0 && (task = dequeued(taskQueue.poll())) != null) {
             safeExecute(task);
         }
         return true;
@@ -462,7 +516,8 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
             return false;
         }
 
-        final long deadline = timeoutNanos > 0 ? ScheduledFutureTask.nanoTime() + timeoutNanos : 0;
+        final long startTime = ScheduledFutureTask.nanoTime();
+        final long deadline = timeoutNanos > 0 ? startTime + timeoutNanos : 0;
         long runTasks = 0;
         long lastExecutionTime;
         for (;;) {
@@ -488,6 +543,7 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
 
         afterRunningAllTasks();
         this.lastExecutionTime = lastExecutionTime;
+        metrics.recordTaskTime(lastExecutionTime - startTime);
         return true;
     }
 
@@ -527,10 +583,14 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
      * {@link #runAllTasks()} and {@link #runAllTasks(long)} updates this timestamp automatically, and thus there's
      * usually no need to call this method.  However, if you take the tasks manually using {@link #takeTask()} or
      * {@link #pollTask()}, you have to call this method at the end of task execution loop for accurate quiet period
-     * checks.
+     * checks. When the task was taken via {@link #takeTask()}, this also records its run time in {@link #metrics()}.
      */
     protected void updateLastExecutionTime() {
         lastExecutionTime = ScheduledFutureTask.nanoTime();
+        if (takenTaskStartTime != -1) {
+            metrics.recordTaskTime(lastExecutionTime - takenTaskStartTime);
+            takenTaskStartTime = -1;
+        }
     }
 
     /**
@@ -549,7 +609,9 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
         if (!inEventLoop) {
             // Use offer as we actually only need this to unblock the thread and if offer fails we do not care as there
             // is already something in the queue.
-            taskQueue.offer(WAKEUP_TASK);
+            if (taskQueue.offer(WAKEUP_TASK)) {
+                recordWakeup();
+            }
         }
     }
 
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.concurrent;
+
+import io.netty.util.internal.LongCounter;
+import io.netty.util.internal.PlatformDependent;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Metrics of a {@link SingleThreadEventExecutor}, which can be read from any thread.
+ * <p>
+ * All values are cumulative since the executor was created, so callers that want rates or utilization sample them
+ * periodically and compute the deltas. The metrics are recorded by the executor thread without locks or allocations,
+ * and a reader may observe values that were updated by different iterations of the executor.
+ * <p>
+ * The wait time of tasks is sampled: only one submitted task is tracked at a time, and the next task is only tracked
+ * once the previous one was taken out of the task queue.
+ */
+public final class SingleThreadEventExecutorMetrics {
+    private static final AtomicReferenceFieldUpdater<SingleThreadEventExecutorMetrics, Runnable> SAMPLED_TASK_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(
+                    SingleThreadEventExecutorMetrics.class, Runnable.class, "sampledTask");
+
+    private final SingleThreadEventExecutor executor;
+    private final Histogram taskWaitTime = new Histogram();
+    private final Histogram scheduledTaskLag = new Histogram();
+    private final Histogram readyChannels = new Histogram();
+    private final LongCounter wakeups = PlatformDependent.newLongCounter();
+
+    // Only written by the executor thread.
+    private volatile long taskTimeNanos;
+    private volatile long ioTimeNanos;
+
+    private volatile Runnable sampledTask;
+    private volatile long sampledTaskEnqueueNanos;
+
+    SingleThreadEventExecutorMetrics(SingleThreadEventExecutor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the number of tasks that are pending for processing.
+     *
+     * @see SingleThreadEventExecutor#pendingTasks()
+     */
+    public int pendingTasks() {
+        return executor.pendingTasks();
+    }
+
+    /**
+     * Returns the total time in nanoseconds the executor spent running tasks.
+     */
+    public long taskTimeNanos() {
+        return taskTimeNanos;
+    }
+
+    /**
+     * Returns the total time in nanoseconds the executor spent processing I/O. This is always {@code 0} for
+     * executors which do no I/O.
+     */
+    public long ioTimeNanos() {
+        return ioTimeNanos;
+    }
+
+    /**
+     * Returns how often the executor thread was woken up by another thread to run a submitted task.
+     */
+    public long wakeups() {
+        return wakeups.value();
+    }
+
+    /**
+     * Returns the time in nanoseconds the sampled tasks spent in the task queue before they were run.
+     */
+    public Histogram taskWaitTime() {
+        return taskWaitTime;
+    }
+
+    /**
+     * Returns the time in nanoseconds between the deadline of scheduled tasks and the time they were run.
+     */
+    public Histogram scheduledTaskLag() {
+        return scheduledTaskLag;
+    }
+
+    /**
+     * Returns the number of ready channels every time the executor processed I/O.
+     */
+    public Histogram readyChannels() {
+        return readyChannels;
+    }
+
+    void sampleEnqueue(Runnable task) {
+        if (sampledTask == null && SAMPLED_TASK_UPDATER.compareAndSet(this, null, task)) {
+            // The task is published to the executor thread by offering it to the task queue afterwards.
+            sampledTaskEnqueueNanos = ScheduledFutureTask.nanoTime();
+        }
+    }
+
+    void cancelSample(Runnable task) {
+        if (sampledTask == task) {
+            SAMPLED_TASK_UPDATER.compareAndSet(this, task, null);
+        }
+    }
+
+    void dequeued(Runnable task) {
+        if (task == sampledTask) {
+            taskWaitTime.record(ScheduledFutureTask.nanoTime() - sampledTaskEnqueueNanos);
+            sampledTask = null;
+        }
+        if (task instanceof ScheduledFutureTask) {
+            scheduledTaskDue((ScheduledFutureTask<?>) task);
+        }
+    }
+
+    void scheduledTaskDue(ScheduledFutureTask<?> task) {
+        long lag = ScheduledFutureTask.nanoTime() - task.deadlineNanos();
+        // Tasks scheduled from outside the executor pass the task queue before their deadline.
+        if (lag >= 0) {
+            scheduledTaskLag.record(lag);
+        }
+    }
+
+    void recordTaskTime(long nanos) {
+        taskTimeNanos += nanos;
+    }
+
+    void recordIo(int readyChannels, long nanos) {
+        this.readyChannels.record(readyChannels);
+        ioTimeNanos += nanos;
+    }
+
+    void recordWakeup() {
+        wakeups.increment();
+    }
+
+    /**
+     * A histogram with log-linear buckets, which have a relative error of at most 25%. Values are recorded by a
+     * single thread while it can be read by any thread.
+     */
+    public static final class Histogram {
+        private static final int SUB_BUCKET_BITS = 2;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+        // Only written by the recording thread.
+        private volatile long count;
+        private volatile long max;
+
+        Histogram() {
+        }
+
+        void record(long value) {
+            if (value < 0) {
+                value = 0;
+            }
+            int index = bucketIndex(value);
+            // There is only a single writer, so lazySet is safe and cheaper than an atomic increment.
+            buckets.lazySet(index, buckets.get(index) + 1);
+            if (value > max) {
+                max = value;
+            }
+            count++;
+        }
+
+        /**
+         * Returns the number of recorded values.
+         */
+        public long count() {
+            return count;
+        }
+
+        /**
+         * Returns the largest recorded value, or {@code 0} if nothing was recorded.
+         */
+        public long max() {
+            return max;
+        }
+
+        /**
+         * Returns an upper bound of the value below which the given percentage of the recorded values fall, or
+         * {@code 0} if nothing was recorded.
+         *
+         * @param percentile the percentile in the range {@code [0, 100]}.
+         */
+        public long valueAtPercentile(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("percentile: " + percentile + " (expected: 0-100)");
+            }
+            long max = this.max;
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                total += buckets.get(i);
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long target = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= target) {
+                    return Math.min(bucketUpperBound(i), max);
+                }
+            }
+            return max;
+        }
+
+        static int bucketIndex(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+            int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+        }
+
+        static long bucketUpperBound(int index) {
+            if (index < SUB_BUCKETS) {
+                return index;
+            }
+            int shift = index / SUB_BUCKETS - 1;
+            long lower = (long) (SUB_BUCKETS + (index & (SUB_BUCKETS - 1))) << shift;
+            return lower + (1L << shift) - 1;
+        }
+
+        @Override
+        public String toString() {
+            return "Histogram(count: " + count + ", max: " + max +
+                    ", p50: " + valueAtPercentile(50) + ", p99: " + valueAtPercentile(99) + ')';
+        }
+    }
+}
@@ -978,6 +978,12 @@ public final class PlatformDependent {
                                                 : new MpscChunkedAtomicArrayQueue<T>(MPSC_CHUNK_SIZE, capacity);
         }
 
+        static <T> Queue<T> newChunkedMpscQueue(final int chunkSize, final int capacity) {
+            final int maxCapacity = min(capacity, MAX_ALLOWED_MPSC_CAPACITY);
+            return USE_MPSC_CHUNKED_ARRAY_QUEUE ? new MpscChunkedArrayQueue<T>(chunkSize, maxCapacity)
+                                                : new MpscChunkedAtomicArrayQueue<T>(chunkSize, maxCapacity);
+        }
+
         static <T> Queue<T> newMpscQueue() {
             return USE_MPSC_CHUNKED_ARRAY_QUEUE ? new MpscUnboundedArrayQueue<T>(MPSC_CHUNK_SIZE)
                                                 : new MpscUnboundedAtomicArrayQueue<T>(MPSC_CHUNK_SIZE);
@@ -1001,6 +1007,15 @@ public final class PlatformDependent {
         return Mpsc.newMpscQueue(maxCapacity);
     }
 
+    /**
+     * Create a new {@link Queue} which is safe to use for multiple producers (different threads) and a single
+     * consumer (one thread!) with the given fixed {@code capacity}. Its backing array grows in steps of
+     * {@code chunkSize} elements, which must be smaller than the capacity.
+     */
+    public static <T> Queue<T> newMpscQueue(final int chunkSize, final int capacity) {
+        return Mpsc.newChunkedMpscQueue(chunkSize, capacity);
+    }
+
     /**
      * Create a new {@link Queue} which is safe to use for single producer (one thread!) and a single
      * consumer (one thread!).
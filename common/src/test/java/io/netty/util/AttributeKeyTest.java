@@ -17,11 +17,17 @@ package io.netty.util;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 public class AttributeKeyTest {
 
@@ -60,4 +66,52 @@ public class AttributeKeyTest {
             // expected
         }
     }
+
+    @Test
+    public void testNewIndexedInstance() {
+        String name = "test3";
+        assertFalse(AttributeKey.exists(name));
+        AttributeKey<String> attr = AttributeKey.newIndexedInstance(name);
+        assertTrue(AttributeKey.exists(name));
+        assertSame(attr, AttributeKey.valueOf(name));
+        assertTrue(attr.index() >= 0);
+        assertEquals(-1, AttributeKey.valueOf("test4").index());
+
+        try {
+            AttributeKey.<String>newIndexedInstance(name);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testNewIndexedInstanceRaceDoesNotUseUpIndex() throws Exception {
+        final String name = "test5";
+        final CyclicBarrier barrier = new CyclicBarrier(8);
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 8; i++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        barrier.await();
+                        AttributeKey.newIndexedInstance(name);
+                    } catch (IllegalArgumentException e) {
+                        // Lost the race.
+                    } catch (Exception e) {
+                        throw new AssertionError(e);
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        AttributeKey<String> raced = AttributeKey.valueOf(name);
+        assumeTrue(raced.index() >= 0 && raced.index() + 1 < AttributeKey.MAX_INDEXED_KEYS);
+        assertEquals(raced.index() + 1, AttributeKey.newIndexedInstance("test6").index());
+    }
 }
@@ -128,4 +128,37 @@ public class DefaultAttributeMapTest {
         assertSame(2, attr2.get());
         assertSame(attr, attr2);
     }
+
+    @Test
+    public void testIndexedAttributes() {
+        AttributeKey<Integer> indexed = AttributeKey.newIndexedInstance("DefaultAttributeMapTest.indexed");
+        AttributeKey<Integer> other = AttributeKey.valueOf("DefaultAttributeMapTest.other");
+        assertTrue(indexed.index() >= 0);
+        assertEquals(-1, other.index());
+
+        assertFalse(map.hasAttr(indexed));
+        Attribute<Integer> attr = map.attr(indexed);
+        assertSame(attr, map.attr(indexed));
+        assertSame(indexed, attr.key());
+        assertTrue(map.hasAttr(indexed));
+        assertFalse(map.hasAttr(other));
+
+        map.attr(other).set(2);
+        attr.set(1);
+        assertEquals(Integer.valueOf(1), map.attr(indexed).get());
+        assertEquals(Integer.valueOf(2), map.attr(other).get());
+
+        assertEquals(Integer.valueOf(1), attr.getAndRemove());
+        assertFalse(map.hasAttr(indexed));
+        assertTrue(map.hasAttr(other));
+
+        Attribute<Integer> attr2 = map.attr(indexed);
+        assertNotSame(attr, attr2);
+        assertNull(attr2.get());
+        // removing a stale attribute must not remove the one which replaced it
+        attr.remove();
+        assertTrue(map.hasAttr(indexed));
+        attr2.remove();
+        assertFalse(map.hasAttr(indexed));
+    }
 }
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util;
+
+import io.netty.util.RecyclerTest.HandledObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.function.Executable;
+
+import java.lang.ref.WeakReference;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RecyclerMpscQueueTest {
+
+    private static Recycler<HandledObject> newRecycler(int maxCapacityPerThread) {
+        return newRecycler(maxCapacityPerThread, 0, 4, null);
+    }
+
+    private static Recycler<HandledObject> newRecycler(int maxCapacityPerThread, int ratio, int chunkSize,
+                                                       final AtomicInteger instancesCount) {
+        return new Recycler<HandledObject>(maxCapacityPerThread, ratio, chunkSize, true) {
+            @Override
+            protected HandledObject newObject(Recycler.Handle<HandledObject> handle) {
+                if (instancesCount != null) {
+                    instancesCount.incrementAndGet();
+                }
+                return new HandledObject(handle);
+            }
+        };
+    }
+
+    @Test
+    public void testRecycle() {
+        Recycler<HandledObject> recycler = newRecycler(1024);
+        HandledObject object = recycler.get();
+        object.recycle();
+        HandledObject object2 = recycler.get();
+        assertSame(object, object2);
+        object2.recycle();
+    }
+
+    @Test
+    public void testMultipleRecycle() {
+        Recycler<HandledObject> recycler = newRecycler(1024);
+        final HandledObject object = recycler.get();
+        object.recycle();
+        assertThrows(IllegalStateException.class, new Executable() {
+            @Override
+            public void execute() {
+                object.recycle();
+            }
+        });
+    }
+
+    @Test
+    public void testRecycleDisableDrop() {
+        Recycler<HandledObject> recycler = newRecycler(1024, 2, 4, null);
+        // Only every third object that was never recycled before is pooled.
+        HandledObject object = recycler.get();
+        object.recycle();
+        assertSame(object, recycler.get());
+        HandledObject object2 = recycler.get();
+        object2.recycle();
+        assertNotSame(object2, recycler.get());
+    }
+
+    @Test
+    @Timeout(value = 5000, unit = TimeUnit.MILLISECONDS)
+    public void testRecycleAtDifferentThread() throws Exception {
+        final Recycler<HandledObject> recycler = newRecycler(256);
+        final HandledObject object = recycler.get();
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    object.recycle();
+                } catch (Throwable cause) {
+                    error.set(cause);
+                }
+            }
+        });
+        thread.start();
+        thread.join();
+        assertNull(error.get());
+
+        assertEquals(1, recycler.threadLocalSize());
+        assertSame(object, recycler.get());
+        assertEquals(0, recycler.threadLocalSize());
+    }
+
+    @Test
+    @Timeout(value = 5000, unit = TimeUnit.MILLISECONDS)
+    public void testMultipleRecycleAtDifferentThread() throws Exception {
+        Recycler<HandledObject> recycler = newRecycler(1024);
+        final HandledObject object = recycler.get();
+        final AtomicReference<IllegalStateException> exceptionStore = new AtomicReference<IllegalStateException>();
+        Runnable recycleTask = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    object.recycle();
+                } catch (IllegalStateException e) {
+                    exceptionStore.compareAndSet(null, e);
+                }
+            }
+        };
+        Thread thread1 = new Thread(recycleTask);
+        thread1.start();
+        thread1.join();
+        Thread thread2 = new Thread(recycleTask);
+        thread2.start();
+        thread2.join();
+
+        HandledObject a = recycler.get();
+        HandledObject b = recycler.get();
+        assertNotSame(a, b);
+        assertTrue(exceptionStore.get() != null);
+    }
+
+    @Test
+    @Timeout(value = 5000, unit = TimeUnit.MILLISECONDS)
+    public void testBatchDrainFromOtherThread() throws Exception {
+        final AtomicInteger instancesCount = new AtomicInteger();
+        final Recycler<HandledObject> recycler = newRecycler(1024, 0, 4, instancesCount);
+        final HandledObject[] objects = new HandledObject[64];
+        for (int i = 0; i < objects.length; i++) {
+            objects[i] = recycler.get();
+        }
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (HandledObject object : objects) {
+                    object.recycle();
+                }
+            }
+        });
+        thread.start();
+        thread.join();
+
+        // All objects come back, in batches of chunkSize.
+        Set<HandledObject> reused = new HashSet<HandledObject>();
+        for (int i = 0; i < objects.length; i++) {
+            reused.add(recycler.get());
+        }
+        assertEquals(objects.length, reused.size());
+        assertEquals(objects.length, instancesCount.get());
+    }
+
+    @Test
+    @Timeout(value = 5000, unit = TimeUnit.MILLISECONDS)
+    public void testRecycleAfterOwnerTerminated() throws Exception {
+        final Recycler<HandledObject> recycler = newRecycler(1024);
+        final HandledObject[] objects = new HandledObject[2];
+        final CountDownLatch allocated = new CountDownLatch(1);
+        final CountDownLatch recycled = new CountDownLatch(1);
+        Thread owner = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                objects[0] = recycler.get();
+                objects[1] = recycler.get();
+                allocated.countDown();
+                try {
+                    recycled.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        owner.start();
+        allocated.await();
+        objects[0].recycle();
+        recycled.countDown();
+        owner.join();
+
+        // The owner never removed its pool, so once it is gone the queue must not keep the object that was recycled
+        // into it before, while the other object still refers to the pool.
+        objects[1].recycle();
+        WeakReference<HandledObject> reference = new WeakReference<HandledObject>(objects[0]);
+        objects[0] = null;
+        while (reference.get() != null) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNotNull(objects[1]);
+    }
+
+    @Test
+    public void testMaxCapacity() {
+        int maxCapacity = 16;
+        Recycler<HandledObject> recycler = newRecycler(maxCapacity);
+        HandledObject[] objects = new HandledObject[maxCapacity * 4];
+        for (int i = 0; i < objects.length; i++) {
+            objects[i] = recycler.get();
+        }
+        for (HandledObject object : objects) {
+            object.recycle();
+        }
+        // The owner keeps at most one batch outside of the bounded queue.
+        assertTrue(recycler.threadLocalSize() <= maxCapacity + 4,
+                "size " + recycler.threadLocalSize() + " exceeds the capacity");
+    }
+}
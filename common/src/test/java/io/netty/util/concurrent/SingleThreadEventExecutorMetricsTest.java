@@ -0,0 +1,201 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.concurrent;
+
+import io.netty.util.concurrent.SingleThreadEventExecutorMetrics.Histogram;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SingleThreadEventExecutorMetricsTest {
+
+    @Test
+    public void testHistogramBuckets() {
+        for (long value : new long[] { 0, 1, 3, 4, 7, 8, 9, 100, 12345, Long.MAX_VALUE }) {
+            int index = Histogram.bucketIndex(value);
+            assertTrue(Histogram.bucketUpperBound(index) >= value);
+            if (index > 0) {
+                assertTrue(Histogram.bucketUpperBound(index - 1) < value);
+            }
+        }
+        assertEquals(Long.MAX_VALUE, Histogram.bucketUpperBound(Histogram.bucketIndex(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void testHistogramPercentiles() {
+        Histogram histogram = new Histogram();
+        assertEquals(0, histogram.valueAtPercentile(99));
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        histogram.record(-1);
+        assertEquals(101, histogram.count());
+        assertEquals(100, histogram.max());
+        assertEquals(0, histogram.valueAtPercentile(0));
+        assertEquals(100, histogram.valueAtPercentile(100));
+
+        long p50 = histogram.valueAtPercentile(50);
+        assertTrue(p50 >= 50 && p50 <= 63, String.valueOf(p50));
+        long p90 = histogram.valueAtPercentile(90);
+        assertTrue(p90 >= 90 && p90 <= 100, String.valueOf(p90));
+    }
+
+    @Test
+    @Timeout(value = 5000, unit = TimeUnit.MILLISECONDS)
+    public void testTaskWaitTimeAndScheduledTaskLag() throws Exception {
+        DefaultEventExecutor executor = new DefaultEventExecutor();
+        try {
+            final CountDownLatch blocked = new CountDownLatch(1);
+            final CountDownLatch unblock = new CountDownLatch(1);
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    blocked.countDown();
+                    try {
+                        unblock.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            assertTrue(blocked.await(1, TimeUnit.SECONDS));
+
+            Future<?> waiting = executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                }
+            });
+            Future<?> scheduled = executor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                }
+            }, 10, TimeUnit.MILLISECONDS);
+            Thread.sleep(50);
+            unblock.countDown();
+            waiting.sync();
+            scheduled.sync();
+
+            SingleThreadEventExecutorMetrics metrics = executor.metrics();
+            assertTrue(metrics.taskWaitTime().max() >= TimeUnit.MILLISECONDS.toNanos(50));
+            assertEquals(1, metrics.scheduledTaskLag().count());
+            assertTrue(metrics.scheduledTaskLag().max() >= TimeUnit.MILLISECONDS.toNanos(40));
+            assertEquals(0, metrics.pendingTasks());
+        } finally {
+            executor.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    @Timeout(value = 5000, unit = TimeUnit.MILLISECONDS)
+    public void testTaskTimeWithTaskAddedWhileRunningAllTasks() throws Exception {
+        final TaskHidingEventExecutor executor = new TaskHidingEventExecutor();
+        try {
+            long[] times = executor.submit(new Callable<long[]>() {
+                @Override
+                public long[] call() {
+                    // The task is only visible once runAllTasks() checked whether the queue is empty, as if it was
+                    // added right after that check.
+                    executor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                        }
+                    });
+                    executor.hideTasks = true;
+                    long taskTime = executor.metrics().taskTimeNanos();
+                    long start = ScheduledFutureTask.nanoTime();
+                    assertTrue(executor.runAllTasks());
+                    long end = ScheduledFutureTask.nanoTime();
+                    return new long[] { executor.metrics().taskTimeNanos() - taskTime, end - start };
+                }
+            }).get();
+            assertTrue(times[0] <= times[1], times[0] + " > " + times[1]);
+        } finally {
+            executor.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    @Timeout(value = 5000, unit = TimeUnit.MILLISECONDS)
+    public void testTaskTimeOfTakenTasks() throws Exception {
+        // DefaultEventExecutor runs the tasks it takes one by one instead of via runAllTasks().
+        final DefaultEventExecutor executor = new DefaultEventExecutor();
+        try {
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        Thread.sleep(10);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }).sync();
+            // The time is recorded right after the task completed its future, so wait for it.
+            while (executor.metrics().taskTimeNanos() == 0) {
+                Thread.sleep(1);
+            }
+            assertTrue(executor.metrics().taskTimeNanos() >= TimeUnit.MILLISECONDS.toNanos(10));
+        } finally {
+            executor.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+        }
+    }
+
+    private static final class TaskHidingEventExecutor extends SingleThreadEventExecutor {
+        // Not initialized here as the task queue is created from the super constructor.
+        volatile boolean hideTasks;
+
+        TaskHidingEventExecutor() {
+            super(null, new DefaultThreadFactory(TaskHidingEventExecutor.class), false);
+        }
+
+        @Override
+        protected Queue<Runnable> newTaskQueue(int maxPendingTasks) {
+            return new LinkedBlockingQueue<Runnable>(maxPendingTasks) {
+                @Override
+                public boolean isEmpty() {
+                    if (hideTasks) {
+                        hideTasks = false;
+                        return true;
+                    }
+                    return super.isEmpty();
+                }
+            };
+        }
+
+        @Override
+        protected void run() {
+            for (;;) {
+                Runnable task = takeTask();
+                if (task != null) {
+                    task.run();
+                    updateLastExecutionTime();
+                }
+
+                if (confirmShutdown()) {
+                    break;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,368 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.flow;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelConfig;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.MaxMessagesRecvByteBufAllocator;
+import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.RecvByteBufAllocator.DelegatingHandle;
+import io.netty.channel.RecvByteBufAllocator.ExtendedHandle;
+import io.netty.util.UncheckedBooleanSupplier;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.ScheduledFuture;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import io.netty.util.internal.ObjectUtil;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adjusts how fast a {@link Channel} reads based on how fast the data it reads can be processed downstream, instead
+ * of only switching {@link ChannelConfig#setAutoRead(boolean)} on and off.
+ * <p>
+ * The handler combines the following signals into a pressure between {@code 0} and {@code 1}, the largest one wins:
+ * <ul>
+ * <li>The pending outbound bytes of the {@linkplain #peer(Channel) peer channel} relative to its high water mark, and
+ * {@code 1} if it is not writable. A proxy uses the channel to the backend, so it stops reading from the client
+ * instead of buffering the data for a slow backend.</li>
+ * <li>The number of pending tasks of the {@link io.netty.channel.EventLoop} of the channel relative to
+ * {@link #maxPendingTasks(int)}.</li>
+ * <li>The time a task waits until it is run by the {@linkplain #executor(EventExecutor, long, TimeUnit) executor}
+ * which does the business work relative to the given maximal latency. It is measured by submitting an empty task.</li>
+ * </ul>
+ * With increasing pressure fewer messages are read per read loop and smaller read buffers are allocated, by wrapping
+ * the {@link RecvByteBufAllocator} of the channel. If the pressure reaches {@code 1} auto read is disabled, and once
+ * it dropped below {@code 0.5} it is enabled again.
+ * <p>
+ * The pressure is updated after every read loop. While it is at least {@code 0.5} it is also updated periodically,
+ * so a paused channel resumes without any reads; there is no periodic work for channels without pressure. The
+ * handler must be added before the channel starts to read, for example by a
+ * {@link io.netty.channel.ChannelInitializer}, as the transports keep using the allocator that was configured when
+ * they read for the first time. It also assumes it is the only one which changes
+ * {@link ChannelConfig#setAutoRead(boolean)} of the channel.
+ */
+public class ReadBackpressureHandler extends ChannelInboundHandlerAdapter {
+    static final double RESUME_PRESSURE = 0.5;
+    private static final int DEFAULT_MAX_READ_BUFFER_SIZE = 64 * 1024;
+    private static final int MIN_READ_BUFFER_SIZE = 512;
+
+    private final long checkIntervalNanos;
+    private Channel peer;
+    private int maxPendingTasks;
+    private EventExecutor executor;
+    private long maxLatencyNanos;
+    private int maxReadBufferSize = DEFAULT_MAX_READ_BUFFER_SIZE;
+
+    private ChannelHandlerContext ctx;
+    private ThrottlingRecvByteBufAllocator allocator;
+    private ScheduledFuture<?> checkFuture;
+    private boolean paused;
+    private double pressure;
+
+    // Written by the executor which runs the probe and read by the event loop of the channel.
+    private volatile long probeStartNanos = -1;
+    private volatile long lastLatencyNanos;
+
+    private final Runnable checkTask = new Runnable() {
+        @Override
+        public void run() {
+            updatePressure();
+        }
+    };
+
+    private final Runnable probeTask = new Runnable() {
+        @Override
+        public void run() {
+            lastLatencyNanos = System.nanoTime() - probeStartNanos;
+            probeStartNanos = -1;
+        }
+    };
+
+    /**
+     * Creates a new instance which updates the pressure every 10 milliseconds.
+     */
+    public ReadBackpressureHandler() {
+        this(10, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param checkInterval how often the pressure is updated while it is at least {@code 0.5}, as the channel may not
+     *                      read anymore.
+     */
+    public ReadBackpressureHandler(long checkInterval, TimeUnit unit) {
+        checkIntervalNanos = unit.toNanos(ObjectUtil.checkPositive(checkInterval, "checkInterval"));
+    }
+
+    /**
+     * Sets the channel to which the read data is written, whose writability limits the reads. {@code null} disables
+     * the signal.
+     */
+    public ReadBackpressureHandler peer(Channel peer) {
+        this.peer = peer;
+        return this;
+    }
+
+    /**
+     * Sets the number of pending tasks of the {@link io.netty.channel.EventLoop} of the channel at which reading is
+     * paused. {@code 0} disables the signal.
+     */
+    public ReadBackpressureHandler maxPendingTasks(int maxPendingTasks) {
+        this.maxPendingTasks = ObjectUtil.checkPositiveOrZero(maxPendingTasks, "maxPendingTasks");
+        return this;
+    }
+
+    /**
+     * Sets the executor which processes the read data and the time a task may wait until it is run by the
+     * executor before reading is paused. A {@code null} executor disables the signal.
+     */
+    public ReadBackpressureHandler executor(EventExecutor executor, long maxLatency, TimeUnit unit) {
+        this.executor = executor;
+        maxLatencyNanos = unit.toNanos(ObjectUtil.checkPositive(maxLatency, "maxLatency"));
+        return this;
+    }
+
+    /**
+     * Sets the size of the read buffers while there is no pressure, which shrinks with increasing pressure. The
+     * allocator of the channel may still use smaller buffers. The default is {@code 65536}.
+     */
+    public ReadBackpressureHandler maxReadBufferSize(int maxReadBufferSize) {
+        this.maxReadBufferSize = ObjectUtil.checkPositive(maxReadBufferSize, "maxReadBufferSize");
+        return this;
+    }
+
+    /**
+     * Returns the current pressure between {@code 0} and {@code 1}.
+     */
+    public double pressure() {
+        return pressure;
+    }
+
+    /**
+     * Returns {@code true} if this handler disabled auto read because of the pressure.
+     */
+    public boolean isPaused() {
+        return paused;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        this.ctx = ctx;
+        ChannelConfig config = ctx.channel().config();
+        allocator = new ThrottlingRecvByteBufAllocator(config.getRecvByteBufAllocator());
+        config.setRecvByteBufAllocator(allocator);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        cancelCheck();
+        ChannelConfig config = ctx.channel().config();
+        if (config.getRecvByteBufAllocator() == allocator) {
+            config.setRecvByteBufAllocator(allocator.delegate);
+        }
+        allocator.update(0);
+        resume();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        cancelCheck();
+        ctx.fireChannelInactive();
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+        updatePressure();
+        ctx.fireChannelReadComplete();
+    }
+
+    private void scheduleCheck() {
+        if (checkFuture == null && ctx.channel().isActive()) {
+            checkFuture = ctx.executor().scheduleAtFixedRate(
+                    checkTask, checkIntervalNanos, checkIntervalNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void cancelCheck() {
+        if (checkFuture != null) {
+            checkFuture.cancel(false);
+            checkFuture = null;
+        }
+    }
+
+    private void updatePressure() {
+        if (ctx == null || ctx.isRemoved()) {
+            return;
+        }
+        double pressure = Math.min(1, Math.max(Math.max(peerPressure(), pendingTasksPressure()), latencyPressure()));
+        this.pressure = pressure;
+        allocator.update(pressure);
+        if (pressure >= 1) {
+            if (!paused) {
+                paused = true;
+                ctx.channel().config().setAutoRead(false);
+            }
+        } else if (pressure < RESUME_PRESSURE) {
+            resume();
+        }
+        if (paused || pressure >= RESUME_PRESSURE) {
+            scheduleCheck();
+        } else {
+            cancelCheck();
+        }
+    }
+
+    private void resume() {
+        if (paused) {
+            paused = false;
+            ctx.channel().config().setAutoRead(true);
+        }
+    }
+
+    private double peerPressure() {
+        Channel peer = this.peer;
+        if (peer == null || !peer.isActive()) {
+            return 0;
+        }
+        if (!peer.isWritable()) {
+            return 1;
+        }
+        int highWaterMark = peer.config().getWriteBufferHighWaterMark();
+        return 1 - (double) peer.bytesBeforeUnwritable() / highWaterMark;
+    }
+
+    private double pendingTasksPressure() {
+        EventExecutor eventLoop = ctx.channel().eventLoop();
+        if (maxPendingTasks == 0 || !(eventLoop instanceof SingleThreadEventExecutor)) {
+            return 0;
+        }
+        return (double) ((SingleThreadEventExecutor) eventLoop).pendingTasks() / maxPendingTasks;
+    }
+
+    private double latencyPressure() {
+        EventExecutor executor = this.executor;
+        if (executor == null) {
+            return 0;
+        }
+        long latency = lastLatencyNanos;
+        long startNanos = probeStartNanos;
+        long now = System.nanoTime();
+        if (startNanos == -1) {
+            // The previous probe was run, so measure again.
+            probeStartNanos = now;
+            try {
+                executor.execute(probeTask);
+            } catch (RejectedExecutionException e) {
+                // The executor does not take any more work, so do not read data it should process.
+                probeStartNanos = -1;
+                return 1;
+            }
+        } else {
+            // A probe which is still waiting is at least as late as its waiting time.
+            latency = Math.max(latency, now - startNanos);
+        }
+        return (double) latency / maxLatencyNanos;
+    }
+
+    /**
+     * Wraps the {@link RecvByteBufAllocator} of the channel and limits the messages per read loop and the size of the
+     * read buffers according to the pressure.
+     */
+    private final class ThrottlingRecvByteBufAllocator implements RecvByteBufAllocator {
+        final RecvByteBufAllocator delegate;
+        private final int maxMessagesPerRead;
+
+        // Only accessed by the event loop of the channel.
+        int messagesLimit;
+        int bufferSizeLimit;
+
+        ThrottlingRecvByteBufAllocator(RecvByteBufAllocator delegate) {
+            this.delegate = ObjectUtil.checkNotNull(delegate, "delegate");
+            maxMessagesPerRead = delegate instanceof MaxMessagesRecvByteBufAllocator ?
+                    ((MaxMessagesRecvByteBufAllocator) delegate).maxMessagesPerRead() : 16;
+            update(0);
+        }
+
+        void update(double pressure) {
+            double remaining = 1 - pressure;
+            messagesLimit = Math.max(1, (int) Math.ceil(maxMessagesPerRead * remaining));
+            bufferSizeLimit = pressure == 0 ? Integer.MAX_VALUE :
+                    Math.max(MIN_READ_BUFFER_SIZE, (int) (maxReadBufferSize * remaining));
+        }
+
+        @SuppressWarnings("deprecation")
+        @Override
+        public Handle newHandle() {
+            return new ThrottlingHandle(delegate.newHandle());
+        }
+
+        private final class ThrottlingHandle extends DelegatingHandle implements ExtendedHandle {
+            private int messages;
+
+            ThrottlingHandle(Handle delegate) {
+                super(delegate);
+            }
+
+            @Override
+            public ByteBuf allocate(ByteBufAllocator alloc) {
+                int guess = delegate().guess();
+                if (guess <= bufferSizeLimit) {
+                    return delegate().allocate(alloc);
+                }
+                return alloc.ioBuffer(bufferSizeLimit);
+            }
+
+            @Override
+            public int guess() {
+                return Math.min(delegate().guess(), bufferSizeLimit);
+            }
+
+            @Override
+            public void reset(ChannelConfig config) {
+                messages = 0;
+                super.reset(config);
+            }
+
+            @Override
+            public void incMessagesRead(int numMessages) {
+                messages += numMessages;
+                super.incMessagesRead(numMessages);
+            }
+
+            @Override
+            public boolean continueReading() {
+                return messages < messagesLimit && super.continueReading();
+            }
+
+            @Override
+            public boolean continueReading(UncheckedBooleanSupplier maybeMoreDataSupplier) {
+                if (messages >= messagesLimit) {
+                    return false;
+                }
+                Handle delegate = delegate();
+                return delegate instanceof ExtendedHandle ?
+                        ((ExtendedHandle) delegate).continueReading(maybeMoreDataSupplier) :
+                        delegate.continueReading();
+            }
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.flow;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.AdaptiveRecvByteBufAllocator;
+import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.concurrent.DefaultEventExecutor;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ReadBackpressureHandlerTest {
+
+    @Test
+    public void testPauseAndResumeOnPeerWritability() {
+        EmbeddedChannel peer = new EmbeddedChannel();
+        peer.config().setWriteBufferLowWaterMark(512);
+        peer.config().setWriteBufferHighWaterMark(1024);
+        ReadBackpressureHandler handler = new ReadBackpressureHandler().peer(peer);
+        EmbeddedChannel channel = new EmbeddedChannel(handler);
+
+        channel.pipeline().fireChannelReadComplete();
+        assertEquals(0, handler.pressure(), 0);
+        assertTrue(channel.config().isAutoRead());
+
+        // Make the peer unwritable by writing without flushing.
+        peer.write(peer.alloc().buffer().writeZero(2048));
+        assertFalse(peer.isWritable());
+        channel.pipeline().fireChannelReadComplete();
+        assertEquals(1, handler.pressure(), 0);
+        assertTrue(handler.isPaused());
+        assertFalse(channel.config().isAutoRead());
+
+        peer.flush();
+        assertTrue(peer.isWritable());
+        channel.pipeline().fireChannelReadComplete();
+        assertFalse(handler.isPaused());
+        assertTrue(channel.config().isAutoRead());
+
+        assertTrue(peer.finishAndReleaseAll());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testLimitsReadsWithPressure() {
+        EmbeddedChannel peer = new EmbeddedChannel();
+        peer.config().setWriteBufferLowWaterMark(1024);
+        peer.config().setWriteBufferHighWaterMark(4096);
+        ReadBackpressureHandler handler = new ReadBackpressureHandler().peer(peer).maxReadBufferSize(8192);
+        EmbeddedChannel channel = new EmbeddedChannel();
+        channel.config().setRecvByteBufAllocator(new AdaptiveRecvByteBufAllocator().maxMessagesPerRead(16));
+        channel.pipeline().addLast(handler);
+        RecvByteBufAllocator.Handle allocHandle = channel.unsafe().recvBufAllocHandle();
+
+        // Fill three quarters of the peer's outbound buffer.
+        peer.write(peer.alloc().buffer().writeZero(3072 - 96));
+        channel.pipeline().fireChannelReadComplete();
+        assertEquals(0.75, handler.pressure(), 0.01);
+        assertFalse(handler.isPaused());
+
+        allocHandle.reset(channel.config());
+        assertTrue(allocHandle.guess() <= 2048);
+        ByteBuf buf = allocHandle.allocate(UnpooledByteBufAllocator.DEFAULT);
+        assertTrue(buf.capacity() <= 2048);
+        buf.release();
+
+        // 16 messages per read loop are limited to a quarter.
+        int reads = 0;
+        do {
+            allocHandle.attemptedBytesRead(1);
+            allocHandle.lastBytesRead(1);
+            allocHandle.incMessagesRead(1);
+            reads++;
+        } while (allocHandle.continueReading());
+        assertEquals(4, reads);
+
+        peer.flush();
+        assertTrue(peer.finishAndReleaseAll());
+        assertFalse(channel.finish());
+    }
+
+    @Test(timeout = 5000)
+    public void testPauseOnExecutorLatency() throws Exception {
+        DefaultEventExecutor executor = new DefaultEventExecutor();
+        try {
+            ReadBackpressureHandler handler = new ReadBackpressureHandler()
+                    .executor(executor, 10, TimeUnit.MILLISECONDS);
+            EmbeddedChannel channel = new EmbeddedChannel(handler);
+            final CountDownLatch unblock = new CountDownLatch(1);
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        unblock.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+
+            // Submits a probe which waits behind the blocking task.
+            channel.pipeline().fireChannelReadComplete();
+            Thread.sleep(50);
+            channel.pipeline().fireChannelReadComplete();
+            assertTrue(handler.isPaused());
+            assertFalse(channel.config().isAutoRead());
+
+            unblock.countDown();
+            while (handler.isPaused()) {
+                Thread.sleep(10);
+                channel.pipeline().fireChannelReadComplete();
+            }
+            assertTrue(channel.config().isAutoRead());
+            assertFalse(channel.finish());
+        } finally {
+            executor.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testHandlerRemovedResumes() {
+        EmbeddedChannel peer = new EmbeddedChannel();
+        peer.config().setWriteBufferLowWaterMark(512);
+        peer.config().setWriteBufferHighWaterMark(1024);
+        ReadBackpressureHandler handler = new ReadBackpressureHandler().peer(peer);
+        EmbeddedChannel channel = new EmbeddedChannel();
+        RecvByteBufAllocator allocator = channel.config().getRecvByteBufAllocator();
+        channel.pipeline().addLast(handler);
+
+        peer.write(peer.alloc().buffer().writeZero(2048));
+        channel.pipeline().fireChannelReadComplete();
+        assertFalse(channel.config().isAutoRead());
+
+        channel.pipeline().remove(handler);
+        assertTrue(channel.config().isAutoRead());
+        assertEquals(allocator, channel.config().getRecvByteBufAllocator());
+
+        peer.flush();
+        assertTrue(peer.finishAndReleaseAll());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testCheckScheduledOnlyWithPressure() throws Exception {
+        EmbeddedChannel peer = new EmbeddedChannel();
+        peer.config().setWriteBufferLowWaterMark(512);
+        peer.config().setWriteBufferHighWaterMark(1024);
+        ReadBackpressureHandler handler = new ReadBackpressureHandler(1, TimeUnit.MILLISECONDS).peer(peer);
+        EmbeddedChannel channel = new EmbeddedChannel(handler);
+
+        channel.pipeline().fireChannelReadComplete();
+        assertEquals(-1, channel.runScheduledPendingTasks());
+
+        peer.write(peer.alloc().buffer().writeZero(2048));
+        channel.pipeline().fireChannelReadComplete();
+        assertTrue(handler.isPaused());
+        assertNotEquals(-1, channel.runScheduledPendingTasks());
+
+        // The periodic check resumes the channel without any reads, and stops once there is no pressure anymore.
+        peer.flush();
+        while (handler.isPaused()) {
+            Thread.sleep(5);
+            channel.runScheduledPendingTasks();
+        }
+        assertTrue(channel.config().isAutoRead());
+        assertEquals(-1, channel.runScheduledPendingTasks());
+
+        assertTrue(peer.finishAndReleaseAll());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testPauseOnRejectedProbe() throws Exception {
+        DefaultEventExecutor executor = new DefaultEventExecutor();
+        executor.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        ReadBackpressureHandler handler = new ReadBackpressureHandler()
+                .executor(executor, 10, TimeUnit.MILLISECONDS);
+        EmbeddedChannel channel = new EmbeddedChannel(handler);
+
+        channel.pipeline().fireChannelReadComplete();
+        assertEquals(1, handler.pressure(), 0);
+        assertTrue(handler.isPaused());
+        assertFalse(channel.config().isAutoRead());
+        assertFalse(channel.finish());
+    }
+}
@@ -85,6 +85,23 @@ public class HpackDecoderBenchmark extends AbstractMicrobenchmark {
         hpackDecoder.decode(0, input.duplicate(), headers, true);
     }
 
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public Http2Headers decodeIntoDefaultHeaders() throws Http2Exception {
+        HpackDecoder hpackDecoder = new HpackDecoder(Integer.MAX_VALUE);
+        Http2Headers headers = new DefaultHttp2Headers(false);
+        hpackDecoder.decode(0, input.duplicate(), headers, true);
+        return headers;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public Http2Headers decodeLazily() throws Http2Exception {
+        HpackDecoder hpackDecoder = new HpackDecoder(Integer.MAX_VALUE);
+        // The generated header names contain upper case characters, which are rejected by the validation.
+        return hpackDecoder.decodeLazily(0, input.duplicate(), false);
+    }
+
     private byte[] getSerializedHeaders(Http2Headers headers, boolean sensitive) throws Http2Exception {
         HpackEncoder hpackEncoder = HpackUtilBenchmark.newTestEncoder();
         ByteBuf out = size.newOutBuffer();
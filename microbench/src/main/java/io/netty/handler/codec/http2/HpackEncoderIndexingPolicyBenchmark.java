@@ -0,0 +1,124 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes gRPC-style request headers on a single connection, where every request carries a few headers with a new
+ * value, to compare the {@link Http2HeadersEncoder.IndexingPolicy}s. The {@code bytesPerRequest} counter reports the
+ * average size of the encoded headers, summed over the measurement iterations as JMH does for all event counters.
+ */
+@Fork(1)
+@Threads(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HpackEncoderIndexingPolicyBenchmark extends AbstractMicrobenchmark {
+    private static final int REQUESTS = 1024;
+
+    public enum Policy {
+        ALWAYS_INDEX,
+        ADAPTIVE
+    }
+
+    @Param
+    public Policy policy;
+
+    private Http2Headers[] requests;
+    private HpackEncoder encoder;
+    private ByteBuf output;
+    private int next;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Counters {
+        long bytes;
+        long requests;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+            requests = 0;
+        }
+
+        public long bytesPerRequest() {
+            return requests == 0 ? 0 : bytes / requests;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        requests = new Http2Headers[REQUESTS];
+        for (int i = 0; i < REQUESTS; i++) {
+            requests[i] = new DefaultHttp2Headers()
+                    .method("POST")
+                    .scheme("https")
+                    .authority("greeter.example.com:443")
+                    .path("/helloworld.Greeter/" + (i % 4 == 0 ? "SayHello" : "SayHelloAgain"))
+                    .add("content-type", "application/grpc")
+                    .add("te", "trailers")
+                    .add("user-agent", "grpc-java-netty/1.40.0")
+                    .add("grpc-accept-encoding", "gzip")
+                    .add("grpc-timeout", (100 + i % 900) + "m")
+                    .add("x-request-id", UUID.randomUUID().toString())
+                    .add("traceparent", "00-" + UUID.randomUUID().toString().replace("-", "") + '-' +
+                            UUID.randomUUID().toString().replace("-", "").substring(16) + "-01")
+                    .add("x-client-timestamp", String.valueOf(1625000000000L + i * 7919L));
+        }
+        encoder = new HpackEncoder(false, 16, HpackEncoder.HUFF_CODE_THRESHOLD,
+                policy == Policy.ADAPTIVE ? new AdaptiveHpackIndexingPolicy() : Http2HeadersEncoder.ALWAYS_INDEX);
+        output = Unpooled.buffer(4096);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        output.release();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public ByteBuf encode(Counters counters) throws Exception {
+        Http2Headers headers = requests[next];
+        next = (next + 1) & (REQUESTS - 1);
+        output.clear();
+        encoder.encodeHeaders(3, output, headers, Http2HeadersEncoder.NEVER_SENSITIVE);
+        counters.bytes += output.readableBytes();
+        counters.requests++;
+        return output;
+    }
+}
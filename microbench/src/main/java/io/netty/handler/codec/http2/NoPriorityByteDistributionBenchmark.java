@@ -0,0 +1,169 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link StreamByteDistributor}s on a connection with many concurrent streams whose peer does not use
+ * priorities. {@code distribute} queues a small response on every stream and drains them in rounds of a typical
+ * connection window, {@code cancelAndOpen} replaces a random stream which still has queued data by a new one, as it
+ * happens when requests are cancelled.
+ */
+@Fork(1)
+@Threads(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class NoPriorityByteDistributionBenchmark extends AbstractMicrobenchmark {
+    private static final int BYTES_PER_STREAM = 512;
+    private static final int CONNECTION_WINDOW = 64 * 1024;
+    private static final int CANCELS = 1024;
+
+    public enum Algorithm {
+        WFQ,
+        UNIFORM,
+        ROUND_ROBIN
+    }
+
+    @Param({ "100", "10000" })
+    public int numStreams;
+
+    @Param
+    public Algorithm algorithm;
+
+    private Http2Connection connection;
+    private Http2Connection.PropertyKey stateKey;
+    private StreamByteDistributor distributor;
+    private Http2Stream[] streams;
+    private int[] cancelIndexes;
+    private int nextCancel;
+    private int nextStreamId;
+
+    private final StreamByteDistributor.Writer writer = new StreamByteDistributor.Writer() {
+        @Override
+        public void write(Http2Stream stream, int numBytes) {
+            StreamState state = stream.getProperty(stateKey);
+            state.pendingBytes -= numBytes;
+            distributor.updateStreamableBytes(state);
+        }
+    };
+
+    @Setup
+    public void setup() throws Http2Exception {
+        connection = new DefaultHttp2Connection(false);
+        stateKey = connection.newKey();
+        switch (algorithm) {
+            case WFQ:
+                distributor = new WeightedFairQueueByteDistributor(connection);
+                break;
+            case UNIFORM:
+                distributor = new UniformStreamByteDistributor(connection);
+                break;
+            case ROUND_ROBIN:
+                distributor = new RoundRobinStreamByteDistributor(connection);
+                break;
+            default:
+                throw new Error();
+        }
+        nextStreamId = 1;
+        streams = new Http2Stream[numStreams];
+        for (int i = 0; i < numStreams; i++) {
+            streams[i] = newStreamWithData();
+        }
+        Random random = new Random(42);
+        cancelIndexes = new int[CANCELS];
+        for (int i = 0; i < CANCELS; i++) {
+            cancelIndexes[i] = random.nextInt(numStreams);
+        }
+    }
+
+    private Http2Stream newStreamWithData() throws Http2Exception {
+        Http2Stream stream = connection.local().createStream(nextStreamId, false);
+        nextStreamId += 2;
+        StreamState state = new StreamState(stream);
+        stream.setProperty(stateKey, state);
+        state.pendingBytes = BYTES_PER_STREAM;
+        distributor.updateStreamableBytes(state);
+        return stream;
+    }
+
+    @Benchmark
+    public boolean distribute() throws Http2Exception {
+        for (Http2Stream stream : streams) {
+            StreamState state = stream.getProperty(stateKey);
+            state.pendingBytes = BYTES_PER_STREAM;
+            distributor.updateStreamableBytes(state);
+        }
+        boolean pending;
+        do {
+            pending = distributor.distribute(CONNECTION_WINDOW, writer);
+        } while (pending);
+        return pending;
+    }
+
+    @Benchmark
+    public int cancelAndOpen() throws Http2Exception {
+        int index = cancelIndexes[nextCancel++ & CANCELS - 1];
+        streams[index].close();
+        Http2Stream stream = newStreamWithData();
+        streams[index] = stream;
+        return stream.id();
+    }
+
+    private static final class StreamState implements StreamByteDistributor.StreamState {
+        private final Http2Stream stream;
+        long pendingBytes;
+
+        StreamState(Http2Stream stream) {
+            this.stream = stream;
+        }
+
+        @Override
+        public Http2Stream stream() {
+            return stream;
+        }
+
+        @Override
+        public long pendingBytes() {
+            return pendingBytes;
+        }
+
+        @Override
+        public boolean hasFrame() {
+            return pendingBytes > 0;
+        }
+
+        @Override
+        public int windowSize() {
+            return Integer.MAX_VALUE;
+        }
+    }
+}
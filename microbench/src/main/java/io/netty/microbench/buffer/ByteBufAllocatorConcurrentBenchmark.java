@@ -15,13 +15,16 @@
  */
 package io.netty.microbench.buffer;
 
+import io.netty.buffer.AdaptiveByteBufAllocator;
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.buffer.UnpooledByteBufAllocator;
 import io.netty.microbench.util.AbstractMicrobenchmark;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.Threads;
 import org.openjdk.jmh.annotations.Warmup;
@@ -32,13 +35,39 @@ import org.openjdk.jmh.annotations.Warmup;
 @Threads(8)
 public class ByteBufAllocatorConcurrentBenchmark  extends AbstractMicrobenchmark {
 
-    private static final ByteBufAllocator unpooledAllocator = new UnpooledByteBufAllocator(true, true);
+    public enum AllocatorType {
+        UNPOOLED,
+        POOLED,
+        ADAPTIVE
+    }
 
     @Param({ "00064", "00256", "01024", "04096" })
     public int size;
 
+    @Param({ "UNPOOLED", "POOLED", "ADAPTIVE" })
+    public AllocatorType allocatorType;
+
+    private ByteBufAllocator allocator;
+
+    @Setup
+    public void setup() {
+        switch (allocatorType) {
+            case UNPOOLED:
+                allocator = new UnpooledByteBufAllocator(true, true);
+                break;
+            case POOLED:
+                allocator = new PooledByteBufAllocator(true);
+                break;
+            case ADAPTIVE:
+                allocator = new AdaptiveByteBufAllocator(true);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown allocator type: " + allocatorType);
+        }
+    }
+
     @Benchmark
     public boolean allocateRelease() {
-        return unpooledAllocator.directBuffer(size).release();
+        return allocator.directBuffer(size).release();
     }
 }
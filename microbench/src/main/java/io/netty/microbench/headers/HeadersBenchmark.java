@@ -17,6 +17,7 @@ package io.netty.microbench.headers;
 
 import io.netty.handler.codec.Headers;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.DefaultHttpHeadersFactory;
 import io.netty.handler.codec.http2.DefaultHttp2Headers;
 import io.netty.microbench.util.AbstractMicrobenchmark;
 import io.netty.util.AsciiString;
@@ -67,6 +68,8 @@ public class HeadersBenchmark extends AbstractMicrobenchmark {
     AsciiString[] httpValues;
 
     DefaultHttpHeaders httpHeaders;
+    DefaultHttpHeaders httpArrayHeaders;
+    DefaultHttpHeadersFactory arrayHeadersFactory;
     DefaultHttp2Headers http2Headers;
     DefaultHttpHeaders emptyHttpHeaders;
     DefaultHttp2Headers emptyHttp2Headers;
@@ -81,6 +84,8 @@ public class HeadersBenchmark extends AbstractMicrobenchmark {
         http2Names = new AsciiString[headers.size()];
         httpValues = new AsciiString[headers.size()];
         httpHeaders = new DefaultHttpHeaders(false);
+        arrayHeadersFactory = DefaultHttpHeadersFactory.headersFactory().withValidation(false).withArrayStorage(true);
+        httpArrayHeaders = arrayHeadersFactory.newHeaders();
         http2Headers = new DefaultHttp2Headers(false);
         int idx = 0;
         for (Map.Entry<String, String> header : headers.entrySet()) {
@@ -92,6 +97,7 @@ public class HeadersBenchmark extends AbstractMicrobenchmark {
             http2Names[idx] = new AsciiString(http2Name);
             httpValues[idx] = new AsciiString(value);
             httpHeaders.add(httpNames[idx], httpValues[idx]);
+            httpArrayHeaders.add(httpNames[idx], httpValues[idx]);
             http2Headers.add(http2Names[idx], httpValues[idx]);
             idx++;
         }
@@ -137,6 +143,41 @@ public class HeadersBenchmark extends AbstractMicrobenchmark {
         }
     }
 
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public void httpArrayRemove(Blackhole bh) {
+        for (AsciiString name : httpNames) {
+            bh.consume(httpArrayHeaders.remove(name));
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public void httpArrayGet(Blackhole bh) {
+        for (AsciiString name : httpNames) {
+            bh.consume(httpArrayHeaders.get(name));
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public DefaultHttpHeaders httpArrayPut() {
+        DefaultHttpHeaders headers = arrayHeadersFactory.newHeaders();
+        for (int i = 0; i < httpNames.length; i++) {
+            headers.add(httpNames[i], httpValues[i]);
+        }
+        return headers;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public void httpArrayIterate(Blackhole bh) {
+        Iterator<Entry<CharSequence, CharSequence>> itr = httpArrayHeaders.iteratorCharSequence();
+        while (itr.hasNext()) {
+            bh.consume(itr.next());
+        }
+    }
+
     @Benchmark
     @BenchmarkMode(Mode.AverageTime)
     public void http2Remove(Blackhole bh) {
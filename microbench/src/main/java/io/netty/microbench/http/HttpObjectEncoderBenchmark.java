@@ -30,6 +30,7 @@ import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpHeadersBlock;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpRequestEncoder;
@@ -57,6 +58,8 @@ import org.openjdk.jmh.annotations.Warmup;
 public class HttpObjectEncoderBenchmark extends AbstractMicrobenchmark {
     private HttpRequestEncoder encoder;
     private FullHttpRequest fullRequest;
+    private FullHttpRequest fullRequestWithCommonHeaders;
+    private FullHttpRequest fullRequestWithHeadersBlock;
     private LastHttpContent lastContent;
     private HttpRequest contentLengthRequest;
     private HttpRequest chunkedRequest;
@@ -87,6 +90,24 @@ public class HttpObjectEncoderBenchmark extends AbstractMicrobenchmark {
         chunkedRequest = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/index", headersWithChunked);
         lastContent = new DefaultLastHttpContent(testContent, false);
 
+        HttpHeaders commonHeaders = new DefaultHttpHeaders(false);
+        commonHeaders.add(HttpHeaderNames.HOST, "www.example.com");
+        commonHeaders.add(HttpHeaderNames.USER_AGENT, "Mozilla/5.0 (X11; Linux x86_64; rv:89.0) Gecko/20100101");
+        commonHeaders.add(HttpHeaderNames.ACCEPT, "application/json, text/plain, */*");
+        commonHeaders.add(HttpHeaderNames.ACCEPT_ENCODING, "gzip, deflate, br");
+        commonHeaders.add(HttpHeaderNames.ACCEPT_LANGUAGE, "en-US,en;q=0.5");
+        commonHeaders.add(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON);
+        commonHeaders.add(HttpHeaderNames.CACHE_CONTROL, HttpHeaderValues.NO_CACHE);
+        commonHeaders.add(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE);
+        HttpHeaders headersWithCommon = commonHeaders.copy();
+        headersWithCommon.add(headersWithContentLength);
+        fullRequestWithCommonHeaders = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/index",
+                testContent, headersWithCommon, EmptyHttpHeaders.INSTANCE);
+        HttpHeaders headersWithBlock = HttpHeadersBlock.of(commonHeaders).newHeaders(false);
+        headersWithBlock.add(headersWithContentLength);
+        fullRequestWithHeadersBlock = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/index",
+                testContent, headersWithBlock, EmptyHttpHeaders.INSTANCE);
+
         encoder = new HttpRequestEncoder();
         context = new EmbeddedChannelWriteReleaseHandlerContext(pooledAllocator ? PooledByteBufAllocator.DEFAULT :
                 UnpooledByteBufAllocator.DEFAULT, encoder) {
@@ -108,6 +129,16 @@ public class HttpObjectEncoderBenchmark extends AbstractMicrobenchmark {
         encoder.write(context, fullRequest, newPromise());
     }
 
+    @Benchmark
+    public void fullMessageWithCommonHeaders() throws Exception {
+        encoder.write(context, fullRequestWithCommonHeaders, newPromise());
+    }
+
+    @Benchmark
+    public void fullMessageWithHeadersBlock() throws Exception {
+        encoder.write(context, fullRequestWithHeadersBlock, newPromise());
+    }
+
     @Benchmark
     public void contentLength() throws Exception {
         encoder.write(context, contentLengthRequest, newPromise());
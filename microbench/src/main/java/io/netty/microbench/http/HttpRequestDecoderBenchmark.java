@@ -17,6 +17,7 @@ package io.netty.microbench.http;
 
 import io.netty.buffer.Unpooled;
 import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpObjectDecoder;
 import io.netty.handler.codec.http.HttpRequestDecoder;
 import io.netty.microbench.util.AbstractMicrobenchmark;
 import io.netty.util.CharsetUtil;
@@ -41,6 +42,9 @@ public class HttpRequestDecoderBenchmark extends AbstractMicrobenchmark {
     @Param({ "2", "4", "8", "16", "32" })
     public int step;
 
+    @Param({ "false", "true" })
+    public boolean zeroCopyParsing;
+
     private static byte[] createContent(String... lineDelimiters) {
         String lineDelimiter;
         String lineDelimiter2;
@@ -83,11 +87,26 @@ public class HttpRequestDecoderBenchmark extends AbstractMicrobenchmark {
 
     @Benchmark
     public void testDecodeWholeRequestInMultipleStepsMixedDelimiters() {
-        testDecodeWholeRequestInMultipleSteps(CONTENT_MIXED_DELIMITERS, step);
+        testDecodeWholeRequestInMultipleSteps(CONTENT_MIXED_DELIMITERS, step, zeroCopyParsing);
+    }
+
+    @Benchmark
+    public void testDecodeWholeRequestAtOnceMixedDelimiters() {
+        final EmbeddedChannel channel = new EmbeddedChannel(newDecoder(zeroCopyParsing));
+        channel.writeInbound(Unpooled.wrappedBuffer(CONTENT_MIXED_DELIMITERS).asReadOnly());
+        channel.finishAndReleaseAll();
+    }
+
+    private static HttpRequestDecoder newDecoder(boolean zeroCopyParsing) {
+        return new HttpRequestDecoder(HttpObjectDecoder.DEFAULT_MAX_INITIAL_LINE_LENGTH,
+                HttpObjectDecoder.DEFAULT_MAX_HEADER_SIZE, HttpObjectDecoder.DEFAULT_MAX_CHUNK_SIZE,
+                HttpObjectDecoder.DEFAULT_VALIDATE_HEADERS, HttpObjectDecoder.DEFAULT_INITIAL_BUFFER_SIZE,
+                HttpObjectDecoder.DEFAULT_ALLOW_DUPLICATE_CONTENT_LENGTHS, zeroCopyParsing);
     }
 
-    private static void testDecodeWholeRequestInMultipleSteps(byte[] content, int fragmentSize) {
-        final EmbeddedChannel channel = new EmbeddedChannel(new HttpRequestDecoder());
+    private static void testDecodeWholeRequestInMultipleSteps(byte[] content, int fragmentSize,
+                                                              boolean zeroCopyParsing) {
+        final EmbeddedChannel channel = new EmbeddedChannel(newDecoder(zeroCopyParsing));
 
         final int headerLength = content.length - CONTENT_LENGTH;
 
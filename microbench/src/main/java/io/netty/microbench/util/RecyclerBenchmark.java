@@ -0,0 +1,106 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.util;
+
+import io.netty.util.Recycler;
+import io.netty.util.internal.PlatformDependent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the default {@link Recycler} with the MPSC queue based one, when objects are recycled by the thread that
+ * allocated them and when they are handed to another thread before being recycled.
+ */
+@State(Scope.Group)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RecyclerBenchmark extends AbstractMicrobenchmark {
+
+    @Param({ "false", "true" })
+    public boolean useMpscQueue;
+
+    private Recycler<DummyObject> recycler;
+    private Queue<DummyObject> handoff;
+
+    @Setup
+    public void setup() {
+        recycler = new Recycler<DummyObject>(4 * 1024, 8, 32, useMpscQueue) {
+            @Override
+            protected DummyObject newObject(Handle<DummyObject> handle) {
+                return new DummyObject(handle);
+            }
+        };
+        handoff = PlatformDependent.newSpscQueue();
+    }
+
+    @Benchmark
+    @Group("sameThread")
+    public DummyObject recycleSameThread() {
+        DummyObject object = recycler.get();
+        object.recycle();
+        return object;
+    }
+
+    @Benchmark
+    @Group("crossThread")
+    @GroupThreads
+    public boolean allocate() {
+        // Bound the number of objects in flight, otherwise the producer just outruns the consumer.
+        if (handoff.size() >= 1024) {
+            return false;
+        }
+        return handoff.offer(recycler.get());
+    }
+
+    @Benchmark
+    @Group("crossThread")
+    @GroupThreads
+    public boolean recycleOtherThread() {
+        DummyObject object = handoff.poll();
+        if (object == null) {
+            return false;
+        }
+        object.recycle();
+        return true;
+    }
+
+    static final class DummyObject {
+        private final Recycler.Handle<DummyObject> handle;
+
+        DummyObject(Recycler.Handle<DummyObject> handle) {
+            this.handle = handle;
+        }
+
+        void recycle() {
+            handle.recycle(this);
+        }
+    }
+}
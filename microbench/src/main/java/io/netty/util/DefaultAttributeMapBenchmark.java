@@ -34,6 +34,14 @@ import java.util.IdentityHashMap;
 @State(Scope.Benchmark)
 public class DefaultAttributeMapBenchmark extends AbstractMicrobenchmark {
 
+    private static final AttributeKey<Integer>[] INDEXED_KEYS = new AttributeKey[8];
+
+    static {
+        for (int i = 0; i < INDEXED_KEYS.length; i++) {
+            INDEXED_KEYS[i] = AttributeKey.newIndexedInstance("indexed-" + i);
+        }
+    }
+
     @Param({ "8", "32", "128" })
     private int keyCount;
     private AttributeKey<Integer>[] keys;
@@ -69,6 +77,9 @@ public class DefaultAttributeMapBenchmark extends AbstractMicrobenchmark {
             final Attribute<Integer> attribute = attributes.attr(key);
             identityHashMap.put(key, attribute);
         }
+        for (AttributeKey<Integer> key : INDEXED_KEYS) {
+            attributes.attr(key);
+        }
     }
 
     @Benchmark
@@ -132,4 +143,13 @@ public class DefaultAttributeMapBenchmark extends AbstractMicrobenchmark {
             hole.consume(attributes.hasAttr(key));
         }
     }
+
+    @Benchmark
+    @Threads(3)
+    public Attribute<Integer> nextIndexedAttributeAttributeMap(KeySequence sequence) {
+        long next = sequence.next();
+        AttributeKey<Integer>[] keys = INDEXED_KEYS;
+        AttributeKey<Integer> key = keys[(int) (next & keys.length - 1)];
+        return attributes.attr(key);
+    }
 }
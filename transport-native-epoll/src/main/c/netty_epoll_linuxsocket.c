@@ -28,6 +28,7 @@
 #include <netinet/udp.h> // SOL_UDP
 #include <sys/sendfile.h>
 #include <linux/tcp.h> // TCP_NOTSENT_LOWAT is a linux specific define
+#include <linux/errqueue.h> // sock_extended_err
 #include "netty_epoll_linuxsocket.h"
 #include "netty_unix_errors.h"
 #include "netty_unix_filedescriptor.h"
@@ -62,6 +63,32 @@
 #define UDP_GRO 104
 #endif
 
+// SO_ZEROCOPY and MSG_ZEROCOPY are defined in linux 4.14. We define these here so older kernels can compile.
+#ifndef SO_ZEROCOPY
+#define SO_ZEROCOPY 60
+#endif
+
+#ifndef MSG_ZEROCOPY
+#define MSG_ZEROCOPY 0x4000000
+#endif
+
+#ifndef SO_EE_ORIGIN_ZEROCOPY
+#define SO_EE_ORIGIN_ZEROCOPY 5
+#endif
+
+#ifndef SO_EE_CODE_ZEROCOPY_COPIED
+#define SO_EE_CODE_ZEROCOPY_COPIED 1
+#endif
+
+// SO_INCOMING_CPU is defined in linux 3.19. We define this here so older kernels can compile.
+#ifndef SO_INCOMING_CPU
+#define SO_INCOMING_CPU 49
+#endif
+
+// Size of the slot every accepted address occupies in the array passed to acceptBatch. This needs to be kept in sync
+// with LinuxSocket.ACCEPTED_ADDRESS_LENGTH.
+#define ACCEPTED_ADDRESS_LENGTH 26
+
 static jclass peerCredentialsClass = NULL;
 static jmethodID peerCredentialsMethodId = NULL;
 
@@ -627,6 +654,106 @@ static void netty_epoll_linuxsocket_setUdpGro(JNIEnv* env, jclass clazz, jint fd
     netty_unix_socket_setOption(env, fd, SOL_UDP, UDP_GRO, &optval, sizeof(optval));
 }
 
+static jint netty_epoll_linuxsocket_isZeroCopy(JNIEnv* env, jclass clazz, jint fd) {
+     int optval;
+     if (netty_unix_socket_getOption(env, fd, SOL_SOCKET, SO_ZEROCOPY, &optval, sizeof(optval)) == -1) {
+         return -1;
+     }
+     return optval;
+}
+
+static void netty_epoll_linuxsocket_setZeroCopy(JNIEnv* env, jclass clazz, jint fd, jint optval) {
+    netty_unix_socket_setOption(env, fd, SOL_SOCKET, SO_ZEROCOPY, &optval, sizeof(optval));
+}
+
+static jlong netty_epoll_linuxsocket_sendmsgZeroCopy(JNIEnv* env, jclass clazz, jint fd, jlong memoryAddress, jint length) {
+    struct msghdr m = { 0 };
+    m.msg_iov = (struct iovec*) (intptr_t) memoryAddress;
+    m.msg_iovlen = length;
+
+    ssize_t res;
+    int err;
+    do {
+        res = sendmsg(fd, &m, MSG_ZEROCOPY);
+    } while (res == -1 && ((err = errno) == EINTR));
+    if (res < 0) {
+        return -err;
+    }
+    return (jlong) res;
+}
+
+// Reads the next MSG_ZEROCOPY notification from the error queue of the socket. The notification covers the sends
+// with the ids [lo, hi] and is packed as lo | (hi - lo) << 32 | copied << 62, so the result is never negative unless
+// it is a negative errno.
+static jlong netty_epoll_linuxsocket_recvZeroCopyNotification(JNIEnv* env, jclass clazz, jint fd) {
+    char control[CMSG_SPACE(sizeof(struct sock_extended_err) + sizeof(struct sockaddr_in6))];
+    struct msghdr m = { 0 };
+    struct cmsghdr* cm;
+    ssize_t res;
+    int err;
+
+    for (;;) {
+        m.msg_control = control;
+        m.msg_controllen = sizeof(control);
+        do {
+            res = recvmsg(fd, &m, MSG_ERRQUEUE);
+        } while (res == -1 && ((err = errno) == EINTR));
+        if (res < 0) {
+            return -err;
+        }
+        for (cm = CMSG_FIRSTHDR(&m); cm != NULL; cm = CMSG_NXTHDR(&m, cm)) {
+            if ((cm->cmsg_level == SOL_IP && cm->cmsg_type == IP_RECVERR) ||
+                    (cm->cmsg_level == SOL_IPV6 && cm->cmsg_type == IPV6_RECVERR)) {
+                struct sock_extended_err* serr = (struct sock_extended_err*) CMSG_DATA(cm);
+                if (serr->ee_errno == 0 && serr->ee_origin == SO_EE_ORIGIN_ZEROCOPY) {
+                    jlong range = (jlong) ((serr->ee_data - serr->ee_info) & 0x3FFFFFFF);
+                    jlong copied = (serr->ee_code & SO_EE_CODE_ZEROCOPY_COPIED) != 0 ? 1 : 0;
+                    return (jlong) serr->ee_info | range << 32 | copied << 62;
+                }
+            }
+        }
+        // Not a zerocopy notification, just drop it and try the next one.
+    }
+}
+
+// Accepts connections until either the backlog is drained or the results array is full. For every connection the fd
+// and the cpu that handled its packets (or -1 if unknown) are stored in the results array, and the remote address in
+// the matching slot of acceptedAddresses. Returns the number of accepted connections, or -errno if not even one
+// connection could be accepted.
+static jint netty_epoll_linuxsocket_acceptBatch(JNIEnv* env, jclass clazz, jint fd, jbyteArray acceptedAddresses, jintArray results, jboolean incomingCpu) {
+    jint max = (*env)->GetArrayLength(env, results) / 2;
+    jint accepted = 0;
+    jint result[2];
+    struct sockaddr_storage addr;
+    socklen_t address_len;
+    socklen_t cpu_len;
+    int cpu;
+    int err;
+
+    while (accepted < max) {
+        address_len = sizeof(addr);
+        do {
+            result[0] = accept4(fd, (struct sockaddr*) &addr, &address_len, SOCK_NONBLOCK | SOCK_CLOEXEC);
+        } while (result[0] == -1 && ((err = errno) == EINTR));
+        if (result[0] == -1) {
+            // If we accepted something already the error will be reported by the next call.
+            return accepted == 0 ? -err : accepted;
+        }
+
+        result[1] = -1;
+        if (incomingCpu == JNI_TRUE) {
+            cpu_len = sizeof(cpu);
+            if (getsockopt(result[0], SOL_SOCKET, SO_INCOMING_CPU, &cpu, &cpu_len) == 0) {
+                result[1] = cpu;
+            }
+        }
+
+        netty_unix_socket_initAcceptedAddress(env, &addr, acceptedAddresses, accepted * ACCEPTED_ADDRESS_LENGTH);
+        (*env)->SetIntArrayRegion(env, results, accepted * 2, 2, result);
+        accepted++;
+    }
+    return accepted;
+}
 
 static jlong netty_epoll_linuxsocket_sendFile(JNIEnv* env, jclass clazz, jint fd, jobject fileRegion, jlong base_off, jlong off, jlong len) {
     jobject fileChannel = (*env)->GetObjectField(env, fileRegion, fileChannelFieldId);
@@ -703,7 +830,12 @@ static const JNINativeMethod fixed_method_table[] = {
   { "leaveGroup", "(IZ[B[BII)V", (void *) netty_epoll_linuxsocket_leaveGroup },
   { "leaveSsmGroup", "(IZ[B[BII[B)V", (void *) netty_epoll_linuxsocket_leaveSsmGroup },
   { "isUdpGro", "(I)I", (void *) netty_epoll_linuxsocket_isUdpGro },
-  { "setUdpGro", "(II)V", (void *) netty_epoll_linuxsocket_setUdpGro }
+  { "setUdpGro", "(II)V", (void *) netty_epoll_linuxsocket_setUdpGro },
+  { "isZeroCopy", "(I)I", (void *) netty_epoll_linuxsocket_isZeroCopy },
+  { "setZeroCopy", "(II)V", (void *) netty_epoll_linuxsocket_setZeroCopy },
+  { "sendmsgZeroCopy", "(IJI)J", (void *) netty_epoll_linuxsocket_sendmsgZeroCopy },
+  { "recvZeroCopyNotification", "(I)J", (void *) netty_epoll_linuxsocket_recvZeroCopyNotification },
+  { "acceptBatch", "(I[B[IZ)I", (void *) netty_epoll_linuxsocket_acceptBatch }
 
   // "sendFile" has a dynamic signature
 };
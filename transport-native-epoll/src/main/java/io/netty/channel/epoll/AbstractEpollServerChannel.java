@@ -24,6 +24,7 @@ import io.netty.channel.ChannelPromise;
 import io.netty.channel.EventLoop;
 import io.netty.channel.ServerChannel;
 
+import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 
@@ -74,12 +75,31 @@ public abstract class AbstractEpollServerChannel extends AbstractEpollChannel im
 
     abstract Channel newChildChannel(int fd, byte[] remote, int offset, int len) throws Exception;
 
+    /**
+     * Creates the child channel for a connection that was accepted in a batch, together with the CPU that handled its
+     * packets or {@code -1} if it is unknown.
+     */
+    Channel newChildChannel(int fd, byte[] remote, int offset, int len, int incomingCpu) throws Exception {
+        return newChildChannel(fd, remote, offset, len);
+    }
+
+    /**
+     * Returns {@code true} if the {@code SO_INCOMING_CPU} of accepted connections should be read.
+     */
+    boolean isIncomingCpuAffinity() {
+        return false;
+    }
+
     final class EpollServerSocketUnsafe extends AbstractEpollUnsafe {
         // Will hold the remote address after accept(...) was successful.
         // We need 24 bytes for the address as maximum + 1 byte for storing the length.
         // So use 26 bytes as it's a power of two.
         private final byte[] acceptedAddress = new byte[26];
 
+        // Used instead of acceptedAddress when connections are accepted in batches.
+        private byte[] acceptedAddresses;
+        private int[] acceptedResults;
+
         @Override
         public void connect(SocketAddress socketAddress, SocketAddress socketAddress2, ChannelPromise channelPromise) {
             // Connect not supported by ServerChannel implementations
@@ -102,24 +122,30 @@ public abstract class AbstractEpollServerChannel extends AbstractEpollChannel im
             allocHandle.attemptedBytesRead(1);
             epollInBefore();
 
+            final int acceptBatchSize = ((EpollServerChannelConfig) config).getAcceptBatchSize();
+            final boolean incomingCpu = isIncomingCpuAffinity();
             Throwable exception = null;
             try {
                 try {
-                    do {
-                        // lastBytesRead represents the fd. We use lastBytesRead because it must be set so that the
-                        // EpollRecvByteAllocatorHandle knows if it should try to read again or not when autoRead is
-                        // enabled.
-                        allocHandle.lastBytesRead(socket.accept(acceptedAddress));
-                        if (allocHandle.lastBytesRead() == -1) {
-                            // this means everything was handled for now
-                            break;
-                        }
-                        allocHandle.incMessagesRead(1);
-
-                        readPending = false;
-                        pipeline.fireChannelRead(newChildChannel(allocHandle.lastBytesRead(), acceptedAddress, 1,
-                                                                 acceptedAddress[0]));
-                    } while (allocHandle.continueReading());
+                    if (acceptBatchSize > 0 || incomingCpu) {
+                        acceptBatches(allocHandle, pipeline, Math.max(1, acceptBatchSize), incomingCpu);
+                    } else {
+                        do {
+                            // lastBytesRead represents the fd. We use lastBytesRead because it must be set so that the
+                            // EpollRecvByteAllocatorHandle knows if it should try to read again or not when autoRead is
+                            // enabled.
+                            allocHandle.lastBytesRead(socket.accept(acceptedAddress));
+                            if (allocHandle.lastBytesRead() == -1) {
+                                // this means everything was handled for now
+                                break;
+                            }
+                            allocHandle.incMessagesRead(1);
+
+                            readPending = false;
+                            pipeline.fireChannelRead(newChildChannel(allocHandle.lastBytesRead(), acceptedAddress, 1,
+                                                                     acceptedAddress[0]));
+                        } while (allocHandle.continueReading());
+                    }
                 } catch (Throwable t) {
                     exception = t;
                 }
@@ -133,6 +159,54 @@ public abstract class AbstractEpollServerChannel extends AbstractEpollChannel im
                 epollInFinally(config);
             }
         }
+
+        private void acceptBatches(EpollRecvByteAllocatorHandle allocHandle, ChannelPipeline pipeline,
+                                   int batchSize, boolean incomingCpu) throws Exception {
+            if (acceptedResults == null || acceptedResults.length != batchSize * 2) {
+                acceptedAddresses = new byte[batchSize * LinuxSocket.ACCEPTED_ADDRESS_LENGTH];
+                acceptedResults = new int[batchSize * 2];
+            }
+            final byte[] addresses = acceptedAddresses;
+            final int[] results = acceptedResults;
+            do {
+                // Use the batch size and the number of accepted connections, so the handle only keeps on reading
+                // in level-triggered mode if the batch was full.
+                allocHandle.attemptedBytesRead(batchSize);
+                int accepted = socket.acceptBatch(addresses, results, incomingCpu);
+                if (accepted == 0) {
+                    // this means everything was handled for now
+                    allocHandle.lastBytesRead(-1);
+                    break;
+                }
+                allocHandle.lastBytesRead(accepted);
+                allocHandle.incMessagesRead(accepted);
+
+                readPending = false;
+                for (int i = 0; i < accepted; i++) {
+                    int offset = i * LinuxSocket.ACCEPTED_ADDRESS_LENGTH;
+                    Channel child;
+                    try {
+                        child = newChildChannel(results[i * 2], addresses, offset + 1, addresses[offset],
+                                results[i * 2 + 1]);
+                    } catch (Exception e) {
+                        // Nothing owns the remaining connections of the batch, so close them.
+                        for (int j = i; j < accepted; j++) {
+                            closeAccepted(results[j * 2]);
+                        }
+                        throw e;
+                    }
+                    pipeline.fireChannelRead(child);
+                }
+            } while (allocHandle.continueReading());
+        }
+
+        private void closeAccepted(int fd) {
+            try {
+                new LinuxSocket(fd).close();
+            } catch (IOException ignore) {
+                // ignore
+            }
+        }
     }
 
     @Override
@@ -29,6 +29,7 @@ import io.netty.channel.DefaultFileRegion;
 import io.netty.channel.EventLoop;
 import io.netty.channel.FileRegion;
 import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.ScratchRecvByteBufAllocator.ScratchHandle;
 import io.netty.channel.internal.ChannelUtils;
 import io.netty.channel.socket.DuplexChannel;
 import io.netty.channel.unix.FileDescriptor;
@@ -78,6 +79,10 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
 
     private WritableByteChannel byteChannel;
 
+    // Lazy init these if we need to write with MSG_ZEROCOPY
+    volatile ZeroCopyTracker zeroCopyTracker;
+    private ZeroCopyAwareProcessor zeroCopyAwareProcessor;
+
     protected AbstractEpollStreamChannel(Channel parent, int fd) {
         this(parent, new LinuxSocket(fd));
     }
@@ -252,10 +257,18 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
     private int writeBytes(ChannelOutboundBuffer in, ByteBuf buf) throws Exception {
         int readableBytes = buf.readableBytes();
         if (readableBytes == 0) {
-            in.remove();
+            removeWritten(in);
             return 0;
         }
 
+        if (hasPendingZeroCopy()) {
+            // doWriteBytes(...) would notify the promise right away, go through the IovArray so the write is ordered
+            // after the outstanding zerocopy sends.
+            IovArray array = ((EpollEventLoop) eventLoop()).cleanIovArray();
+            array.maxBytes(config().getMaxBytesPerGatheringWrite());
+            array.add(buf, buf.readerIndex(), buf.readableBytes());
+            return writeBytesMultiple(in, array);
+        }
         if (buf.hasMemoryAddress() || buf.nioBufferCount() == 1) {
             return doWriteBytes(in, buf);
         } else {
@@ -302,7 +315,44 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
         final long localWrittenBytes = socket.writevAddresses(array.memoryAddress(0), cnt);
         if (localWrittenBytes > 0) {
             adjustMaxBytesPerGatheringWrite(expectedWrittenBytes, localWrittenBytes, array.maxBytes());
-            in.removeBytes(localWrittenBytes);
+            removeWrittenBytes(in, localWrittenBytes);
+            return 1;
+        }
+        return WRITE_STATUS_SNDBUF_FULL;
+    }
+
+    /**
+     * Write a {@link ByteBuf} with {@code MSG_ZEROCOPY}. The buffer is only released, and its promise notified, once
+     * the kernel signals that it no longer references the memory.
+     * @param in the collection which contains objects to write.
+     * @param buf the {@link ByteBuf} from which the bytes should be written
+     * @return The value that should be decremented from the write quantum which starts at
+     * {@link ChannelConfig#getWriteSpinCount()}. The typical use cases are as follows:
+     * <ul>
+     *     <li>1 - if a single call to write data was made to the OS</li>
+     *     <li>{@link ChannelUtils#WRITE_STATUS_SNDBUF_FULL} - if an attempt to write data was made to the OS, but
+     *     no data was accepted</li>
+     * </ul>
+     * @throws IOException If an I/O exception occurs during write.
+     */
+    private int writeBytesZeroCopy(ChannelOutboundBuffer in, ByteBuf buf) throws IOException {
+        IovArray array = ((EpollEventLoop) eventLoop()).cleanIovArray();
+        array.maxBytes(config().getMaxBytesPerGatheringWrite());
+        array.add(buf, buf.readerIndex(), buf.readableBytes());
+
+        ZeroCopyTracker tracker = zeroCopyTracker;
+        if (tracker == null) {
+            zeroCopyTracker = tracker = new ZeroCopyTracker();
+        }
+        final long localWrittenBytes = socket.sendmsgZeroCopy(array.memoryAddress(0), array.count());
+        if (localWrittenBytes < 0) {
+            // The kernel refused to pin more memory (optmem_max), fall back to copying the data.
+            tracker.fallback();
+            return writeBytesMultiple(in, array);
+        }
+        if (localWrittenBytes > 0) {
+            tracker.sent();
+            removeWrittenBytes(in, localWrittenBytes);
             return 1;
         }
         return WRITE_STATUS_SNDBUF_FULL;
@@ -337,7 +387,7 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
         final long localWrittenBytes = socket.writev(nioBuffers, 0, nioBufferCnt, expectedWrittenBytes);
         if (localWrittenBytes > 0) {
             adjustMaxBytesPerGatheringWrite(expectedWrittenBytes, localWrittenBytes, maxBytesPerGatheringWrite);
-            in.removeBytes(localWrittenBytes);
+            removeWrittenBytes(in, localWrittenBytes);
             return 1;
         }
         return WRITE_STATUS_SNDBUF_FULL;
@@ -361,7 +411,7 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
         final long offset = region.transferred();
         final long regionCount = region.count();
         if (offset >= regionCount) {
-            in.remove();
+            removeWritten(in);
             return 0;
         }
 
@@ -369,7 +419,7 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
         if (flushedAmount > 0) {
             in.progress(flushedAmount);
             if (region.transferred() >= regionCount) {
-                in.remove();
+                removeWritten(in);
             }
             return 1;
         } else if (flushedAmount == 0) {
@@ -394,7 +444,7 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
      */
     private int writeFileRegion(ChannelOutboundBuffer in, FileRegion region) throws Exception {
         if (region.transferred() >= region.count()) {
-            in.remove();
+            removeWritten(in);
             return 0;
         }
 
@@ -405,7 +455,7 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
         if (flushedAmount > 0) {
             in.progress(flushedAmount);
             if (region.transferred() >= region.count()) {
-                in.remove();
+                removeWritten(in);
             }
             return 1;
         }
@@ -415,11 +465,16 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
     @Override
     protected void doWrite(ChannelOutboundBuffer in) throws Exception {
         int writeSpinCount = config().getWriteSpinCount();
+        final int zeroCopyThreshold = zeroCopyThreshold();
+        in.combineSmallBuffers(alloc(), writeCombiningThreshold());
         do {
             final int msgCount = in.size();
-            // Do gathering write if the outbound buffer entries start with more than one ByteBuf.
-            if (msgCount > 1 && in.current() instanceof ByteBuf) {
-                writeSpinCount -= doWriteMultiple(in);
+            final Object msg = in.current();
+            if (isZeroCopyCandidate(msg, zeroCopyThreshold)) {
+                writeSpinCount -= writeBytesZeroCopy(in, (ByteBuf) msg);
+            } else if (msgCount > 1 && msg instanceof ByteBuf) {
+                // Do gathering write if the outbound buffer entries start with more than one ByteBuf.
+                writeSpinCount -= doWriteMultiple(in, zeroCopyThreshold);
             } else if (msgCount == 0) {
                 // Wrote all messages.
                 clearFlag(Native.EPOLLOUT);
@@ -477,7 +532,7 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
             if (!((SpliceOutTask) msg).spliceOut()) {
                 return WRITE_STATUS_SNDBUF_FULL;
             }
-            in.remove();
+            removeWritten(in);
             return 1;
         } else {
             // Should never reach here.
@@ -499,21 +554,125 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
      * </ul>
      * @throws Exception If an I/O error occurs.
      */
-    private int doWriteMultiple(ChannelOutboundBuffer in) throws Exception {
+    private int doWriteMultiple(ChannelOutboundBuffer in, int zeroCopyThreshold) throws Exception {
         final long maxBytesPerGatheringWrite = config().getMaxBytesPerGatheringWrite();
         IovArray array = ((EpollEventLoop) eventLoop()).cleanIovArray();
         array.maxBytes(maxBytesPerGatheringWrite);
-        in.forEachFlushedMessage(array);
+        if (zeroCopyThreshold > 0) {
+            // Stop in front of the next buffer that should be written with MSG_ZEROCOPY so it is not copied.
+            ZeroCopyAwareProcessor processor = zeroCopyAwareProcessor;
+            if (processor == null) {
+                zeroCopyAwareProcessor = processor = new ZeroCopyAwareProcessor();
+            }
+            processor.array = array;
+            processor.threshold = zeroCopyThreshold;
+            try {
+                in.forEachFlushedMessage(processor);
+            } finally {
+                processor.array = null;
+            }
+        } else {
+            in.forEachFlushedMessage(array);
+        }
 
         if (array.count() >= 1) {
             // TODO: Handle the case where cnt == 1 specially.
             return writeBytesMultiple(in, array);
         }
         // cnt == 0, which means the outbound buffer contained empty buffers only.
-        in.removeBytes(0);
+        removeWrittenBytes(in, 0);
         return 0;
     }
 
+    /**
+     * Returns the maximal number of readable bytes of a {@link ByteBuf} to combine it with its neighbours before a
+     * gathering write, or {@code 0} if buffers are not combined.
+     *
+     * @see ChannelOutboundBuffer#combineSmallBuffers(io.netty.buffer.ByteBufAllocator, int)
+     */
+    int writeCombiningThreshold() {
+        return 0;
+    }
+
+    /**
+     * Returns the minimum number of readable bytes a {@link ByteBuf} must have to be written with
+     * {@code MSG_ZEROCOPY}, or {@code -1} if zerocopy writes are not used.
+     */
+    int zeroCopyThreshold() {
+        return -1;
+    }
+
+    private static boolean isZeroCopyCandidate(Object msg, int zeroCopyThreshold) {
+        return zeroCopyThreshold > 0 && msg instanceof ByteBuf && ((ByteBuf) msg).readableBytes() >= zeroCopyThreshold;
+    }
+
+    private boolean hasPendingZeroCopy() {
+        ZeroCopyTracker tracker = zeroCopyTracker;
+        return tracker != null && !tracker.isEmpty();
+    }
+
+    /**
+     * Removes the current message once it was written completely. If there are outstanding zerocopy sends the message
+     * is handed over to the {@link ZeroCopyTracker}, so its promise is not notified before the ones of the messages
+     * that were written before it.
+     */
+    private void removeWritten(ChannelOutboundBuffer in) {
+        if (hasPendingZeroCopy()) {
+            Object msg = in.current();
+            zeroCopyTracker.add(msg, in.removeAndDetach());
+        } else {
+            in.remove();
+        }
+    }
+
+    /**
+     * Same as {@link ChannelOutboundBuffer#removeBytes(long)} but hands the fully written buffers over to the
+     * {@link ZeroCopyTracker} if there are outstanding zerocopy sends.
+     */
+    private void removeWrittenBytes(ChannelOutboundBuffer in, long writtenBytes) {
+        if (!hasPendingZeroCopy()) {
+            in.removeBytes(writtenBytes);
+            return;
+        }
+        ZeroCopyTracker tracker = zeroCopyTracker;
+        for (;;) {
+            Object msg = in.current();
+            if (!(msg instanceof ByteBuf)) {
+                assert writtenBytes == 0;
+                break;
+            }
+
+            final ByteBuf buf = (ByteBuf) msg;
+            final int readerIndex = buf.readerIndex();
+            final int readableBytes = buf.writerIndex() - readerIndex;
+
+            if (readableBytes <= writtenBytes) {
+                if (writtenBytes != 0) {
+                    in.progress(readableBytes);
+                    writtenBytes -= readableBytes;
+                }
+                tracker.add(buf, in.removeAndDetach());
+            } else { // readableBytes > writtenBytes
+                if (writtenBytes != 0) {
+                    buf.readerIndex(readerIndex + (int) writtenBytes);
+                    in.progress(writtenBytes);
+                }
+                break;
+            }
+        }
+    }
+
+    private void processZeroCopyNotifications(ZeroCopyTracker tracker) throws IOException {
+        // Listeners notified by the tracker may close the channel, so check every time.
+        while (!tracker.isEmpty() && isOpen()) {
+            long notification = socket.recvZeroCopyNotification();
+            if (notification == -1) {
+                break;
+            }
+            tracker.complete(notification);
+        }
+    }
+
     @Override
     protected Object filterOutboundMessage(Object msg) {
         if (msg instanceof ByteBuf) {
@@ -668,12 +827,46 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
     @Override
     protected void doClose() throws Exception {
         try {
-            // Calling super.doClose() first so spliceTo(...) will fail on next call.
-            super.doClose();
+            abortZeroCopyWrites();
         } finally {
-            safeClosePipe(pipeIn);
-            safeClosePipe(pipeOut);
-            clearSpliceQueue();
+            try {
+                // Calling super.doClose() first so spliceTo(...) will fail on next call.
+                super.doClose();
+            } finally {
+                safeClosePipe(pipeIn);
+                safeClosePipe(pipeOut);
+                clearSpliceQueue();
+                failZeroCopyWrites();
+            }
+        }
+    }
+
+    /**
+     * Must be called before the socket is closed. Processes the notifications that are already queued and, if the
+     * kernel still references the memory of some sends, aborts the connection with {@code SO_LINGER=0}. Otherwise the
+     * kernel would keep sending from these buffers after they were released by {@link #failZeroCopyWrites()}, and
+     * possibly reused by the allocator. The abort makes the kernel drop the unsent data when the socket is closed.
+     */
+    private void abortZeroCopyWrites() {
+        ZeroCopyTracker tracker = zeroCopyTracker;
+        if (tracker == null || tracker.isEmpty() || !socket.isOpen()) {
+            return;
+        }
+        try {
+            processZeroCopyNotifications(tracker);
+            if (!tracker.isEmpty()) {
+                socket.setSoLinger(0);
+            }
+        } catch (IOException e) {
+            logger.debug("Failed to abort outstanding MSG_ZEROCOPY writes: {}", this, e);
+        }
+    }
+
+    private void failZeroCopyWrites() {
+        ZeroCopyTracker tracker = zeroCopyTracker;
+        if (tracker != null && !tracker.isEmpty()) {
+            // The socket is closed so no notifications will arrive anymore.
+            tracker.fail(new ClosedChannelException());
         }
     }
 
@@ -739,6 +932,23 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
             return new EpollRecvByteAllocatorStreamingHandle(handle);
         }
 
+        @Override
+        void epollOutReady() {
+            ZeroCopyTracker tracker = zeroCopyTracker;
+            if (tracker != null && !tracker.isEmpty()) {
+                // The kernel signals MSG_ZEROCOPY notifications via EPOLLERR, process these first as they may
+                // complete promises which trigger more writes.
+                try {
+                    processZeroCopyNotifications(tracker);
+                } catch (IOException e) {
+                    pipeline().fireExceptionCaught(e);
+                    close(voidPromise());
+                    return;
+                }
+            }
+            super.epollOutReady();
+        }
+
         @Override
         void epollInReady() {
             final ChannelConfig config = config();
@@ -747,6 +957,7 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
                 return;
             }
             final EpollRecvByteAllocatorHandle allocHandle = recvBufAllocHandle();
+            final ScratchHandle scratchHandle = allocHandle.scratchHandle();
             allocHandle.edgeTriggered(isFlagSet(Native.EPOLLET));
 
             final ChannelPipeline pipeline = pipeline();
@@ -777,7 +988,7 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
 
                     // we use a direct buffer here as the native implementations only be able
                     // to handle direct buffers.
-                    byteBuf = allocHandle.allocate(allocator);
+                    byteBuf = scratchHandle == null ? allocHandle.allocate(allocator) : scratchHandle.allocateScratch();
                     allocHandle.lastBytesRead(doReadBytes(byteBuf));
                     if (allocHandle.lastBytesRead() <= 0) {
                         // nothing was read, release the buffer.
@@ -792,6 +1003,12 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
                     }
                     allocHandle.incMessagesRead(1);
                     readPending = false;
+                    if (scratchHandle != null) {
+                        // The scratch buffer is released by detach(...) also if it fails.
+                        ByteBuf scratch = byteBuf;
+                        byteBuf = null;
+                        byteBuf = scratchHandle.detach(allocator, scratch);
+                    }
                     pipeline.fireChannelRead(byteBuf);
                     byteBuf = null;
 
@@ -1028,6 +1245,20 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
         }
     }
 
+    /**
+     * Adds the flushed messages to an {@link IovArray} but stops in front of the first {@link ByteBuf} that should be
+     * written with {@code MSG_ZEROCOPY}.
+     */
+    private static final class ZeroCopyAwareProcessor implements ChannelOutboundBuffer.MessageProcessor {
+        IovArray array;
+        int threshold;
+
+        @Override
+        public boolean processMessage(Object msg) throws Exception {
+            return !isZeroCopyCandidate(msg, threshold) && array.processMessage(msg);
+        }
+    }
+
     private final class EpollSocketWritableByteChannel extends SocketWritableByteChannel {
         EpollSocketWritableByteChannel() {
             super(socket);
@@ -184,6 +184,7 @@ class EpollEventLoop extends SingleThreadEventLoop {
         if (!inEventLoop && nextWakeupNanos.getAndSet(AWAKE) != AWAKE) {
             // write to the evfd which will then wake-up epoll_wait(...)
             Native.eventFdWrite(eventFd.intValue(), 1L);
+            recordWakeup();
         }
     }
 
@@ -271,6 +272,14 @@ class EpollEventLoop extends SingleThreadEventLoop {
         this.ioRatio = ioRatio;
     }
 
+    /**
+     * Returns the {@link SelectStrategy} of this event loop, for example to read the statistics of a
+     * {@link io.netty.channel.SpinWaitSelectStrategy}.
+     */
+    public SelectStrategy selectStrategy() {
+        return selectStrategy;
+    }
+
     @Override
     public int registeredChannels() {
         return channels.size();
@@ -365,8 +374,15 @@ class EpollEventLoop extends SingleThreadEventLoop {
                 final int ioRatio = this.ioRatio;
                 if (ioRatio == 100) {
                     try {
-                        if (strategy > 0 && processReady(events, strategy)) {
-                            prevDeadlineNanos = NONE;
+                        if (strategy > 0) {
+                            final long ioStartTime = System.nanoTime();
+                            try {
+                                if (processReady(events, strategy)) {
+                                    prevDeadlineNanos = NONE;
+                                }
+                            } finally {
+                                recordIo(strategy, System.nanoTime() - ioStartTime);
+                            }
                         }
                     } finally {
                         // Ensure we always run tasks.
@@ -381,6 +397,7 @@ class EpollEventLoop extends SingleThreadEventLoop {
                     } finally {
                         // Ensure we always run tasks.
                         final long ioTime = System.nanoTime() - ioStartTime;
+                        recordIo(strategy, ioTime);
                         runAllTasks(ioTime * (100 - ioRatio) / ioRatio);
                     }
                 } else {
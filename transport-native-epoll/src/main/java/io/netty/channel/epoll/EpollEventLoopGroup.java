@@ -15,12 +15,16 @@
  */
 package io.netty.channel.epoll;
 
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelPromise;
 import io.netty.channel.DefaultSelectStrategyFactory;
 import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.EventLoopTaskQueueFactory;
 import io.netty.channel.MultithreadEventLoopGroup;
 import io.netty.channel.SelectStrategyFactory;
+import io.netty.util.concurrent.EventExecutor;
 import io.netty.util.concurrent.EventExecutorChooserFactory;
 import io.netty.util.concurrent.RejectedExecutionHandler;
 import io.netty.util.concurrent.RejectedExecutionHandlers;
@@ -38,6 +42,8 @@ public final class EpollEventLoopGroup extends MultithreadEventLoopGroup {
         Epoll.ensureAvailability();
     }
 
+    private final EventLoop[] loops = loops(this);
+
     /**
      * Create a new instance using the default number of threads and the default {@link ThreadFactory}.
      */
@@ -144,6 +150,49 @@ public final class EpollEventLoopGroup extends MultithreadEventLoopGroup {
         }
     }
 
+    /**
+     * Registers the {@link Channel} on the next {@link EventLoop}, unless it is an {@link EpollSocketChannel} that was
+     * accepted with {@link EpollChannelOption#INCOMING_CPU_AFFINITY} enabled. Such channels are registered on the
+     * {@link EventLoop} with the index {@code incomingCpu % executorCount()}, so they are handled by the same
+     * {@link EventLoop} as all other connections whose packets are received on that CPU. To also run the
+     * {@link EventLoop} on that CPU its threads need to be pinned to the CPUs in the same order, for example by the
+     * {@link ThreadFactory} used to create them.
+     */
+    @Override
+    public ChannelFuture register(Channel channel) {
+        return next(channel).register(channel);
+    }
+
+    @Override
+    public ChannelFuture register(ChannelPromise promise) {
+        return next(promise.channel()).register(promise);
+    }
+
+    @Deprecated
+    @Override
+    public ChannelFuture register(Channel channel, ChannelPromise promise) {
+        return next(channel).register(channel, promise);
+    }
+
+    private EventLoop next(Channel channel) {
+        if (channel instanceof EpollSocketChannel) {
+            int cpu = ((EpollSocketChannel) channel).incomingCpu();
+            if (cpu >= 0) {
+                return loops[cpu % loops.length];
+            }
+        }
+        return next();
+    }
+
+    private static EventLoop[] loops(EpollEventLoopGroup group) {
+        EventLoop[] loops = new EventLoop[group.executorCount()];
+        int i = 0;
+        for (EventExecutor executor : group) {
+            loops[i++] = (EventLoop) executor;
+        }
+        return loops;
+    }
+
     @Override
     protected EventLoop newChild(Executor executor, Object... args) throws Exception {
         EventLoopTaskQueueFactory queueFactory = args.length == 4 ? (EventLoopTaskQueueFactory) args[3] : null;
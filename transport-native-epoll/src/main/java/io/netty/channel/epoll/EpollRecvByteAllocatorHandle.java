@@ -19,6 +19,7 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.RecvByteBufAllocator.DelegatingHandle;
 import io.netty.channel.RecvByteBufAllocator.ExtendedHandle;
+import io.netty.channel.ScratchRecvByteBufAllocator.ScratchHandle;
 import io.netty.channel.unix.PreferredDirectByteBufAllocator;
 import io.netty.util.UncheckedBooleanSupplier;
 
@@ -31,11 +32,21 @@ class EpollRecvByteAllocatorHandle extends DelegatingHandle implements ExtendedH
             return maybeMoreDataToRead();
         }
     };
+    private final ScratchHandle scratchHandle;
     private boolean isEdgeTriggered;
     private boolean receivedRdHup;
 
     EpollRecvByteAllocatorHandle(ExtendedHandle handle) {
         super(handle);
+        scratchHandle = handle instanceof ScratchHandle ? (ScratchHandle) handle : null;
+    }
+
+    /**
+     * Returns the {@link ScratchHandle} of the wrapped handle, or {@code null} if it does not read into a scratch
+     * buffer.
+     */
+    final ScratchHandle scratchHandle() {
+        return scratchHandle;
     }
 
     final void receivedRdHup() {
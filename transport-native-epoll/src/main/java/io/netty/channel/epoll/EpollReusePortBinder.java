@@ -0,0 +1,77 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.bootstrap.ServerBootstrapConfig;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.EventLoop;
+import io.netty.util.concurrent.EventExecutor;
+
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+
+/**
+ * Binds one {@link EpollServerSocketChannel} per {@link EpollEventLoop} of an {@link EpollEventLoopGroup} to the same
+ * address by using {@link EpollChannelOption#SO_REUSEPORT}.
+ * <p>
+ * The kernel spreads the incoming connections over all the listening sockets, and every {@link EpollEventLoop} only
+ * accepts and serves the connections of its own socket. This removes the contention on a single accept queue and the
+ * handover of accepted connections between threads.
+ * <pre>
+ * ServerBootstrap template = new ServerBootstrap()
+ *         .channel(EpollServerSocketChannel.class)
+ *         .childHandler(new MyInitializer());
+ * List&lt;ChannelFuture&gt; futures = EpollReusePortBinder.bind(template, group, new InetSocketAddress(8080));
+ * </pre>
+ */
+public final class EpollReusePortBinder {
+
+    private EpollReusePortBinder() {
+    }
+
+    /**
+     * Binds a copy of the given {@link ServerBootstrap} for every {@link EpollEventLoop} of the group, which is used
+     * as the parent and the child {@link EventLoop} of the copy. The template must have its
+     * {@link ServerBootstrap#channel(Class) channel} and handlers configured, but no groups.
+     *
+     * @return the futures of the binds, one per {@link EpollEventLoop} in the order of the group.
+     */
+    public static List<ChannelFuture> bind(ServerBootstrap template, EpollEventLoopGroup group,
+                                           SocketAddress localAddress) {
+        checkNotNull(template, "template");
+        checkNotNull(group, "group");
+        checkNotNull(localAddress, "localAddress");
+        ServerBootstrapConfig config = template.config();
+        if (config.group() != null || config.childGroup() != null) {
+            throw new IllegalArgumentException("template must not have a group configured");
+        }
+
+        List<ChannelFuture> futures = new ArrayList<ChannelFuture>(group.executorCount());
+        for (EventExecutor executor : group) {
+            EventLoop loop = (EventLoop) executor;
+            futures.add(template.clone()
+                    .group(loop, loop)
+                    .option(EpollChannelOption.SO_REUSEPORT, true)
+                    .bind(localAddress));
+        }
+        return Collections.unmodifiableList(futures);
+    }
+}
@@ -35,6 +35,7 @@ import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
 public class EpollServerChannelConfig extends EpollChannelConfig implements ServerSocketChannelConfig {
     private volatile int backlog = NetUtil.SOMAXCONN;
     private volatile int pendingFastOpenRequestsThreshold;
+    private volatile int acceptBatchSize;
 
     EpollServerChannelConfig(AbstractEpollChannel channel) {
         super(channel);
@@ -42,7 +43,8 @@ public class EpollServerChannelConfig extends EpollChannelConfig implements Serv
 
     @Override
     public Map<ChannelOption<?>, Object> getOptions() {
-        return getOptions(super.getOptions(), SO_RCVBUF, SO_REUSEADDR, SO_BACKLOG, EpollChannelOption.TCP_FASTOPEN);
+        return getOptions(super.getOptions(), SO_RCVBUF, SO_REUSEADDR, SO_BACKLOG, EpollChannelOption.TCP_FASTOPEN,
+                EpollChannelOption.ACCEPT_BATCH_SIZE);
     }
 
     @SuppressWarnings("unchecked")
@@ -60,6 +62,9 @@ public class EpollServerChannelConfig extends EpollChannelConfig implements Serv
         if (option == EpollChannelOption.TCP_FASTOPEN) {
             return (T) Integer.valueOf(getTcpFastopen());
         }
+        if (option == EpollChannelOption.ACCEPT_BATCH_SIZE) {
+            return (T) Integer.valueOf(getAcceptBatchSize());
+        }
         return super.getOption(option);
     }
 
@@ -75,6 +80,8 @@ public class EpollServerChannelConfig extends EpollChannelConfig implements Serv
             setBacklog((Integer) value);
         } else if (option == EpollChannelOption.TCP_FASTOPEN) {
             setTcpFastopen((Integer) value);
+        } else if (option == EpollChannelOption.ACCEPT_BATCH_SIZE) {
+            setAcceptBatchSize((Integer) value);
         } else {
             return super.setOption(option, value);
         }
@@ -156,6 +163,26 @@ public class EpollServerChannelConfig extends EpollChannelConfig implements Serv
         return this;
     }
 
+    /**
+     * Returns the maximal number of connections that are accepted with a single call into the native code, or
+     * {@code 0} if connections are accepted one at a time.
+     */
+    public int getAcceptBatchSize() {
+        return acceptBatchSize;
+    }
+
+    /**
+     * Set the maximal number of connections that are accepted with a single call into the native code. When set to a
+     * value greater than {@code 0} the accept backlog is drained in batches, which saves a JNI transition per
+     * connection when many connections arrive at once. The number of connections accepted per read is still limited
+     * by the {@link RecvByteBufAllocator}. The default is {@code 0}, which accepts connections one at a time.
+     */
+    public EpollServerChannelConfig setAcceptBatchSize(int acceptBatchSize) {
+        checkPositiveOrZero(acceptBatchSize, "acceptBatchSize");
+        this.acceptBatchSize = acceptBatchSize;
+        return this;
+    }
+
     @Override
     public EpollServerChannelConfig setPerformancePreferences(int connectionTime, int latency, int bandwidth) {
         return this;
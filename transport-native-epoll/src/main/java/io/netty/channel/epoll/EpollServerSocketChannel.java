@@ -97,6 +97,16 @@ public final class EpollServerSocketChannel extends AbstractEpollServerChannel i
         return new EpollSocketChannel(this, new LinuxSocket(fd), address(address, offset, len));
     }
 
+    @Override
+    Channel newChildChannel(int fd, byte[] address, int offset, int len, int incomingCpu) throws Exception {
+        return new EpollSocketChannel(this, new LinuxSocket(fd), address(address, offset, len), incomingCpu);
+    }
+
+    @Override
+    boolean isIncomingCpuAffinity() {
+        return config.isIncomingCpuAffinity();
+    }
+
     Collection<InetAddress> tcpMd5SigAddresses() {
         return tcpMd5SigAddresses;
     }
@@ -29,6 +29,7 @@ import java.util.Map;
 
 public final class EpollServerSocketChannelConfig extends EpollServerChannelConfig
         implements ServerSocketChannelConfig {
+    private volatile boolean incomingCpuAffinity;
 
     EpollServerSocketChannelConfig(EpollServerSocketChannel channel) {
         super(channel);
@@ -42,7 +43,8 @@ public final class EpollServerSocketChannelConfig extends EpollServerChannelConf
     @Override
     public Map<ChannelOption<?>, Object> getOptions() {
         return getOptions(super.getOptions(), EpollChannelOption.SO_REUSEPORT, EpollChannelOption.IP_FREEBIND,
-            EpollChannelOption.IP_TRANSPARENT, EpollChannelOption.TCP_DEFER_ACCEPT);
+            EpollChannelOption.IP_TRANSPARENT, EpollChannelOption.TCP_DEFER_ACCEPT,
+            EpollChannelOption.INCOMING_CPU_AFFINITY);
     }
 
     @SuppressWarnings("unchecked")
@@ -60,6 +62,9 @@ public final class EpollServerSocketChannelConfig extends EpollServerChannelConf
         if (option == EpollChannelOption.TCP_DEFER_ACCEPT) {
             return (T) Integer.valueOf(getTcpDeferAccept());
         }
+        if (option == EpollChannelOption.INCOMING_CPU_AFFINITY) {
+            return (T) Boolean.valueOf(isIncomingCpuAffinity());
+        }
         return super.getOption(option);
     }
 
@@ -79,6 +84,8 @@ public final class EpollServerSocketChannelConfig extends EpollServerChannelConf
             setTcpMd5Sig(m);
         } else if (option == EpollChannelOption.TCP_DEFER_ACCEPT) {
             setTcpDeferAccept((Integer) value);
+        } else if (option == EpollChannelOption.INCOMING_CPU_AFFINITY) {
+            setIncomingCpuAffinity((Boolean) value);
         } else {
             return super.setOption(option, value);
         }
@@ -285,4 +292,26 @@ public final class EpollServerSocketChannelConfig extends EpollServerChannelConf
             throw new ChannelException(e);
         }
     }
+
+    /**
+     * Returns {@code true} if accepted connections are registered on the {@link EpollEventLoop} that matches the CPU
+     * which handled their packets.
+     */
+    public boolean isIncomingCpuAffinity() {
+        return incomingCpuAffinity;
+    }
+
+    /**
+     * If enabled the {@code SO_INCOMING_CPU} of every accepted connection is read while accepting it, and an
+     * {@link EpollEventLoopGroup} used as child group registers the connection on the {@link EpollEventLoop} that
+     * matches this CPU instead of picking the next one. This keeps the processing of a connection close to the
+     * receive queue of the network card that handles it. Connections are accepted in batches of
+     * {@link #getAcceptBatchSize()} (at least one) while enabled.
+     *
+     * @see EpollEventLoopGroup#register(io.netty.channel.Channel)
+     */
+    public EpollServerSocketChannelConfig setIncomingCpuAffinity(boolean incomingCpuAffinity) {
+        this.incomingCpuAffinity = incomingCpuAffinity;
+        return this;
+    }
 }
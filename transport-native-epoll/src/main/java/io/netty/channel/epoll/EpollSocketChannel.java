@@ -44,25 +44,34 @@ public final class EpollSocketChannel extends AbstractEpollStreamChannel impleme
     private final EpollSocketChannelConfig config;
 
     private volatile Collection<InetAddress> tcpMd5SigAddresses = Collections.emptyList();
+    private final int incomingCpu;
 
     public EpollSocketChannel() {
         super(newSocketStream(), false);
         config = new EpollSocketChannelConfig(this);
+        incomingCpu = -1;
     }
 
     public EpollSocketChannel(int fd) {
         super(fd);
         config = new EpollSocketChannelConfig(this);
+        incomingCpu = -1;
     }
 
     EpollSocketChannel(LinuxSocket fd, boolean active) {
         super(fd, active);
         config = new EpollSocketChannelConfig(this);
+        incomingCpu = -1;
     }
 
     EpollSocketChannel(Channel parent, LinuxSocket fd, InetSocketAddress remoteAddress) {
+        this(parent, fd, remoteAddress, -1);
+    }
+
+    EpollSocketChannel(Channel parent, LinuxSocket fd, InetSocketAddress remoteAddress, int incomingCpu) {
         super(parent, fd, remoteAddress);
         config = new EpollSocketChannelConfig(this);
+        this.incomingCpu = incomingCpu;
 
         if (parent instanceof EpollServerSocketChannel) {
             tcpMd5SigAddresses = ((EpollServerSocketChannel) parent).tcpMd5SigAddresses();
@@ -90,6 +99,44 @@ public final class EpollSocketChannel extends AbstractEpollStreamChannel impleme
         }
     }
 
+    /**
+     * Returns the number of writes that were sent with {@code MSG_ZEROCOPY} and completed without the kernel copying
+     * the data. See {@link EpollChannelOption#SO_ZEROCOPY}.
+     */
+    public long zeroCopyHits() {
+        ZeroCopyTracker tracker = zeroCopyTracker;
+        return tracker == null ? 0 : tracker.hits();
+    }
+
+    /**
+     * Returns the number of writes above the {@link EpollChannelOption#ZEROCOPY_THRESHOLD} for which the kernel fell
+     * back to copying the data, either because it could not avoid the copy for the route or because it refused to
+     * pin more memory.
+     */
+    public long zeroCopyFallbacks() {
+        ZeroCopyTracker tracker = zeroCopyTracker;
+        return tracker == null ? 0 : tracker.fallbacks();
+    }
+
+    /**
+     * Returns the CPU that handled the packets of this connection when it was accepted, or {@code -1} if it is not
+     * known. See {@link EpollChannelOption#INCOMING_CPU_AFFINITY}.
+     */
+    public int incomingCpu() {
+        return incomingCpu;
+    }
+
+    @Override
+    int writeCombiningThreshold() {
+        return config.getWriteCombiningThreshold();
+    }
+
+    @Override
+    int zeroCopyThreshold() {
+        EpollSocketChannelConfig config = this.config;
+        return config.isZeroCopy() ? config.getZeroCopyThreshold() : -1;
+    }
+
     @Override
     public InetSocketAddress remoteAddress() {
         return (InetSocketAddress) super.remoteAddress();
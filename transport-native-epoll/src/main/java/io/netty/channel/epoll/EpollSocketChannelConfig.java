@@ -36,10 +36,18 @@ import static io.netty.channel.ChannelOption.SO_RCVBUF;
 import static io.netty.channel.ChannelOption.SO_REUSEADDR;
 import static io.netty.channel.ChannelOption.SO_SNDBUF;
 import static io.netty.channel.ChannelOption.TCP_NODELAY;
+import static io.netty.util.internal.ObjectUtil.checkPositive;
+import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
 
 public final class EpollSocketChannelConfig extends EpollChannelConfig implements SocketChannelConfig {
+    // The kernel documentation states that MSG_ZEROCOPY is generally only effective for writes above around 10KB.
+    private static final int DEFAULT_ZEROCOPY_THRESHOLD = 10 * 1024;
+
     private volatile boolean allowHalfClosure;
     private volatile boolean tcpFastopen;
+    private volatile boolean zeroCopy;
+    private volatile int zeroCopyThreshold = DEFAULT_ZEROCOPY_THRESHOLD;
+    private volatile int writeCombiningThreshold;
 
     /**
      * Creates a new instance.
@@ -61,7 +69,8 @@ public final class EpollSocketChannelConfig extends EpollChannelConfig implement
                 ALLOW_HALF_CLOSURE, EpollChannelOption.TCP_CORK, EpollChannelOption.TCP_NOTSENT_LOWAT,
                 EpollChannelOption.TCP_KEEPCNT, EpollChannelOption.TCP_KEEPIDLE, EpollChannelOption.TCP_KEEPINTVL,
                 EpollChannelOption.TCP_MD5SIG, EpollChannelOption.TCP_QUICKACK, EpollChannelOption.IP_TRANSPARENT,
-                ChannelOption.TCP_FASTOPEN_CONNECT, EpollChannelOption.SO_BUSY_POLL);
+                ChannelOption.TCP_FASTOPEN_CONNECT, EpollChannelOption.SO_BUSY_POLL, EpollChannelOption.SO_ZEROCOPY,
+                EpollChannelOption.ZEROCOPY_THRESHOLD, ChannelOption.WRITE_COMBINING_THRESHOLD);
     }
 
     @SuppressWarnings("unchecked")
@@ -121,6 +130,15 @@ public final class EpollSocketChannelConfig extends EpollChannelConfig implement
         if (option == EpollChannelOption.SO_BUSY_POLL) {
             return (T) Integer.valueOf(getSoBusyPoll());
         }
+        if (option == EpollChannelOption.SO_ZEROCOPY) {
+            return (T) Boolean.valueOf(isZeroCopy());
+        }
+        if (option == EpollChannelOption.ZEROCOPY_THRESHOLD) {
+            return (T) Integer.valueOf(getZeroCopyThreshold());
+        }
+        if (option == ChannelOption.WRITE_COMBINING_THRESHOLD) {
+            return (T) Integer.valueOf(getWriteCombiningThreshold());
+        }
         return super.getOption(option);
     }
 
@@ -168,6 +186,12 @@ public final class EpollSocketChannelConfig extends EpollChannelConfig implement
             setTcpFastOpenConnect((Boolean) value);
         } else if (option == EpollChannelOption.SO_BUSY_POLL) {
             setSoBusyPoll((Integer) value);
+        } else if (option == EpollChannelOption.SO_ZEROCOPY) {
+            setZeroCopy((Boolean) value);
+        } else if (option == EpollChannelOption.ZEROCOPY_THRESHOLD) {
+            setZeroCopyThreshold((Integer) value);
+        } else if (option == ChannelOption.WRITE_COMBINING_THRESHOLD) {
+            setWriteCombiningThreshold((Integer) value);
         } else {
             return super.setOption(option, value);
         }
@@ -551,6 +575,70 @@ public final class EpollSocketChannelConfig extends EpollChannelConfig implement
         }
     }
 
+    /**
+     * Set the {@code SO_ZEROCOPY} option on the socket, which requires Linux 4.14 or later. If enabled, writes of
+     * {@link io.netty.buffer.ByteBuf}s with at least {@link #getZeroCopyThreshold()} readable bytes are sent with
+     * {@code MSG_ZEROCOPY}, so the kernel does not copy the data. The buffers are only released, and the promises of
+     * the writes notified, once the kernel signals that it no longer references the memory. Writes that follow a
+     * zerocopy write are notified afterwards to keep the notification order. If the channel is closed before the
+     * kernel signalled this, the connection is reset as if {@code SO_LINGER} was {@code 0} so the kernel drops the
+     * unsent data, and the writes are failed. See
+     * <a href="https://www.kernel.org/doc/html/latest/networking/msg_zerocopy.html">MSG_ZEROCOPY</a>.
+     */
+    public EpollSocketChannelConfig setZeroCopy(boolean zeroCopy) {
+        try {
+            ((EpollSocketChannel) channel).socket.setZeroCopy(zeroCopy);
+            this.zeroCopy = zeroCopy;
+            return this;
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    /**
+     * Returns {@code true} if writes may be sent with {@code MSG_ZEROCOPY}, {@code false} otherwise.
+     */
+    public boolean isZeroCopy() {
+        return zeroCopy;
+    }
+
+    /**
+     * Set the minimum number of readable bytes a {@link io.netty.buffer.ByteBuf} must have to be written with
+     * {@code MSG_ZEROCOPY} if {@link #setZeroCopy(boolean)} is enabled. Pinning the memory and processing the
+     * notification is more expensive than copying small buffers.
+     */
+    public EpollSocketChannelConfig setZeroCopyThreshold(int zeroCopyThreshold) {
+        this.zeroCopyThreshold = checkPositive(zeroCopyThreshold, "zeroCopyThreshold");
+        return this;
+    }
+
+    /**
+     * Returns the minimum number of readable bytes a {@link io.netty.buffer.ByteBuf} must have to be written with
+     * {@code MSG_ZEROCOPY}.
+     */
+    public int getZeroCopyThreshold() {
+        return zeroCopyThreshold;
+    }
+
+    /**
+     * Set the maximal number of readable bytes of a flushed {@link io.netty.buffer.ByteBuf} to copy it together with
+     * its neighbours into a single direct buffer before a gathering write, or {@code 0} to not combine buffers.
+     *
+     * @see ChannelOption#WRITE_COMBINING_THRESHOLD
+     */
+    public EpollSocketChannelConfig setWriteCombiningThreshold(int writeCombiningThreshold) {
+        this.writeCombiningThreshold = checkPositiveOrZero(writeCombiningThreshold, "writeCombiningThreshold");
+        return this;
+    }
+
+    /**
+     * Returns the maximal number of readable bytes of a flushed {@link io.netty.buffer.ByteBuf} to combine it with
+     * its neighbours before a gathering write, or {@code 0} if buffers are not combined.
+     */
+    public int getWriteCombiningThreshold() {
+        return writeCombiningThreshold;
+    }
+
     /**
      * Enables client TCP fast open. {@code TCP_FASTOPEN_CONNECT} normally
      * requires Linux kernel 4.11 or later, so instead we use the traditional fast open
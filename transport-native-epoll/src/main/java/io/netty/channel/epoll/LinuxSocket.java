@@ -31,7 +31,10 @@ import java.net.NetworkInterface;
 import java.net.UnknownHostException;
 import java.util.Enumeration;
 
+import static io.netty.channel.unix.Errors.ERRNO_EAGAIN_NEGATIVE;
+import static io.netty.channel.unix.Errors.ERRNO_EWOULDBLOCK_NEGATIVE;
 import static io.netty.channel.unix.Errors.ioResult;
+import static io.netty.channel.unix.Errors.newIOException;
 
 /**
  * A socket which provides access Linux native methods.
@@ -40,6 +43,9 @@ final class LinuxSocket extends Socket {
     static final InetAddress INET6_ANY = unsafeInetAddrByName("::");
     private static final InetAddress INET_ANY = unsafeInetAddrByName("0.0.0.0");
     private static final long MAX_UINT32_T = 0xFFFFFFFFL;
+    // Size of the slot every remote address occupies in the array passed to acceptBatch(...). We need 24 bytes for
+    // the address as maximum + 1 byte for storing the length, and need to stay in sync with the native code.
+    static final int ACCEPTED_ADDRESS_LENGTH = 26;
 
     LinuxSocket(int fd) {
         super(fd);
@@ -298,6 +304,62 @@ final class LinuxSocket extends Socket {
         setUdpGro(intValue(), gro ? 1 : 0);
     }
 
+    boolean isZeroCopy() throws IOException {
+        return isZeroCopy(intValue()) != 0;
+    }
+
+    void setZeroCopy(boolean zeroCopy) throws IOException {
+        setZeroCopy(intValue(), zeroCopy ? 1 : 0);
+    }
+
+    /**
+     * Writes the given iovecs with {@code MSG_ZEROCOPY}. Returns the number of written bytes, {@code 0} if the socket
+     * can not accept more data right now or {@code -1} if the kernel refused to pin more memory, in which case the
+     * data must be written with a copying write instead.
+     */
+    long sendmsgZeroCopy(long memoryAddress, int length) throws IOException {
+        long res = sendmsgZeroCopy(intValue(), memoryAddress, length);
+        if (res >= 0) {
+            return res;
+        }
+        if (res == Native.ERRNO_ENOBUFS_NEGATIVE) {
+            return -1;
+        }
+        return ioResult("sendmsg", (int) res);
+    }
+
+    /**
+     * Reads the next {@code MSG_ZEROCOPY} notification from the error queue. Returns {@code -1} if there is none, see
+     * {@link ZeroCopyTracker#complete(long)} for how the notification is encoded.
+     */
+    long recvZeroCopyNotification() throws IOException {
+        long res = recvZeroCopyNotification(intValue());
+        if (res >= 0) {
+            return res;
+        }
+        if (res == ERRNO_EAGAIN_NEGATIVE || res == ERRNO_EWOULDBLOCK_NEGATIVE) {
+            return -1;
+        }
+        throw newIOException("recvmsg", (int) res);
+    }
+
+    /**
+     * Accepts up to {@code results.length / 2} connections. The fd of the n-th connection is stored at
+     * {@code results[n * 2]}, followed by the value of {@code SO_INCOMING_CPU} (or {@code -1} if it was not requested
+     * or is unknown), while its remote address is stored at {@code acceptedAddresses[n * ACCEPTED_ADDRESS_LENGTH]} in
+     * the format used by {@link #accept(byte[])}. Returns the number of accepted connections.
+     */
+    int acceptBatch(byte[] acceptedAddresses, int[] results, boolean incomingCpu) throws IOException {
+        int res = acceptBatch(intValue(), acceptedAddresses, results, incomingCpu);
+        if (res >= 0) {
+            return res;
+        }
+        if (res == ERRNO_EAGAIN_NEGATIVE || res == ERRNO_EWOULDBLOCK_NEGATIVE) {
+            return 0;
+        }
+        throw newIOException("accept", res);
+    }
+
     long sendFile(DefaultFileRegion src, long baseOffset, long offset, long length) throws IOException {
         // Open the file-region as it may be created via the lazy constructor. This is needed as we directly access
         // the FileChannel field via JNI.
@@ -403,4 +465,9 @@ final class LinuxSocket extends Socket {
     private static native void setTimeToLive(int fd, int ttl) throws IOException;
     private static native int isUdpGro(int fd) throws IOException;
     private static native void setUdpGro(int fd, int gro) throws IOException;
+    private static native int isZeroCopy(int fd) throws IOException;
+    private static native void setZeroCopy(int fd, int zeroCopy) throws IOException;
+    private static native long sendmsgZeroCopy(int fd, long memoryAddress, int length);
+    private static native long recvZeroCopyNotification(int fd);
+    private static native int acceptBatch(int fd, byte[] acceptedAddresses, int[] results, boolean incomingCpu);
 }
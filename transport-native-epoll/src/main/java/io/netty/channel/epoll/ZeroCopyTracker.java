@@ -0,0 +1,178 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.VoidChannelPromise;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.internal.PromiseNotificationUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.util.ArrayDeque;
+
+/**
+ * Keeps track of the {@code MSG_ZEROCOPY} sends of a socket.
+ * <p>
+ * The kernel assigns consecutive ids to the sends and reports ranges of them as complete once it no longer references
+ * the memory. Messages written to the socket are handed over to this tracker instead of being released, and are only
+ * released and have their promises notified once all sends made up to the point they were written are complete. This
+ * keeps the promises of a channel completing in the order the messages were written.
+ */
+final class ZeroCopyTracker {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(ZeroCopyTracker.class);
+    private static final int INITIAL_CAPACITY = 16;
+
+    // completed[id & (completed.length - 1)] is true if the send completed while an older one is still outstanding.
+    private boolean[] completed = new boolean[INITIAL_CAPACITY];
+    private final ArrayDeque<Pending> pending = new ArrayDeque<Pending>();
+
+    // Id of the oldest send that is not complete yet.
+    private int headId;
+    // Id the kernel assigns to the next send.
+    private int nextId;
+
+    private volatile long hits;
+    private volatile long fallbacks;
+
+    /**
+     * Returns {@code true} if there are no outstanding sends.
+     */
+    boolean isEmpty() {
+        return headId == nextId;
+    }
+
+    /**
+     * Records a send that was accepted by the kernel.
+     */
+    void sent() {
+        if (nextId - headId == completed.length) {
+            grow();
+        }
+        completed[nextId & completed.length - 1] = false;
+        nextId++;
+    }
+
+    /**
+     * Records a large write that had to be copied because the kernel refused to pin more memory.
+     */
+    void fallback() {
+        fallbacks++;
+    }
+
+    /**
+     * Takes over the ownership of a written message, which is released and has its promise notified once all sends
+     * recorded so far are complete.
+     */
+    void add(Object msg, ChannelPromise promise) {
+        assert !isEmpty();
+        pending.add(new Pending(msg, promise, nextId - 1));
+    }
+
+    /**
+     * Marks the sends reported by the given notification as complete and notifies everything that no longer waits on
+     * the kernel. The notification packs the first id in its lower 32 bits, the distance to the last id in bits 32 to
+     * 61 and sets bit 62 if the kernel copied the data instead.
+     */
+    void complete(long notification) {
+        int lo = (int) notification;
+        int hi = lo + (int) (notification >>> 32 & 0x3FFFFFFF);
+        long count = (long) hi - lo + 1;
+        if ((notification & 1L << 62) != 0) {
+            fallbacks += count;
+        } else {
+            hits += count;
+        }
+
+        // Only mark ids we still wait for, everything else was either completed or failed before.
+        int start = lo - headId > 0 ? lo : headId;
+        int end = hi - nextId < 0 ? hi : nextId - 1;
+        int mask = completed.length - 1;
+        for (int id = start; id - end <= 0; id++) {
+            completed[id & mask] = true;
+        }
+        while (headId != nextId && completed[headId & mask]) {
+            completed[headId & mask] = false;
+            headId++;
+        }
+
+        for (;;) {
+            Pending p = pending.peek();
+            if (p == null || p.id - headId >= 0) {
+                break;
+            }
+            // Remove before notifying as the listeners may write again.
+            pending.poll();
+            ReferenceCountUtil.safeRelease(p.msg);
+            PromiseNotificationUtil.trySuccess(p.promise, null,
+                    p.promise instanceof VoidChannelPromise ? null : logger);
+        }
+    }
+
+    /**
+     * Releases all messages and fails their promises, which is used once the socket is closed and no notifications
+     * will arrive anymore.
+     */
+    void fail(Throwable cause) {
+        headId = nextId;
+        for (;;) {
+            Pending p = pending.poll();
+            if (p == null) {
+                break;
+            }
+            ReferenceCountUtil.safeRelease(p.msg);
+            PromiseNotificationUtil.tryFailure(p.promise, cause,
+                    p.promise instanceof VoidChannelPromise ? null : logger);
+        }
+    }
+
+    /**
+     * Returns the number of sends the kernel completed without copying the data.
+     */
+    long hits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of sends for which the kernel fell back to copying the data.
+     */
+    long fallbacks() {
+        return fallbacks;
+    }
+
+    private void grow() {
+        boolean[] newCompleted = new boolean[completed.length << 1];
+        int mask = completed.length - 1;
+        int newMask = newCompleted.length - 1;
+        for (int id = headId; id != nextId; id++) {
+            newCompleted[id & newMask] = completed[id & mask];
+        }
+        completed = newCompleted;
+    }
+
+    private static final class Pending {
+        final Object msg;
+        final ChannelPromise promise;
+        // Id of the last send made before the message was written.
+        final int id;
+
+        Pending(Object msg, ChannelPromise promise, int id) {
+            this.msg = msg;
+            this.promise = promise;
+            this.id = id;
+        }
+    }
+}
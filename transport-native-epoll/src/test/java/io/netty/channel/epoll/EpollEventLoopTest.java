@@ -19,16 +19,21 @@ import io.netty.channel.DefaultSelectStrategyFactory;
 import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.ServerChannel;
+import io.netty.channel.SpinWaitSelectStrategy;
+import io.netty.channel.SpinWaitSelectStrategyFactory;
 import io.netty.channel.socket.ServerSocketChannel;
 import io.netty.channel.unix.FileDescriptor;
 import io.netty.testsuite.transport.AbstractSingleThreadEventLoopTest;
 import io.netty.util.concurrent.DefaultThreadFactory;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.RejectedExecutionHandlers;
+import io.netty.util.concurrent.SingleThreadEventExecutorMetrics;
 import io.netty.util.concurrent.ThreadPerTaskExecutor;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
 
 import java.io.IOException;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
@@ -86,6 +91,69 @@ public class EpollEventLoopTest extends AbstractSingleThreadEventLoopTest {
         }
     }
 
+    @Test
+    public void testSpinThenPark() throws Exception {
+        SpinWaitSelectStrategyFactory factory = SpinWaitSelectStrategyFactory.spinThenPark(
+                1, 1, TimeUnit.MILLISECONDS);
+        EventLoopGroup group = new EpollEventLoopGroup(1, (ThreadFactory) null, factory);
+        try {
+            final EventLoop eventLoop = group.next();
+            final AtomicInteger counter = new AtomicInteger();
+            Runnable task = new Runnable() {
+                @Override
+                public void run() {
+                    counter.incrementAndGet();
+                }
+            };
+            eventLoop.submit(task).syncUninterruptibly();
+            // Give the loop time to use up its budgets and park, so the scheduled task needs the timer to run.
+            eventLoop.schedule(task, 50, TimeUnit.MILLISECONDS).syncUninterruptibly();
+            eventLoop.submit(task).syncUninterruptibly();
+            assertEquals(3, counter.get());
+
+            SpinWaitSelectStrategy strategy = (SpinWaitSelectStrategy) ((EpollEventLoop) eventLoop).selectStrategy();
+            assertTrue(strategy.parks() > 0);
+            assertTrue(strategy.spinTimeNanos() > 0);
+        } finally {
+            group.shutdownGracefully();
+        }
+    }
+
+    @Test
+    @Timeout(value = 5000, unit = TimeUnit.MILLISECONDS)
+    public void testMetrics() throws Exception {
+        EpollEventLoopGroup group = new EpollEventLoopGroup(1);
+        try {
+            EpollEventLoop eventLoop = (EpollEventLoop) group.next();
+            Runnable task = new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        Thread.sleep(10);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            };
+            eventLoop.submit(task).syncUninterruptibly();
+            // Give the loop time to block in epoll_wait, so the task needs to wake it up via the eventfd.
+            Thread.sleep(100);
+            eventLoop.submit(task).syncUninterruptibly();
+
+            SingleThreadEventExecutorMetrics metrics = eventLoop.metrics();
+            // The task time is recorded once the loop is done with the tasks, which may be after the future completed.
+            while (metrics.taskTimeNanos() < TimeUnit.MILLISECONDS.toNanos(20)) {
+                Thread.sleep(10);
+            }
+            assertTrue(metrics.wakeups() > 0);
+            assertTrue(metrics.readyChannels().count() > 0);
+            assertTrue(metrics.taskWaitTime().count() > 0);
+            assertEquals(0, metrics.pendingTasks());
+        } finally {
+            group.shutdownGracefully();
+        }
+    }
+
     @Test
     public void testEventFDETSemantics() throws Throwable {
         final FileDescriptor epoll = Native.newEpollCreate();
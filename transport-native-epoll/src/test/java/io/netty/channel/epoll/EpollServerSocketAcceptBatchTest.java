@@ -0,0 +1,221 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoop;
+import io.netty.util.NetUtil;
+import io.netty.util.concurrent.EventExecutor;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.function.Executable;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EpollServerSocketAcceptBatchTest {
+    private static final int CONNECTIONS = 32;
+
+    private static EpollEventLoopGroup group;
+
+    @BeforeAll
+    public static void beforeClass() {
+        group = new EpollEventLoopGroup(4);
+    }
+
+    @AfterAll
+    public static void afterClass() {
+        group.shutdownGracefully();
+    }
+
+    @Test
+    @Timeout(value = 30000, unit = TimeUnit.MILLISECONDS)
+    public void testAcceptBatch() throws Throwable {
+        testAccept(false);
+    }
+
+    @Test
+    @Timeout(value = 30000, unit = TimeUnit.MILLISECONDS)
+    public void testIncomingCpuAffinity() throws Throwable {
+        testAccept(true);
+    }
+
+    private static void testAccept(final boolean incomingCpuAffinity) throws Throwable {
+        final Queue<Throwable> errors = new ConcurrentLinkedQueue<Throwable>();
+        final CountDownLatch latch = new CountDownLatch(CONNECTIONS);
+        final EventLoop[] loops = loops();
+        Channel sc = new ServerBootstrap()
+                .group(group.next(), group)
+                .channel(EpollServerSocketChannel.class)
+                .option(EpollChannelOption.ACCEPT_BATCH_SIZE, 8)
+                .option(EpollChannelOption.INCOMING_CPU_AFFINITY, incomingCpuAffinity)
+                .childHandler(new AcceptedHandler(latch, errors) {
+                    @Override
+                    void check(EpollSocketChannel ch) {
+                        assertTrue(ch.remoteAddress().getAddress().isLoopbackAddress());
+                        if (incomingCpuAffinity) {
+                            if (ch.incomingCpu() >= 0) {
+                                assertSame(loops[ch.incomingCpu() % loops.length], ch.eventLoop());
+                            }
+                        } else {
+                            assertEquals(-1, ch.incomingCpu());
+                        }
+                    }
+                })
+                .bind(new InetSocketAddress(NetUtil.LOCALHOST4, 0)).sync().channel();
+
+        List<Channel> clients = new ArrayList<Channel>();
+        try {
+            Bootstrap cb = new Bootstrap()
+                    .group(group)
+                    .channel(EpollSocketChannel.class)
+                    .handler(ClientHandler.INSTANCE);
+            for (int i = 0; i < CONNECTIONS; i++) {
+                clients.add(cb.connect(sc.localAddress()).sync().channel());
+            }
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            assertNull(errors.poll());
+        } finally {
+            for (Channel client : clients) {
+                client.close().sync();
+            }
+            sc.close().sync();
+        }
+    }
+
+    @Test
+    @Timeout(value = 30000, unit = TimeUnit.MILLISECONDS)
+    public void testReusePortBinder() throws Throwable {
+        Channel first = new ServerBootstrap()
+                .group(group)
+                .channel(EpollServerSocketChannel.class)
+                .option(EpollChannelOption.SO_REUSEPORT, true)
+                .childHandler(new ChannelInboundHandlerAdapter())
+                .bind(new InetSocketAddress(NetUtil.LOCALHOST4, 0)).sync().channel();
+        InetSocketAddress address = (InetSocketAddress) first.localAddress();
+        first.close().sync();
+
+        final CountDownLatch latch = new CountDownLatch(CONNECTIONS);
+        final Queue<Throwable> errors = new ConcurrentLinkedQueue<Throwable>();
+        ServerBootstrap template = new ServerBootstrap()
+                .channel(EpollServerSocketChannel.class)
+                .childHandler(new AcceptedHandler(latch, errors) {
+                    @Override
+                    void check(EpollSocketChannel ch) {
+                        // The connection must be served by the loop that accepted it.
+                        assertSame(ch.parent().eventLoop(), ch.eventLoop());
+                    }
+                });
+        List<ChannelFuture> futures = EpollReusePortBinder.bind(template, group, address);
+        EventLoop[] loops = loops();
+        assertEquals(loops.length, futures.size());
+
+        List<Channel> clients = new ArrayList<Channel>();
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                Channel server = futures.get(i).sync().channel();
+                assertSame(loops[i], server.eventLoop());
+                assertTrue(((EpollServerSocketChannel) server).config().isReusePort());
+            }
+            Bootstrap cb = new Bootstrap()
+                    .group(group)
+                    .channel(EpollSocketChannel.class)
+                    .handler(ClientHandler.INSTANCE);
+            for (int i = 0; i < CONNECTIONS; i++) {
+                clients.add(cb.connect(address).sync().channel());
+            }
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            assertNull(errors.poll());
+        } finally {
+            for (Channel client : clients) {
+                client.close().sync();
+            }
+            for (ChannelFuture future : futures) {
+                future.channel().close().sync();
+            }
+        }
+    }
+
+    @Test
+    public void testReusePortBinderRejectsConfiguredGroup() {
+        final ServerBootstrap template = new ServerBootstrap()
+                .group(group)
+                .channel(EpollServerSocketChannel.class)
+                .childHandler(new ChannelInboundHandlerAdapter());
+        assertThrows(IllegalArgumentException.class, new Executable() {
+            @Override
+            public void execute() {
+                EpollReusePortBinder.bind(template, group, new InetSocketAddress(NetUtil.LOCALHOST4, 0));
+            }
+        });
+    }
+
+    @Sharable
+    private static final class ClientHandler extends ChannelInboundHandlerAdapter {
+        static final ClientHandler INSTANCE = new ClientHandler();
+    }
+
+    @Sharable
+    private abstract static class AcceptedHandler extends ChannelInboundHandlerAdapter {
+        private final CountDownLatch latch;
+        private final Queue<Throwable> errors;
+
+        AcceptedHandler(CountDownLatch latch, Queue<Throwable> errors) {
+            this.latch = latch;
+            this.errors = errors;
+        }
+
+        abstract void check(EpollSocketChannel ch);
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) {
+            try {
+                check((EpollSocketChannel) ctx.channel());
+            } catch (Throwable cause) {
+                errors.add(cause);
+            }
+            latch.countDown();
+        }
+    }
+
+    private static EventLoop[] loops() {
+        EventLoop[] loops = new EventLoop[group.executorCount()];
+        int i = 0;
+        for (EventExecutor executor : group) {
+            loops[i++] = (EventLoop) executor;
+        }
+        return loops;
+    }
+}
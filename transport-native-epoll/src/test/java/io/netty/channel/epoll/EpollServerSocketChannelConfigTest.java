@@ -81,6 +81,25 @@ public class EpollServerSocketChannelConfigTest {
         assertTrue(ch.config().isFreeBind());
     }
 
+    @Test
+    public void testAcceptBatchSize() {
+        assertEquals(0, ch.config().getAcceptBatchSize());
+        ch.config().setAcceptBatchSize(16);
+        assertEquals(16, ch.config().getAcceptBatchSize());
+        assertEquals(16, (int) ch.config().getOption(EpollChannelOption.ACCEPT_BATCH_SIZE));
+        ch.config().setAcceptBatchSize(0);
+        assertEquals(0, ch.config().getAcceptBatchSize());
+    }
+
+    @Test
+    public void testIncomingCpuAffinity() {
+        assertFalse(ch.config().isIncomingCpuAffinity());
+        ch.config().setOption(EpollChannelOption.INCOMING_CPU_AFFINITY, true);
+        assertTrue(ch.config().isIncomingCpuAffinity());
+        ch.config().setIncomingCpuAffinity(false);
+        assertFalse(ch.config().isIncomingCpuAffinity());
+    }
+
     @Test
     public void getGetOptions() {
         Map<ChannelOption<?>, Object> map = ch.config().getOptions();
@@ -25,8 +25,10 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
 import org.opentest4j.TestAbortedException;
 
+import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.channels.ClosedChannelException;
 import java.util.Map;
@@ -34,6 +36,7 @@ import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -136,6 +139,39 @@ public class EpollSocketChannelConfigTest {
         assertTrue(ch.config().isTcpQuickAck());
     }
 
+    @Test
+    public void testZeroCopy() throws IOException {
+        assertFalse(ch.config().isZeroCopy());
+        assertTrue(ch.config().setOption(EpollChannelOption.SO_ZEROCOPY, true));
+        assertTrue(ch.config().getOption(EpollChannelOption.SO_ZEROCOPY));
+        assertTrue(ch.socket.isZeroCopy());
+        ch.config().setZeroCopy(false);
+        assertFalse(ch.config().isZeroCopy());
+        assertFalse(ch.socket.isZeroCopy());
+
+        assertTrue(ch.config().setOption(EpollChannelOption.ZEROCOPY_THRESHOLD, 64 * 1024));
+        assertEquals(64 * 1024, (int) ch.config().getOption(EpollChannelOption.ZEROCOPY_THRESHOLD));
+        assertThrows(IllegalArgumentException.class, new Executable() {
+            @Override
+            public void execute() {
+                ch.config().setZeroCopyThreshold(0);
+            }
+        });
+    }
+
+    @Test
+    public void testWriteCombiningThreshold() {
+        assertEquals(0, ch.config().getWriteCombiningThreshold());
+        assertTrue(ch.config().setOption(ChannelOption.WRITE_COMBINING_THRESHOLD, 1024));
+        assertEquals(1024, (int) ch.config().getOption(ChannelOption.WRITE_COMBINING_THRESHOLD));
+        assertThrows(IllegalArgumentException.class, new Executable() {
+            @Override
+            public void execute() {
+                ch.config().setWriteCombiningThreshold(-1);
+            }
+        });
+    }
+
     @Test
     public void testSetOptionWhenClosed() {
         ch.close().syncUninterruptibly();
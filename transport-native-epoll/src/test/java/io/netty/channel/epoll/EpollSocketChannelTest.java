@@ -16,14 +16,27 @@
 package io.netty.channel.epoll;
 
 import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ScratchRecvByteBufAllocator;
+import io.netty.util.CharsetUtil;
+import io.netty.util.NetUtil;
 
 import org.junit.jupiter.api.Test;
 
+import java.io.OutputStream;
 import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -66,6 +79,45 @@ public class EpollSocketChannelTest {
         }
     }
 
+    @Test
+    public void testReadIntoScratchBuffer() throws Exception {
+        EventLoopGroup group = new EpollEventLoopGroup(1);
+        final BlockingQueue<ByteBuf> received = new LinkedBlockingQueue<ByteBuf>();
+        try {
+            ServerBootstrap sb = new ServerBootstrap();
+            sb.group(group).channel(EpollServerSocketChannel.class);
+            sb.childOption(ChannelOption.RCVBUF_ALLOCATOR, new ScratchRecvByteBufAllocator());
+            sb.childHandler(new ChannelInboundHandlerAdapter() {
+                @Override
+                public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                    received.add((ByteBuf) msg);
+                }
+            });
+            SocketAddress address = sb.bind(0).sync().channel().localAddress();
+
+            Socket s = new Socket(NetUtil.LOCALHOST, ((InetSocketAddress) address).getPort());
+            try {
+                OutputStream out = s.getOutputStream();
+                out.write("hello".getBytes(CharsetUtil.US_ASCII));
+                out.flush();
+
+                ByteBuf buf = received.poll(5, TimeUnit.SECONDS);
+                assertNotNull(buf);
+                try {
+                    // Only the received bytes are kept.
+                    assertEquals("hello", buf.toString(CharsetUtil.US_ASCII));
+                    assertEquals(buf.readableBytes(), buf.capacity());
+                } finally {
+                    buf.release();
+                }
+            } finally {
+                s.close();
+            }
+        } finally {
+            group.shutdownGracefully();
+        }
+    }
+
     private static void assertTcpInfo0(EpollTcpInfo info) throws Exception {
         assertNotNull(info);
 
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.util.NetUtil;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.channels.ClosedChannelException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+public class EpollSocketZeroCopyTest {
+    private static EventLoopGroup group;
+
+    @BeforeAll
+    public static void beforeClass() {
+        group = new EpollEventLoopGroup(2);
+    }
+
+    @AfterAll
+    public static void afterClass() {
+        group.shutdownGracefully();
+    }
+
+    @Test
+    @Timeout(value = 30000, unit = TimeUnit.MILLISECONDS)
+    public void testZeroCopyWrite() throws Throwable {
+        byte[] small = new byte[128];
+        byte[] large = new byte[4 * 1024 * 1024];
+        Random random = new Random();
+        random.nextBytes(small);
+        random.nextBytes(large);
+
+        final ByteBuf expected = Unpooled.buffer().writeBytes(small).writeBytes(large).writeBytes(small);
+        final ByteBuf received = Unpooled.buffer(expected.readableBytes());
+        final CountDownLatch receivedLatch = new CountDownLatch(1);
+
+        Channel sc = new ServerBootstrap()
+                .group(group)
+                .channel(EpollServerSocketChannel.class)
+                .childHandler(new SimpleChannelInboundHandler<ByteBuf>() {
+                    @Override
+                    protected void channelRead0(ChannelHandlerContext ctx, ByteBuf msg) {
+                        received.writeBytes(msg);
+                        if (received.readableBytes() == expected.readableBytes()) {
+                            receivedLatch.countDown();
+                        }
+                    }
+                })
+                .bind(new InetSocketAddress(NetUtil.LOCALHOST4, 0)).sync().channel();
+
+        EpollSocketChannel cc = (EpollSocketChannel) new Bootstrap()
+                .group(group)
+                .channel(EpollSocketChannel.class)
+                .option(EpollChannelOption.SO_ZEROCOPY, true)
+                .option(EpollChannelOption.ZEROCOPY_THRESHOLD, 1024)
+                .handler(new ChannelInboundHandlerAdapter())
+                .connect(sc.localAddress()).sync().channel();
+        try {
+            final List<Integer> completed = new CopyOnWriteArrayList<Integer>();
+            final CountDownLatch completedLatch = new CountDownLatch(3);
+            final ByteBuf largeBuf = Unpooled.directBuffer(large.length).writeBytes(large);
+            ChannelFuture f1 = cc.write(Unpooled.directBuffer().writeBytes(small)).addListener(
+                    new CompletionListener(completed, completedLatch, 1));
+            ChannelFuture f2 = cc.write(largeBuf).addListener(new CompletionListener(completed, completedLatch, 2));
+            ChannelFuture f3 = cc.writeAndFlush(Unpooled.directBuffer().writeBytes(small)).addListener(
+                    new CompletionListener(completed, completedLatch, 3));
+
+            f1.sync();
+            f2.sync();
+            f3.sync();
+            assertTrue(completedLatch.await(10, TimeUnit.SECONDS));
+            // The large buffer must not be released before the kernel signalled it is done with it, at which point
+            // its promise is notified.
+            assertEquals(0, largeBuf.refCnt());
+            assertEquals(3, completed.size());
+            assertEquals(1, (int) completed.get(0));
+            assertEquals(2, (int) completed.get(1));
+            assertEquals(3, (int) completed.get(2));
+
+            assertTrue(receivedLatch.await(10, TimeUnit.SECONDS));
+            assertEquals(expected, received);
+            // Loopback delivery always copies, so the sends may be counted as fallbacks.
+            assertTrue(cc.zeroCopyHits() + cc.zeroCopyFallbacks() > 0);
+        } finally {
+            cc.close().sync();
+            sc.close().sync();
+            expected.release();
+            received.release();
+        }
+    }
+
+    @Test
+    @Timeout(value = 30000, unit = TimeUnit.MILLISECONDS)
+    public void testCloseWithOutstandingZeroCopyWrites() throws Throwable {
+        ServerSocket ss = new ServerSocket();
+        ss.bind(new InetSocketAddress(NetUtil.LOCALHOST4, 0));
+        final EpollSocketChannel cc = (EpollSocketChannel) new Bootstrap()
+                .group(group)
+                .channel(EpollSocketChannel.class)
+                .option(EpollChannelOption.SO_ZEROCOPY, true)
+                .option(EpollChannelOption.ZEROCOPY_THRESHOLD, 1024)
+                .handler(new ChannelInboundHandlerAdapter())
+                .connect(ss.getLocalSocketAddress()).sync().channel();
+        Socket peer = ss.accept();
+        ByteBuf[] bufs = new ByteBuf[64];
+        ChannelFuture[] futures = new ChannelFuture[bufs.length];
+        try {
+            // The peer does not read, so the kernel can not complete the sends that do not fit its receive window.
+            for (int i = 0; i < bufs.length; i++) {
+                bufs[i] = Unpooled.directBuffer(64 * 1024).writeZero(64 * 1024);
+                futures[i] = cc.write(bufs[i]);
+            }
+            cc.flush();
+            while (!cc.eventLoop().submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() {
+                    ZeroCopyTracker tracker = cc.zeroCopyTracker;
+                    return tracker != null && !tracker.isEmpty();
+                }
+            }).get()) {
+                Thread.sleep(10);
+            }
+
+            cc.close().sync();
+            int failed = 0;
+            for (int i = 0; i < bufs.length; i++) {
+                futures[i].await();
+                // The buffers are only released once the kernel no longer sends from them.
+                assertEquals(0, bufs[i].refCnt());
+                if (!futures[i].isSuccess()) {
+                    assertTrue(futures[i].cause() instanceof ClosedChannelException);
+                    failed++;
+                }
+            }
+            assertTrue(failed > 0);
+
+            // The connection was aborted, so the peer sees a reset instead of the end of the stream.
+            InputStream in = peer.getInputStream();
+            byte[] bytes = new byte[64 * 1024];
+            try {
+                while (in.read(bytes) != -1) {
+                    // Drain
+                }
+                fail();
+            } catch (SocketException expected) {
+                // expected
+            }
+        } finally {
+            cc.close().sync();
+            peer.close();
+            ss.close();
+        }
+    }
+
+    private static final class CompletionListener implements ChannelFutureListener {
+        private final List<Integer> completed;
+        private final CountDownLatch latch;
+        private final int id;
+
+        CompletionListener(List<Integer> completed, CountDownLatch latch, int id) {
+            this.completed = completed;
+            this.latch = latch;
+            this.id = id;
+        }
+
+        @Override
+        public void operationComplete(ChannelFuture future) {
+            if (future.isSuccess()) {
+                completed.add(id);
+            }
+            latch.countDown();
+        }
+    }
+}
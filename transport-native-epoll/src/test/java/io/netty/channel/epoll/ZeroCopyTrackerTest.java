@@ -0,0 +1,139 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.channels.ClosedChannelException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ZeroCopyTrackerTest {
+    private EmbeddedChannel channel;
+
+    @BeforeEach
+    public void setup() {
+        channel = new EmbeddedChannel();
+    }
+
+    @AfterEach
+    public void teardown() {
+        channel.finishAndReleaseAll();
+    }
+
+    private static long notification(int lo, int hi, boolean copied) {
+        return (lo & 0xFFFFFFFFL) | (long) (hi - lo) << 32 | (copied ? 1L << 62 : 0);
+    }
+
+    @Test
+    public void testCompleteInOrder() {
+        ZeroCopyTracker tracker = new ZeroCopyTracker();
+        assertTrue(tracker.isEmpty());
+
+        ByteBuf buf1 = Unpooled.buffer();
+        ByteBuf buf2 = Unpooled.buffer();
+        ChannelPromise p1 = new DefaultChannelPromise(channel);
+        ChannelPromise p2 = new DefaultChannelPromise(channel);
+
+        tracker.sent();
+        tracker.add(buf1, p1);
+        tracker.sent();
+        tracker.sent();
+        tracker.add(buf2, p2);
+        assertFalse(tracker.isEmpty());
+
+        tracker.complete(notification(0, 0, false));
+        assertTrue(p1.isSuccess());
+        assertEquals(0, buf1.refCnt());
+        assertFalse(p2.isDone());
+        assertEquals(1, buf2.refCnt());
+
+        tracker.complete(notification(1, 2, true));
+        assertTrue(p2.isSuccess());
+        assertEquals(0, buf2.refCnt());
+        assertTrue(tracker.isEmpty());
+
+        assertEquals(1, tracker.hits());
+        assertEquals(2, tracker.fallbacks());
+    }
+
+    @Test
+    public void testCompleteOutOfOrder() {
+        ZeroCopyTracker tracker = new ZeroCopyTracker();
+        ChannelPromise p1 = new DefaultChannelPromise(channel);
+        ChannelPromise p2 = new DefaultChannelPromise(channel);
+
+        tracker.sent();
+        tracker.add(Unpooled.EMPTY_BUFFER, p1);
+        tracker.sent();
+        tracker.add(Unpooled.EMPTY_BUFFER, p2);
+
+        // The second send completes first, but the promises must still be notified in order.
+        tracker.complete(notification(1, 1, false));
+        assertFalse(p1.isDone());
+        assertFalse(p2.isDone());
+
+        tracker.complete(notification(0, 0, false));
+        assertTrue(p1.isSuccess());
+        assertTrue(p2.isSuccess());
+        assertTrue(tracker.isEmpty());
+    }
+
+    @Test
+    public void testManyOutstandingSends() {
+        ZeroCopyTracker tracker = new ZeroCopyTracker();
+        ChannelPromise[] promises = new ChannelPromise[100];
+        for (int i = 0; i < promises.length; i++) {
+            promises[i] = new DefaultChannelPromise(channel);
+            tracker.sent();
+            tracker.add(Unpooled.EMPTY_BUFFER, promises[i]);
+        }
+        // Complete all but the first send, this requires the tracker to grow.
+        tracker.complete(notification(1, promises.length - 1, false));
+        for (ChannelPromise promise : promises) {
+            assertFalse(promise.isDone());
+        }
+        tracker.complete(notification(0, 0, false));
+        for (ChannelPromise promise : promises) {
+            assertTrue(promise.isSuccess());
+        }
+        assertTrue(tracker.isEmpty());
+    }
+
+    @Test
+    public void testFail() {
+        ZeroCopyTracker tracker = new ZeroCopyTracker();
+        ByteBuf buf = Unpooled.buffer();
+        ChannelPromise promise = new DefaultChannelPromise(channel);
+        tracker.sent();
+        tracker.add(buf, promise);
+
+        ClosedChannelException cause = new ClosedChannelException();
+        tracker.fail(cause);
+        assertEquals(0, buf.refCnt());
+        assertEquals(cause, promise.cause());
+        assertTrue(tracker.isEmpty());
+    }
+}
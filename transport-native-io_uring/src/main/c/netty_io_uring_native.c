@@ -0,0 +1,506 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+#define _GNU_SOURCE
+#include <jni.h>
+#include <stdint.h>
+#include <stdlib.h>
+#include <string.h>
+#include <errno.h>
+#include <fcntl.h>
+#include <poll.h>
+#include <stddef.h>
+#include <unistd.h>
+#include <netinet/in.h>
+#include <sys/eventfd.h>
+#include <sys/mman.h>
+#include <sys/socket.h>
+#include <sys/types.h>
+#include <sys/uio.h>
+// Needed to be able to use syscalls directly and so not depend on newer GLIBC versions
+#include <sys/syscall.h>
+#include <linux/time_types.h>
+#include <linux/io_uring.h>
+
+#include "netty_io_uring_linuxsocket.h"
+#include "netty_unix_errors.h"
+#include "netty_unix_jni.h"
+#include "netty_unix_util.h"
+#include "netty_unix.h"
+
+// Add define if NETTY_BUILD_STATIC is defined so it is picked up in netty_jni_util.c
+#ifdef NETTY_BUILD_STATIC
+#define NETTY_JNI_UTIL_BUILD_STATIC
+#endif
+
+#define STATICALLY_CLASSNAME "io/netty/channel/uring/NativeStaticallyReferencedJniMethods"
+#define NATIVE_CLASSNAME "io/netty/channel/uring/Native"
+
+// All linux syscall numbers are stable so this is safe.
+#ifndef __NR_io_uring_setup
+#define __NR_io_uring_setup 425
+#endif
+
+#ifndef __NR_io_uring_enter
+#define __NR_io_uring_enter 426
+#endif
+
+// POLLRDHUP is only defined if _GNU_SOURCE is defined before poll.h is included the first time.
+#ifndef POLLRDHUP
+#define POLLRDHUP 0x2000
+#endif
+
+// The number of values returned by ioUringSetup(...), this must match the layout expected by RingBuffer.
+#define RING_VALUES 19
+
+static const char* staticPackagePrefix = NULL;
+static int register_unix_called = 0;
+
+static int sys_io_uring_setup(unsigned entries, struct io_uring_params* p) {
+    return (int) syscall(__NR_io_uring_setup, entries, p);
+}
+
+static int sys_io_uring_enter(int fd, unsigned to_submit, unsigned min_complete, unsigned flags) {
+    return (int) syscall(__NR_io_uring_enter, fd, to_submit, min_complete, flags, NULL, 0);
+}
+
+static jint nettyBlockingSocket(JNIEnv* env, int type, jboolean ipv6) {
+    // Sockets used with io_uring are blocking on purpose: io_uring tries the operation non-blocking first and arms an
+    // internal poll if it would block. A O_NONBLOCK socket would make some kernels return -EAGAIN to us instead.
+    int domain = ipv6 == JNI_TRUE ? AF_INET6 : AF_INET;
+    int fd = socket(domain, type | SOCK_CLOEXEC, 0);
+    if (fd == -1) {
+        return -errno;
+    }
+    if (domain == AF_INET6) {
+        // Try to allow listen /connect ipv4 and ipv6
+        int optval = 0;
+        if (setsockopt(fd, IPPROTO_IPV6, IPV6_V6ONLY, &optval, sizeof(optval)) < 0 && errno != EAFNOSUPPORT) {
+            int err = errno;
+            close(fd);
+            return -err;
+        }
+    }
+    return fd;
+}
+
+// JNI Registered Methods Begin
+static jlongArray netty_io_uring_native_ioUringSetup(JNIEnv* env, jclass clazz, jint entries) {
+    struct io_uring_params p;
+    memset(&p, 0, sizeof(p));
+
+    int ringFd = sys_io_uring_setup((unsigned) entries, &p);
+    if (ringFd < 0) {
+        netty_unix_errors_throwRuntimeExceptionErrorNo(env, "failed to create io_uring ring fd: ", errno);
+        return NULL;
+    }
+
+    size_t sqRingSize = p.sq_off.array + p.sq_entries * sizeof(unsigned);
+    size_t cqRingSize = p.cq_off.cqes + p.cq_entries * sizeof(struct io_uring_cqe);
+    int singleMmap = (p.features & IORING_FEAT_SINGLE_MMAP) != 0;
+    if (singleMmap) {
+        if (cqRingSize > sqRingSize) {
+            sqRingSize = cqRingSize;
+        }
+        cqRingSize = sqRingSize;
+    }
+
+    void* sqRing = mmap(NULL, sqRingSize, PROT_READ | PROT_WRITE, MAP_SHARED | MAP_POPULATE, ringFd, IORING_OFF_SQ_RING);
+    if (sqRing == MAP_FAILED) {
+        int err = errno;
+        close(ringFd);
+        netty_unix_errors_throwRuntimeExceptionErrorNo(env, "failed to mmap submission queue: ", err);
+        return NULL;
+    }
+
+    void* cqRing = sqRing;
+    if (!singleMmap) {
+        cqRing = mmap(NULL, cqRingSize, PROT_READ | PROT_WRITE, MAP_SHARED | MAP_POPULATE, ringFd, IORING_OFF_CQ_RING);
+        if (cqRing == MAP_FAILED) {
+            int err = errno;
+            munmap(sqRing, sqRingSize);
+            close(ringFd);
+            netty_unix_errors_throwRuntimeExceptionErrorNo(env, "failed to mmap completion queue: ", err);
+            return NULL;
+        }
+    }
+
+    size_t sqesSize = p.sq_entries * sizeof(struct io_uring_sqe);
+    void* sqes = mmap(NULL, sqesSize, PROT_READ | PROT_WRITE, MAP_SHARED | MAP_POPULATE, ringFd, IORING_OFF_SQES);
+    if (sqes == MAP_FAILED) {
+        int err = errno;
+        if (!singleMmap) {
+            munmap(cqRing, cqRingSize);
+        }
+        munmap(sqRing, sqRingSize);
+        close(ringFd);
+        netty_unix_errors_throwRuntimeExceptionErrorNo(env, "failed to mmap submission queue entries: ", err);
+        return NULL;
+    }
+
+    // We always use the submission queue entries in order, so use an identity mapping for the index array once
+    // instead of writing it for every submission.
+    unsigned* sqArray = (unsigned*) ((char*) sqRing + p.sq_off.array);
+    unsigned i;
+    for (i = 0; i < p.sq_entries; i++) {
+        sqArray[i] = i;
+    }
+
+    jlong values[RING_VALUES] = {
+        ringFd,
+        p.features,
+        (jlong) ((char*) sqRing + p.sq_off.head),
+        (jlong) ((char*) sqRing + p.sq_off.tail),
+        (jlong) ((char*) sqRing + p.sq_off.ring_mask),
+        (jlong) ((char*) sqRing + p.sq_off.ring_entries),
+        (jlong) ((char*) sqRing + p.sq_off.flags),
+        (jlong) sqes,
+        (jlong) sqesSize,
+        (jlong) sqRing,
+        (jlong) sqRingSize,
+        (jlong) ((char*) cqRing + p.cq_off.head),
+        (jlong) ((char*) cqRing + p.cq_off.tail),
+        (jlong) ((char*) cqRing + p.cq_off.ring_mask),
+        (jlong) ((char*) cqRing + p.cq_off.ring_entries),
+        (jlong) ((char*) cqRing + p.cq_off.overflow),
+        (jlong) ((char*) cqRing + p.cq_off.cqes),
+        (jlong) cqRing,
+        (jlong) cqRingSize
+    };
+
+    jlongArray array = (*env)->NewLongArray(env, RING_VALUES);
+    if (array == NULL) {
+        // This will put an OOME on the stack
+        munmap(sqes, sqesSize);
+        if (!singleMmap) {
+            munmap(cqRing, cqRingSize);
+        }
+        munmap(sqRing, sqRingSize);
+        close(ringFd);
+        return NULL;
+    }
+    (*env)->SetLongArrayRegion(env, array, 0, RING_VALUES, values);
+    return array;
+}
+
+static void netty_io_uring_native_ioUringExit(JNIEnv* env, jclass clazz, jlong sqRing, jlong sqRingSize,
+        jlong sqes, jlong sqesSize, jlong cqRing, jlong cqRingSize, jint ringFd) {
+    munmap((void*) sqes, (size_t) sqesSize);
+    if (cqRing != sqRing) {
+        munmap((void*) cqRing, (size_t) cqRingSize);
+    }
+    munmap((void*) sqRing, (size_t) sqRingSize);
+    close(ringFd);
+}
+
+static jint netty_io_uring_native_ioUringEnter0(JNIEnv* env, jclass clazz, jint ringFd, jint toSubmit,
+        jint minComplete, jint flags) {
+    int result;
+    int err;
+    do {
+        result = sys_io_uring_enter(ringFd, (unsigned) toSubmit, (unsigned) minComplete, (unsigned) flags);
+        if (result >= 0) {
+            return result;
+        }
+    } while ((err = errno) == EINTR);
+    return -err;
+}
+
+static jint netty_io_uring_native_eventFd(JNIEnv* env, jclass clazz) {
+    // The eventfd is only read through io_uring, so it does not need to be non-blocking.
+    jint eventFD = eventfd(0, EFD_CLOEXEC);
+
+    if (eventFD < 0) {
+        netty_unix_errors_throwChannelExceptionErrorNo(env, "eventfd() failed: ", errno);
+    }
+    return eventFD;
+}
+
+static void netty_io_uring_native_eventFdWrite(JNIEnv* env, jclass clazz, jint fd, jlong value) {
+    if (eventfd_write(fd, (eventfd_t) value) < 0) {
+        netty_unix_errors_throwChannelExceptionErrorNo(env, "eventfd_write(...) failed: ", errno);
+    }
+}
+
+static jint netty_io_uring_native_blockingSocketStreamFd(JNIEnv* env, jclass clazz, jboolean ipv6) {
+    return nettyBlockingSocket(env, SOCK_STREAM, ipv6);
+}
+
+static jint netty_io_uring_native_blockingSocketDgramFd(JNIEnv* env, jclass clazz, jboolean ipv6) {
+    return nettyBlockingSocket(env, SOCK_DGRAM, ipv6);
+}
+
+static jint netty_io_uring_native_registerUnix(JNIEnv* env, jclass clazz) {
+    register_unix_called = 1;
+    return netty_unix_register(env, staticPackagePrefix);
+}
+
+static jint netty_io_uring_sockaddrStorageSize(JNIEnv* env, jclass clazz) {
+    return sizeof(struct sockaddr_storage);
+}
+
+static jint netty_io_uring_sockaddrInSize(JNIEnv* env, jclass clazz) {
+    return sizeof(struct sockaddr_in);
+}
+
+static jint netty_io_uring_sockaddrInOffsetofSinFamily(JNIEnv* env, jclass clazz) {
+    return offsetof(struct sockaddr_in, sin_family);
+}
+
+static jint netty_io_uring_sockaddrInOffsetofSinPort(JNIEnv* env, jclass clazz) {
+    return offsetof(struct sockaddr_in, sin_port);
+}
+
+static jint netty_io_uring_sockaddrInOffsetofSinAddr(JNIEnv* env, jclass clazz) {
+    return offsetof(struct sockaddr_in, sin_addr);
+}
+
+static jint netty_io_uring_sockaddrIn6Size(JNIEnv* env, jclass clazz) {
+    return sizeof(struct sockaddr_in6);
+}
+
+static jint netty_io_uring_sockaddrIn6OffsetofSin6Family(JNIEnv* env, jclass clazz) {
+    return offsetof(struct sockaddr_in6, sin6_family);
+}
+
+static jint netty_io_uring_sockaddrIn6OffsetofSin6Port(JNIEnv* env, jclass clazz) {
+    return offsetof(struct sockaddr_in6, sin6_port);
+}
+
+static jint netty_io_uring_sockaddrIn6OffsetofSin6Flowinfo(JNIEnv* env, jclass clazz) {
+    return offsetof(struct sockaddr_in6, sin6_flowinfo);
+}
+
+static jint netty_io_uring_sockaddrIn6OffsetofSin6Addr(JNIEnv* env, jclass clazz) {
+    return offsetof(struct sockaddr_in6, sin6_addr);
+}
+
+static jint netty_io_uring_sockaddrIn6OffsetofSin6ScopeId(JNIEnv* env, jclass clazz) {
+    return offsetof(struct sockaddr_in6, sin6_scope_id);
+}
+
+static jint netty_io_uring_afInet(JNIEnv* env, jclass clazz) {
+    return AF_INET;
+}
+
+static jint netty_io_uring_afInet6(JNIEnv* env, jclass clazz) {
+    return AF_INET6;
+}
+
+static jint netty_io_uring_msghdrSize(JNIEnv* env, jclass clazz) {
+    return sizeof(struct msghdr);
+}
+
+static jint netty_io_uring_msghdrOffsetofMsgName(JNIEnv* env, jclass clazz) {
+    return offsetof(struct msghdr, msg_name);
+}
+
+static jint netty_io_uring_msghdrOffsetofMsgNamelen(JNIEnv* env, jclass clazz) {
+    return offsetof(struct msghdr, msg_namelen);
+}
+
+static jint netty_io_uring_msghdrOffsetofMsgIov(JNIEnv* env, jclass clazz) {
+    return offsetof(struct msghdr, msg_iov);
+}
+
+static jint netty_io_uring_msghdrOffsetofMsgIovlen(JNIEnv* env, jclass clazz) {
+    return offsetof(struct msghdr, msg_iovlen);
+}
+
+static jint netty_io_uring_msghdrOffsetofMsgControl(JNIEnv* env, jclass clazz) {
+    return offsetof(struct msghdr, msg_control);
+}
+
+static jint netty_io_uring_msghdrOffsetofMsgControllen(JNIEnv* env, jclass clazz) {
+    return offsetof(struct msghdr, msg_controllen);
+}
+
+static jint netty_io_uring_msghdrOffsetofMsgFlags(JNIEnv* env, jclass clazz) {
+    return offsetof(struct msghdr, msg_flags);
+}
+
+static jint netty_io_uring_kernelTimespecSize(JNIEnv* env, jclass clazz) {
+    return sizeof(struct __kernel_timespec);
+}
+
+static jint netty_io_uring_kernelTimespecOffsetofTvSec(JNIEnv* env, jclass clazz) {
+    return offsetof(struct __kernel_timespec, tv_sec);
+}
+
+static jint netty_io_uring_kernelTimespecOffsetofTvNsec(JNIEnv* env, jclass clazz) {
+    return offsetof(struct __kernel_timespec, tv_nsec);
+}
+
+static jint netty_io_uring_pollin(JNIEnv* env, jclass clazz) {
+    return POLLIN;
+}
+
+static jint netty_io_uring_pollrdhup(JNIEnv* env, jclass clazz) {
+    return POLLRDHUP;
+}
+
+static jint netty_io_uring_etime(JNIEnv* env, jclass clazz) {
+    return ETIME;
+}
+
+static jint netty_io_uring_ecanceled(JNIEnv* env, jclass clazz) {
+    return ECANCELED;
+}
+
+static jint netty_io_uring_ebusy(JNIEnv* env, jclass clazz) {
+    return EBUSY;
+}
+
+static jint netty_io_uring_sockCloexec(JNIEnv* env, jclass clazz) {
+    return SOCK_CLOEXEC;
+}
+
+// JNI Registered Methods End
+
+// JNI Method Registration Table Begin
+static const JNINativeMethod statically_referenced_fixed_method_table[] = {
+  { "sockaddrStorageSize", "()I", (void *) netty_io_uring_sockaddrStorageSize },
+  { "sockaddrInSize", "()I", (void *) netty_io_uring_sockaddrInSize },
+  { "sockaddrInOffsetofSinFamily", "()I", (void *) netty_io_uring_sockaddrInOffsetofSinFamily },
+  { "sockaddrInOffsetofSinPort", "()I", (void *) netty_io_uring_sockaddrInOffsetofSinPort },
+  { "sockaddrInOffsetofSinAddr", "()I", (void *) netty_io_uring_sockaddrInOffsetofSinAddr },
+  { "sockaddrIn6Size", "()I", (void *) netty_io_uring_sockaddrIn6Size },
+  { "sockaddrIn6OffsetofSin6Family", "()I", (void *) netty_io_uring_sockaddrIn6OffsetofSin6Family },
+  { "sockaddrIn6OffsetofSin6Port", "()I", (void *) netty_io_uring_sockaddrIn6OffsetofSin6Port },
+  { "sockaddrIn6OffsetofSin6Flowinfo", "()I", (void *) netty_io_uring_sockaddrIn6OffsetofSin6Flowinfo },
+  { "sockaddrIn6OffsetofSin6Addr", "()I", (void *) netty_io_uring_sockaddrIn6OffsetofSin6Addr },
+  { "sockaddrIn6OffsetofSin6ScopeId", "()I", (void *) netty_io_uring_sockaddrIn6OffsetofSin6ScopeId },
+  { "afInet", "()I", (void *) netty_io_uring_afInet },
+  { "afInet6", "()I", (void *) netty_io_uring_afInet6 },
+  { "msghdrSize", "()I", (void *) netty_io_uring_msghdrSize },
+  { "msghdrOffsetofMsgName", "()I", (void *) netty_io_uring_msghdrOffsetofMsgName },
+  { "msghdrOffsetofMsgNamelen", "()I", (void *) netty_io_uring_msghdrOffsetofMsgNamelen },
+  { "msghdrOffsetofMsgIov", "()I", (void *) netty_io_uring_msghdrOffsetofMsgIov },
+  { "msghdrOffsetofMsgIovlen", "()I", (void *) netty_io_uring_msghdrOffsetofMsgIovlen },
+  { "msghdrOffsetofMsgControl", "()I", (void *) netty_io_uring_msghdrOffsetofMsgControl },
+  { "msghdrOffsetofMsgControllen", "()I", (void *) netty_io_uring_msghdrOffsetofMsgControllen },
+  { "msghdrOffsetofMsgFlags", "()I", (void *) netty_io_uring_msghdrOffsetofMsgFlags },
+  { "kernelTimespecSize", "()I", (void *) netty_io_uring_kernelTimespecSize },
+  { "kernelTimespecOffsetofTvSec", "()I", (void *) netty_io_uring_kernelTimespecOffsetofTvSec },
+  { "kernelTimespecOffsetofTvNsec", "()I", (void *) netty_io_uring_kernelTimespecOffsetofTvNsec },
+  { "pollin", "()I", (void *) netty_io_uring_pollin },
+  { "pollrdhup", "()I", (void *) netty_io_uring_pollrdhup },
+  { "etime", "()I", (void *) netty_io_uring_etime },
+  { "ecanceled", "()I", (void *) netty_io_uring_ecanceled },
+  { "ebusy", "()I", (void *) netty_io_uring_ebusy },
+  { "sockCloexec", "()I", (void *) netty_io_uring_sockCloexec }
+};
+static const jint statically_referenced_fixed_method_table_size = sizeof(statically_referenced_fixed_method_table) / sizeof(statically_referenced_fixed_method_table[0]);
+static const JNINativeMethod method_table[] = {
+  { "ioUringSetup", "(I)[J", (void *) netty_io_uring_native_ioUringSetup },
+  { "ioUringExit", "(JJJJJJI)V", (void *) netty_io_uring_native_ioUringExit },
+  { "ioUringEnter0", "(IIII)I", (void *) netty_io_uring_native_ioUringEnter0 },
+  { "eventFd", "()I", (void *) netty_io_uring_native_eventFd },
+  { "eventFdWrite", "(IJ)V", (void *) netty_io_uring_native_eventFdWrite },
+  { "blockingSocketStreamFd", "(Z)I", (void *) netty_io_uring_native_blockingSocketStreamFd },
+  { "blockingSocketDgramFd", "(Z)I", (void *) netty_io_uring_native_blockingSocketDgramFd },
+  { "registerUnix", "()I", (void *) netty_io_uring_native_registerUnix }
+};
+static const jint method_table_size = sizeof(method_table) / sizeof(method_table[0]);
+// JNI Method Registration Table End
+
+static jint netty_io_uring_native_JNI_OnLoad(JNIEnv* env, const char* packagePrefix) {
+    int ret = JNI_ERR;
+    int staticallyRegistered = 0;
+    int nativeRegistered = 0;
+    int linuxsocketOnLoadCalled = 0;
+
+    // We must register the statically referenced methods first!
+    if (netty_jni_util_register_natives(env,
+            packagePrefix,
+            STATICALLY_CLASSNAME,
+            statically_referenced_fixed_method_table,
+            statically_referenced_fixed_method_table_size) != 0) {
+        goto done;
+    }
+    staticallyRegistered = 1;
+
+    if (netty_jni_util_register_natives(env,
+            packagePrefix,
+            NATIVE_CLASSNAME,
+            method_table,
+            method_table_size) != 0) {
+        goto done;
+    }
+    nativeRegistered = 1;
+
+    if (netty_io_uring_linuxsocket_JNI_OnLoad(env, packagePrefix) == JNI_ERR) {
+        goto done;
+    }
+    linuxsocketOnLoadCalled = 1;
+
+    ret = NETTY_JNI_UTIL_JNI_VERSION;
+
+    if (packagePrefix != NULL) {
+        staticPackagePrefix = strdup(packagePrefix);
+    }
+done:
+    if (ret == JNI_ERR) {
+        if (staticallyRegistered == 1) {
+            netty_jni_util_unregister_natives(env, packagePrefix, STATICALLY_CLASSNAME);
+        }
+        if (nativeRegistered == 1) {
+            netty_jni_util_unregister_natives(env, packagePrefix, NATIVE_CLASSNAME);
+        }
+        if (linuxsocketOnLoadCalled == 1) {
+            netty_io_uring_linuxsocket_JNI_OnUnLoad(env, packagePrefix);
+        }
+    }
+    return ret;
+}
+
+static void netty_io_uring_native_JNI_OnUnload(JNIEnv* env) {
+    if (register_unix_called == 1) {
+        register_unix_called = 0;
+        netty_unix_unregister(env, staticPackagePrefix);
+    }
+
+    netty_jni_util_unregister_natives(env, staticPackagePrefix, STATICALLY_CLASSNAME);
+    netty_jni_util_unregister_natives(env, staticPackagePrefix, NATIVE_CLASSNAME);
+    netty_io_uring_linuxsocket_JNI_OnUnLoad(env, staticPackagePrefix);
+
+    if (staticPackagePrefix != NULL) {
+        free((void *) staticPackagePrefix);
+        staticPackagePrefix = NULL;
+    }
+}
+
+// We build with -fvisibility=hidden so ensure we mark everything that needs to be visible with JNIEXPORT
+// https://mail.openjdk.java.net/pipermail/core-libs-dev/2013-February/014549.html
+
+// Invoked by the JVM when statically linked
+JNIEXPORT jint JNI_OnLoad_netty_transport_native_io_uring(JavaVM* vm, void* reserved) {
+    return netty_jni_util_JNI_OnLoad(vm, reserved, "netty_transport_native_io_uring", netty_io_uring_native_JNI_OnLoad);
+}
+
+// Invoked by the JVM when statically linked
+JNIEXPORT void JNI_OnUnload_netty_transport_native_io_uring(JavaVM* vm, void* reserved) {
+    netty_jni_util_JNI_OnUnload(vm, reserved, netty_io_uring_native_JNI_OnUnload);
+}
+
+#ifndef NETTY_BUILD_STATIC
+JNIEXPORT jint JNI_OnLoad(JavaVM* vm, void* reserved) {
+    return netty_jni_util_JNI_OnLoad(vm, reserved, "netty_transport_native_io_uring", netty_io_uring_native_JNI_OnLoad);
+}
+
+JNIEXPORT void JNI_OnUnload(JavaVM* vm, void* reserved) {
+    netty_jni_util_JNI_OnUnload(vm, reserved, netty_io_uring_native_JNI_OnUnload);
+}
+#endif /* NETTY_BUILD_STATIC */
@@ -0,0 +1,663 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.AbstractChannel;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelConfig;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelMetadata;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.ConnectTimeoutException;
+import io.netty.channel.EventLoop;
+import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.socket.ChannelInputShutdownEvent;
+import io.netty.channel.socket.ChannelInputShutdownReadComplete;
+import io.netty.channel.socket.SocketChannelConfig;
+import io.netty.channel.unix.Errors;
+import io.netty.channel.unix.FileDescriptor;
+import io.netty.channel.unix.UnixChannel;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.NoRouteToHostException;
+import java.net.SocketAddress;
+import java.nio.channels.AlreadyConnectedException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ConnectionPendingException;
+import java.nio.channels.NotYetConnectedException;
+import java.nio.channels.UnresolvedAddressException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static io.netty.channel.unix.UnixChannelUtil.computeRemoteAddr;
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+
+abstract class AbstractIOUringChannel extends AbstractChannel implements UnixChannel {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(AbstractIOUringChannel.class);
+    private static final ChannelMetadata METADATA = new ChannelMetadata(false);
+
+    // The operations that are currently submitted for this channel, at most one of each kind is in flight.
+    static final byte POLL_IN_SCHEDULED = 1;
+    static final byte READ_SCHEDULED = 1 << 1;
+    static final byte WRITE_SCHEDULED = 1 << 2;
+    static final byte CONNECT_SCHEDULED = 1 << 3;
+
+    final LinuxSocket socket;
+    /**
+     * The future of the current connection attempt.  If not null, subsequent
+     * connection attempts will fail.
+     */
+    private ChannelPromise connectPromise;
+    private ScheduledFuture<?> connectTimeoutFuture;
+    private SocketAddress requestedRemoteAddress;
+    // Memory holding the sockaddr of a pending connect, the kernel reads it when the connect is executed.
+    private long remoteAddressMemory;
+
+    private volatile SocketAddress local;
+    private volatile SocketAddress remote;
+
+    byte ioState;
+    private long pollInUserData;
+    private long readUserData;
+    private long writeUserData;
+    private long connectUserData;
+    // Set once the channel was closed or deregistered while operations were still in flight, the channel is removed
+    // from the event loop (and its file descriptor closed) once all of them completed.
+    private boolean removePending;
+
+    boolean inputClosedSeenErrorOnRead;
+
+    protected volatile boolean active;
+    private volatile boolean open = true;
+
+    AbstractIOUringChannel(Channel parent, LinuxSocket fd, boolean active) {
+        super(parent);
+        this.socket = checkNotNull(fd, "fd");
+        this.active = active;
+        if (active) {
+            // Directly cache the remote and local addresses
+            // See https://github.com/netty/netty/issues/2359
+            this.local = fd.localAddress();
+            this.remote = fd.remoteAddress();
+        }
+    }
+
+    AbstractIOUringChannel(Channel parent, LinuxSocket fd, SocketAddress remote) {
+        super(parent);
+        this.socket = checkNotNull(fd, "fd");
+        this.active = true;
+        // Directly cache the remote and local addresses
+        // See https://github.com/netty/netty/issues/2359
+        this.remote = remote;
+        this.local = fd.localAddress();
+    }
+
+    @Override
+    public final FileDescriptor fd() {
+        return socket;
+    }
+
+    @Override
+    public boolean isActive() {
+        return active;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public ChannelMetadata metadata() {
+        return METADATA;
+    }
+
+    final IOUringSubmissionQueue submissionQueue() {
+        return ((IOUringEventLoop) eventLoop()).submissionQueue();
+    }
+
+    final AbstractUringUnsafe ioUringUnsafe() {
+        return (AbstractUringUnsafe) unsafe();
+    }
+
+    @Override
+    protected boolean isCompatible(EventLoop loop) {
+        return loop instanceof IOUringEventLoop;
+    }
+
+    @Override
+    protected void doRegister() throws Exception {
+        removePending = false;
+        ((IOUringEventLoop) eventLoop()).add(this);
+    }
+
+    @Override
+    protected void doDeregister() throws Exception {
+        if (ioState == 0) {
+            ((IOUringEventLoop) eventLoop()).remove(this);
+        } else {
+            // The completions of the cancelled operations are still dispatched to this channel, so we can only be
+            // removed once all of them were seen.
+            if (open) {
+                // Otherwise doClose() did cancel them already.
+                cancelOutstandingOperations();
+            }
+            removePending = true;
+        }
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        active = false;
+        open = false;
+        // Even if we allow half closed sockets we should give up on reading. Otherwise we may allow a read attempt on a
+        // socket which has not even been connected yet. This has been observed to block during unit tests.
+        inputClosedSeenErrorOnRead = true;
+        ChannelPromise promise = connectPromise;
+        if (promise != null) {
+            // Use tryFailure() instead of setFailure() to avoid the race against cancel().
+            promise.tryFailure(new ClosedChannelException());
+            connectPromise = null;
+        }
+
+        ScheduledFuture<?> future = connectTimeoutFuture;
+        if (future != null) {
+            future.cancel(false);
+            connectTimeoutFuture = null;
+        }
+
+        if (ioState == 0 || !isRegistered()) {
+            closeFd();
+        } else {
+            // The kernel still refers to the file descriptor. It is only closed once all operations completed, so its
+            // number can not be reused by another channel while completions for this one are outstanding.
+            cancelOutstandingOperations();
+        }
+    }
+
+    private void cancelOutstandingOperations() {
+        IOUringSubmissionQueue submissionQueue = submissionQueue();
+        int fd = socket.intValue();
+        if ((ioState & POLL_IN_SCHEDULED) != 0) {
+            submissionQueue.addCancel(fd, pollInUserData);
+        }
+        if ((ioState & READ_SCHEDULED) != 0) {
+            submissionQueue.addCancel(fd, readUserData);
+        }
+        if ((ioState & WRITE_SCHEDULED) != 0) {
+            submissionQueue.addCancel(fd, writeUserData);
+        }
+        if ((ioState & CONNECT_SCHEDULED) != 0) {
+            submissionQueue.addCancel(fd, connectUserData);
+        }
+    }
+
+    /**
+     * Closes the file descriptor and releases all native resources, must only be called once the kernel does not
+     * refer to them anymore.
+     */
+    void closeFd() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close a socket.", e);
+        }
+        if (remoteAddressMemory != 0) {
+            PlatformDependent.freeMemory(remoteAddressMemory);
+            remoteAddressMemory = 0;
+        }
+        freeResources();
+    }
+
+    /**
+     * Releases the resources of sub-classes that the kernel may refer to while an operation is in flight.
+     */
+    void freeResources() {
+        // NOOP
+    }
+
+    final void pollInScheduled(long userData) {
+        ioState |= POLL_IN_SCHEDULED;
+        pollInUserData = userData;
+    }
+
+    final void readScheduled(long userData) {
+        ioState |= READ_SCHEDULED;
+        readUserData = userData;
+    }
+
+    final void writeScheduled(long userData) {
+        ioState |= WRITE_SCHEDULED;
+        writeUserData = userData;
+    }
+
+    final boolean isWriteScheduled() {
+        return (ioState & WRITE_SCHEDULED) != 0;
+    }
+
+    final boolean isReadScheduled() {
+        return (ioState & (POLL_IN_SCHEDULED | READ_SCHEDULED)) != 0;
+    }
+
+    @Override
+    protected void doDisconnect() throws Exception {
+        doClose();
+    }
+
+    @Override
+    protected final void doBeginRead() throws Exception {
+        // Channel.read() or ChannelHandlerContext.read() was called
+        final AbstractUringUnsafe unsafe = ioUringUnsafe();
+        unsafe.readPending = true;
+        if (!unsafe.inReadCycle && !isReadScheduled()) {
+            unsafe.scheduleRead();
+        }
+    }
+
+    final boolean shouldBreakReadReady(ChannelConfig config) {
+        return socket.isInputShutdown() && (inputClosedSeenErrorOnRead || !isAllowHalfClosure(config));
+    }
+
+    private static boolean isAllowHalfClosure(ChannelConfig config) {
+        return config instanceof SocketChannelConfig &&
+                ((SocketChannelConfig) config).isAllowHalfClosure();
+    }
+
+    /**
+     * Returns an off-heap copy of the specified {@link ByteBuf}, and releases the original one.
+     */
+    protected final ByteBuf newDirectBuffer(ByteBuf buf) {
+        return newDirectBuffer(buf, buf);
+    }
+
+    /**
+     * Returns an off-heap copy of the specified {@link ByteBuf}, and releases the specified holder.
+     * The caller must ensure that the holder releases the original {@link ByteBuf} when the holder is released by
+     * this method.
+     */
+    protected final ByteBuf newDirectBuffer(Object holder, ByteBuf buf) {
+        final int readableBytes = buf.readableBytes();
+        if (readableBytes == 0) {
+            ReferenceCountUtil.release(holder);
+            return Unpooled.EMPTY_BUFFER;
+        }
+
+        final ByteBufAllocator alloc = alloc();
+        if (alloc.isDirectBufferPooled()) {
+            return newDirectBuffer0(holder, buf, alloc, readableBytes);
+        }
+
+        final ByteBuf directBuf = ByteBufUtil.threadLocalDirectBuffer();
+        if (directBuf == null) {
+            return newDirectBuffer0(holder, buf, alloc, readableBytes);
+        }
+
+        directBuf.writeBytes(buf, buf.readerIndex(), readableBytes);
+        ReferenceCountUtil.safeRelease(holder);
+        return directBuf;
+    }
+
+    private static ByteBuf newDirectBuffer0(Object holder, ByteBuf buf, ByteBufAllocator alloc, int capacity) {
+        final ByteBuf directBuf = alloc.directBuffer(capacity);
+        directBuf.writeBytes(buf, buf.readerIndex(), capacity);
+        ReferenceCountUtil.safeRelease(holder);
+        return directBuf;
+    }
+
+    protected static void checkResolvable(InetSocketAddress addr) {
+        if (addr.isUnresolved()) {
+            throw new UnresolvedAddressException();
+        }
+    }
+
+    @Override
+    protected abstract AbstractUringUnsafe newUnsafe();
+
+    protected abstract class AbstractUringUnsafe extends AbstractUnsafe {
+        boolean readPending;
+        // true while completions of a read are dispatched, reads are scheduled once the cycle is done.
+        boolean inReadCycle;
+        private IOUringRecvByteAllocatorHandle allocHandle;
+
+        /**
+         * Submits the operation that waits for the next inbound data or connection.
+         */
+        abstract void scheduleRead();
+
+        /**
+         * Called once the {@code IORING_OP_POLL_ADD} submitted via {@link AbstractIOUringChannel#pollInScheduled(long)}
+         * completed. Only channels which wait for the socket to become readable before they read submit one.
+         */
+        void pollIn(int res) {
+            // NOOP
+        }
+
+        /**
+         * Called once the read operation completed.
+         */
+        abstract void readComplete(int res);
+
+        /**
+         * Called once the write operation completed.
+         */
+        abstract void writeComplete(int res);
+
+        final void handle(int res, byte op, short data) {
+            switch (op) {
+                case Native.IORING_OP_POLL_ADD:
+                    ioState &= ~POLL_IN_SCHEDULED;
+                    pollIn(res);
+                    break;
+                case Native.IORING_OP_READ:
+                case Native.IORING_OP_ACCEPT:
+                case Native.IORING_OP_RECVMSG:
+                    ioState &= ~READ_SCHEDULED;
+                    readComplete(res);
+                    break;
+                case Native.IORING_OP_WRITE:
+                case Native.IORING_OP_WRITEV:
+                case Native.IORING_OP_SENDMSG:
+                    ioState &= ~WRITE_SCHEDULED;
+                    writeComplete(res);
+                    break;
+                case Native.IORING_OP_CONNECT:
+                    ioState &= ~CONNECT_SCHEDULED;
+                    connectComplete(res);
+                    break;
+                default:
+                    break;
+            }
+            if (ioState == 0 && (removePending || !open)) {
+                // Nothing refers to the file descriptor anymore.
+                removePending = false;
+                ((IOUringEventLoop) eventLoop()).remove(AbstractIOUringChannel.this);
+                if (!open && socket.isOpen()) {
+                    closeFd();
+                }
+            }
+        }
+
+        /**
+         * Shutdown the input side of the channel.
+         */
+        void shutdownInput(boolean rdHup) {
+            if (!socket.isInputShutdown()) {
+                if (isAllowHalfClosure(config())) {
+                    try {
+                        socket.shutdown(true, false);
+                    } catch (IOException ignored) {
+                        // We attempted to shutdown and failed, which means the input has already effectively been
+                        // shutdown.
+                        fireEventAndClose(ChannelInputShutdownEvent.INSTANCE);
+                        return;
+                    } catch (NotYetConnectedException ignore) {
+                        // We attempted to shutdown and failed, which means the input has already effectively been
+                        // shutdown.
+                    }
+                    readPending = false;
+                    pipeline().fireUserEventTriggered(ChannelInputShutdownEvent.INSTANCE);
+                } else {
+                    close(voidPromise());
+                }
+            } else if (!rdHup) {
+                inputClosedSeenErrorOnRead = true;
+                pipeline().fireUserEventTriggered(ChannelInputShutdownReadComplete.INSTANCE);
+            }
+        }
+
+        private void fireEventAndClose(Object evt) {
+            pipeline().fireUserEventTriggered(evt);
+            close(voidPromise());
+        }
+
+        /**
+         * Called once a read cycle is over, submits the next read if one was requested in the meantime.
+         */
+        final void readCycleComplete() {
+            inReadCycle = false;
+            if ((readPending || config().isAutoRead()) && isActive() && !isReadScheduled() &&
+                    !shouldBreakReadReady(config())) {
+                scheduleRead();
+            }
+        }
+
+        @Override
+        public IOUringRecvByteAllocatorHandle recvBufAllocHandle() {
+            if (allocHandle == null) {
+                allocHandle = new IOUringRecvByteAllocatorHandle(
+                        (RecvByteBufAllocator.ExtendedHandle) super.recvBufAllocHandle());
+            }
+            return allocHandle;
+        }
+
+        @Override
+        protected final void flush0() {
+            // Flush immediately only when there's no pending write. Once the write completes it triggers the next
+            // flush.
+            if (!isWriteScheduled()) {
+                super.flush0();
+            }
+        }
+
+        /**
+         * Continues flushing once a write completed.
+         */
+        final void forceFlush() {
+            super.flush0();
+        }
+
+        @Override
+        public void connect(
+                final SocketAddress remoteAddress, final SocketAddress localAddress, final ChannelPromise promise) {
+            if (!promise.setUncancellable() || !ensureOpen(promise)) {
+                return;
+            }
+
+            try {
+                if (connectPromise != null) {
+                    throw new ConnectionPendingException();
+                }
+
+                doConnect(remoteAddress, localAddress);
+                connectPromise = promise;
+                requestedRemoteAddress = remoteAddress;
+
+                // Schedule connect timeout.
+                int connectTimeoutMillis = config().getConnectTimeoutMillis();
+                if (connectTimeoutMillis > 0) {
+                    connectTimeoutFuture = eventLoop().schedule(new Runnable() {
+                        @Override
+                        public void run() {
+                            ChannelPromise connectPromise = AbstractIOUringChannel.this.connectPromise;
+                            if (connectPromise != null && !connectPromise.isDone()
+                                    && connectPromise.tryFailure(new ConnectTimeoutException(
+                                    "connection timed out: " + remoteAddress))) {
+                                close(voidPromise());
+                            }
+                        }
+                    }, connectTimeoutMillis, TimeUnit.MILLISECONDS);
+                }
+
+                promise.addListener(new ChannelFutureListener() {
+                    @Override
+                    public void operationComplete(ChannelFuture future) throws Exception {
+                        if (future.isCancelled()) {
+                            if (connectTimeoutFuture != null) {
+                                connectTimeoutFuture.cancel(false);
+                            }
+                            connectPromise = null;
+                            close(voidPromise());
+                        }
+                    }
+                });
+            } catch (Throwable t) {
+                closeIfClosed();
+                promise.tryFailure(annotateConnectException(t, remoteAddress));
+            }
+        }
+
+        private void fulfillConnectPromise(ChannelPromise promise, boolean wasActive) {
+            if (promise == null) {
+                // Closed via cancellation and the promise has been notified already.
+                return;
+            }
+            active = true;
+
+            // Get the state as trySuccess() may trigger an ChannelFutureListener that will close the Channel.
+            // We still need to ensure we call fireChannelActive() in this case.
+            boolean active = isActive();
+
+            // trySuccess() will return false if a user cancelled the connection attempt.
+            boolean promiseSet = promise.trySuccess();
+
+            // Regardless if the connection attempt was cancelled, channelActive() event should be triggered,
+            // because what happened is what happened.
+            if (!wasActive && active) {
+                pipeline().fireChannelActive();
+            }
+
+            // If a user cancelled the connection attempt, close the channel, which is followed by channelInactive().
+            if (!promiseSet) {
+                close(voidPromise());
+            }
+        }
+
+        private void fulfillConnectPromise(ChannelPromise promise, Throwable cause) {
+            if (promise == null) {
+                // Closed via cancellation and the promise has been notified already.
+                return;
+            }
+
+            // Use tryFailure() instead of setFailure() to avoid the race against cancel().
+            promise.tryFailure(cause);
+            closeIfClosed();
+        }
+
+        private void connectComplete(int res) {
+            if (connectPromise == null) {
+                // Closed, timed out or cancelled, the promise was notified already.
+                return;
+            }
+            try {
+                boolean wasActive = isActive();
+                if (res < 0) {
+                    throw newConnectException(res);
+                }
+                if (requestedRemoteAddress instanceof InetSocketAddress) {
+                    remote = computeRemoteAddr((InetSocketAddress) requestedRemoteAddress, socket.remoteAddress());
+                }
+                requestedRemoteAddress = null;
+                // The kernel may have bound the socket as part of the connect.
+                local = socket.localAddress();
+                fulfillConnectPromise(connectPromise, wasActive);
+            } catch (Throwable t) {
+                fulfillConnectPromise(connectPromise, annotateConnectException(t, requestedRemoteAddress));
+            } finally {
+                // Check for null as the connectTimeoutFuture is only created if a connectTimeoutMillis > 0 is used
+                // See https://github.com/netty/netty/issues/1770
+                if (connectTimeoutFuture != null) {
+                    connectTimeoutFuture.cancel(false);
+                }
+                connectPromise = null;
+            }
+        }
+    }
+
+    private static IOException newConnectException(int res) {
+        IOException cause = Errors.newIOException("connect", res);
+        if (res == Errors.ERROR_ENETUNREACH_NEGATIVE) {
+            return (IOException) new NoRouteToHostException(cause.getMessage()).initCause(cause);
+        }
+        return (IOException) new ConnectException(cause.getMessage()).initCause(cause);
+    }
+
+    @Override
+    protected void doBind(SocketAddress local) throws Exception {
+        if (local instanceof InetSocketAddress) {
+            checkResolvable((InetSocketAddress) local);
+        }
+        socket.bind(local);
+        this.local = socket.localAddress();
+    }
+
+    /**
+     * Submits the connect to the remote peer, which is completed asynchronously.
+     */
+    private void doConnect(SocketAddress remoteAddress, SocketAddress localAddress) throws Exception {
+        if (localAddress instanceof InetSocketAddress) {
+            checkResolvable((InetSocketAddress) localAddress);
+        }
+        if (!(remoteAddress instanceof InetSocketAddress)) {
+            throw new UnsupportedOperationException("unsupported address type: " + remoteAddress);
+        }
+        InetSocketAddress remoteSocketAddr = (InetSocketAddress) remoteAddress;
+        checkResolvable(remoteSocketAddr);
+
+        if (remote != null) {
+            // Check if already connected before trying to connect.
+            throw new AlreadyConnectedException();
+        }
+
+        if (localAddress != null) {
+            socket.bind(localAddress);
+        }
+
+        if (remoteAddressMemory == 0) {
+            remoteAddressMemory = PlatformDependent.allocateMemory(SockaddrIn.SOCKADDR_STORAGE_SIZE);
+        }
+        int addrLen = SockaddrIn.write(socket.isIpv6(), remoteAddressMemory, remoteSocketAddr);
+        connectUserData = submissionQueue().addConnect(socket.intValue(), remoteAddressMemory, addrLen, (short) 0);
+        ioState |= CONNECT_SCHEDULED;
+
+        // We always need to set the localAddress even if not connected yet as the bind already took place.
+        //
+        // See https://github.com/netty/netty/issues/3463
+        local = socket.localAddress();
+    }
+
+    /**
+     * Called by sub-classes that connect synchronously, like datagram channels.
+     */
+    final void connected(SocketAddress remoteAddress) {
+        remote = remoteAddress;
+        local = socket.localAddress();
+    }
+
+    final void disconnected() {
+        remote = null;
+    }
+
+    @Override
+    protected SocketAddress localAddress0() {
+        return local;
+    }
+
+    @Override
+    protected SocketAddress remoteAddress0() {
+        return remote;
+    }
+}
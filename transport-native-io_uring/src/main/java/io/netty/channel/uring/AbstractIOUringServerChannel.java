@@ -0,0 +1,146 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelMetadata;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.unix.Errors;
+import io.netty.util.internal.PlatformDependent;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+
+abstract class AbstractIOUringServerChannel extends AbstractIOUringChannel implements ServerChannel {
+    private static final ChannelMetadata METADATA = new ChannelMetadata(false, 16);
+
+    // Memory the kernel writes the address of the accepted connection and its length to, the accept operation
+    // refers to it until it completed.
+    private long acceptedAddressMemory;
+    private long acceptedAddressLengthMemory;
+
+    AbstractIOUringServerChannel(LinuxSocket fd, boolean active) {
+        super(null, fd, active);
+    }
+
+    @Override
+    public ChannelMetadata metadata() {
+        return METADATA;
+    }
+
+    @Override
+    protected InetSocketAddress remoteAddress0() {
+        return null;
+    }
+
+    @Override
+    protected AbstractUringUnsafe newUnsafe() {
+        return new IOUringServerSocketUnsafe();
+    }
+
+    @Override
+    protected void doWrite(ChannelOutboundBuffer in) throws Exception {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected Object filterOutboundMessage(Object msg) throws Exception {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    void freeResources() {
+        if (acceptedAddressMemory != 0) {
+            PlatformDependent.freeMemory(acceptedAddressMemory);
+            PlatformDependent.freeMemory(acceptedAddressLengthMemory);
+            acceptedAddressMemory = 0;
+            acceptedAddressLengthMemory = 0;
+        }
+    }
+
+    abstract Channel newChildChannel(int fd, InetSocketAddress remote) throws Exception;
+
+    final class IOUringServerSocketUnsafe extends AbstractUringUnsafe {
+
+        @Override
+        public void connect(SocketAddress socketAddress, SocketAddress socketAddress2, ChannelPromise channelPromise) {
+            // Connect not supported by ServerChannel implementations
+            channelPromise.setFailure(new UnsupportedOperationException());
+        }
+
+        @Override
+        void scheduleRead() {
+            if (acceptedAddressMemory == 0) {
+                acceptedAddressMemory = PlatformDependent.allocateMemory(SockaddrIn.SOCKADDR_STORAGE_SIZE);
+                acceptedAddressLengthMemory = PlatformDependent.allocateMemory(4);
+            }
+            PlatformDependent.putInt(acceptedAddressLengthMemory, SockaddrIn.SOCKADDR_STORAGE_SIZE);
+            // No buffer is involved, so the accept is submitted right away and completes once a connection arrives.
+            readScheduled(submissionQueue().addAccept(
+                    socket.intValue(), acceptedAddressMemory, acceptedAddressLengthMemory, (short) 0));
+        }
+
+        @Override
+        void readComplete(int res) {
+            if (!isOpen() || res == Native.ERRNO_ECANCELED_NEGATIVE) {
+                if (res >= 0) {
+                    // A connection was accepted while the channel was closed.
+                    try {
+                        new LinuxSocket(res).close();
+                    } catch (IOException ignore) {
+                        // ignore
+                    }
+                }
+                return;
+            }
+            final IOUringRecvByteAllocatorHandle allocHandle = recvBufAllocHandle();
+            final ChannelPipeline pipeline = pipeline();
+            allocHandle.reset(config());
+            allocHandle.attemptedBytesRead(1);
+            inReadCycle = true;
+
+            Throwable exception = null;
+            try {
+                if (res < 0) {
+                    throw Errors.newIOException("accept", res);
+                }
+                // lastBytesRead represents the fd, just like for the other transports.
+                allocHandle.lastBytesRead(res);
+                allocHandle.incMessagesRead(1);
+                readPending = false;
+                pipeline.fireChannelRead(newChildChannel(res, SockaddrIn.read(acceptedAddressMemory)));
+            } catch (Throwable t) {
+                exception = t;
+            }
+            allocHandle.readComplete();
+            pipeline.fireChannelReadComplete();
+
+            if (exception != null) {
+                pipeline.fireExceptionCaught(exception);
+            }
+            readCycleComplete();
+        }
+
+        @Override
+        void writeComplete(int res) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,390 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelConfig;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelMetadata;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoop;
+import io.netty.channel.socket.DuplexChannel;
+import io.netty.channel.unix.Buffer;
+import io.netty.channel.unix.Errors;
+import io.netty.channel.unix.IovArray;
+import io.netty.channel.unix.UnixChannelUtil;
+import io.netty.util.internal.StringUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+
+import static io.netty.channel.unix.Limits.SSIZE_MAX;
+
+abstract class AbstractIOUringStreamChannel extends AbstractIOUringChannel implements DuplexChannel {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(AbstractIOUringStreamChannel.class);
+    private static final ChannelMetadata METADATA = new ChannelMetadata(false, 16);
+    private static final String EXPECTED_TYPES =
+            " (expected: " + StringUtil.simpleClassName(ByteBuf.class) + ')';
+
+    // The buffer the submitted read operation reads into.
+    private ByteBuf readBuffer;
+    private boolean removingWrittenBytes;
+
+    AbstractIOUringStreamChannel(Channel parent, LinuxSocket fd, boolean active) {
+        super(parent, fd, active);
+    }
+
+    AbstractIOUringStreamChannel(Channel parent, LinuxSocket fd, SocketAddress remote) {
+        super(parent, fd, remote);
+    }
+
+    @Override
+    public ChannelMetadata metadata() {
+        return METADATA;
+    }
+
+    @Override
+    protected AbstractUringUnsafe newUnsafe() {
+        return new IOUringStreamUnsafe();
+    }
+
+    @Override
+    protected Object filterOutboundMessage(Object msg) {
+        if (msg instanceof ByteBuf) {
+            ByteBuf buf = (ByteBuf) msg;
+            return UnixChannelUtil.isBufferCopyNeededForWrite(buf)? newDirectBuffer(buf) : buf;
+        }
+
+        throw new UnsupportedOperationException(
+                "unsupported message type: " + StringUtil.simpleClassName(msg) + EXPECTED_TYPES);
+    }
+
+    @Override
+    protected void doWrite(ChannelOutboundBuffer in) throws Exception {
+        if (isWriteScheduled() || removingWrittenBytes) {
+            // Only one write is in flight at a time, the next one is submitted once it completed.
+            return;
+        }
+        IOUringSubmissionQueue submissionQueue = submissionQueue();
+        int fd = socket.intValue();
+        for (;;) {
+            int msgCount = in.size();
+            if (msgCount == 0) {
+                return;
+            }
+            ByteBuf buf = (ByteBuf) in.current();
+            if (msgCount == 1 && buf.hasMemoryAddress()) {
+                if (!buf.isReadable()) {
+                    in.remove();
+                    continue;
+                }
+                writeScheduled(submissionQueue.addWrite(
+                        fd, buf.memoryAddress(), buf.readerIndex(), buf.writerIndex(), (short) 0));
+                return;
+            }
+
+            // Gather as many buffers as possible into one writev, the IovArray stays valid until the
+            // submission was consumed by the kernel.
+            IovArray array = ((IOUringEventLoop) eventLoop()).iovArray();
+            array.maxBytes(SSIZE_MAX);
+            in.forEachFlushedMessage(array);
+            if (array.count() == 0) {
+                // The outbound buffer contained empty buffers only.
+                in.removeBytes(0);
+                continue;
+            }
+            writeScheduled(submissionQueue.addWritev(fd, array.memoryAddress(0), array.count(), (short) 0));
+            return;
+        }
+    }
+
+    @Override
+    protected final void doShutdownOutput() throws Exception {
+        socket.shutdown(false, true);
+    }
+
+    private void shutdownInput0(final ChannelPromise promise) {
+        try {
+            socket.shutdown(true, false);
+            promise.setSuccess();
+        } catch (Throwable cause) {
+            promise.setFailure(cause);
+        }
+    }
+
+    @Override
+    public boolean isOutputShutdown() {
+        return socket.isOutputShutdown();
+    }
+
+    @Override
+    public boolean isInputShutdown() {
+        return socket.isInputShutdown();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return socket.isShutdown();
+    }
+
+    @Override
+    public ChannelFuture shutdownOutput() {
+        return shutdownOutput(newPromise());
+    }
+
+    @Override
+    public ChannelFuture shutdownOutput(final ChannelPromise promise) {
+        EventLoop loop = eventLoop();
+        if (loop.inEventLoop()) {
+            ((AbstractUnsafe) unsafe()).shutdownOutput(promise);
+        } else {
+            loop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    ((AbstractUnsafe) unsafe()).shutdownOutput(promise);
+                }
+            });
+        }
+
+        return promise;
+    }
+
+    @Override
+    public ChannelFuture shutdownInput() {
+        return shutdownInput(newPromise());
+    }
+
+    @Override
+    public ChannelFuture shutdownInput(final ChannelPromise promise) {
+        EventLoop loop = eventLoop();
+        if (loop.inEventLoop()) {
+            shutdownInput0(promise);
+        } else {
+            loop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    shutdownInput0(promise);
+                }
+            });
+        }
+        return promise;
+    }
+
+    @Override
+    public ChannelFuture shutdown() {
+        return shutdown(newPromise());
+    }
+
+    @Override
+    public ChannelFuture shutdown(final ChannelPromise promise) {
+        ChannelFuture shutdownOutputFuture = shutdownOutput();
+        if (shutdownOutputFuture.isDone()) {
+            shutdownOutputDone(shutdownOutputFuture, promise);
+        } else {
+            shutdownOutputFuture.addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(final ChannelFuture shutdownOutputFuture) throws Exception {
+                    shutdownOutputDone(shutdownOutputFuture, promise);
+                }
+            });
+        }
+        return promise;
+    }
+
+    private void shutdownOutputDone(final ChannelFuture shutdownOutputFuture, final ChannelPromise promise) {
+        ChannelFuture shutdownInputFuture = shutdownInput();
+        if (shutdownInputFuture.isDone()) {
+            shutdownDone(shutdownOutputFuture, shutdownInputFuture, promise);
+        } else {
+            shutdownInputFuture.addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture shutdownInputFuture) throws Exception {
+                    shutdownDone(shutdownOutputFuture, shutdownInputFuture, promise);
+                }
+            });
+        }
+    }
+
+    private static void shutdownDone(ChannelFuture shutdownOutputFuture,
+                              ChannelFuture shutdownInputFuture,
+                              ChannelPromise promise) {
+        Throwable shutdownOutputCause = shutdownOutputFuture.cause();
+        Throwable shutdownInputCause = shutdownInputFuture.cause();
+        if (shutdownOutputCause != null) {
+            if (shutdownInputCause != null) {
+                logger.debug("Exception suppressed because a previous exception occurred.",
+                        shutdownInputCause);
+            }
+            promise.setFailure(shutdownOutputCause);
+        } else if (shutdownInputCause != null) {
+            promise.setFailure(shutdownInputCause);
+        } else {
+            promise.setSuccess();
+        }
+    }
+
+    @Override
+    void freeResources() {
+        if (readBuffer != null) {
+            readBuffer.release();
+            readBuffer = null;
+        }
+    }
+
+    final class IOUringStreamUnsafe extends AbstractUringUnsafe {
+
+        @Override
+        void scheduleRead() {
+            // Wait for the socket to become readable first, so idle connections do not hold on to a buffer.
+            pollInScheduled(submissionQueue().addPollIn(socket.intValue(), (short) 0));
+        }
+
+        @Override
+        void pollIn(int res) {
+            if (!isOpen() || res == Native.ERRNO_ECANCELED_NEGATIVE) {
+                return;
+            }
+            final ChannelConfig config = config();
+            if (shouldBreakReadReady(config)) {
+                return;
+            }
+            // Start a new read cycle.
+            recvBufAllocHandle().reset(config);
+            inReadCycle = true;
+            submitRead();
+        }
+
+        private void submitRead() {
+            final IOUringRecvByteAllocatorHandle allocHandle = recvBufAllocHandle();
+            ByteBuf byteBuf = allocHandle.allocate(alloc());
+            allocHandle.attemptedBytesRead(byteBuf.writableBytes());
+            long address = byteBuf.hasMemoryAddress() ? byteBuf.memoryAddress() :
+                    Buffer.memoryAddress(byteBuf.internalNioBuffer(0, byteBuf.capacity()));
+            readBuffer = byteBuf;
+            readScheduled(submissionQueue().addRead(socket.intValue(), address,
+                    byteBuf.writerIndex(), byteBuf.capacity(), (short) 0));
+        }
+
+        @Override
+        void readComplete(int res) {
+            ByteBuf byteBuf = readBuffer;
+            readBuffer = null;
+            if (!isOpen() || res == Native.ERRNO_ECANCELED_NEGATIVE) {
+                // The read was cancelled because the channel was closed or deregistered.
+                byteBuf.release();
+                inReadCycle = false;
+                return;
+            }
+            final ChannelConfig config = config();
+            final ChannelPipeline pipeline = pipeline();
+            final IOUringRecvByteAllocatorHandle allocHandle = recvBufAllocHandle();
+            boolean close = false;
+            try {
+                if (res < 0) {
+                    byteBuf.release();
+                    byteBuf = null;
+                    if (res == Errors.ERRNO_ECONNRESET_NEGATIVE) {
+                        throw Errors.newConnectionResetException("read", res);
+                    }
+                    throw Errors.newIOException("read", res);
+                }
+                // EOF is reported as -1, just like the synchronous reads do.
+                allocHandle.lastBytesRead(res == 0 ? -1 : res);
+                if (res == 0) {
+                    byteBuf.release();
+                    byteBuf = null;
+                    close = true;
+                    readPending = false;
+                    allocHandle.readComplete();
+                    pipeline.fireChannelReadComplete();
+                    shutdownInput(false);
+                    readCycleComplete();
+                    return;
+                }
+                byteBuf.writerIndex(byteBuf.writerIndex() + res);
+                allocHandle.incMessagesRead(1);
+                readPending = false;
+                pipeline.fireChannelRead(byteBuf);
+                byteBuf = null;
+
+                if (allocHandle.continueReading() && isActive() && !shouldBreakReadReady(config)) {
+                    // The buffer was filled up, so there is most likely more data waiting.
+                    submitRead();
+                    return;
+                }
+                allocHandle.readComplete();
+                pipeline.fireChannelReadComplete();
+                readCycleComplete();
+            } catch (Throwable t) {
+                handleReadException(pipeline, byteBuf, t, close, allocHandle);
+                readCycleComplete();
+            }
+        }
+
+        private void handleReadException(ChannelPipeline pipeline, ByteBuf byteBuf, Throwable cause, boolean close,
+                                         IOUringRecvByteAllocatorHandle allocHandle) {
+            if (byteBuf != null) {
+                if (byteBuf.isReadable()) {
+                    readPending = false;
+                    pipeline.fireChannelRead(byteBuf);
+                } else {
+                    byteBuf.release();
+                }
+            }
+            allocHandle.readComplete();
+            pipeline.fireChannelReadComplete();
+            pipeline.fireExceptionCaught(cause);
+
+            // If oom will close the read event, release connection.
+            // See https://github.com/netty/netty/issues/10434
+            if (close || cause instanceof OutOfMemoryError || cause instanceof IOException) {
+                shutdownInput(false);
+            }
+        }
+
+        @Override
+        void writeComplete(int res) {
+            if (!isOpen() || res == Native.ERRNO_ECANCELED_NEGATIVE) {
+                // The outbound buffer was failed when the channel was closed.
+                return;
+            }
+            ChannelOutboundBuffer in = outboundBuffer();
+            if (res < 0) {
+                handleWriteError(res == Errors.ERRNO_EPIPE_NEGATIVE || res == Errors.ERRNO_ECONNRESET_NEGATIVE ?
+                        Errors.newConnectionResetException("write", res) : Errors.newIOException("write", res));
+                return;
+            }
+            if (in != null) {
+                // Listeners notified while the written buffers are removed may flush again, which must not submit a
+                // write for the buffers that are about to be removed.
+                removingWrittenBytes = true;
+                try {
+                    in.removeBytes(res);
+                } finally {
+                    removingWrittenBytes = false;
+                }
+            }
+            // Submit the next write if more data was flushed in the meantime or only parts were written.
+            forceFlush();
+        }
+    }
+}
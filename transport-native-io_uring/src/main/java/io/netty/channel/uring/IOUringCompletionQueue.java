@@ -0,0 +1,110 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * The completion queue of an io_uring instance.
+ */
+final class IOUringCompletionQueue {
+
+    // Offsets within struct io_uring_cqe.
+    private static final int CQE_USER_DATA_FIELD = 0;
+    private static final int CQE_RES_FIELD = 8;
+    private static final int CQE_FLAGS_FIELD = 12;
+
+    private static final long CQE_SIZE = 16;
+
+    private final long kHeadAddress;
+    private final long kTailAddress;
+    private final long kOverflowAddress;
+    private final long completionQueueArrayAddress;
+
+    final int ringEntries;
+    private final int ringMask;
+    final int ringSize;
+    final long ringAddress;
+    final int ringFd;
+
+    private int ringHead;
+
+    IOUringCompletionQueue(long kHeadAddress, long kTailAddress, long kRingMaskAddress, long kRingEntriesAddress,
+                           long kOverflowAddress, long completionQueueArrayAddress, long ringAddress, long ringSize,
+                           int ringFd) {
+        this.kHeadAddress = kHeadAddress;
+        this.kTailAddress = kTailAddress;
+        this.kOverflowAddress = kOverflowAddress;
+        this.completionQueueArrayAddress = completionQueueArrayAddress;
+        this.ringAddress = ringAddress;
+        this.ringSize = (int) ringSize;
+        this.ringFd = ringFd;
+
+        ringEntries = PlatformDependent.getIntVolatile(kRingEntriesAddress);
+        ringMask = PlatformDependent.getIntVolatile(kRingMaskAddress);
+        ringHead = PlatformDependent.getIntVolatile(kHeadAddress);
+    }
+
+    /**
+     * Returns {@code true} if there are completions that were not processed yet.
+     */
+    boolean hasCompletions() {
+        return ringHead != PlatformDependent.getIntVolatile(kTailAddress);
+    }
+
+    /**
+     * Calls the {@link IOUringCompletionQueueCallback} for every completion that is ready and returns the number of
+     * processed completions.
+     */
+    int process(IOUringCompletionQueueCallback callback) {
+        int tail = PlatformDependent.getIntVolatile(kTailAddress);
+        int i = 0;
+        while (ringHead != tail) {
+            long cqeAddress = completionQueueArrayAddress + (ringHead & ringMask) * CQE_SIZE;
+
+            long udata = PlatformDependent.getLong(cqeAddress + CQE_USER_DATA_FIELD);
+            int res = PlatformDependent.getInt(cqeAddress + CQE_RES_FIELD);
+            int flags = PlatformDependent.getInt(cqeAddress + CQE_FLAGS_FIELD);
+
+            // Release the slot before calling the callback, which may submit new work and so produce new
+            // completions.
+            ringHead++;
+            PlatformDependent.putIntOrdered(kHeadAddress, ringHead);
+
+            i++;
+            UserData.decode(res, flags, udata, callback);
+
+            if (ringHead == tail) {
+                // Pick up everything that completed while we processed the batch.
+                tail = PlatformDependent.getIntVolatile(kTailAddress);
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Returns the number of completions the kernel had to drop because the queue was full. This is always {@code 0}
+     * on kernels that support {@link Native#IORING_FEAT_NODROP}.
+     */
+    int overflow() {
+        return PlatformDependent.getIntVolatile(kOverflowAddress);
+    }
+
+    @Override
+    public String toString() {
+        return "IOUringCompletionQueue(ringFd: " + ringFd + ')';
+    }
+}
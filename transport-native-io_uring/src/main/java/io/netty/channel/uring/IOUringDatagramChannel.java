@@ -0,0 +1,469 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.AddressedEnvelope;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelMetadata;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultAddressedEnvelope;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.channel.socket.InternetProtocolFamily;
+import io.netty.channel.unix.Buffer;
+import io.netty.channel.unix.Errors;
+import io.netty.channel.unix.IovArray;
+import io.netty.channel.unix.Socket;
+import io.netty.channel.unix.UnixChannelUtil;
+import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.StringUtil;
+
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.SocketAddress;
+
+/**
+ * {@link DatagramChannel} implementation that uses linux io_uring.
+ */
+public final class IOUringDatagramChannel extends AbstractIOUringChannel implements DatagramChannel {
+    private static final ChannelMetadata METADATA = new ChannelMetadata(true);
+    private static final String EXPECTED_TYPES =
+            " (expected: " + StringUtil.simpleClassName(DatagramPacket.class) + ", " +
+            StringUtil.simpleClassName(AddressedEnvelope.class) + '<' +
+            StringUtil.simpleClassName(ByteBuf.class) + ", " +
+            StringUtil.simpleClassName(InetSocketAddress.class) + ">, " +
+            StringUtil.simpleClassName(ByteBuf.class) + ')';
+
+    // A msghdr, sockaddr_storage and iovec for the pending recvmsg followed by the msghdr and sockaddr_storage for
+    // the pending sendmsg.
+    private static final int MSG_MEMORY_SIZE =
+            MsgHdr.MSGHDR_SIZE + SockaddrIn.SOCKADDR_STORAGE_SIZE + MsgHdr.IOVEC_SIZE;
+
+    private final IOUringDatagramChannelConfig config;
+    // The kernel refers to this memory while a recvmsg or sendmsg is in flight, so it is only released once the file
+    // descriptor was closed.
+    private long msgMemory;
+    // The buffer the submitted recvmsg reads into.
+    private ByteBuf recvBuffer;
+
+    /**
+     * Create a new instance which selects the {@link InternetProtocolFamily} to use depending
+     * on the Operation Systems default which will be chosen.
+     */
+    public IOUringDatagramChannel() {
+        this(null);
+    }
+
+    /**
+     * Create a new instance using the given {@link InternetProtocolFamily}. If {@code null} is used it will depend
+     * on the Operation Systems default which will be chosen.
+     */
+    public IOUringDatagramChannel(InternetProtocolFamily family) {
+        super(null, family == null ?
+                LinuxSocket.newSocketDgram(Socket.isIPv6Preferred()) :
+                LinuxSocket.newSocketDgram(family == InternetProtocolFamily.IPv6), false);
+        config = new IOUringDatagramChannelConfig(this);
+    }
+
+    @Override
+    public InetSocketAddress remoteAddress() {
+        return (InetSocketAddress) super.remoteAddress();
+    }
+
+    @Override
+    public InetSocketAddress localAddress() {
+        return (InetSocketAddress) super.localAddress();
+    }
+
+    @Override
+    public ChannelMetadata metadata() {
+        return METADATA;
+    }
+
+    @Override
+    public IOUringDatagramChannelConfig config() {
+        return config;
+    }
+
+    @Override
+    public boolean isActive() {
+        return isOpen() && (config.getActiveOnOpen() && isRegistered() || active);
+    }
+
+    @Override
+    public boolean isConnected() {
+        return remoteAddress0() != null;
+    }
+
+    @Override
+    public ChannelFuture joinGroup(InetAddress multicastAddress) {
+        return joinGroup(multicastAddress, newPromise());
+    }
+
+    @Override
+    public ChannelFuture joinGroup(InetAddress multicastAddress, ChannelPromise promise) {
+        try {
+            return joinGroup(
+                    multicastAddress,
+                    NetworkInterface.getByInetAddress(localAddress().getAddress()), null, promise);
+        } catch (IOException e) {
+            promise.setFailure(e);
+        }
+        return promise;
+    }
+
+    @Override
+    public ChannelFuture joinGroup(InetSocketAddress multicastAddress, NetworkInterface networkInterface) {
+        return joinGroup(multicastAddress, networkInterface, newPromise());
+    }
+
+    @Override
+    public ChannelFuture joinGroup(
+            InetSocketAddress multicastAddress, NetworkInterface networkInterface, ChannelPromise promise) {
+        return joinGroup(multicastAddress.getAddress(), networkInterface, null, promise);
+    }
+
+    @Override
+    public ChannelFuture joinGroup(
+            InetAddress multicastAddress, NetworkInterface networkInterface, InetAddress source) {
+        return joinGroup(multicastAddress, networkInterface, source, newPromise());
+    }
+
+    @Override
+    public ChannelFuture joinGroup(
+            InetAddress multicastAddress, NetworkInterface networkInterface, InetAddress source,
+            ChannelPromise promise) {
+        ObjectUtil.checkNotNull(multicastAddress, "multicastAddress");
+        ObjectUtil.checkNotNull(networkInterface, "networkInterface");
+
+        try {
+            socket.joinGroup(multicastAddress, networkInterface, source);
+            promise.setSuccess();
+        } catch (IOException e) {
+            promise.setFailure(e);
+        }
+        return promise;
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(InetAddress multicastAddress) {
+        return leaveGroup(multicastAddress, newPromise());
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(InetAddress multicastAddress, ChannelPromise promise) {
+        try {
+            return leaveGroup(
+                    multicastAddress, NetworkInterface.getByInetAddress(localAddress().getAddress()), null, promise);
+        } catch (IOException e) {
+            promise.setFailure(e);
+        }
+        return promise;
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(InetSocketAddress multicastAddress, NetworkInterface networkInterface) {
+        return leaveGroup(multicastAddress, networkInterface, newPromise());
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(
+            InetSocketAddress multicastAddress, NetworkInterface networkInterface, ChannelPromise promise) {
+        return leaveGroup(multicastAddress.getAddress(), networkInterface, null, promise);
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(
+            InetAddress multicastAddress, NetworkInterface networkInterface, InetAddress source) {
+        return leaveGroup(multicastAddress, networkInterface, source, newPromise());
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(
+            InetAddress multicastAddress, NetworkInterface networkInterface, InetAddress source,
+            ChannelPromise promise) {
+        ObjectUtil.checkNotNull(multicastAddress, "multicastAddress");
+        ObjectUtil.checkNotNull(networkInterface, "networkInterface");
+
+        try {
+            socket.leaveGroup(multicastAddress, networkInterface, source);
+            promise.setSuccess();
+        } catch (IOException e) {
+            promise.setFailure(e);
+        }
+        return promise;
+    }
+
+    @Override
+    public ChannelFuture block(
+            InetAddress multicastAddress, NetworkInterface networkInterface, InetAddress sourceToBlock) {
+        return block(multicastAddress, networkInterface, sourceToBlock, newPromise());
+    }
+
+    @Override
+    public ChannelFuture block(
+            InetAddress multicastAddress, NetworkInterface networkInterface, InetAddress sourceToBlock,
+            ChannelPromise promise) {
+        ObjectUtil.checkNotNull(multicastAddress, "multicastAddress");
+        ObjectUtil.checkNotNull(sourceToBlock, "sourceToBlock");
+        ObjectUtil.checkNotNull(networkInterface, "networkInterface");
+
+        try {
+            socket.block(multicastAddress, networkInterface, sourceToBlock);
+            promise.setSuccess();
+        } catch (IOException e) {
+            promise.setFailure(e);
+        }
+        return promise;
+    }
+
+    @Override
+    public ChannelFuture block(InetAddress multicastAddress, InetAddress sourceToBlock) {
+        return block(multicastAddress, sourceToBlock, newPromise());
+    }
+
+    @Override
+    public ChannelFuture block(InetAddress multicastAddress, InetAddress sourceToBlock, ChannelPromise promise) {
+        try {
+            return block(
+                    multicastAddress,
+                    NetworkInterface.getByInetAddress(localAddress().getAddress()),
+                    sourceToBlock, promise);
+        } catch (IOException e) {
+            promise.setFailure(e);
+        }
+        return promise;
+    }
+
+    @Override
+    protected AbstractUringUnsafe newUnsafe() {
+        return new IOUringDatagramChannelUnsafe();
+    }
+
+    @Override
+    protected void doBind(SocketAddress localAddress) throws Exception {
+        if (localAddress instanceof InetSocketAddress) {
+            InetSocketAddress socketAddress = (InetSocketAddress) localAddress;
+            if (socketAddress.getAddress().isAnyLocalAddress() &&
+                    socketAddress.getAddress() instanceof Inet4Address) {
+                if (socket.isIpv6()) {
+                    localAddress = new InetSocketAddress(LinuxSocket.INET6_ANY, socketAddress.getPort());
+                }
+            }
+        }
+        super.doBind(localAddress);
+        active = true;
+    }
+
+    @Override
+    protected void doDisconnect() throws Exception {
+        socket.disconnect();
+        active = false;
+        disconnected();
+    }
+
+    @Override
+    protected Object filterOutboundMessage(Object msg) {
+        if (msg instanceof DatagramPacket) {
+            DatagramPacket packet = (DatagramPacket) msg;
+            ByteBuf content = packet.content();
+            return UnixChannelUtil.isBufferCopyNeededForWrite(content) ?
+                    new DatagramPacket(newDirectBuffer(packet, content), packet.recipient()) : msg;
+        }
+
+        if (msg instanceof ByteBuf) {
+            ByteBuf buf = (ByteBuf) msg;
+            return UnixChannelUtil.isBufferCopyNeededForWrite(buf)? newDirectBuffer(buf) : buf;
+        }
+
+        if (msg instanceof AddressedEnvelope) {
+            @SuppressWarnings("unchecked")
+            AddressedEnvelope<Object, SocketAddress> e = (AddressedEnvelope<Object, SocketAddress>) msg;
+            if (e.content() instanceof ByteBuf &&
+                (e.recipient() == null || e.recipient() instanceof InetSocketAddress)) {
+
+                ByteBuf content = (ByteBuf) e.content();
+                return UnixChannelUtil.isBufferCopyNeededForWrite(content)?
+                        new DefaultAddressedEnvelope<ByteBuf, InetSocketAddress>(
+                            newDirectBuffer(e, content), (InetSocketAddress) e.recipient()) : e;
+            }
+        }
+
+        throw new UnsupportedOperationException(
+                "unsupported message type: " + StringUtil.simpleClassName(msg) + EXPECTED_TYPES);
+    }
+
+    @Override
+    protected void doWrite(ChannelOutboundBuffer in) throws Exception {
+        if (isWriteScheduled()) {
+            // Only one sendmsg is in flight at a time, the next one is submitted once it completed.
+            return;
+        }
+        for (;;) {
+            Object msg = in.current();
+            if (msg == null) {
+                return;
+            }
+            final ByteBuf data;
+            final InetSocketAddress recipient;
+            if (msg instanceof AddressedEnvelope) {
+                @SuppressWarnings("unchecked")
+                AddressedEnvelope<ByteBuf, InetSocketAddress> envelope =
+                        (AddressedEnvelope<ByteBuf, InetSocketAddress>) msg;
+                data = envelope.content();
+                recipient = envelope.recipient();
+            } else {
+                data = (ByteBuf) msg;
+                recipient = null;
+            }
+            if (!data.isReadable()) {
+                in.remove();
+                continue;
+            }
+
+            // The content may be made of several buffers, the IovArray stays valid until the submission was consumed
+            // by the kernel.
+            IovArray array = ((IOUringEventLoop) eventLoop()).iovArray();
+            array.add(data, data.readerIndex(), data.readableBytes());
+            long hdr = msgMemory() + MSG_MEMORY_SIZE;
+            long sockaddr = hdr + MsgHdr.MSGHDR_SIZE;
+            if (recipient == null) {
+                MsgHdr.write(hdr, 0, 0, array.memoryAddress(0), array.count());
+            } else {
+                int sockaddrLen = SockaddrIn.write(socket.isIpv6(), sockaddr, recipient);
+                MsgHdr.write(hdr, sockaddr, sockaddrLen, array.memoryAddress(0), array.count());
+            }
+            writeScheduled(submissionQueue().addSendmsg(socket.intValue(), hdr, (short) 0));
+            return;
+        }
+    }
+
+    private long msgMemory() {
+        if (msgMemory == 0) {
+            msgMemory = PlatformDependent.allocateMemory(MSG_MEMORY_SIZE * 2);
+        }
+        return msgMemory;
+    }
+
+    @Override
+    void freeResources() {
+        if (recvBuffer != null) {
+            recvBuffer.release();
+            recvBuffer = null;
+        }
+        if (msgMemory != 0) {
+            PlatformDependent.freeMemory(msgMemory);
+            msgMemory = 0;
+        }
+    }
+
+    final class IOUringDatagramChannelUnsafe extends AbstractUringUnsafe {
+
+        @Override
+        void scheduleRead() {
+            // There is no per-connection state that could be pinned by an idle buffer, so recvmsg is submitted
+            // directly instead of polling first.
+            recvBufAllocHandle().reset(config());
+            submitRecv();
+        }
+
+        private void submitRecv() {
+            final IOUringRecvByteAllocatorHandle allocHandle = recvBufAllocHandle();
+            ByteBuf byteBuf = allocHandle.allocate(alloc());
+            allocHandle.attemptedBytesRead(byteBuf.writableBytes());
+            long address = byteBuf.hasMemoryAddress() ? byteBuf.memoryAddress() :
+                    Buffer.memoryAddress(byteBuf.internalNioBuffer(0, byteBuf.capacity()));
+            recvBuffer = byteBuf;
+
+            long hdr = msgMemory();
+            long sockaddr = hdr + MsgHdr.MSGHDR_SIZE;
+            long iov = sockaddr + SockaddrIn.SOCKADDR_STORAGE_SIZE;
+            MsgHdr.writeIovec(iov, address + byteBuf.writerIndex(), byteBuf.writableBytes());
+            MsgHdr.write(hdr, sockaddr, SockaddrIn.SOCKADDR_STORAGE_SIZE, iov, 1);
+            readScheduled(submissionQueue().addRecvmsg(socket.intValue(), hdr, (short) 0));
+        }
+
+        @Override
+        void readComplete(int res) {
+            ByteBuf byteBuf = recvBuffer;
+            recvBuffer = null;
+            if (!isOpen() || res == Native.ERRNO_ECANCELED_NEGATIVE) {
+                // The recvmsg was cancelled because the channel was closed or deregistered.
+                byteBuf.release();
+                inReadCycle = false;
+                return;
+            }
+            final ChannelPipeline pipeline = pipeline();
+            final IOUringRecvByteAllocatorHandle allocHandle = recvBufAllocHandle();
+            inReadCycle = true;
+            try {
+                if (res < 0) {
+                    throw Errors.newIOException("recvmsg", res);
+                }
+                byteBuf.writerIndex(byteBuf.writerIndex() + res);
+                allocHandle.lastBytesRead(res);
+                allocHandle.incMessagesRead(1);
+                readPending = false;
+                InetSocketAddress sender = SockaddrIn.read(msgMemory + MsgHdr.MSGHDR_SIZE);
+                InetSocketAddress local = IOUringDatagramChannel.this.localAddress();
+                pipeline.fireChannelRead(new DatagramPacket(byteBuf, local, sender));
+                byteBuf = null;
+
+                if (allocHandle.continueReading() && isActive()) {
+                    submitRecv();
+                    return;
+                }
+            } catch (Throwable t) {
+                if (byteBuf != null) {
+                    byteBuf.release();
+                }
+                allocHandle.readComplete();
+                pipeline.fireChannelReadComplete();
+                pipeline.fireExceptionCaught(t);
+                readCycleComplete();
+                return;
+            }
+            allocHandle.readComplete();
+            pipeline.fireChannelReadComplete();
+            readCycleComplete();
+        }
+
+        @Override
+        void writeComplete(int res) {
+            if (!isOpen() || res == Native.ERRNO_ECANCELED_NEGATIVE) {
+                // The outbound buffer was failed when the channel was closed.
+                return;
+            }
+            ChannelOutboundBuffer in = outboundBuffer();
+            if (in != null) {
+                if (res < 0) {
+                    // Just like for the other transports a failed datagram only fails its own promise.
+                    in.remove(Errors.newIOException("sendmsg", res));
+                } else {
+                    in.remove();
+                }
+            }
+            forceFlush();
+        }
+    }
+}
@@ -0,0 +1,361 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.EventLoopTaskQueueFactory;
+import io.netty.channel.SingleThreadEventLoop;
+import io.netty.channel.unix.FileDescriptor;
+import io.netty.channel.unix.IovArray;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import io.netty.util.concurrent.RejectedExecutionHandler;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link EventLoop} which uses io_uring under the covers. Only works on Linux!
+ * <p>
+ * Operations of all channels are only written to the submission queue while the loop runs its tasks and handles
+ * completions, and are then handed to the kernel together with a single {@code io_uring_enter} call which also waits
+ * for the next completions.
+ */
+final class IOUringEventLoop extends SingleThreadEventLoop implements IOUringCompletionQueueCallback {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(IOUringEventLoop.class);
+
+    private static final long AWAKE = -1L;
+    private static final long NONE = Long.MAX_VALUE;
+
+    // The number of IovArrays that can be used for writes between two submits.
+    private static final int IOV_ARRAYS = 32;
+
+    private final IntObjectMap<AbstractIOUringChannel> channels = new IntObjectHashMap<AbstractIOUringChannel>(4096);
+    private final RingBuffer ringBuffer;
+    private final FileDescriptor eventfd;
+    // Memory the eventfd counter is read into, it is only ever read by the kernel.
+    private final long eventfdReadBuf;
+    private final IovArrays iovArrays;
+
+    // nextWakeupNanos is:
+    //    AWAKE            when EL is awake
+    //    NONE             when EL is waiting with no wakeup scheduled
+    //    other value T    when EL is waiting with wakeup scheduled at time T
+    private final AtomicLong nextWakeupNanos = new AtomicLong(AWAKE);
+    private boolean pendingWakeup;
+    private boolean eventfdReadSubmitted;
+
+    private long prevDeadlineNanos = NONE;
+    // The generation of the timeout that is currently armed, used to ignore completions of replaced timeouts.
+    private short timeoutGeneration;
+    private boolean timeoutArmed;
+    private long timeoutUserData;
+
+    IOUringEventLoop(EventLoopGroup parent, Executor executor, int ringSize,
+                     RejectedExecutionHandler rejectedExecutionHandler, EventLoopTaskQueueFactory queueFactory) {
+        super(parent, executor, false, newTaskQueue(queueFactory), newTaskQueue(queueFactory),
+                rejectedExecutionHandler);
+        // Ensure that we load all native bits as otherwise it may fail when try to use native methods in IovArray
+        IOUring.ensureAvailability();
+        ringBuffer = Native.createRingBuffer(ringSize);
+        boolean success = false;
+        try {
+            eventfd = Native.newEventFd();
+            eventfdReadBuf = PlatformDependent.allocateMemory(8);
+            success = true;
+        } finally {
+            if (!success) {
+                ringBuffer.close();
+            }
+        }
+        iovArrays = new IovArrays(IOV_ARRAYS);
+    }
+
+    private static Queue<Runnable> newTaskQueue(
+            EventLoopTaskQueueFactory queueFactory) {
+        if (queueFactory == null) {
+            return newTaskQueue0(DEFAULT_MAX_PENDING_TASKS);
+        }
+        return queueFactory.newTaskQueue(DEFAULT_MAX_PENDING_TASKS);
+    }
+
+    @Override
+    protected Queue<Runnable> newTaskQueue(int maxPendingTasks) {
+        return newTaskQueue0(maxPendingTasks);
+    }
+
+    private static Queue<Runnable> newTaskQueue0(int maxPendingTasks) {
+        // This event loop never calls takeTask()
+        return maxPendingTasks == Integer.MAX_VALUE ? PlatformDependent.<Runnable>newMpscQueue()
+                : PlatformDependent.<Runnable>newMpscQueue(maxPendingTasks);
+    }
+
+    /**
+     * Register the given channel with this {@link EventLoop}.
+     */
+    void add(AbstractIOUringChannel ch) {
+        assert inEventLoop();
+        int fd = ch.socket.intValue();
+        AbstractIOUringChannel old = channels.put(fd, ch);
+
+        // We either expect to have no Channel in the map with the same FD or that the FD of the old Channel is already
+        // closed.
+        assert old == null || !old.isOpen();
+    }
+
+    /**
+     * Deregister the given channel from this {@link EventLoop}.
+     */
+    void remove(AbstractIOUringChannel ch) {
+        assert inEventLoop();
+        int fd = ch.socket.intValue();
+
+        AbstractIOUringChannel old = channels.remove(fd);
+        if (old != null && old != ch) {
+            // The Channel mapping was already replaced due FD reuse, put back the stored Channel.
+            channels.put(fd, old);
+
+            // If we found another Channel in the map that is mapped to the same FD the given Channel MUST be closed.
+            assert !ch.isOpen();
+        }
+    }
+
+    IOUringSubmissionQueue submissionQueue() {
+        return ringBuffer.ioUringSubmissionQueue();
+    }
+
+    /**
+     * Return a cleared {@link IovArray} that can be used for a write which is submitted by this {@link EventLoop}.
+     * The {@link IovArray} stays valid until the submission queue was submitted the next time.
+     */
+    IovArray iovArray() {
+        IovArray iovArray = iovArrays.next();
+        if (iovArray == null) {
+            // All arrays are referenced by submissions that were not consumed by the kernel yet.
+            submit();
+            iovArray = iovArrays.next();
+            assert iovArray != null;
+        }
+        return iovArray;
+    }
+
+    private void submit() {
+        ringBuffer.ioUringSubmissionQueue().submit();
+        iovArrays.clear();
+    }
+
+    private void submitAndWait() {
+        ringBuffer.ioUringSubmissionQueue().submitAndWait();
+        iovArrays.clear();
+    }
+
+    @Override
+    protected void wakeup(boolean inEventLoop) {
+        if (!inEventLoop && nextWakeupNanos.getAndSet(AWAKE) != AWAKE) {
+            // write to the evfd which will then complete the read that is always submitted for it.
+            Native.eventFdWrite(eventfd.intValue(), 1L);
+        }
+    }
+
+    @Override
+    protected boolean beforeScheduledTaskSubmitted(long deadlineNanos) {
+        // Note this is also correct for the nextWakeupNanos == -1 (AWAKE) case
+        return deadlineNanos < nextWakeupNanos.get();
+    }
+
+    @Override
+    protected boolean afterScheduledTaskSubmitted(long deadlineNanos) {
+        // Note this is also correct for the nextWakeupNanos == -1 (AWAKE) case
+        return deadlineNanos < nextWakeupNanos.get();
+    }
+
+    @Override
+    public int registeredChannels() {
+        return channels.size();
+    }
+
+    @Override
+    protected void run() {
+        final IOUringCompletionQueue completionQueue = ringBuffer.ioUringCompletionQueue();
+        for (;;) {
+            try {
+                if (!eventfdReadSubmitted) {
+                    addEventFdRead();
+                }
+
+                long curDeadlineNanos = nextScheduledTaskDeadlineNanos();
+                if (curDeadlineNanos == -1L) {
+                    curDeadlineNanos = NONE; // nothing on the calendar
+                }
+                nextWakeupNanos.set(curDeadlineNanos);
+                boolean waited = false;
+                try {
+                    if (!hasTasks()) {
+                        if (curDeadlineNanos != prevDeadlineNanos) {
+                            prevDeadlineNanos = curDeadlineNanos;
+                            armTimeout(curDeadlineNanos);
+                        }
+                        if (!completionQueue.hasCompletions()) {
+                            submitAndWait();
+                            waited = true;
+                        }
+                    }
+                } finally {
+                    // Try get() first to avoid much more expensive CAS in the case we
+                    // were woken via the wakeup() method (submitted task)
+                    if (nextWakeupNanos.get() == AWAKE || nextWakeupNanos.getAndSet(AWAKE) == AWAKE) {
+                        pendingWakeup = true;
+                    }
+                }
+                if (!waited) {
+                    // Hand over everything that was queued by the last tasks and completions.
+                    submit();
+                }
+
+                try {
+                    completionQueue.process(this);
+                } finally {
+                    // Ensure we always run tasks.
+                    runAllTasks();
+                }
+            } catch (Error e) {
+                throw (Error) e;
+            } catch (Throwable t) {
+                handleLoopException(t);
+            } finally {
+                // Always handle shutdown even if the loop processing threw an exception.
+                try {
+                    if (isShuttingDown()) {
+                        closeAll();
+                        if (confirmShutdown()) {
+                            break;
+                        }
+                    }
+                } catch (Error e) {
+                    throw (Error) e;
+                } catch (Throwable t) {
+                    handleLoopException(t);
+                }
+            }
+        }
+    }
+
+    private void addEventFdRead() {
+        eventfdReadSubmitted = true;
+        ringBuffer.ioUringSubmissionQueue().addRead(eventfd.intValue(), eventfdReadBuf, 0, 8, (short) 0);
+    }
+
+    private void armTimeout(long deadlineNanos) {
+        IOUringSubmissionQueue submissionQueue = ringBuffer.ioUringSubmissionQueue();
+        if (timeoutArmed) {
+            // Replace the timeout, its completion is ignored as the generation does not match anymore.
+            submissionQueue.addTimeoutRemove(timeoutUserData);
+            timeoutArmed = false;
+        }
+        if (deadlineNanos != NONE) {
+            timeoutArmed = true;
+            timeoutUserData = submissionQueue.addTimeout(deadlineToDelayNanos(deadlineNanos), ++timeoutGeneration);
+        }
+    }
+
+    @Override
+    public void handle(int fd, int res, int flags, byte op, short data) {
+        if (op == Native.IORING_OP_TIMEOUT) {
+            if (data == timeoutGeneration && timeoutArmed && res == Native.ERRNO_ETIME_NEGATIVE) {
+                // The timeout fired, the scheduled tasks will be picked up by runAllTasks() and the next one needs a
+                // new timeout.
+                timeoutArmed = false;
+                prevDeadlineNanos = NONE;
+            }
+        } else if (op == Native.IORING_OP_TIMEOUT_REMOVE || op == Native.IORING_OP_ASYNC_CANCEL) {
+            // Nothing to do, the cancelled operation completes as well.
+        } else if (fd == eventfd.intValue()) {
+            pendingWakeup = false;
+            eventfdReadSubmitted = false;
+        } else {
+            AbstractIOUringChannel ch = channels.get(fd);
+            if (ch != null) {
+                ch.ioUringUnsafe().handle(res, op, data);
+            }
+        }
+    }
+
+    /**
+     * Visible only for testing!
+     */
+    void handleLoopException(Throwable t) {
+        logger.warn("Unexpected exception in the io_uring loop.", t);
+
+        // Prevent possible consecutive immediate failures that lead to
+        // excessive CPU consumption.
+        try {
+            Thread.sleep(1000);
+        } catch (InterruptedException e) {
+            // Ignore.
+        }
+    }
+
+    private void closeAll() {
+        // Using the intermediate collection to prevent ConcurrentModificationException.
+        // In the `close()` method, the channel is deleted from `channels` map.
+        AbstractIOUringChannel[] localChannels = channels.values().toArray(new AbstractIOUringChannel[0]);
+
+        for (AbstractIOUringChannel ch: localChannels) {
+            ch.unsafe().close(ch.unsafe().voidPromise());
+        }
+    }
+
+    @Override
+    protected void cleanup() {
+        try {
+            // Wait for the operations of closed channels and any in-flight wakeup write, so no memory or file
+            // descriptor is released while the kernel may still use it. Wait at most one second.
+            IOUringCompletionQueue completionQueue = ringBuffer.ioUringCompletionQueue();
+            armTimeout(nanoTime() + TimeUnit.SECONDS.toNanos(1));
+            while ((pendingWakeup || !channels.isEmpty()) && timeoutArmed) {
+                submitAndWait();
+                completionQueue.process(this);
+            }
+            if (timeoutArmed) {
+                armTimeout(NONE);
+                submit();
+            }
+            if (!channels.isEmpty()) {
+                logger.warn("{} channel(s) still had pending io_uring operations on shutdown", channels.size());
+                for (AbstractIOUringChannel ch : channels.values()) {
+                    ch.closeFd();
+                }
+            }
+        } finally {
+            ringBuffer.close();
+            try {
+                eventfd.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close the event fd.", e);
+            }
+            // release native memory
+            iovArrays.release();
+            PlatformDependent.freeMemory(eventfdReadBuf);
+        }
+    }
+}
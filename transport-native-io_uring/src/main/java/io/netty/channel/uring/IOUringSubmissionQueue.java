@@ -0,0 +1,240 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.io.IOException;
+
+/**
+ * The submission queue of an io_uring instance. Submissions are only written into the shared memory here, they are
+ * handed over to the kernel in batches by {@link #submit()} or {@link #submitAndWait()}, so many operations only cost
+ * a single {@code io_uring_enter} call.
+ */
+final class IOUringSubmissionQueue {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(IOUringSubmissionQueue.class);
+
+    private static final long SQE_SIZE = 64;
+
+    // Offsets within struct io_uring_sqe.
+    private static final int SQE_OP_CODE_FIELD = 0;
+    private static final int SQE_FLAGS_FIELD = 1;
+    private static final int SQE_IOPRIO_FIELD = 2;
+    private static final int SQE_FD_FIELD = 4;
+    private static final int SQE_OFFSET_FIELD = 8;
+    private static final int SQE_ADDRESS_FIELD = 16;
+    private static final int SQE_LEN_FIELD = 24;
+    private static final int SQE_RW_FLAGS_FIELD = 28;
+    private static final int SQE_USER_DATA_FIELD = 32;
+    private static final int SQE_PAD_FIELD = 40;
+
+    private final long kHeadAddress;
+    private final long kTailAddress;
+    private final long kFlagsAddress;
+
+    final int ringEntries;
+    private final int ringMask;
+    final int ringSize;
+    final long ringAddress;
+    final int ringFd;
+    final long sqesAddress;
+    final long sqesSize;
+
+    private final long timeoutMemoryAddress;
+
+    private int head;
+    private int tail;
+
+    IOUringSubmissionQueue(long kHeadAddress, long kTailAddress, long kRingMaskAddress, long kRingEntriesAddress,
+                           long kFlagsAddress, long sqesAddress, long sqesSize,
+                           long ringAddress, long ringSize, int ringFd) {
+        this.kHeadAddress = kHeadAddress;
+        this.kTailAddress = kTailAddress;
+        this.kFlagsAddress = kFlagsAddress;
+        this.sqesAddress = sqesAddress;
+        this.sqesSize = sqesSize;
+        this.ringAddress = ringAddress;
+        this.ringSize = (int) ringSize;
+        this.ringFd = ringFd;
+
+        ringEntries = PlatformDependent.getIntVolatile(kRingEntriesAddress);
+        ringMask = PlatformDependent.getIntVolatile(kRingMaskAddress);
+        head = PlatformDependent.getIntVolatile(kHeadAddress);
+        tail = PlatformDependent.getIntVolatile(kTailAddress);
+
+        timeoutMemoryAddress = PlatformDependent.allocateMemory(Native.SIZEOF_KERNEL_TIMESPEC);
+        PlatformDependent.setMemory(timeoutMemoryAddress, Native.SIZEOF_KERNEL_TIMESPEC, (byte) 0);
+    }
+
+    private long enqueueSqe(byte op, int flags, int rwFlags, int fd, long address, int len, long offset, long data) {
+        if (tail - head == ringEntries) {
+            // The queue is full, hand everything over to the kernel so we can reuse the slots.
+            submit();
+            if (tail - head == ringEntries) {
+                throw new IllegalStateException("submission queue is full and the kernel did not consume it");
+            }
+        }
+        // The native setup maps every slot of the indirection array to the sqe with the same index, so we can
+        // write straight into the sqes.
+        long sqe = sqesAddress + (tail++ & ringMask) * SQE_SIZE;
+        PlatformDependent.putByte(sqe + SQE_OP_CODE_FIELD, op);
+        PlatformDependent.putByte(sqe + SQE_FLAGS_FIELD, (byte) flags);
+        PlatformDependent.putShort(sqe + SQE_IOPRIO_FIELD, (short) 0);
+        PlatformDependent.putInt(sqe + SQE_FD_FIELD, fd);
+        PlatformDependent.putLong(sqe + SQE_OFFSET_FIELD, offset);
+        PlatformDependent.putLong(sqe + SQE_ADDRESS_FIELD, address);
+        PlatformDependent.putInt(sqe + SQE_LEN_FIELD, len);
+        PlatformDependent.putInt(sqe + SQE_RW_FLAGS_FIELD, rwFlags);
+        PlatformDependent.putLong(sqe + SQE_USER_DATA_FIELD, data);
+        // buf_index, personality and the padding must be zero.
+        PlatformDependent.putLong(sqe + SQE_PAD_FIELD, 0);
+        PlatformDependent.putLong(sqe + SQE_PAD_FIELD + 8, 0);
+        PlatformDependent.putLong(sqe + SQE_PAD_FIELD + 16, 0);
+        return data;
+    }
+
+    long addRead(int fd, long bufferAddress, int pos, int limit, short data) {
+        return enqueueSqe(Native.IORING_OP_READ, 0, 0, fd, bufferAddress + pos, limit - pos, 0,
+                UserData.encode(fd, Native.IORING_OP_READ, data));
+    }
+
+    long addWrite(int fd, long bufferAddress, int pos, int limit, short data) {
+        return enqueueSqe(Native.IORING_OP_WRITE, 0, 0, fd, bufferAddress + pos, limit - pos, 0,
+                UserData.encode(fd, Native.IORING_OP_WRITE, data));
+    }
+
+    long addWritev(int fd, long iovecArrayAddress, int length, short data) {
+        return enqueueSqe(Native.IORING_OP_WRITEV, 0, 0, fd, iovecArrayAddress, length, 0,
+                UserData.encode(fd, Native.IORING_OP_WRITEV, data));
+    }
+
+    long addPollIn(int fd, short data) {
+        return addPoll(fd, Native.POLLIN | Native.POLLRDHUP, data);
+    }
+
+    private long addPoll(int fd, int pollMask, short data) {
+        if (PlatformDependent.BIG_ENDIAN_NATIVE_ORDER) {
+            // poll32_events shares its lower 16 bits with the legacy poll_events field, swap the half words so
+            // kernels that only read poll_events still see the right mask.
+            pollMask = Integer.rotateLeft(pollMask, 16);
+        }
+        return enqueueSqe(Native.IORING_OP_POLL_ADD, 0, pollMask, fd, 0, 0, 0,
+                UserData.encode(fd, Native.IORING_OP_POLL_ADD, data));
+    }
+
+    long addAccept(int fd, long sockaddrAddress, long addrLenAddress, short data) {
+        return enqueueSqe(Native.IORING_OP_ACCEPT, 0, Native.SOCK_CLOEXEC, fd, sockaddrAddress, 0, addrLenAddress,
+                UserData.encode(fd, Native.IORING_OP_ACCEPT, data));
+    }
+
+    long addConnect(int fd, long sockaddrAddress, int sockaddrLength, short data) {
+        return enqueueSqe(Native.IORING_OP_CONNECT, 0, 0, fd, sockaddrAddress, 0, sockaddrLength,
+                UserData.encode(fd, Native.IORING_OP_CONNECT, data));
+    }
+
+    long addSendmsg(int fd, long msgHdrAddress, short data) {
+        return enqueueSqe(Native.IORING_OP_SENDMSG, 0, 0, fd, msgHdrAddress, 1, 0,
+                UserData.encode(fd, Native.IORING_OP_SENDMSG, data));
+    }
+
+    long addRecvmsg(int fd, long msgHdrAddress, short data) {
+        return enqueueSqe(Native.IORING_OP_RECVMSG, 0, 0, fd, msgHdrAddress, 1, 0,
+                UserData.encode(fd, Native.IORING_OP_RECVMSG, data));
+    }
+
+    /**
+     * Arms a relative timeout that completes with {@code -ETIME} once {@code nanoSeconds} elapsed. The timespec is
+     * copied by the kernel during submission, so the same memory is reused for every timeout.
+     */
+    long addTimeout(long nanoSeconds, short data) {
+        PlatformDependent.putLong(timeoutMemoryAddress + Native.KERNEL_TIMESPEC_TV_SEC, nanoSeconds / 1000000000L);
+        PlatformDependent.putLong(timeoutMemoryAddress + Native.KERNEL_TIMESPEC_TV_NSEC, nanoSeconds % 1000000000L);
+        return enqueueSqe(Native.IORING_OP_TIMEOUT, 0, 0, -1, timeoutMemoryAddress, 1, 0,
+                UserData.encode(-1, Native.IORING_OP_TIMEOUT, data));
+    }
+
+    long addTimeoutRemove(long timeoutUserData) {
+        return enqueueSqe(Native.IORING_OP_TIMEOUT_REMOVE, 0, 0, -1, timeoutUserData, 0, 0,
+                UserData.encode(-1, Native.IORING_OP_TIMEOUT_REMOVE, (short) 0));
+    }
+
+    long addCancel(int fd, long targetUserData) {
+        return enqueueSqe(Native.IORING_OP_ASYNC_CANCEL, 0, 0, -1, targetUserData, 0, 0,
+                UserData.encode(fd, Native.IORING_OP_ASYNC_CANCEL, (short) 0));
+    }
+
+    /**
+     * Returns the number of submissions that were written but not handed over to the kernel yet.
+     */
+    int count() {
+        return tail - head;
+    }
+
+    /**
+     * Submits all pending operations to the kernel without waiting for any completion.
+     */
+    int submit() {
+        return submit(0, 0);
+    }
+
+    /**
+     * Submits all pending operations to the kernel and blocks until at least one completion is available.
+     */
+    int submitAndWait() {
+        return submit(1, Native.IORING_ENTER_GETEVENTS);
+    }
+
+    private int submit(int minComplete, int flags) {
+        int submit = tail - head;
+        if (submit == 0 && minComplete == 0) {
+            return 0;
+        }
+        // Publish the tail so the kernel can see the new entries.
+        PlatformDependent.putIntOrdered(kTailAddress, tail);
+        int ret;
+        try {
+            ret = Native.ioUringEnter(ringFd, submit, minComplete, flags);
+        } catch (IOException e) {
+            // Nothing sensible can be done here as everything is driven by the event loop, just make sure we keep
+            // the local view of the queue consistent.
+            logger.warn("io_uring_enter failed", e);
+            ret = 0;
+        }
+        head = PlatformDependent.getIntVolatile(kHeadAddress);
+        if (ret == Native.ERRNO_EBUSY_NEGATIVE) {
+            // The completion queue is full. The caller must reap completions before the remaining submissions can
+            // be consumed, they stay in the ring and are picked up by the next call.
+            return 0;
+        }
+        return ret;
+    }
+
+    void release() {
+        PlatformDependent.freeMemory(timeoutMemoryAddress);
+    }
+
+    // Only used for debugging.
+    int flags() {
+        return PlatformDependent.getIntVolatile(kFlagsAddress);
+    }
+
+    @Override
+    public String toString() {
+        return "IOUringSubmissionQueue(ringFd: " + ringFd + ", pending: " + count() + ')';
+    }
+}
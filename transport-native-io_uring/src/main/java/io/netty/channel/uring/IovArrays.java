@@ -0,0 +1,66 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.channel.unix.IovArray;
+
+/**
+ * A pool of {@link IovArray}s used by the writes of one {@link IOUringEventLoop}.
+ * <p>
+ * The kernel copies the {@code iovec}s while the submission is consumed (see {@link Native#IORING_FEAT_SUBMIT_STABLE}),
+ * so an {@link IovArray} only needs to stay untouched until the next {@code io_uring_enter} call and all of them can be
+ * reused once the submission queue was submitted.
+ */
+final class IovArrays {
+    private final IovArray[] iovArrays;
+    private int idx;
+
+    IovArrays(int numArrays) {
+        iovArrays = new IovArray[numArrays];
+    }
+
+    /**
+     * Returns the next cleared {@link IovArray} or {@code null} if all of them are in use until the next submit.
+     */
+    IovArray next() {
+        if (idx == iovArrays.length) {
+            return null;
+        }
+        IovArray iovArray = iovArrays[idx];
+        if (iovArray == null) {
+            iovArray = iovArrays[idx] = new IovArray();
+        } else {
+            iovArray.clear();
+        }
+        idx++;
+        return iovArray;
+    }
+
+    /**
+     * Makes all {@link IovArray}s available again, must only be called after the submission queue was submitted.
+     */
+    void clear() {
+        idx = 0;
+    }
+
+    void release() {
+        for (IovArray iovArray : iovArrays) {
+            if (iovArray != null) {
+                iovArray.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.channel.unix.Buffer;
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * Writes {@code struct msghdr} to native memory, used by {@code IORING_OP_SENDMSG} and {@code IORING_OP_RECVMSG}.
+ */
+final class MsgHdr {
+    static final int MSGHDR_SIZE = NativeStaticallyReferencedJniMethods.msghdrSize();
+
+    private static final int MSGHDR_OFFSETOF_MSG_NAME = NativeStaticallyReferencedJniMethods.msghdrOffsetofMsgName();
+    private static final int MSGHDR_OFFSETOF_MSG_NAMELEN =
+            NativeStaticallyReferencedJniMethods.msghdrOffsetofMsgNamelen();
+    private static final int MSGHDR_OFFSETOF_MSG_IOV = NativeStaticallyReferencedJniMethods.msghdrOffsetofMsgIov();
+    private static final int MSGHDR_OFFSETOF_MSG_IOVLEN =
+            NativeStaticallyReferencedJniMethods.msghdrOffsetofMsgIovlen();
+    private static final int MSGHDR_OFFSETOF_MSG_CONTROL =
+            NativeStaticallyReferencedJniMethods.msghdrOffsetofMsgControl();
+    private static final int MSGHDR_OFFSETOF_MSG_CONTROLLEN =
+            NativeStaticallyReferencedJniMethods.msghdrOffsetofMsgControllen();
+    private static final int MSGHDR_OFFSETOF_MSG_FLAGS = NativeStaticallyReferencedJniMethods.msghdrOffsetofMsgFlags();
+
+    private static final boolean ADDRESS_64 = Buffer.addressSize() == 8;
+    /**
+     * The size of a single {@code struct iovec}.
+     */
+    static final int IOVEC_SIZE = Buffer.addressSize() * 2;
+
+    private MsgHdr() { }
+
+    /**
+     * Writes a {@code struct msghdr} without control data to {@code memory}.
+     *
+     * @param memory        the memory to write to, must be at least {@link #MSGHDR_SIZE} bytes.
+     * @param sockaddr      the address of the {@code sockaddr} or {@code 0} if none should be used.
+     * @param sockaddrLen   the length of the {@code sockaddr}.
+     * @param iovAddress    the address of the {@code iovec} array.
+     * @param iovLength     the number of {@code iovec}s.
+     */
+    static void write(long memory, long sockaddr, int sockaddrLen, long iovAddress, int iovLength) {
+        PlatformDependent.setMemory(memory, MSGHDR_SIZE, (byte) 0);
+        putAddress(memory + MSGHDR_OFFSETOF_MSG_NAME, sockaddr);
+        PlatformDependent.putInt(memory + MSGHDR_OFFSETOF_MSG_NAMELEN, sockaddrLen);
+        putAddress(memory + MSGHDR_OFFSETOF_MSG_IOV, iovAddress);
+        // msg_iovlen and msg_controllen are size_t.
+        putAddress(memory + MSGHDR_OFFSETOF_MSG_IOVLEN, iovLength);
+        putAddress(memory + MSGHDR_OFFSETOF_MSG_CONTROL, 0);
+        putAddress(memory + MSGHDR_OFFSETOF_MSG_CONTROLLEN, 0);
+        PlatformDependent.putInt(memory + MSGHDR_OFFSETOF_MSG_FLAGS, 0);
+    }
+
+    /**
+     * Writes a single {@code struct iovec} to {@code memory}, which must be at least {@link #IOVEC_SIZE} bytes.
+     */
+    static void writeIovec(long memory, long base, int length) {
+        putAddress(memory, base);
+        putAddress(memory + Buffer.addressSize(), length);
+    }
+
+    /**
+     * Returns the {@code msg_namelen} of the {@code struct msghdr} stored in {@code memory}, which is updated by the
+     * kernel when a message is received.
+     */
+    static int nameLength(long memory) {
+        return PlatformDependent.getInt(memory + MSGHDR_OFFSETOF_MSG_NAMELEN);
+    }
+
+    private static void putAddress(long memory, long value) {
+        if (ADDRESS_64) {
+            PlatformDependent.putLong(memory, value);
+        } else {
+            PlatformDependent.putInt(memory, (int) value);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.channel.unix.FileDescriptor;
+import io.netty.channel.unix.Unix;
+import io.netty.util.internal.NativeLibraryLoader;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.ThrowableUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.Selector;
+
+import static io.netty.channel.unix.Errors.newIOException;
+
+/**
+ * Native helper methods
+ * <p><strong>Internal usage only!</strong>
+ * <p>Static members which call JNI methods must be defined in {@link NativeStaticallyReferencedJniMethods}.
+ */
+final class Native {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(Native.class);
+
+    static {
+        Selector selector = null;
+        try {
+            // We call Selector.open() as this will under the hood cause IOUtil to be loaded.
+            // This is a workaround for a possible classloader deadlock that could happen otherwise:
+            //
+            // See https://github.com/netty/netty/issues/10187
+            selector = Selector.open();
+        } catch (IOException ignore) {
+            // Just ignore
+        }
+        try {
+            // First, try calling a side-effect free JNI method to see if the library was already
+            // loaded by the application.
+            NativeStaticallyReferencedJniMethods.afInet();
+        } catch (UnsatisfiedLinkError ignore) {
+            // The library was not previously loaded, load it now.
+            loadNativeLibrary();
+        } finally {
+            try {
+                if (selector != null) {
+                    selector.close();
+                }
+            } catch (IOException ignore) {
+                // Just ignore
+            }
+        }
+        Unix.registerInternal(new Runnable() {
+            @Override
+            public void run() {
+                registerUnix();
+            }
+        });
+    }
+
+    // The io_uring opcodes, flags and features are part of the kernel ABI and so never change.
+    // See https://github.com/torvalds/linux/blob/v5.7/include/uapi/linux/io_uring.h
+    static final byte IORING_OP_WRITEV = 2;
+    static final byte IORING_OP_POLL_ADD = 6;
+    static final byte IORING_OP_SENDMSG = 9;
+    static final byte IORING_OP_RECVMSG = 10;
+    static final byte IORING_OP_TIMEOUT = 11;
+    static final byte IORING_OP_TIMEOUT_REMOVE = 12;
+    static final byte IORING_OP_ACCEPT = 13;
+    static final byte IORING_OP_ASYNC_CANCEL = 14;
+    static final byte IORING_OP_CONNECT = 16;
+    static final byte IORING_OP_READ = 22;
+    static final byte IORING_OP_WRITE = 23;
+
+    static final int IORING_ENTER_GETEVENTS = 1;
+
+    static final int IORING_FEAT_NODROP = 1 << 1;
+    static final int IORING_FEAT_SUBMIT_STABLE = 1 << 2;
+    static final int IORING_FEAT_FAST_POLL = 1 << 5;
+
+    /**
+     * The features this transport depends on: completions are never dropped, everything referenced by a submission
+     * is copied by the kernel during submission and sockets are polled internally instead of blocking a worker thread.
+     * All of them are present since Linux 5.7.
+     */
+    static final int REQUIRED_FEATURES = IORING_FEAT_NODROP | IORING_FEAT_SUBMIT_STABLE | IORING_FEAT_FAST_POLL;
+
+    static final int DEFAULT_RING_SIZE = 4096;
+
+    static final int POLLIN = NativeStaticallyReferencedJniMethods.pollin();
+    static final int POLLRDHUP = NativeStaticallyReferencedJniMethods.pollrdhup();
+    static final int ERRNO_ETIME_NEGATIVE = -NativeStaticallyReferencedJniMethods.etime();
+    static final int ERRNO_ECANCELED_NEGATIVE = -NativeStaticallyReferencedJniMethods.ecanceled();
+    static final int ERRNO_EBUSY_NEGATIVE = -NativeStaticallyReferencedJniMethods.ebusy();
+    static final int SOCK_CLOEXEC = NativeStaticallyReferencedJniMethods.sockCloexec();
+
+    static final int SIZEOF_KERNEL_TIMESPEC = NativeStaticallyReferencedJniMethods.kernelTimespecSize();
+    static final int KERNEL_TIMESPEC_TV_SEC = NativeStaticallyReferencedJniMethods.kernelTimespecOffsetofTvSec();
+    static final int KERNEL_TIMESPEC_TV_NSEC = NativeStaticallyReferencedJniMethods.kernelTimespecOffsetofTvNsec();
+
+    static RingBuffer createRingBuffer(int ringSize) {
+        long[] values = ioUringSetup(ringSize);
+        assert values.length == 19;
+        IOUringSubmissionQueue submissionQueue = new IOUringSubmissionQueue(
+                values[2], values[3], values[4], values[5], values[6], values[7], values[8], values[9], values[10],
+                (int) values[0]);
+        IOUringCompletionQueue completionQueue = new IOUringCompletionQueue(
+                values[11], values[12], values[13], values[14], values[15], values[16], values[17], values[18],
+                (int) values[0]);
+        return new RingBuffer(submissionQueue, completionQueue, (int) values[1]);
+    }
+
+    static RingBuffer createRingBuffer() {
+        return createRingBuffer(DEFAULT_RING_SIZE);
+    }
+
+    static int ioUringEnter(int ringFd, int toSubmit, int minComplete, int flags) throws IOException {
+        int res = ioUringEnter0(ringFd, toSubmit, minComplete, flags);
+        if (res < 0 && res != ERRNO_EBUSY_NEGATIVE) {
+            throw newIOException("io_uring_enter", res);
+        }
+        return res;
+    }
+
+    static FileDescriptor newEventFd() {
+        return new FileDescriptor(eventFd());
+    }
+
+    static int newBlockingSocketStreamFd(boolean ipv6) {
+        int res = blockingSocketStreamFd(ipv6);
+        if (res < 0) {
+            throw new IllegalStateException(newIOException("socket", res));
+        }
+        return res;
+    }
+
+    static int newBlockingSocketDgramFd(boolean ipv6) {
+        int res = blockingSocketDgramFd(ipv6);
+        if (res < 0) {
+            throw new IllegalStateException(newIOException("socket", res));
+        }
+        return res;
+    }
+
+    private static native long[] ioUringSetup(int entries);
+    static native void ioUringExit(long sqRingAddress, long sqRingSize, long sqesAddress, long sqesSize,
+                                   long cqRingAddress, long cqRingSize, int ringFd);
+    private static native int ioUringEnter0(int ringFd, int toSubmit, int minComplete, int flags);
+    private static native int eventFd();
+    static native void eventFdWrite(int fd, long value);
+    private static native int blockingSocketStreamFd(boolean ipv6);
+    private static native int blockingSocketDgramFd(boolean ipv6);
+    private static native int registerUnix();
+
+    private static void loadNativeLibrary() {
+        String name = PlatformDependent.normalizedOs();
+        if (!"linux".equals(name)) {
+            throw new IllegalStateException("Only supported on Linux");
+        }
+        String staticLibName = "netty_transport_native_io_uring";
+        String sharedLibName = staticLibName + '_' + PlatformDependent.normalizedArch();
+        ClassLoader cl = PlatformDependent.getClassLoader(Native.class);
+        try {
+            NativeLibraryLoader.load(sharedLibName, cl);
+        } catch (UnsatisfiedLinkError e1) {
+            try {
+                NativeLibraryLoader.load(staticLibName, cl);
+                logger.debug("Failed to load {}", sharedLibName, e1);
+            } catch (UnsatisfiedLinkError e2) {
+                ThrowableUtil.addSuppressed(e1, e2);
+                throw e1;
+            }
+        }
+    }
+
+    private Native() {
+        // utility
+    }
+}
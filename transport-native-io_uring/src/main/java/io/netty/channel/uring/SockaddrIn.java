@@ -0,0 +1,142 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+import io.netty.util.internal.PlatformDependent;
+
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Reads and writes {@code struct sockaddr_in} and {@code struct sockaddr_in6} from / to native memory, so addresses
+ * can be passed to operations that are completed asynchronously by the kernel.
+ */
+final class SockaddrIn {
+    static final int SOCKADDR_STORAGE_SIZE = NativeStaticallyReferencedJniMethods.sockaddrStorageSize();
+
+    private static final int AF_INET = NativeStaticallyReferencedJniMethods.afInet();
+    private static final int AF_INET6 = NativeStaticallyReferencedJniMethods.afInet6();
+
+    private static final int SOCKADDR_IN_SIZE = NativeStaticallyReferencedJniMethods.sockaddrInSize();
+    private static final int SOCKADDR_IN_OFFSETOF_SIN_FAMILY =
+            NativeStaticallyReferencedJniMethods.sockaddrInOffsetofSinFamily();
+    private static final int SOCKADDR_IN_OFFSETOF_SIN_PORT =
+            NativeStaticallyReferencedJniMethods.sockaddrInOffsetofSinPort();
+    private static final int SOCKADDR_IN_OFFSETOF_SIN_ADDR =
+            NativeStaticallyReferencedJniMethods.sockaddrInOffsetofSinAddr();
+
+    private static final int SOCKADDR_IN6_SIZE = NativeStaticallyReferencedJniMethods.sockaddrIn6Size();
+    private static final int SOCKADDR_IN6_OFFSETOF_SIN6_FAMILY =
+            NativeStaticallyReferencedJniMethods.sockaddrIn6OffsetofSin6Family();
+    private static final int SOCKADDR_IN6_OFFSETOF_SIN6_PORT =
+            NativeStaticallyReferencedJniMethods.sockaddrIn6OffsetofSin6Port();
+    private static final int SOCKADDR_IN6_OFFSETOF_SIN6_FLOWINFO =
+            NativeStaticallyReferencedJniMethods.sockaddrIn6OffsetofSin6Flowinfo();
+    private static final int SOCKADDR_IN6_OFFSETOF_SIN6_ADDR =
+            NativeStaticallyReferencedJniMethods.sockaddrIn6OffsetofSin6Addr();
+    private static final int SOCKADDR_IN6_OFFSETOF_SIN6_SCOPE_ID =
+            NativeStaticallyReferencedJniMethods.sockaddrIn6OffsetofSin6ScopeId();
+
+    private static final byte[] IPV4_MAPPED_IPV6_PREFIX = {
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, (byte) 0xff, (byte) 0xff };
+
+    private SockaddrIn() { }
+
+    /**
+     * Writes the given address to {@code memory}, which must be at least {@link #SOCKADDR_STORAGE_SIZE} bytes, and
+     * returns the number of bytes written. IPv4 addresses are written as IPv4-mapped IPv6 addresses if
+     * {@code ipv6} is {@code true}.
+     */
+    static int write(boolean ipv6, long memory, InetSocketAddress address) {
+        InetAddress inetAddress = address.getAddress();
+        if (ipv6) {
+            return writeIPv6(memory, inetAddress, address.getPort());
+        }
+        if (!(inetAddress instanceof Inet4Address)) {
+            throw new IllegalArgumentException("IPv6 address used on an IPv4 socket: " + address);
+        }
+        PlatformDependent.setMemory(memory, SOCKADDR_IN_SIZE, (byte) 0);
+        PlatformDependent.putShort(memory + SOCKADDR_IN_OFFSETOF_SIN_FAMILY, (short) AF_INET);
+        PlatformDependent.putShort(memory + SOCKADDR_IN_OFFSETOF_SIN_PORT,
+                handleNetworkOrder((short) address.getPort()));
+        PlatformDependent.copyMemory(inetAddress.getAddress(), 0, memory + SOCKADDR_IN_OFFSETOF_SIN_ADDR, 4);
+        return SOCKADDR_IN_SIZE;
+    }
+
+    private static int writeIPv6(long memory, InetAddress address, int port) {
+        PlatformDependent.setMemory(memory, SOCKADDR_IN6_SIZE, (byte) 0);
+        PlatformDependent.putShort(memory + SOCKADDR_IN6_OFFSETOF_SIN6_FAMILY, (short) AF_INET6);
+        PlatformDependent.putShort(memory + SOCKADDR_IN6_OFFSETOF_SIN6_PORT, handleNetworkOrder((short) port));
+        long addr = memory + SOCKADDR_IN6_OFFSETOF_SIN6_ADDR;
+        if (address instanceof Inet6Address) {
+            PlatformDependent.copyMemory(address.getAddress(), 0, addr, 16);
+            PlatformDependent.putInt(memory + SOCKADDR_IN6_OFFSETOF_SIN6_SCOPE_ID,
+                    ((Inet6Address) address).getScopeId());
+        } else {
+            PlatformDependent.copyMemory(IPV4_MAPPED_IPV6_PREFIX, 0, addr, IPV4_MAPPED_IPV6_PREFIX.length);
+            PlatformDependent.copyMemory(address.getAddress(), 0, addr + IPV4_MAPPED_IPV6_PREFIX.length, 4);
+        }
+        // The flow info is not used.
+        PlatformDependent.putInt(memory + SOCKADDR_IN6_OFFSETOF_SIN6_FLOWINFO, 0);
+        return SOCKADDR_IN6_SIZE;
+    }
+
+    /**
+     * Reads the address stored in {@code memory}, which was written by the kernel.
+     */
+    static InetSocketAddress read(long memory) {
+        int family = PlatformDependent.getShort(memory + SOCKADDR_IN_OFFSETOF_SIN_FAMILY) & 0xFFFF;
+        try {
+            if (family == AF_INET) {
+                byte[] bytes = new byte[4];
+                PlatformDependent.copyMemory(memory + SOCKADDR_IN_OFFSETOF_SIN_ADDR, bytes, 0, bytes.length);
+                int port = handleNetworkOrder(
+                        PlatformDependent.getShort(memory + SOCKADDR_IN_OFFSETOF_SIN_PORT)) & 0xFFFF;
+                return new InetSocketAddress(InetAddress.getByAddress(bytes), port);
+            }
+            assert family == AF_INET6 : family;
+            byte[] bytes = new byte[16];
+            PlatformDependent.copyMemory(memory + SOCKADDR_IN6_OFFSETOF_SIN6_ADDR, bytes, 0, bytes.length);
+            int port = handleNetworkOrder(
+                    PlatformDependent.getShort(memory + SOCKADDR_IN6_OFFSETOF_SIN6_PORT)) & 0xFFFF;
+            if (isIPv4Mapped(bytes)) {
+                byte[] ipv4 = new byte[4];
+                System.arraycopy(bytes, IPV4_MAPPED_IPV6_PREFIX.length, ipv4, 0, ipv4.length);
+                return new InetSocketAddress(InetAddress.getByAddress(ipv4), port);
+            }
+            int scopeId = PlatformDependent.getInt(memory + SOCKADDR_IN6_OFFSETOF_SIN6_SCOPE_ID);
+            return new InetSocketAddress(Inet6Address.getByAddress(null, bytes, scopeId), port);
+        } catch (UnknownHostException e) {
+            throw new Error("Should never happen", e);
+        }
+    }
+
+    private static boolean isIPv4Mapped(byte[] ipv6) {
+        for (int i = 0; i < IPV4_MAPPED_IPV6_PREFIX.length; i++) {
+            if (ipv6[i] != IPV4_MAPPED_IPV6_PREFIX[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static short handleNetworkOrder(short v) {
+        return PlatformDependent.BIG_ENDIAN_NATIVE_ORDER ? v : Short.reverseBytes(v);
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.uring;
+
+/**
+ * Packs everything needed to dispatch a completion into the 64 bits of {@code user_data} so no lookup table or
+ * allocation is needed per submission: the low 32 bits hold the file descriptor, followed by 16 bits for the
+ * {@code IORING_OP_*} and 16 bits of extra data.
+ */
+final class UserData {
+    private UserData() {
+    }
+
+    static long encode(int fd, byte op, short data) {
+        return ((long) data << 48) | ((op & 0xFFFFL) << 32) | fd & 0xFFFFFFFFL;
+    }
+
+    static void decode(int res, int flags, long udata, IOUringCompletionQueueCallback callback) {
+        int fd = (int) (udata & 0xFFFFFFFFL);
+        byte op = (byte) ((udata >>>= 32) & 0xFFFFL);
+        short data = (short) (udata >>> 16);
+        callback.handle(fd, res, flags, op, data);
+    }
+}
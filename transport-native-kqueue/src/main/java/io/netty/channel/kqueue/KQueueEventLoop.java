@@ -348,6 +348,14 @@ final class KQueueEventLoop extends SingleThreadEventLoop {
         this.ioRatio = ioRatio;
     }
 
+    /**
+     * Returns the {@link SelectStrategy} of this event loop, for example to read the statistics of a
+     * {@link io.netty.channel.SpinWaitSelectStrategy}.
+     */
+    public SelectStrategy selectStrategy() {
+        return selectStrategy;
+    }
+
     @Override
     public int registeredChannels() {
         return channels.size();
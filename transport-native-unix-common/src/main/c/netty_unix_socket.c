@@ -181,6 +181,15 @@ static void initInetSocketAddressArray(JNIEnv* env, const struct sockaddr_storag
     }
 }
 
+void netty_unix_socket_initAcceptedAddress(JNIEnv* env, const struct sockaddr_storage* addr, jbyteArray bArray, int offset) {
+    jsize len = addressLength(addr);
+    jbyte len_b = (jbyte) len;
+
+    // Fill in the length followed by the remote address details
+    (*env)->SetByteArrayRegion(env, bArray, offset, 1, &len_b);
+    initInetSocketAddressArray(env, addr, bArray, offset + 1, len);
+}
+
 jbyteArray netty_unix_socket_createInetSocketAddressArray(JNIEnv* env, const struct sockaddr_storage* addr) {
     jsize len = addressLength(addr);
     jbyteArray bArray = (*env)->NewByteArray(env, len);
@@ -499,8 +508,6 @@ static jint netty_unix_socket_disconnect(JNIEnv* env, jclass clazz, jint fd, jbo
 
 static jint netty_unix_socket_accept(JNIEnv* env, jclass clazz, jint fd, jbyteArray acceptedAddress) {
     jint socketFd;
-    jsize len;
-    jbyte len_b;
     int err;
     struct sockaddr_storage addr;
     socklen_t address_len = sizeof(addr);
@@ -524,12 +531,7 @@ static jint netty_unix_socket_accept(JNIEnv* env, jclass clazz, jint fd, jbyteAr
         }
     }
 
-    len = addressLength(&addr);
-    len_b = (jbyte) len;
-
-    // Fill in remote address details
-    (*env)->SetByteArrayRegion(env, acceptedAddress, 0, 1, (jbyte*) &len_b);
-    initInetSocketAddressArray(env, &addr, acceptedAddress, 1, len);
+    netty_unix_socket_initAcceptedAddress(env, &addr, acceptedAddress, 0);
 
     if (accept4)  {
         return socketFd;
@@ -22,6 +22,8 @@
 // External C methods
 int netty_unix_socket_initSockaddr(JNIEnv* env, jboolean ipv6, jbyteArray address, jint scopeId, jint jport, const struct sockaddr_storage* addr, socklen_t* addrSize);
 jbyteArray netty_unix_socket_createInetSocketAddressArray(JNIEnv* env, const struct sockaddr_storage* addr);
+// Writes the length of the encoded address followed by the address itself, as used for accepted connections.
+void netty_unix_socket_initAcceptedAddress(JNIEnv* env, const struct sockaddr_storage* addr, jbyteArray bArray, int offset);
 
 int netty_unix_socket_getOption(JNIEnv* env, jint fd, int level, int optname, void* optval, socklen_t optlen);
 int netty_unix_socket_setOption(JNIEnv* env, jint fd, int level, int optname, const void* optval, socklen_t len);
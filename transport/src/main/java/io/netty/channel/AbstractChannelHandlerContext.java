@@ -16,6 +16,7 @@
 package io.netty.channel;
 
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelPipelineProfiler.Event;
 import io.netty.util.Attribute;
 import io.netty.util.AttributeKey;
 import io.netty.util.ReferenceCountUtil;
@@ -89,6 +90,8 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
     private final String name;
     private final boolean ordered;
     private final int executionMask;
+    // Will be set to null if the pipeline is not profiled.
+    final ChannelPipelineProfiler.Recorder profileRecorder;
 
     // Will be set to null if no child executor should be used, otherwise it will be set to the
     // child executor.
@@ -107,6 +110,7 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
         this.pipeline = pipeline;
         this.executor = executor;
         this.executionMask = mask(handlerClass);
+        profileRecorder = ChannelPipelineProfiler.newRecorder(handlerClass);
         // Its ordered if its driven by the EventLoop or the given Executor is an instanceof OrderedEventExecutor.
         ordered = executor == null || executor instanceof OrderedEventExecutor;
     }
@@ -342,11 +346,16 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
 
     private void invokeUserEventTriggered(Object event) {
         if (invokeHandler()) {
+            final ChannelPipelineProfiler.Recorder recorder = profileRecorder;
+            final long startTime = recorder == null ? 0 : recorder.start(Event.USER_EVENT_TRIGGERED);
             try {
                 ((ChannelInboundHandler) handler()).userEventTriggered(this, event);
             } catch (Throwable t) {
                 invokeExceptionCaught(t);
             }
+            if (recorder != null) {
+                recorder.end(Event.USER_EVENT_TRIGGERED, startTime);
+            }
         } else {
             fireUserEventTriggered(event);
         }
@@ -390,11 +399,16 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
     private void invokeChannelRead(Object msg) {
         // context 对应的handler
         if (invokeHandler()) {
+            final ChannelPipelineProfiler.Recorder recorder = profileRecorder;
+            final long startTime = recorder == null ? 0 : recorder.start(Event.CHANNEL_READ);
             try {
                 ((ChannelInboundHandler) handler()).channelRead(this, msg);
             } catch (Throwable t) {
                 invokeExceptionCaught(t);
             }
+            if (recorder != null) {
+                recorder.end(Event.CHANNEL_READ, startTime);
+            }
         } else {
             fireChannelRead(msg);
         }
@@ -728,11 +742,16 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
     }
 
     private void invokeWrite0(Object msg, ChannelPromise promise) {
+        final ChannelPipelineProfiler.Recorder recorder = profileRecorder;
+        final long startTime = recorder == null ? 0 : recorder.start(Event.WRITE);
         try {
             ((ChannelOutboundHandler) handler()).write(this, msg, promise);
         } catch (Throwable t) {
             notifyOutboundHandlerException(t, promise);
         }
+        if (recorder != null) {
+            recorder.end(Event.WRITE, startTime);
+        }
     }
 
     @Override
@@ -761,11 +780,16 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
     }
 
     private void invokeFlush0() {
+        final ChannelPipelineProfiler.Recorder recorder = profileRecorder;
+        final long startTime = recorder == null ? 0 : recorder.start(Event.FLUSH);
         try {
             ((ChannelOutboundHandler) handler()).flush(this);
         } catch (Throwable t) {
             invokeExceptionCaught(t);
         }
+        if (recorder != null) {
+            recorder.end(Event.FLUSH, startTime);
+        }
     }
 
     @Override
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.channel.ChannelPipelineProfiler.Event;
+import io.netty.util.internal.StringUtil;
+
+/**
+ * A snapshot of the profile of a {@link ChannelHandler}, or of all handlers of the same type.
+ *
+ * @see ChannelPipelineProfiler
+ */
+public final class ChannelHandlerProfile {
+    private final String name;
+    private final Class<?> handlerType;
+    private final long[] values;
+
+    ChannelHandlerProfile(String name, Class<?> handlerType, long[] values) {
+        this.name = name;
+        this.handlerType = handlerType;
+        this.values = values;
+    }
+
+    /**
+     * Returns the name of the handler in its pipeline, or {@code null} if this profile aggregates all handlers of
+     * the same type.
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Returns the type of the handler.
+     */
+    public Class<?> handlerType() {
+        return handlerType;
+    }
+
+    /**
+     * Returns how often the handler was invoked for the given event.
+     */
+    public long invocations(Event event) {
+        return values[event.ordinal() * 3];
+    }
+
+    /**
+     * Returns how many of the invocations for the given event were timed.
+     */
+    public long sampledInvocations(Event event) {
+        return values[event.ordinal() * 3 + 1];
+    }
+
+    /**
+     * Returns the total time in nanoseconds of the timed invocations for the given event.
+     */
+    public long sampledNanos(Event event) {
+        return values[event.ordinal() * 3 + 2];
+    }
+
+    /**
+     * Returns the estimated total time in nanoseconds of all invocations for the given event, which is extrapolated
+     * from the timed invocations.
+     */
+    public long estimatedNanos(Event event) {
+        long sampled = sampledInvocations(event);
+        if (sampled == 0) {
+            return 0;
+        }
+        return (long) (sampledNanos(event) * ((double) invocations(event) / sampled));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buf = new StringBuilder(64)
+                .append(StringUtil.simpleClassName(this))
+                .append('(')
+                .append(name == null ? StringUtil.simpleClassName(handlerType) : name);
+        for (Event event : Event.values()) {
+            long invocations = invocations(event);
+            if (invocations > 0) {
+                buf.append(", ").append(event).append(": ").append(invocations)
+                   .append(" calls, ").append(estimatedNanos(event)).append(" ns");
+            }
+        }
+        return buf.append(')').toString();
+    }
+}
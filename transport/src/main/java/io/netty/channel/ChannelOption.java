@@ -101,6 +101,14 @@ public class ChannelOption<T> extends AbstractConstant<ChannelOption<T>> {
     public static final ChannelOption<Integer> WRITE_BUFFER_LOW_WATER_MARK = valueOf("WRITE_BUFFER_LOW_WATER_MARK");
     public static final ChannelOption<WriteBufferWaterMark> WRITE_BUFFER_WATER_MARK =
             valueOf("WRITE_BUFFER_WATER_MARK");
+    /**
+     * The maximal number of readable bytes of a flushed {@link io.netty.buffer.ByteBuf} to copy it together with its
+     * neighbours into a single direct buffer before a gathering write, or {@code 0} to not combine any buffers.
+     * The default value is {@code 0}. Only supported by the NIO and epoll socket channels.
+     *
+     * @see ChannelOutboundBuffer#combineSmallBuffers(ByteBufAllocator, int)
+     */
+    public static final ChannelOption<Integer> WRITE_COMBINING_THRESHOLD = valueOf("WRITE_COMBINING_THRESHOLD");
 
     public static final ChannelOption<Boolean> ALLOW_HALF_CLOSURE = valueOf("ALLOW_HALF_CLOSURE");
     public static final ChannelOption<Boolean> AUTO_READ = valueOf("AUTO_READ");
@@ -16,6 +16,7 @@
 package io.netty.channel;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.ByteBufHolder;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.socket.nio.NioSocketChannel;
@@ -50,6 +51,14 @@ import static java.lang.Math.min;
  * <li>{@link #getUserDefinedWritability(int)} and {@link #setUserDefinedWritability(int, boolean)}</li>
  * </ul>
  * </p>
+ * <p>
+ * By default the pending messages are kept in a linked list of recycled entries. If
+ * {@code -Dio.netty.transport.outboundBuffer.arrayBacked=true} is set, the messages, their sizes and promises are
+ * kept in ring arrays instead, which avoids the per message entry and reduces the atomic updates of the pending bytes
+ * to one per flush and per batch of written messages. {@link #removeBytes(long)} removes such a batch before it
+ * completes the promises of its messages together. The pending bytes are still published as soon as they cross a
+ * write buffer water mark, so {@link #isWritable()} changes at the same messages in both modes.
+ * </p>
  */
 public final class ChannelOutboundBuffer {
     // Assuming a 64-bit JVM:
@@ -64,6 +73,18 @@ public final class ChannelOutboundBuffer {
 
     private static final InternalLogger logger = InternalLoggerFactory.getInstance(ChannelOutboundBuffer.class);
 
+    // The maximal size of a buffer into which small buffers are combined, see combineSmallBuffers(...).
+    static final int WRITE_COMBINING_BUFFER_SIZE = 16 * 1024;
+
+    private static final boolean ARRAY_BACKED =
+            SystemPropertyUtil.getBoolean("io.netty.transport.outboundBuffer.arrayBacked", false);
+
+    static {
+        if (logger.isDebugEnabled()) {
+            logger.debug("-Dio.netty.transport.outboundBuffer.arrayBacked: {}", ARRAY_BACKED);
+        }
+    }
+
     private static final FastThreadLocal<ByteBuffer[]> NIO_BUFFERS = new FastThreadLocal<ByteBuffer[]>() {
         @Override
         protected ByteBuffer[] initialValue() throws Exception {
@@ -83,6 +104,18 @@ public final class ChannelOutboundBuffer {
     private Entry tailEntry;
     // The number of flushed entries that are not written yet
     private int flushed;
+    // The number of flushed entries, counted from the first one, which combineSmallBuffers(...) already looked at, so
+    // it only needs to look at the entries flushed since then.
+    private int combineScanned;
+    // The last entry which combineSmallBuffers(...) looked at, only valid while combineScanned is not 0.
+    private Entry combineScannedEntry;
+
+    // The ring which is used instead of the linked-list structure if this buffer is array backed.
+    private final MessageRing ring;
+    // The promises which removeBytes(long) completes at once, only used if this buffer is array backed.
+    private ChannelPromise[] completedPromises;
+    // The pending bytes of the array backed buffer which were not added to totalPendingSize yet.
+    private long pendingDelta;
 
     private int nioBufferCount;
     private long nioBufferSize;
@@ -104,7 +137,12 @@ public final class ChannelOutboundBuffer {
     private volatile Runnable fireChannelWritabilityChangedTask;
 
     ChannelOutboundBuffer(AbstractChannel channel) {
+        this(channel, ARRAY_BACKED);
+    }
+
+    ChannelOutboundBuffer(AbstractChannel channel, boolean arrayBacked) {
         this.channel = channel;
+        ring = arrayBacked ? new MessageRing() : null;
     }
 
     /**
@@ -112,6 +150,12 @@ public final class ChannelOutboundBuffer {
      * the message was written.
      */
     public void addMessage(Object msg, int size, ChannelPromise promise) {
+        if (ring != null) {
+            int pendingSize = size + CHANNEL_OUTBOUND_BUFFER_ENTRY_OVERHEAD;
+            ring.add(msg, pendingSize, total(msg), promise);
+            addPendingDelta(pendingSize, true);
+            return;
+        }
         Entry entry = Entry.newInstance(msg, size, total(msg), promise);
         if (tailEntry == null) {
             flushedEntry = null;
@@ -138,6 +182,10 @@ public final class ChannelOutboundBuffer {
         // where added in the meantime.
         //
         // See https://github.com/netty/netty/issues/2577
+        if (ring != null) {
+            addFlushToRing();
+            return;
+        }
         Entry entry = unflushedEntry;
         if (entry != null) {
             if (flushedEntry == null) {
@@ -159,6 +207,53 @@ public final class ChannelOutboundBuffer {
         }
     }
 
+    private void addFlushToRing() {
+        MessageRing ring = this.ring;
+        for (int i = ring.head + flushed; i != ring.tail; i++) {
+            flushed ++;
+            int slot = i & ring.mask;
+            if (!ring.promises[slot].setUncancellable()) {
+                // Was cancelled so make sure we free up memory and notify about the freed bytes once all messages
+                // were marked as flushed, as a handler may write to the channel when the writability changes.
+                addPendingDelta(-ring.cancel(slot), false);
+            }
+        }
+        publishPendingDelta(true);
+    }
+
+    /**
+     * Adds the given number of bytes to the pending bytes of the array backed buffer without updating
+     * {@link #totalPendingSize}, unless the update would cross a write buffer water mark. The accumulated bytes are
+     * published by {@link #publishPendingDelta(boolean)}.
+     */
+    private void addPendingDelta(long size, boolean notifyWritability) {
+        long delta = pendingDelta + size;
+        if (size > 0) {
+            if (totalPendingSize + delta > channel.config().getWriteBufferHighWaterMark()) {
+                pendingDelta = 0;
+                incrementPendingOutboundBytes(delta, false);
+                return;
+            }
+        } else if (notifyWritability && (unwritable & 1) != 0 &&
+                totalPendingSize + delta < channel.config().getWriteBufferLowWaterMark()) {
+            pendingDelta = 0;
+            decrementPendingOutboundBytes(-delta, false, true);
+            return;
+        }
+        pendingDelta = delta;
+    }
+
+    private void publishPendingDelta(boolean notifyWritability) {
+        long delta = pendingDelta;
+        if (delta > 0) {
+            pendingDelta = 0;
+            incrementPendingOutboundBytes(delta, false);
+        } else if (delta < 0) {
+            pendingDelta = 0;
+            decrementPendingOutboundBytes(-delta, false, notifyWritability);
+        }
+    }
+
     /**
      * Increment the pending bytes which will be written at some point.
      * This method is thread-safe!
@@ -214,6 +309,9 @@ public final class ChannelOutboundBuffer {
      * Return the current message to write or {@code null} if nothing was flushed before and so is ready to be written.
      */
     public Object current() {
+        if (ring != null) {
+            return flushed == 0 ? null : ring.msgs[ring.head & ring.mask];
+        }
         Entry entry = flushedEntry;
         if (entry == null) {
             return null;
@@ -227,6 +325,9 @@ public final class ChannelOutboundBuffer {
      * @return {@code 0} if nothing was flushed before for the current message or there is no current message
      */
     public long currentProgress() {
+        if (ring != null) {
+            return flushed == 0 ? 0 : ring.progresses[ring.head & ring.mask];
+        }
         Entry entry = flushedEntry;
         if (entry == null) {
             return 0;
@@ -238,6 +339,17 @@ public final class ChannelOutboundBuffer {
      * Notify the {@link ChannelPromise} of the current message about writing progress.
      */
     public void progress(long amount) {
+        if (ring != null) {
+            assert flushed != 0;
+            int slot = ring.head & ring.mask;
+            long progress = ring.progresses[slot] + amount;
+            ring.progresses[slot] = progress;
+            ChannelPromise p = ring.promises[slot];
+            if (p instanceof ChannelProgressivePromise) {
+                ((ChannelProgressivePromise) p).tryProgress(progress, ring.totals[slot]);
+            }
+            return;
+        }
         Entry e = flushedEntry;
         assert e != null;
         ChannelPromise p = e.promise;
@@ -254,6 +366,9 @@ public final class ChannelOutboundBuffer {
      * messages are ready to be handled.
      */
     public boolean remove() {
+        if (ring != null) {
+            return removeFromRing(null, true);
+        }
         Entry e = flushedEntry;
         if (e == null) {
             clearNioBuffers();
@@ -288,7 +403,41 @@ public final class ChannelOutboundBuffer {
         return remove0(cause, true);
     }
 
+    /**
+     * Will remove the current message without releasing it or notifying its {@link ChannelPromise} and return the
+     * {@link ChannelPromise}. The caller takes over the ownership of the message and is responsible for releasing it
+     * and completing the returned {@link ChannelPromise}. This allows transports that pass the memory of a message
+     * to the OS to complete the write only once the OS no longer references it. If no flushed message exists at the
+     * time this method is called it will return {@code null}.
+     */
+    public ChannelPromise removeAndDetach() {
+        if (ring != null) {
+            return removeAndDetachFromRing();
+        }
+        Entry e = flushedEntry;
+        if (e == null) {
+            clearNioBuffers();
+            return null;
+        }
+        ChannelPromise promise = e.promise;
+        int size = e.pendingSize;
+
+        removeEntry(e);
+
+        if (!e.cancelled) {
+            decrementPendingOutboundBytes(size, false, true);
+        }
+
+        // recycle the entry
+        e.recycle();
+
+        return promise;
+    }
+
     private boolean remove0(Throwable cause, boolean notifyWritability) {
+        if (ring != null) {
+            return removeFromRing(cause, notifyWritability);
+        }
         Entry e = flushedEntry;
         if (e == null) {
             clearNioBuffers();
@@ -315,7 +464,72 @@ public final class ChannelOutboundBuffer {
         return true;
     }
 
+    /**
+     * Removes the current message of the array backed buffer, releases it and completes its promise with the given
+     * cause or successfully if the cause is {@code null}.
+     */
+    private boolean removeFromRing(Throwable cause, boolean notifyWritability) {
+        if (flushed == 0) {
+            clearNioBuffers();
+            return false;
+        }
+        MessageRing ring = this.ring;
+        int slot = ring.head & ring.mask;
+        Object msg = ring.msgs[slot];
+        ChannelPromise promise = ring.promises[slot];
+        int size = ring.pendingSizes[slot];
+        boolean cancelled = ring.cancelled[slot];
+
+        // Update the state before the promise is notified as its listeners may write to or close the channel.
+        ring.removeHead(slot);
+        flushed --;
+        decrementCombineScanned();
+
+        if (!cancelled) {
+            // only release message, notify and decrement if it was not canceled before.
+            ReferenceCountUtil.safeRelease(msg);
+            // Completing a VoidChannelPromise is a no-op, so skip it.
+            if (!(promise instanceof VoidChannelPromise)) {
+                if (cause == null) {
+                    safeSuccess(promise);
+                } else {
+                    safeFail(promise, cause);
+                }
+            }
+            addPendingDelta(-size, notifyWritability);
+        }
+        if (flushed == 0) {
+            publishPendingDelta(notifyWritability);
+        }
+        return true;
+    }
+
+    private ChannelPromise removeAndDetachFromRing() {
+        if (flushed == 0) {
+            clearNioBuffers();
+            return null;
+        }
+        MessageRing ring = this.ring;
+        int slot = ring.head & ring.mask;
+        ChannelPromise promise = ring.promises[slot];
+        int size = ring.pendingSizes[slot];
+        boolean cancelled = ring.cancelled[slot];
+
+        ring.removeHead(slot);
+        flushed --;
+        decrementCombineScanned();
+
+        if (!cancelled) {
+            addPendingDelta(-size, true);
+        }
+        if (flushed == 0) {
+            publishPendingDelta(true);
+        }
+        return promise;
+    }
+
     private void removeEntry(Entry e) {
+        decrementCombineScanned();
         if (-- flushed == 0) {
             // processed everything
             flushedEntry = null;
@@ -333,6 +547,10 @@ public final class ChannelOutboundBuffer {
      * This operation assumes all messages in this buffer is {@link ByteBuf}.
      */
     public void removeBytes(long writtenBytes) {
+        if (ring != null) {
+            removeBytesFromRing(writtenBytes);
+            return;
+        }
         for (;;) {
             Object msg = current();
             if (!(msg instanceof ByteBuf)) {
@@ -361,6 +579,75 @@ public final class ChannelOutboundBuffer {
         clearNioBuffers();
     }
 
+    /**
+     * {@link #removeBytes(long)} of the array backed buffer. All fully written messages are removed and their pending
+     * bytes published at once, and only then their promises are completed in one batch.
+     */
+    private void removeBytesFromRing(long writtenBytes) {
+        final MessageRing ring = this.ring;
+        // Take the array, so a listener which writes to the channel uses its own.
+        ChannelPromise[] completed = completedPromises;
+        completedPromises = null;
+        if (completed == null) {
+            completed = new ChannelPromise[MessageRing.INITIAL_CAPACITY];
+        }
+        int completedCount = 0;
+        while (flushed != 0) {
+            final int slot = ring.head & ring.mask;
+            final Object msg = ring.msgs[slot];
+            if (!(msg instanceof ByteBuf)) {
+                assert writtenBytes == 0;
+                break;
+            }
+
+            final ByteBuf buf = (ByteBuf) msg;
+            final int readerIndex = buf.readerIndex();
+            final int readableBytes = buf.writerIndex() - readerIndex;
+
+            if (readableBytes <= writtenBytes) {
+                if (writtenBytes != 0) {
+                    progress(readableBytes);
+                    writtenBytes -= readableBytes;
+                }
+                ChannelPromise promise = ring.promises[slot];
+                int size = ring.pendingSizes[slot];
+                boolean cancelled = ring.cancelled[slot];
+                ring.removeHead(slot);
+                flushed --;
+                decrementCombineScanned();
+
+                if (!cancelled) {
+                    // only release message, notify and decrement if it was not canceled before.
+                    ReferenceCountUtil.safeRelease(buf);
+                    // Completing a VoidChannelPromise is a no-op, so skip it.
+                    if (!(promise instanceof VoidChannelPromise)) {
+                        if (completedCount == completed.length) {
+                            completed = Arrays.copyOf(completed, completedCount << 1);
+                        }
+                        completed[completedCount++] = promise;
+                    }
+                    addPendingDelta(-size, false);
+                }
+            } else { // readableBytes > writtenBytes
+                if (writtenBytes != 0) {
+                    buf.readerIndex(readerIndex + (int) writtenBytes);
+                    progress(writtenBytes);
+                }
+                break;
+            }
+        }
+        publishPendingDelta(true);
+        clearNioBuffers();
+
+        // The state is updated before the promises are completed, as their listeners may write to or close the
+        // channel.
+        for (int i = 0; i < completedCount; i++) {
+            safeSuccess(completed[i]);
+            completed[i] = null;
+        }
+        completedPromises = completed;
+    }
+
     // Clear all ByteBuffer from the array so these can be GC'ed.
     // See https://github.com/netty/netty/issues/3837
     private void clearNioBuffers() {
@@ -371,6 +658,118 @@ public final class ChannelOutboundBuffer {
         }
     }
 
+    private void decrementCombineScanned() {
+        if (combineScanned != 0 && --combineScanned == 0) {
+            combineScannedEntry = null;
+        }
+    }
+
+    /**
+     * Copies runs of consecutive flushed {@link ByteBuf} messages which have at most {@code threshold} readable bytes
+     * into direct buffers of up to 16 KiB, which are allocated from the given {@link ByteBufAllocator}. This reduces
+     * the number of buffers which are passed to a gathering write, while larger buffers are still written without
+     * copying them.
+     * <p>
+     * The combined buffer replaces the first message of a run and the other messages of the run are replaced by empty
+     * buffers, so their promises are notified once the combined buffer was written. Messages whose promise is a
+     * {@link ChannelProgressivePromise} are not combined. This method must be called before {@link #nioBuffers()}.
+     * Messages which were already looked at by a previous call are not looked at again, so calling it before each
+     * write attempt only costs time for the messages which were flushed since then.
+     * </p>
+     *
+     * @param threshold the maximal number of readable bytes of a message to combine it with others, or {@code 0} to
+     *                  not combine any messages.
+     */
+    public void combineSmallBuffers(ByteBufAllocator alloc, int threshold) {
+        ObjectUtil.checkNotNull(alloc, "alloc");
+        ObjectUtil.checkPositiveOrZero(threshold, "threshold");
+        if (threshold == 0 || flushed - combineScanned < 2) {
+            return;
+        }
+        if (ring != null) {
+            combineSmallBuffersInRing(alloc, threshold);
+            combineScanned = flushed;
+            return;
+        }
+        Entry runStart = null;
+        int runCount = 0;
+        int runBytes = 0;
+        Entry entry = combineScanned == 0 ? flushedEntry : combineScannedEntry.next;
+        for (; isFlushedEntry(entry); entry = entry.next) {
+            combineScannedEntry = entry;
+            int readableBytes = combinableBytes(entry.msg, entry.promise, entry.cancelled, threshold);
+            if (readableBytes > 0 && runBytes + readableBytes <= WRITE_COMBINING_BUFFER_SIZE) {
+                if (runCount++ == 0) {
+                    runStart = entry;
+                }
+                runBytes += readableBytes;
+                continue;
+            }
+            if (runCount > 1) {
+                combine(alloc, runStart, runCount, runBytes);
+            }
+            runStart = entry;
+            runCount = readableBytes > 0 ? 1 : 0;
+            runBytes = readableBytes;
+        }
+        if (runCount > 1) {
+            combine(alloc, runStart, runCount, runBytes);
+        }
+        combineScanned = flushed;
+    }
+
+    private void combineSmallBuffersInRing(ByteBufAllocator alloc, int threshold) {
+        final MessageRing ring = this.ring;
+        final int end = ring.head + flushed;
+        int runStart = 0;
+        int runCount = 0;
+        int runBytes = 0;
+        for (int i = ring.head + combineScanned; i != end; i++) {
+            int slot = i & ring.mask;
+            int readableBytes = combinableBytes(ring.msgs[slot], ring.promises[slot], ring.cancelled[slot], threshold);
+            if (readableBytes > 0 && runBytes + readableBytes <= WRITE_COMBINING_BUFFER_SIZE) {
+                if (runCount++ == 0) {
+                    runStart = i;
+                }
+                runBytes += readableBytes;
+                continue;
+            }
+            if (runCount > 1) {
+                ring.combine(alloc, runStart, runCount, runBytes);
+            }
+            runStart = i;
+            runCount = readableBytes > 0 ? 1 : 0;
+            runBytes = readableBytes;
+        }
+        if (runCount > 1) {
+            ring.combine(alloc, runStart, runCount, runBytes);
+        }
+    }
+
+    // Returns the readable bytes of the given message if it can be combined with others or 0 otherwise.
+    private static int combinableBytes(Object msg, ChannelPromise promise, boolean cancelled, int threshold) {
+        if (cancelled || !(msg instanceof ByteBuf) || promise instanceof ChannelProgressivePromise) {
+            return 0;
+        }
+        int readableBytes = ((ByteBuf) msg).readableBytes();
+        return readableBytes <= threshold ? readableBytes : 0;
+    }
+
+    private static void combine(ByteBufAllocator alloc, Entry first, int count, int bytes) {
+        ByteBuf combined = alloc.directBuffer(bytes);
+        Entry entry = first;
+        for (int i = 0; i < count; i++) {
+            ByteBuf buf = (ByteBuf) entry.msg;
+            combined.writeBytes(buf, buf.readerIndex(), buf.readableBytes());
+            ReferenceCountUtil.safeRelease(buf);
+            entry.msg = i == 0 ? combined : Unpooled.EMPTY_BUFFER;
+            entry.buf = null;
+            entry.bufs = null;
+            entry.count = -1;
+            entry = entry.next;
+        }
+    }
+
     /**
      * Returns an array of direct NIO buffers if the currently pending messages are made of {@link ByteBuf} only.
      * {@link #nioBufferCount()} and {@link #nioBufferSize()} will return the number of NIO buffers in the returned
@@ -406,6 +805,9 @@ public final class ChannelOutboundBuffer {
         int nioBufferCount = 0;
         final InternalThreadLocalMap threadLocalMap = InternalThreadLocalMap.get();
         ByteBuffer[] nioBuffers = NIO_BUFFERS.get(threadLocalMap);
+        if (ring != null) {
+            return ringNioBuffers(threadLocalMap, nioBuffers, maxCount, maxBytes);
+        }
         Entry entry = flushedEntry;
         while (isFlushedEntry(entry) && entry.msg instanceof ByteBuf) {
             if (!entry.cancelled) {
@@ -465,6 +867,63 @@ public final class ChannelOutboundBuffer {
         return nioBuffers;
     }
 
+    private ByteBuffer[] ringNioBuffers(InternalThreadLocalMap threadLocalMap, ByteBuffer[] nioBuffers,
+                                        int maxCount, long maxBytes) {
+        final MessageRing ring = this.ring;
+        long nioBufferSize = 0;
+        int nioBufferCount = 0;
+        final int end = ring.head + flushed;
+        for (int i = ring.head; i != end; i++) {
+            final int slot = i & ring.mask;
+            final Object msg = ring.msgs[slot];
+            if (!(msg instanceof ByteBuf)) {
+                break;
+            }
+            if (!ring.cancelled[slot]) {
+                ByteBuf buf = (ByteBuf) msg;
+                final int readerIndex = buf.readerIndex();
+                final int readableBytes = buf.writerIndex() - readerIndex;
+
+                if (readableBytes > 0) {
+                    if (maxBytes - readableBytes < nioBufferSize && nioBufferCount != 0) {
+                        // See nioBuffers(int, long) for why we stop here.
+                        break;
+                    }
+                    nioBufferSize += readableBytes;
+                    int count = ring.counts[slot];
+                    if (count == -1) {
+                        ring.counts[slot] = count = buf.nioBufferCount();
+                    }
+                    int neededSpace = min(maxCount, nioBufferCount + count);
+                    if (neededSpace > nioBuffers.length) {
+                        nioBuffers = expandNioBufferArray(nioBuffers, neededSpace, nioBufferCount);
+                        NIO_BUFFERS.set(threadLocalMap, nioBuffers);
+                    }
+                    if (count == 1) {
+                        ByteBuffer nioBuf = ring.bufs[slot];
+                        if (nioBuf == null) {
+                            ring.bufs[slot] = nioBuf = buf.internalNioBuffer(readerIndex, readableBytes);
+                        }
+                        nioBuffers[nioBufferCount++] = nioBuf;
+                    } else {
+                        ByteBuffer[] nioBufs = ring.bufArrays[slot];
+                        if (nioBufs == null) {
+                            ring.bufArrays[slot] = nioBufs = buf.nioBuffers();
+                        }
+                        nioBufferCount = nioBuffers(nioBufs, nioBuffers, nioBufferCount, maxCount);
+                    }
+                    if (nioBufferCount >= maxCount) {
+                        break;
+                    }
+                }
+            }
+        }
+        this.nioBufferCount = nioBufferCount;
+        this.nioBufferSize = nioBufferSize;
+
+        return nioBuffers;
+    }
+
     private static int nioBuffers(Entry entry, ByteBuf buf, ByteBuffer[] nioBuffers, int nioBufferCount, int maxCount) {
         ByteBuffer[] nioBufs = entry.bufs;
         if (nioBufs == null) {
@@ -472,6 +931,10 @@ public final class ChannelOutboundBuffer {
             // of Object allocation
             entry.bufs = nioBufs = buf.nioBuffers();
         }
+        return nioBuffers(nioBufs, nioBuffers, nioBufferCount, maxCount);
+    }
+
+    private static int nioBuffers(ByteBuffer[] nioBufs, ByteBuffer[] nioBuffers, int nioBufferCount, int maxCount) {
         for (int i = 0; i < nioBufs.length && nioBufferCount < maxCount; ++i) {
             ByteBuffer nioBuf = nioBufs[i];
             if (nioBuf == null) {
@@ -636,6 +1099,11 @@ public final class ChannelOutboundBuffer {
         return flushed;
     }
 
+    // Visible for testing
+    int ringCapacity() {
+        return ring.msgs.length;
+    }
+
     /**
      * Returns {@code true} if there are flushed messages in this {@link ChannelOutboundBuffer} or {@code false}
      * otherwise.
@@ -689,17 +1157,21 @@ public final class ChannelOutboundBuffer {
 
         // Release all unflushed messages.
         try {
-            Entry e = unflushedEntry;
-            while (e != null) {
-                // Just decrease; do not trigger any events via decrementPendingOutboundBytes()
-                int size = e.pendingSize;
-                TOTAL_PENDING_SIZE_UPDATER.addAndGet(this, -size);
-
-                if (!e.cancelled) {
-                    ReferenceCountUtil.safeRelease(e.msg);
-                    safeFail(e.promise, cause);
+            if (ring != null) {
+                closeRing(cause);
+            } else {
+                Entry e = unflushedEntry;
+                while (e != null) {
+                    // Just decrease; do not trigger any events via decrementPendingOutboundBytes()
+                    int size = e.pendingSize;
+                    TOTAL_PENDING_SIZE_UPDATER.addAndGet(this, -size);
+
+                    if (!e.cancelled) {
+                        ReferenceCountUtil.safeRelease(e.msg);
+                        safeFail(e.promise, cause);
+                    }
+                    e = e.recycleAndGetNext();
                 }
-                e = e.recycleAndGetNext();
             }
         } finally {
             inFail = false;
@@ -707,6 +1179,27 @@ public final class ChannelOutboundBuffer {
         clearNioBuffers();
     }
 
+    private void closeRing(Throwable cause) {
+        MessageRing ring = this.ring;
+        long delta = pendingDelta;
+        pendingDelta = 0;
+        while (ring.head != ring.tail) {
+            int slot = ring.head & ring.mask;
+            Object msg = ring.msgs[slot];
+            ChannelPromise promise = ring.promises[slot];
+            boolean cancelled = ring.cancelled[slot];
+            // Just decrease; do not trigger any events via decrementPendingOutboundBytes()
+            delta -= ring.pendingSizes[slot];
+            ring.removeHead(slot);
+
+            if (!cancelled) {
+                ReferenceCountUtil.safeRelease(msg);
+                safeFail(promise, cause);
+            }
+        }
+        TOTAL_PENDING_SIZE_UPDATER.addAndGet(this, delta);
+    }
+
     void close(ClosedChannelException cause) {
         close(cause, false);
     }
@@ -729,7 +1222,8 @@ public final class ChannelOutboundBuffer {
     }
 
     public long totalPendingWriteBytes() {
-        return totalPendingSize;
+        // pendingDelta is always 0 if the buffer is not array backed.
+        return totalPendingSize + pendingDelta;
     }
 
     /**
@@ -737,7 +1231,7 @@ public final class ChannelOutboundBuffer {
      * This quantity will always be non-negative. If {@link #isWritable()} is {@code false} then 0.
      */
     public long bytesBeforeUnwritable() {
-        long bytes = channel.config().getWriteBufferHighWaterMark() - totalPendingSize;
+        long bytes = channel.config().getWriteBufferHighWaterMark() - totalPendingWriteBytes();
         // If bytes is negative we know we are not writable, but if bytes is non-negative we have to check writability.
         // Note that totalPendingSize and isWritable() use different volatile variables that are not synchronized
         // together. totalPendingSize will be updated before isWritable().
@@ -752,7 +1246,7 @@ public final class ChannelOutboundBuffer {
      * This quantity will always be non-negative. If {@link #isWritable()} is {@code true} then 0.
      */
     public long bytesBeforeWritable() {
-        long bytes = totalPendingSize - channel.config().getWriteBufferLowWaterMark();
+        long bytes = totalPendingWriteBytes() - channel.config().getWriteBufferLowWaterMark();
         // If bytes is negative we know we are writable, but if bytes is non-negative we have to check writability.
         // Note that totalPendingSize and isWritable() use different volatile variables that are not synchronized
         // together. totalPendingSize will be updated before isWritable().
@@ -770,6 +1264,17 @@ public final class ChannelOutboundBuffer {
     public void forEachFlushedMessage(MessageProcessor processor) throws Exception {
         ObjectUtil.checkNotNull(processor, "processor");
 
+        if (ring != null) {
+            final int end = ring.head + flushed;
+            for (int i = ring.head; i != end; i++) {
+                int slot = i & ring.mask;
+                if (!ring.cancelled[slot] && !processor.processMessage(ring.msgs[slot])) {
+                    return;
+                }
+            }
+            return;
+        }
+
         Entry entry = flushedEntry;
         if (entry == null) {
             return;
@@ -869,4 +1374,165 @@ public final class ChannelOutboundBuffer {
             return next;
         }
     }
+
+    /**
+     * The pending messages of an array backed {@link ChannelOutboundBuffer}. The messages between {@link #head} and
+     * {@link #tail} are stored in the slots {@code index & mask} of the arrays, the flushed ones first.
+     */
+    private static final class MessageRing {
+        static final int INITIAL_CAPACITY = 8;
+        // The capacity above which the arrays may be shrunk again once all messages were removed.
+        private static final int MAX_RETAINED_CAPACITY = 1024;
+        // The number of times in a row the ring needs to be drained while never more than a quarter of it was used,
+        // before it is halved. This keeps a ring which regularly fills up from being reallocated over and over.
+        private static final int SHRINK_AFTER_DRAINS = 16;
+
+        Object[] msgs;
+        ChannelPromise[] promises;
+        int[] pendingSizes;
+        long[] totals;
+        long[] progresses;
+        ByteBuffer[] bufs;
+        ByteBuffer[][] bufArrays;
+        int[] counts;
+        boolean[] cancelled;
+        int mask;
+        // The index of the first message and the index after the last message. Both may overflow.
+        int head;
+        int tail;
+        // The largest number of messages since the ring was drained the last time.
+        private int peak;
+        private int smallDrains;
+
+        MessageRing() {
+            allocate(INITIAL_CAPACITY);
+        }
+
+        private void allocate(int capacity) {
+            msgs = new Object[capacity];
+            promises = new ChannelPromise[capacity];
+            pendingSizes = new int[capacity];
+            totals = new long[capacity];
+            progresses = new long[capacity];
+            bufs = new ByteBuffer[capacity];
+            bufArrays = new ByteBuffer[capacity][];
+            counts = new int[capacity];
+            Arrays.fill(counts, -1);
+            cancelled = new boolean[capacity];
+            mask = capacity - 1;
+        }
+
+        void add(Object msg, int pendingSize, long total, ChannelPromise promise) {
+            if (tail - head == msgs.length) {
+                grow();
+            }
+            int slot = tail++ & mask;
+            if (tail - head > peak) {
+                peak = tail - head;
+            }
+            msgs[slot] = msg;
+            promises[slot] = promise;
+            pendingSizes[slot] = pendingSize;
+            totals[slot] = total;
+        }
+
+        private void grow() {
+            int size = msgs.length;
+            int first = head & mask;
+            Object[] msgs = this.msgs;
+            ChannelPromise[] promises = this.promises;
+            int[] pendingSizes = this.pendingSizes;
+            long[] totals = this.totals;
+            long[] progresses = this.progresses;
+            ByteBuffer[] bufs = this.bufs;
+            ByteBuffer[][] bufArrays = this.bufArrays;
+            int[] counts = this.counts;
+            boolean[] cancelled = this.cancelled;
+
+            int newCapacity = size << 1;
+            if (newCapacity < 0) {
+                throw new IllegalStateException();
+            }
+            allocate(newCapacity);
+            copy(msgs, this.msgs, first, size);
+            copy(promises, this.promises, first, size);
+            copy(pendingSizes, this.pendingSizes, first, size);
+            copy(totals, this.totals, first, size);
+            copy(progresses, this.progresses, first, size);
+            copy(bufs, this.bufs, first, size);
+            copy(bufArrays, this.bufArrays, first, size);
+            copy(counts, this.counts, first, size);
+            copy(cancelled, this.cancelled, first, size);
+            head = 0;
+            tail = size;
+        }
+
+        // Copies the full ring starting at the given slot to the start of the new array.
+        private static void copy(Object src, Object dst, int first, int size) {
+            System.arraycopy(src, first, dst, 0, size - first);
+            System.arraycopy(src, 0, dst, size - first, first);
+        }
+
+        void removeHead(int slot) {
+            msgs[slot] = null;
+            promises[slot] = null;
+            pendingSizes[slot] = 0;
+            totals[slot] = 0;
+            progresses[slot] = 0;
+            bufs[slot] = null;
+            bufArrays[slot] = null;
+            counts[slot] = -1;
+            cancelled[slot] = false;
+            if (++head == tail) {
+                head = tail = 0;
+                drained();
+            }
+        }
+
+        private void drained() {
+            int capacity = msgs.length;
+            if (capacity > MAX_RETAINED_CAPACITY) {
+                if (peak > capacity >>> 2) {
+                    smallDrains = 0;
+                } else if (++smallDrains == SHRINK_AFTER_DRAINS) {
+                    smallDrains = 0;
+                    allocate(capacity >>> 1);
+                }
+            }
+            peak = 0;
+        }
+
+        void combine(ByteBufAllocator alloc, int first, int count, int bytes) {
+            ByteBuf combined = alloc.directBuffer(bytes);
+            for (int i = 0; i < count; i++) {
+                int slot = (first + i) & mask;
+                ByteBuf buf = (ByteBuf) msgs[slot];
+                combined.writeBytes(buf, buf.readerIndex(), buf.readableBytes());
+                ReferenceCountUtil.safeRelease(buf);
+                msgs[slot] = i == 0 ? combined : Unpooled.EMPTY_BUFFER;
+                bufs[slot] = null;
+                bufArrays[slot] = null;
+                counts[slot] = -1;
+            }
+        }
+
+        int cancel(int slot) {
+            if (!cancelled[slot]) {
+                cancelled[slot] = true;
+                int pSize = pendingSizes[slot];
+
+                // release message and replace with an empty buffer
+                ReferenceCountUtil.safeRelease(msgs[slot]);
+                msgs[slot] = Unpooled.EMPTY_BUFFER;
+
+                pendingSizes[slot] = 0;
+                totals[slot] = 0;
+                progresses[slot] = 0;
+                bufs[slot] = null;
+                bufArrays[slot] = null;
+                return pSize;
+            }
+            return 0;
+        }
+    }
 }
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.util.concurrent.FastThreadLocal;
+import io.netty.util.internal.LongCounter;
+import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Opt-in profiling of the {@link ChannelHandler}s in a {@link ChannelPipeline}.
+ * <p>
+ * When enabled, every {@link ChannelHandlerContext} counts how often its handler was invoked for the events in
+ * {@link Event} and how much time the invocations took. The time is measured for one out of
+ * {@link #sampleInterval()} invocations to keep the overhead low, and includes the time spent in the handlers to
+ * which the event was passed on from within the invocation. The results can be queried per
+ * {@link ChannelPipeline} via {@link #profile(ChannelPipeline)}, or aggregated over all channels per handler type via
+ * {@link #profileByHandlerType()}. The aggregated profile of a handler type does not keep the type loaded, it is
+ * dropped once the type is unloaded.
+ * <p>
+ * Profiling is enabled via {@code -Dio.netty.channel.pipelineProfiling=true} or {@link #setEnabled(boolean)} and the
+ * sample interval is configured via {@code -Dio.netty.channel.pipelineProfiling.sampleInterval} or
+ * {@link #setSampleInterval(int)}. Both only apply to handlers added to a pipeline afterwards, handlers added while
+ * profiling was disabled have no overhead.
+ */
+public final class ChannelPipelineProfiler {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(ChannelPipelineProfiler.class);
+
+    /**
+     * The events which are profiled.
+     */
+    public enum Event {
+        CHANNEL_READ,
+        USER_EVENT_TRIGGERED,
+        WRITE,
+        FLUSH
+    }
+
+    private static final Event[] EVENTS = Event.values();
+    // Weak keys, so handler types and their class loaders can still be unloaded. Only locked the first time a thread
+    // adds a handler of a type to a pipeline, later lookups hit the thread local cache below.
+    private static final Map<Class<?>, TypeRecorder> TYPE_RECORDERS = new WeakHashMap<Class<?>, TypeRecorder>();
+    private static final FastThreadLocal<Map<Class<?>, TypeRecorder>> CACHED_TYPE_RECORDERS =
+            new FastThreadLocal<Map<Class<?>, TypeRecorder>>() {
+                @Override
+                protected Map<Class<?>, TypeRecorder> initialValue() {
+                    return new WeakHashMap<Class<?>, TypeRecorder>(32);
+                }
+            };
+
+    private static volatile boolean enabled;
+    private static volatile int sampleInterval;
+
+    static {
+        enabled = SystemPropertyUtil.getBoolean("io.netty.channel.pipelineProfiling", false);
+        sampleInterval = Math.max(1, SystemPropertyUtil.getInt("io.netty.channel.pipelineProfiling.sampleInterval", 1));
+        if (logger.isDebugEnabled()) {
+            logger.debug("-Dio.netty.channel.pipelineProfiling: {}", enabled);
+            logger.debug("-Dio.netty.channel.pipelineProfiling.sampleInterval: {}", sampleInterval);
+        }
+    }
+
+    private ChannelPipelineProfiler() {
+    }
+
+    /**
+     * Returns {@code true} if handlers which are added to a pipeline are profiled.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables profiling for the handlers which are added to a pipeline afterwards.
+     */
+    public static void setEnabled(boolean enabled) {
+        ChannelPipelineProfiler.enabled = enabled;
+    }
+
+    /**
+     * Returns how many invocations of a handler it takes until one of them is timed.
+     */
+    public static int sampleInterval() {
+        return sampleInterval;
+    }
+
+    /**
+     * Sets how many invocations of a handler it takes until one of them is timed. {@code 1} times every invocation.
+     */
+    public static void setSampleInterval(int sampleInterval) {
+        ChannelPipelineProfiler.sampleInterval = ObjectUtil.checkPositive(sampleInterval, "sampleInterval");
+    }
+
+    /**
+     * Returns the profiles of the handlers in the given pipeline including its head and tail, in the order of the
+     * pipeline. Handlers which were added while profiling was disabled are not included.
+     */
+    public static List<ChannelHandlerProfile> profile(ChannelPipeline pipeline) {
+        ObjectUtil.checkNotNull(pipeline, "pipeline");
+        if (!(pipeline instanceof DefaultChannelPipeline)) {
+            return Collections.emptyList();
+        }
+        DefaultChannelPipeline p = (DefaultChannelPipeline) pipeline;
+        List<ChannelHandlerProfile> profiles = new ArrayList<ChannelHandlerProfile>();
+        for (AbstractChannelHandlerContext ctx = p.head; ctx != null; ctx = ctx.next) {
+            Recorder recorder = ctx.profileRecorder;
+            if (recorder != null) {
+                profiles.add(recorder.snapshot(ctx.name()));
+            }
+        }
+        return profiles;
+    }
+
+    /**
+     * Returns the profiles of all profiled handlers aggregated per handler type, including the ones of channels
+     * which were closed already as long as the handler type is still loaded.
+     */
+    public static Map<Class<?>, ChannelHandlerProfile> profileByHandlerType() {
+        Map<Class<?>, ChannelHandlerProfile> profiles = new HashMap<Class<?>, ChannelHandlerProfile>();
+        synchronized (TYPE_RECORDERS) {
+            for (Map.Entry<Class<?>, TypeRecorder> e : TYPE_RECORDERS.entrySet()) {
+                Class<?> handlerType = e.getKey();
+                profiles.put(handlerType, e.getValue().snapshot(handlerType));
+            }
+        }
+        return profiles;
+    }
+
+    static Recorder newRecorder(Class<?> handlerType) {
+        if (!enabled) {
+            return null;
+        }
+        Map<Class<?>, TypeRecorder> cache = CACHED_TYPE_RECORDERS.get();
+        TypeRecorder typeRecorder = cache.get(handlerType);
+        if (typeRecorder == null) {
+            typeRecorder = typeRecorder(handlerType);
+            cache.put(handlerType, typeRecorder);
+        }
+        return new Recorder(handlerType, typeRecorder, sampleInterval);
+    }
+
+    private static TypeRecorder typeRecorder(Class<?> handlerType) {
+        synchronized (TYPE_RECORDERS) {
+            TypeRecorder typeRecorder = TYPE_RECORDERS.get(handlerType);
+            if (typeRecorder == null) {
+                typeRecorder = new TypeRecorder();
+                TYPE_RECORDERS.put(handlerType, typeRecorder);
+            }
+            return typeRecorder;
+        }
+    }
+
+    /**
+     * Records the invocations of the handler of a single {@link ChannelHandlerContext}. It is only used by the
+     * {@link io.netty.util.concurrent.EventExecutor} of the context, while its counters can be read by any thread.
+     */
+    static final class Recorder {
+        static final long NOT_SAMPLED = Long.MIN_VALUE;
+
+        // Per event: invocations, sampled invocations and sampled nanoseconds.
+        private final AtomicLongArray counters = new AtomicLongArray(EVENTS.length * 3);
+        private final Class<?> handlerType;
+        private final TypeRecorder typeRecorder;
+        private final int sampleInterval;
+        private int untilSample = 1;
+
+        Recorder(Class<?> handlerType, TypeRecorder typeRecorder, int sampleInterval) {
+            this.handlerType = handlerType;
+            this.typeRecorder = typeRecorder;
+            this.sampleInterval = sampleInterval;
+        }
+
+        /**
+         * Called before the handler is invoked, returns the start time if the invocation is sampled or
+         * {@link #NOT_SAMPLED} otherwise.
+         */
+        long start(Event event) {
+            int index = event.ordinal() * 3;
+            // Only a single thread writes the counters, so lazySet is safe and cheaper than an atomic increment.
+            counters.lazySet(index, counters.get(index) + 1);
+            typeRecorder.counters[index].increment();
+            if (--untilSample > 0) {
+                return NOT_SAMPLED;
+            }
+            untilSample = sampleInterval;
+            return System.nanoTime();
+        }
+
+        void end(Event event, long startTime) {
+            if (startTime == NOT_SAMPLED) {
+                return;
+            }
+            long nanos = System.nanoTime() - startTime;
+            int index = event.ordinal() * 3;
+            counters.lazySet(index + 1, counters.get(index + 1) + 1);
+            counters.lazySet(index + 2, counters.get(index + 2) + nanos);
+            typeRecorder.counters[index + 1].increment();
+            typeRecorder.counters[index + 2].add(nanos);
+        }
+
+        ChannelHandlerProfile snapshot(String name) {
+            long[] values = new long[counters.length()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = counters.get(i);
+            }
+            return new ChannelHandlerProfile(name, handlerType, values);
+        }
+    }
+
+    /**
+     * Aggregates the invocations of all handlers of a type. It must not reference the type, which would keep its
+     * entry in {@link #TYPE_RECORDERS} from being removed.
+     */
+    private static final class TypeRecorder {
+        final LongCounter[] counters = new LongCounter[EVENTS.length * 3];
+
+        TypeRecorder() {
+            for (int i = 0; i < counters.length; i++) {
+                counters[i] = PlatformDependent.newLongCounter();
+            }
+        }
+
+        ChannelHandlerProfile snapshot(Class<?> handlerType) {
+            long[] values = new long[counters.length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = counters[i].value();
+            }
+            return new ChannelHandlerProfile(null, handlerType, values);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.util.UncheckedBooleanSupplier;
+import io.netty.util.concurrent.FastThreadLocal;
+
+import static io.netty.util.internal.ObjectUtil.checkPositive;
+
+/**
+ * A {@link RecvByteBufAllocator} for channels which are idle most of the time, like a large number of long-lived
+ * WebSocket connections.
+ * <p>
+ * Instead of allocating a buffer for every read that is sized for the expected amount of data, the NIO and epoll
+ * stream transports read into a large scratch buffer that is shared by all channels of an {@link EventLoop}, and then
+ * copy only the received bytes into a new buffer of exactly that size. So the memory used for reads scales with the
+ * actual traffic instead of the number of connections, at the cost of copying the received bytes once.
+ * <p>
+ * Transports which do not support the scratch buffer, like datagram transports, fall back to the behaviour of
+ * {@link AdaptiveRecvByteBufAllocator}.
+ */
+public class ScratchRecvByteBufAllocator extends AdaptiveRecvByteBufAllocator {
+
+    /**
+     * Implemented by the {@link RecvByteBufAllocator.Handle}s of {@link ScratchRecvByteBufAllocator}, and used by the
+     * transports which support reading into the scratch buffer.
+     */
+    public interface ScratchHandle {
+        /**
+         * Returns the empty scratch buffer of the calling {@link EventLoop} with its reference count incremented.
+         * The buffer must be passed to {@link #detach(ByteBufAllocator, ByteBuf)} or released before the next call.
+         */
+        ByteBuf allocateScratch();
+
+        /**
+         * Copies the readable bytes of the given scratch buffer into a new buffer of the given allocator and releases
+         * the scratch buffer, also if the copy fails.
+         */
+        ByteBuf detach(ByteBufAllocator alloc, ByteBuf scratch);
+    }
+
+    static final int DEFAULT_SCRATCH_BUFFER_SIZE = 64 * 1024;
+
+    // Shared by all allocators, an allocator which needs a larger buffer replaces it.
+    private static final FastThreadLocal<ByteBuf> SCRATCH_BUFFER = new FastThreadLocal<ByteBuf>() {
+        @Override
+        protected void onRemoval(ByteBuf buffer) {
+            if (buffer != null) {
+                buffer.release();
+            }
+        }
+    };
+
+    private final int scratchBufferSize;
+
+    /**
+     * Creates a new instance with a scratch buffer of {@code 65536} bytes.
+     */
+    public ScratchRecvByteBufAllocator() {
+        this(DEFAULT_SCRATCH_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param scratchBufferSize the minimum size of the scratch buffer, which limits the number of bytes read at once.
+     */
+    public ScratchRecvByteBufAllocator(int scratchBufferSize) {
+        this.scratchBufferSize = checkPositive(scratchBufferSize, "scratchBufferSize");
+    }
+
+    @SuppressWarnings("deprecation")
+    @Override
+    public Handle newHandle() {
+        return new ScratchHandleImpl((ExtendedHandle) super.newHandle());
+    }
+
+    @Override
+    public ScratchRecvByteBufAllocator respectMaybeMoreData(boolean respectMaybeMoreData) {
+        super.respectMaybeMoreData(respectMaybeMoreData);
+        return this;
+    }
+
+    private final class ScratchHandleImpl extends DelegatingHandle implements ExtendedHandle, ScratchHandle {
+
+        ScratchHandleImpl(ExtendedHandle delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public boolean continueReading(UncheckedBooleanSupplier maybeMoreDataSupplier) {
+            return ((ExtendedHandle) delegate()).continueReading(maybeMoreDataSupplier);
+        }
+
+        @Override
+        public ByteBuf allocateScratch() {
+            ByteBuf scratch = SCRATCH_BUFFER.get();
+            if (scratch == null || scratch.capacity() < scratchBufferSize) {
+                if (scratch != null) {
+                    scratch.release();
+                }
+                // Direct as the native transports can only read into direct buffers.
+                scratch = Unpooled.directBuffer(scratchBufferSize, scratchBufferSize);
+                SCRATCH_BUFFER.set(scratch);
+            }
+            return scratch.clear().retain();
+        }
+
+        @Override
+        public ByteBuf detach(ByteBufAllocator alloc, ByteBuf scratch) {
+            try {
+                int readableBytes = scratch.readableBytes();
+                return alloc.ioBuffer(readableBytes).writeBytes(scratch, scratch.readerIndex(), readableBytes);
+            } finally {
+                scratch.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.util.IntSupplier;
+
+/**
+ * {@link SelectStrategy} which keeps polling for I/O without blocking while the event loop is idle, and only lets the
+ * event loop block once the configured budgets are used up.
+ * <p>
+ * An idle event loop first spins for the spin budget, then calls {@link Thread#yield()} between the polls for the
+ * yield budget and finally parks in its usual blocking select until it is woken up by I/O, a timer or a task. While
+ * it spins the event loop neither blocks nor needs to be woken up by other threads that submit tasks, which removes
+ * the wake-up latency at the cost of burning CPU.
+ * <p>
+ * Every event loop uses its own instance, which keeps track of how the event loop spends its time. See
+ * {@link SpinWaitSelectStrategyFactory} for how to create instances.
+ */
+public final class SpinWaitSelectStrategy implements SelectStrategy {
+    private static final long NONE = -1;
+
+    private final long spinNanos;
+    private final long yieldNanos;
+
+    // Only accessed by the event loop.
+    private long idleStartNanos = NONE;
+    private long workStartNanos = NONE;
+
+    // Only written by the event loop.
+    private volatile long spinTimeNanos;
+    private volatile long workTimeNanos;
+    private volatile long parks;
+
+    SpinWaitSelectStrategy(long spinNanos, long yieldNanos) {
+        this.spinNanos = spinNanos;
+        this.yieldNanos = yieldNanos;
+    }
+
+    @Override
+    public int calculateStrategy(IntSupplier selectSupplier, boolean hasTasks) throws Exception {
+        long now = System.nanoTime();
+        if (workStartNanos != NONE) {
+            workTimeNanos += now - workStartNanos;
+            workStartNanos = NONE;
+        }
+
+        int ready = selectSupplier.get();
+        if (ready > 0 || hasTasks) {
+            if (idleStartNanos != NONE) {
+                spinTimeNanos += now - idleStartNanos;
+                idleStartNanos = NONE;
+            }
+            workStartNanos = now;
+            return ready;
+        }
+
+        // Returning 0 instead of CONTINUE lets the event loop run scheduled tasks that became due while spinning.
+        if (idleStartNanos == NONE) {
+            idleStartNanos = now;
+            return 0;
+        }
+        long idleNanos = now - idleStartNanos;
+        if (idleNanos < spinNanos) {
+            return 0;
+        }
+        if (idleNanos - spinNanos < yieldNanos) {
+            Thread.yield();
+            return 0;
+        }
+        spinTimeNanos += idleNanos;
+        idleStartNanos = NONE;
+        parks++;
+        return SelectStrategy.SELECT;
+    }
+
+    /**
+     * Returns the total time in nanoseconds the event loop spent spinning or yielding while it had nothing to do.
+     * This includes running scheduled tasks that became due while spinning.
+     */
+    public long spinTimeNanos() {
+        return spinTimeNanos;
+    }
+
+    /**
+     * Returns the total time in nanoseconds the event loop spent processing I/O and tasks it found while polling.
+     * The work done after the event loop was woken up from a park is not included.
+     */
+    public long workTimeNanos() {
+        return workTimeNanos;
+    }
+
+    /**
+     * Returns how often the event loop used up its budgets and parked.
+     */
+    public long parks() {
+        return parks;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import java.util.concurrent.TimeUnit;
+
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
+
+/**
+ * Factory which creates a {@link SpinWaitSelectStrategy} per event loop. Pass it to the constructor of an
+ * {@link EventLoopGroup} that takes a {@link SelectStrategyFactory}, like the NIO or epoll ones.
+ * <pre>
+ * SpinWaitSelectStrategyFactory factory = SpinWaitSelectStrategyFactory.spinThenPark(
+ *         50, 0, TimeUnit.MICROSECONDS);
+ * EventLoopGroup group = new NioEventLoopGroup(4, (ThreadFactory) null, SelectorProvider.provider(), factory);
+ * </pre>
+ * The factory does not keep track of the strategies it creates. The statistics of an event loop are available
+ * through the strategy it returns from {@code selectStrategy()}, like {@code NioEventLoop.selectStrategy()}.
+ */
+public final class SpinWaitSelectStrategyFactory implements SelectStrategyFactory {
+    private final long spinNanos;
+    private final long yieldNanos;
+
+    private SpinWaitSelectStrategyFactory(long spinNanos, long yieldNanos) {
+        this.spinNanos = spinNanos;
+        this.yieldNanos = yieldNanos;
+    }
+
+    /**
+     * Returns a factory whose event loops never block but keep polling for I/O. This gives the lowest latency but
+     * keeps every event loop thread busy all the time.
+     */
+    public static SpinWaitSelectStrategyFactory busySpin() {
+        return new SpinWaitSelectStrategyFactory(Long.MAX_VALUE, 0);
+    }
+
+    /**
+     * Returns a factory whose event loops spin for the given time once idle, and then call {@link Thread#yield()}
+     * between the polls for I/O. The event loops never block.
+     */
+    public static SpinWaitSelectStrategyFactory spinThenYield(long spinTime, TimeUnit unit) {
+        return new SpinWaitSelectStrategyFactory(toNanos(spinTime, "spinTime", unit), Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns a factory whose event loops spin for {@code spinTime} once idle, then call {@link Thread#yield()}
+     * between the polls for I/O for {@code yieldTime} and finally block until they are woken up.
+     */
+    public static SpinWaitSelectStrategyFactory spinThenPark(long spinTime, long yieldTime, TimeUnit unit) {
+        return new SpinWaitSelectStrategyFactory(
+                toNanos(spinTime, "spinTime", unit), toNanos(yieldTime, "yieldTime", unit));
+    }
+
+    private static long toNanos(long time, String name, TimeUnit unit) {
+        checkPositiveOrZero(time, name);
+        return checkNotNull(unit, "unit").toNanos(time);
+    }
+
+    @Override
+    public SelectStrategy newSelectStrategy() {
+        return new SpinWaitSelectStrategy(spinNanos, yieldNanos);
+    }
+}
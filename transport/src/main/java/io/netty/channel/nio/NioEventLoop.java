@@ -364,6 +364,14 @@ public final class NioEventLoop extends SingleThreadEventLoop {
         rebuildSelector0();
     }
 
+    /**
+     * Returns the {@link SelectStrategy} of this event loop, for example to read the statistics of a
+     * {@link io.netty.channel.SpinWaitSelectStrategy}.
+     */
+    public SelectStrategy selectStrategy() {
+        return selectStrategy;
+    }
+
     @Override
     public int registeredChannels() {
         return selector.keys().size() - cancelledKeys;
@@ -437,6 +445,7 @@ public final class NioEventLoop extends SingleThreadEventLoop {
         for (;;) {
             try {
                 int strategy;
+                boolean selected = false;
                 try {
                     strategy = selectStrategy.calculateStrategy(selectNowSupplier, hasTasks());
                     switch (strategy) {
@@ -455,6 +464,7 @@ public final class NioEventLoop extends SingleThreadEventLoop {
                         try {
                             if (!hasTasks()) {
                                 strategy = select(curDeadlineNanos);
+                                selected = true;
                             }
                         } finally {
                             // This update is just to help block unnecessary selector wakeups
@@ -473,7 +483,11 @@ public final class NioEventLoop extends SingleThreadEventLoop {
                     continue;
                 }
 
-                selectCnt++;
+                if (selected) {
+                    // Only count blocking selects, a SelectStrategy may poll without finding work many times in a
+                    // row which is not a sign of the selector returning prematurely.
+                    selectCnt++;
+                }
                 cancelledKeys = 0;
                 needsToSelectAgain = false;
                 final int ioRatio = this.ioRatio;
@@ -481,7 +495,12 @@ public final class NioEventLoop extends SingleThreadEventLoop {
                 if (ioRatio == 100) {
                     try {
                         if (strategy > 0) {
-                            processSelectedKeys();
+                            final long ioStartTime = System.nanoTime();
+                            try {
+                                processSelectedKeys();
+                            } finally {
+                                recordIo(strategy, System.nanoTime() - ioStartTime);
+                            }
                         }
                     } finally {
                         // Ensure we always run tasks.
@@ -494,6 +513,7 @@ public final class NioEventLoop extends SingleThreadEventLoop {
                     } finally {
                         // Ensure we always run tasks.
                         final long ioTime = System.nanoTime() - ioStartTime;
+                        recordIo(strategy, ioTime);
                         ranTasks = runAllTasks(ioTime * (100 - ioRatio) / ioRatio);
                     }
                 } else {
@@ -788,6 +808,7 @@ public final class NioEventLoop extends SingleThreadEventLoop {
     protected void wakeup(boolean inEventLoop) {
         if (!inEventLoop && nextWakeupNanos.getAndSet(AWAKE) != AWAKE) {
             selector.wakeup();
+            recordWakeup();
         }
     }
 
@@ -31,6 +31,7 @@ import io.netty.channel.socket.DefaultSocketChannelConfig;
 import io.netty.channel.socket.ServerSocketChannel;
 import io.netty.channel.socket.SocketChannelConfig;
 import io.netty.util.concurrent.GlobalEventExecutor;
+import io.netty.util.internal.ObjectUtil;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.SocketUtils;
 import io.netty.util.internal.SuppressJava6Requirement;
@@ -379,6 +380,7 @@ public class NioSocketChannel extends AbstractNioByteChannel implements io.netty
     protected void doWrite(ChannelOutboundBuffer in) throws Exception {
         SocketChannel ch = javaChannel();
         int writeSpinCount = config().getWriteSpinCount();
+        in.combineSmallBuffers(config.getAllocator(), ((NioSocketChannelConfig) config).getWriteCombiningThreshold());
         do {
             if (in.isEmpty()) {
                 // All written so clear OP_WRITE
@@ -466,6 +468,9 @@ public class NioSocketChannel extends AbstractNioByteChannel implements io.netty
 
     private final class NioSocketChannelConfig extends DefaultSocketChannelConfig {
         private volatile int maxBytesPerGatheringWrite = Integer.MAX_VALUE;
+        // Only supported here as the OIO socket channels, which share DefaultSocketChannelConfig, write each message
+        // on its own.
+        private volatile int writeCombiningThreshold;
         private NioSocketChannelConfig(NioSocketChannel channel, Socket javaSocket) {
             super(channel, javaSocket);
             calculateMaxBytesPerGatheringWrite();
@@ -488,6 +493,11 @@ public class NioSocketChannel extends AbstractNioByteChannel implements io.netty
             if (PlatformDependent.javaVersion() >= 7 && option instanceof NioChannelOption) {
                 return NioChannelOption.setOption(jdkChannel(), (NioChannelOption<T>) option, value);
             }
+            if (option == ChannelOption.WRITE_COMBINING_THRESHOLD) {
+                validate(option, value);
+                setWriteCombiningThreshold((Integer) value);
+                return true;
+            }
             return super.setOption(option, value);
         }
 
@@ -496,15 +506,29 @@ public class NioSocketChannel extends AbstractNioByteChannel implements io.netty
             if (PlatformDependent.javaVersion() >= 7 && option instanceof NioChannelOption) {
                 return NioChannelOption.getOption(jdkChannel(), (NioChannelOption<T>) option);
             }
+            if (option == ChannelOption.WRITE_COMBINING_THRESHOLD) {
+                return (T) Integer.valueOf(getWriteCombiningThreshold());
+            }
             return super.getOption(option);
         }
 
         @Override
         public Map<ChannelOption<?>, Object> getOptions() {
+            Map<ChannelOption<?>, Object> options =
+                    getOptions(super.getOptions(), ChannelOption.WRITE_COMBINING_THRESHOLD);
             if (PlatformDependent.javaVersion() >= 7) {
-                return getOptions(super.getOptions(), NioChannelOption.getOptions(jdkChannel()));
+                return getOptions(options, NioChannelOption.getOptions(jdkChannel()));
             }
-            return super.getOptions();
+            return options;
+        }
+
+        void setWriteCombiningThreshold(int writeCombiningThreshold) {
+            this.writeCombiningThreshold = ObjectUtil.checkPositiveOrZero(writeCombiningThreshold,
+                    "writeCombiningThreshold");
+        }
+
+        int getWriteCombiningThreshold() {
+            return writeCombiningThreshold;
         }
 
         void setMaxBytesPerGatheringWrite(int maxBytesPerGatheringWrite) {
@@ -0,0 +1,317 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.channel.ChannelOutboundBufferTest.TestChannel;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.netty.buffer.Unpooled.buffer;
+import static io.netty.buffer.Unpooled.compositeBuffer;
+import static io.netty.buffer.Unpooled.directBuffer;
+import static io.netty.channel.ChannelOutboundBuffer.CHANNEL_OUTBOUND_BUFFER_ENTRY_OVERHEAD;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ChannelOutboundBufferArrayBackedTest {
+
+    @Test
+    public void testRemoveInOrderWhileGrowing() {
+        TestChannel channel = new TestChannel();
+        ChannelOutboundBuffer buffer = new ChannelOutboundBuffer(channel, true);
+        List<ByteBuf> bufs = new ArrayList<ByteBuf>();
+        List<ChannelPromise> promises = new ArrayList<ChannelPromise>();
+        // Wrap around the ring before it needs to grow.
+        for (int i = 0; i < 5; i++) {
+            buffer.addMessage(buffer().writeInt(i), 4, channel.voidPromise());
+        }
+        buffer.addFlush();
+        for (int i = 0; i < 5; i++) {
+            assertTrue(buffer.remove());
+        }
+        for (int i = 0; i < 100; i++) {
+            ByteBuf buf = buffer().writeInt(i);
+            ChannelPromise promise = newPromise(channel);
+            bufs.add(buf);
+            promises.add(promise);
+            buffer.addMessage(buf, buf.readableBytes(), promise);
+            if (i == 49) {
+                buffer.addFlush();
+            }
+        }
+        assertEquals(50, buffer.size());
+        assertEquals(100 * (4L + CHANNEL_OUTBOUND_BUFFER_ENTRY_OVERHEAD), buffer.totalPendingWriteBytes());
+
+        for (int i = 0; i < 50; i++) {
+            assertSame(bufs.get(i), buffer.current());
+            assertTrue(buffer.remove());
+            assertTrue(promises.get(i).isSuccess());
+            assertEquals(0, bufs.get(i).refCnt());
+        }
+        assertNull(buffer.current());
+        assertFalse(buffer.remove());
+        assertFalse(promises.get(50).isDone());
+
+        buffer.addFlush();
+        assertEquals(50, buffer.size());
+        for (int i = 50; i < 100; i++) {
+            assertSame(bufs.get(i), buffer.current());
+            assertTrue(buffer.remove());
+        }
+        assertTrue(buffer.isEmpty());
+        assertEquals(0, buffer.totalPendingWriteBytes());
+        for (ChannelPromise promise : promises) {
+            assertTrue(promise.isSuccess());
+        }
+    }
+
+    @Test
+    public void testRemoveBytes() {
+        TestChannel channel = new TestChannel();
+        ChannelOutboundBuffer buffer = new ChannelOutboundBuffer(channel, true);
+        ChannelPromise[] promises = new ChannelPromise[3];
+        ByteBuf last = null;
+        for (int i = 0; i < promises.length; i++) {
+            promises[i] = newPromise(channel);
+            last = buffer().writeZero(10);
+            buffer.addMessage(last, 10, promises[i]);
+        }
+        buffer.addFlush();
+
+        buffer.removeBytes(25);
+        assertTrue(promises[0].isSuccess());
+        assertTrue(promises[1].isSuccess());
+        assertFalse(promises[2].isDone());
+        assertSame(last, buffer.current());
+        assertEquals(5, last.readableBytes());
+        assertEquals(5, buffer.currentProgress());
+        assertEquals(10L + CHANNEL_OUTBOUND_BUFFER_ENTRY_OVERHEAD, buffer.totalPendingWriteBytes());
+
+        buffer.removeBytes(5);
+        assertTrue(promises[2].isSuccess());
+        assertTrue(buffer.isEmpty());
+        assertEquals(0, buffer.totalPendingWriteBytes());
+    }
+
+    @Test
+    public void testRemoveBytesCompletesPromisesAfterRemoval() {
+        TestChannel channel = new TestChannel();
+        final ChannelOutboundBuffer buffer = new ChannelOutboundBuffer(channel, true);
+        final List<Integer> sizes = new ArrayList<Integer>();
+        ChannelFutureListener listener = new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) {
+                sizes.add(buffer.size());
+            }
+        };
+        for (int i = 0; i < 3; i++) {
+            buffer.addMessage(buffer().writeZero(10), 10, newPromise(channel).addListener(listener));
+        }
+        buffer.addFlush();
+
+        buffer.removeBytes(25);
+        // Both written messages were removed before the first promise was completed.
+        assertEquals(2, sizes.size());
+        assertEquals(1, (int) sizes.get(0));
+        assertEquals(1, (int) sizes.get(1));
+        assertEquals(10L + CHANNEL_OUTBOUND_BUFFER_ENTRY_OVERHEAD, buffer.totalPendingWriteBytes());
+
+        buffer.removeBytes(5);
+        assertEquals(3, sizes.size());
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    public void testShrinkAfterSmallDrains() {
+        TestChannel channel = new TestChannel();
+        // The channel is not registered, so the backlog must not make it unwritable.
+        channel.config().setWriteBufferWaterMark(new WriteBufferWaterMark(1024 * 1024, 1024 * 1024));
+        ChannelOutboundBuffer buffer = new ChannelOutboundBuffer(channel, true);
+        writeAndRemove(buffer, channel, 4096);
+        assertEquals(4096, buffer.ringCapacity());
+
+        // A small backlog only shrinks the ring once it stayed small for a while.
+        for (int i = 0; i < 15; i++) {
+            writeAndRemove(buffer, channel, 1);
+        }
+        assertEquals(4096, buffer.ringCapacity());
+        writeAndRemove(buffer, channel, 1);
+        assertEquals(2048, buffer.ringCapacity());
+
+        // A large backlog in between starts over.
+        for (int i = 0; i < 15; i++) {
+            writeAndRemove(buffer, channel, 1);
+        }
+        writeAndRemove(buffer, channel, 1024);
+        writeAndRemove(buffer, channel, 1);
+        assertEquals(2048, buffer.ringCapacity());
+
+        // The capacity is retained up to 1024.
+        for (int i = 0; i < 64; i++) {
+            writeAndRemove(buffer, channel, 1);
+        }
+        assertEquals(1024, buffer.ringCapacity());
+    }
+
+    private static void writeAndRemove(ChannelOutboundBuffer buffer, Channel channel, int count) {
+        for (int i = 0; i < count; i++) {
+            buffer.addMessage(buffer().writeByte(i), 1, channel.voidPromise());
+        }
+        buffer.addFlush();
+        buffer.removeBytes(count);
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    public void testNioBuffers() {
+        TestChannel channel = new TestChannel();
+        ChannelOutboundBuffer buffer = new ChannelOutboundBuffer(channel, true);
+        ByteBuf buf = directBuffer().writeInt(1);
+        CompositeByteBuf comp = compositeBuffer();
+        for (int i = 0; i < 3; i++) {
+            comp.addComponent(true, directBuffer().writeInt(i));
+        }
+        buffer.addMessage(buf, buf.readableBytes(), channel.voidPromise());
+        buffer.addMessage(comp, comp.readableBytes(), channel.voidPromise());
+        buffer.nioBuffers();
+        assertEquals(0, buffer.nioBufferCount());
+        buffer.addFlush();
+
+        ByteBuffer[] buffers = buffer.nioBuffers();
+        assertEquals(4, buffer.nioBufferCount());
+        assertEquals(16, buffer.nioBufferSize());
+        assertEquals(buf.internalNioBuffer(0, 4), buffers[0]);
+
+        buffer.nioBuffers(2, Integer.MAX_VALUE);
+        assertEquals(2, buffer.nioBufferCount());
+
+        buffer.nioBuffers();
+        buffer.removeBytes(16);
+        assertTrue(buffer.isEmpty());
+        assertEquals(0, buf.refCnt());
+        assertEquals(0, comp.refCnt());
+    }
+
+    @Test
+    public void testCombineSmallBuffers() {
+        TestChannel channel = new TestChannel();
+        ChannelOutboundBufferTest.assertCombineSmallBuffers(channel, new ChannelOutboundBuffer(channel, true));
+    }
+
+    @Test
+    public void testCombineSmallBuffersOnlyNewlyFlushed() {
+        TestChannel channel = new TestChannel();
+        ChannelOutboundBufferTest.assertCombineSmallBuffersOnlyNewlyFlushed(
+                channel, new ChannelOutboundBuffer(channel, true));
+    }
+
+    @Test
+    public void testWritability() {
+        final StringBuilder events = new StringBuilder();
+        final ChannelOutboundBuffer[] holder = new ChannelOutboundBuffer[1];
+        // The buffer is not the one of the channel, so ask it directly.
+        EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelWritabilityChanged(ChannelHandlerContext ctx) {
+                events.append(holder[0].isWritable()).append(' ');
+            }
+        });
+        channel.config().setWriteBufferLowWaterMark(128 + CHANNEL_OUTBOUND_BUFFER_ENTRY_OVERHEAD);
+        channel.config().setWriteBufferHighWaterMark(256 + CHANNEL_OUTBOUND_BUFFER_ENTRY_OVERHEAD);
+        ChannelOutboundBuffer buffer = new ChannelOutboundBuffer(channel, true);
+        holder[0] = buffer;
+
+        buffer.addMessage(buffer().writeZero(128), 128, channel.voidPromise());
+        buffer.addMessage(buffer().writeZero(2), 2, channel.voidPromise());
+        assertTrue(buffer.isWritable());
+        buffer.addFlush();
+
+        // Exceeding the high watermark makes the buffer unwritable right away.
+        buffer.addMessage(buffer().writeZero(127), 127, channel.voidPromise());
+        assertFalse(buffer.isWritable());
+        assertEquals(0, buffer.bytesBeforeUnwritable());
+        assertEquals("false ", events.toString());
+
+        // Going down to the low watermark makes the buffer writable again before the batch is removed completely.
+        assertTrue(buffer.remove());
+        assertFalse(buffer.isWritable());
+        assertTrue(buffer.remove());
+        assertTrue(buffer.isWritable());
+        assertEquals("false true ", events.toString());
+        assertEquals(127L + CHANNEL_OUTBOUND_BUFFER_ENTRY_OVERHEAD, buffer.totalPendingWriteBytes());
+
+        buffer.addFlush();
+        assertTrue(buffer.remove());
+        assertEquals(0, buffer.totalPendingWriteBytes());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testCancelledBeforeFlush() {
+        TestChannel channel = new TestChannel();
+        ChannelOutboundBuffer buffer = new ChannelOutboundBuffer(channel, true);
+        ByteBuf buf = buffer().writeZero(10);
+        ChannelPromise promise = newPromise(channel);
+        buffer.addMessage(buf, 10, promise);
+        assertTrue(promise.cancel(false));
+        buffer.addFlush();
+
+        assertEquals(0, buf.refCnt());
+        assertEquals(0, buffer.totalPendingWriteBytes());
+        assertEquals(1, buffer.size());
+        assertTrue(buffer.remove());
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    public void testFailFlushedAndClose() {
+        TestChannel channel = new TestChannel();
+        ChannelOutboundBuffer buffer = new ChannelOutboundBuffer(channel, true);
+        ChannelPromise flushedPromise = newPromise(channel);
+        ChannelPromise unflushedPromise = newPromise(channel);
+        ByteBuf flushed = buffer().writeZero(10);
+        ByteBuf unflushed = buffer().writeZero(10);
+        buffer.addMessage(flushed, 10, flushedPromise);
+        buffer.addFlush();
+        buffer.addMessage(unflushed, 10, unflushedPromise);
+
+        ClosedChannelException cause = new ClosedChannelException();
+        buffer.failFlushed(cause, false);
+        assertSame(cause, flushedPromise.cause());
+        assertEquals(0, flushed.refCnt());
+        assertFalse(unflushedPromise.isDone());
+
+        buffer.close(cause, true);
+        assertSame(cause, unflushedPromise.cause());
+        assertEquals(0, unflushed.refCnt());
+        assertEquals(0, buffer.totalPendingWriteBytes());
+    }
+
+    private static ChannelPromise newPromise(Channel channel) {
+        return new DefaultChannelPromise(channel, ImmediateEventExecutor.INSTANCE);
+    }
+}
@@ -20,6 +20,7 @@ import io.netty.buffer.CompositeByteBuf;
 import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.util.CharsetUtil;
 import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.ImmediateEventExecutor;
 import io.netty.util.concurrent.RejectedExecutionHandlers;
 import io.netty.util.concurrent.SingleThreadEventExecutor;
 import org.junit.jupiter.api.Test;
@@ -36,8 +37,10 @@ import static io.netty.buffer.Unpooled.*;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ChannelOutboundBufferTest {
@@ -163,7 +166,7 @@ public class ChannelOutboundBufferTest {
         }
     }
 
-    private static final class TestChannel extends AbstractChannel {
+    static final class TestChannel extends AbstractChannel {
         private static final ChannelMetadata TEST_METADATA = new ChannelMetadata(false);
         private final ChannelConfig config = new DefaultChannelConfig(this);
 
@@ -244,6 +247,120 @@ public class ChannelOutboundBufferTest {
         }
     }
 
+    @Test
+    public void testRemoveAndDetach() {
+        TestChannel channel = new TestChannel();
+        ChannelOutboundBuffer buffer = new ChannelOutboundBuffer(channel);
+        assertNull(buffer.removeAndDetach());
+
+        ByteBuf buf = copiedBuffer("buf1", CharsetUtil.US_ASCII);
+        ChannelPromise promise = new DefaultChannelPromise(channel, ImmediateEventExecutor.INSTANCE);
+        buffer.addMessage(buf, buf.readableBytes(), promise);
+        buffer.addFlush();
+
+        assertSame(promise, buffer.removeAndDetach());
+        assertTrue(buffer.isEmpty());
+        assertEquals(0, buffer.totalPendingWriteBytes());
+        // The ownership was handed over, so neither the message nor the promise may have been touched.
+        assertEquals(1, buf.refCnt());
+        assertFalse(promise.isDone());
+
+        assertTrue(buf.release());
+        promise.setSuccess();
+    }
+
+    @Test
+    public void testCombineSmallBuffers() {
+        TestChannel channel = new TestChannel();
+        assertCombineSmallBuffers(channel, new ChannelOutboundBuffer(channel));
+    }
+
+    static void assertCombineSmallBuffers(Channel channel, ChannelOutboundBuffer buffer) {
+        int[] sizes = { 4, 4, 4, 64, 8, 8, 8 };
+        ByteBuf[] bufs = new ByteBuf[sizes.length];
+        ChannelPromise[] promises = new ChannelPromise[sizes.length];
+        for (int i = 0; i < sizes.length; i++) {
+            bufs[i] = buffer().writeZero(sizes[i]);
+            promises[i] = new DefaultChannelPromise(channel, ImmediateEventExecutor.INSTANCE);
+            buffer.addMessage(bufs[i], sizes[i], promises[i]);
+        }
+        // The last message is not flushed and so must not be combined.
+        buffer.addFlush();
+        ByteBuf unflushed = buffer().writeZero(4);
+        buffer.addMessage(unflushed, 4, channel.voidPromise());
+
+        buffer.combineSmallBuffers(channel.alloc(), 8);
+        // The runs of small buffers were copied, the large buffer was not.
+        assertEquals(0, bufs[0].refCnt());
+        assertEquals(1, bufs[3].refCnt());
+        assertEquals(0, bufs[6].refCnt());
+        assertEquals(1, unflushed.refCnt());
+
+        buffer.nioBuffers();
+        assertEquals(3, buffer.nioBufferCount());
+        assertEquals(100, buffer.nioBufferSize());
+        assertEquals(7, buffer.size());
+
+        buffer.removeBytes(80);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(promises[i].isSuccess());
+        }
+        assertFalse(promises[4].isDone());
+        buffer.removeBytes(20);
+        for (ChannelPromise promise : promises) {
+            assertTrue(promise.isSuccess());
+        }
+        assertTrue(buffer.isEmpty());
+        buffer.addFlush();
+        release(buffer);
+        assertEquals(0, unflushed.refCnt());
+    }
+
+    @Test
+    public void testCombineSmallBuffersOnlyNewlyFlushed() {
+        TestChannel channel = new TestChannel();
+        assertCombineSmallBuffersOnlyNewlyFlushed(channel, new ChannelOutboundBuffer(channel));
+    }
+
+    static void assertCombineSmallBuffersOnlyNewlyFlushed(Channel channel, ChannelOutboundBuffer buffer) {
+        buffer.addMessage(buffer().writeZero(64), 64, channel.voidPromise());
+        addSmallBuffers(channel, buffer, 1);
+        buffer.combineSmallBuffers(channel.alloc(), 8);
+        // Only the newly flushed messages are looked at, so they are not combined with the small one before them.
+        addSmallBuffers(channel, buffer, 2);
+        buffer.combineSmallBuffers(channel.alloc(), 8);
+        buffer.nioBuffers();
+        assertEquals(3, buffer.nioBufferCount());
+        assertEquals(76, buffer.nioBufferSize());
+
+        // Write the first two messages, the others were still looked at already.
+        buffer.removeBytes(68);
+        assertEquals(2, buffer.size());
+        addSmallBuffers(channel, buffer, 2);
+        buffer.combineSmallBuffers(channel.alloc(), 8);
+        buffer.nioBuffers();
+        assertEquals(2, buffer.nioBufferCount());
+        assertEquals(16, buffer.nioBufferSize());
+        assertEquals(4, buffer.size());
+
+        // Once everything was written the next flushed messages are combined again.
+        buffer.removeBytes(16);
+        assertTrue(buffer.isEmpty());
+        addSmallBuffers(channel, buffer, 3);
+        buffer.combineSmallBuffers(channel.alloc(), 8);
+        buffer.nioBuffers();
+        assertEquals(1, buffer.nioBufferCount());
+        assertEquals(12, buffer.nioBufferSize());
+        release(buffer);
+    }
+
+    private static void addSmallBuffers(Channel channel, ChannelOutboundBuffer buffer, int count) {
+        for (int i = 0; i < count; i++) {
+            buffer.addMessage(buffer().writeZero(4), 4, channel.voidPromise());
+        }
+        buffer.addFlush();
+    }
+
     @Test
     public void testWritability() {
         final StringBuilder buf = new StringBuilder();
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.channel.ChannelPipelineProfiler.Event;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ChannelPipelineProfilerTest {
+
+    @AfterEach
+    public void tearDown() {
+        ChannelPipelineProfiler.setEnabled(false);
+        ChannelPipelineProfiler.setSampleInterval(1);
+    }
+
+    @Test
+    public void testDisabled() {
+        EmbeddedChannel channel = new EmbeddedChannel(new SlowHandler());
+        channel.writeInbound("msg");
+        assertTrue(ChannelPipelineProfiler.profile(channel.pipeline()).isEmpty());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testProfile() {
+        ChannelPipelineProfiler.setEnabled(true);
+        EmbeddedChannel channel = new EmbeddedChannel();
+        channel.pipeline().addLast("slow", new SlowHandler());
+        channel.writeInbound("a", "b");
+        channel.writeOutbound("c");
+        channel.pipeline().fireUserEventTriggered("event");
+
+        List<ChannelHandlerProfile> profiles = ChannelPipelineProfiler.profile(channel.pipeline());
+        // head, slow and tail
+        assertEquals(3, profiles.size());
+        ChannelHandlerProfile profile = profiles.get(1);
+        assertEquals("slow", profile.name());
+        assertEquals(SlowHandler.class, profile.handlerType());
+        assertEquals(2, profile.invocations(Event.CHANNEL_READ));
+        assertEquals(2, profile.sampledInvocations(Event.CHANNEL_READ));
+        assertTrue(profile.sampledNanos(Event.CHANNEL_READ) >= TimeUnit.MILLISECONDS.toNanos(2));
+        assertEquals(profile.sampledNanos(Event.CHANNEL_READ), profile.estimatedNanos(Event.CHANNEL_READ));
+        assertEquals(1, profile.invocations(Event.WRITE));
+        assertEquals(1, profile.invocations(Event.FLUSH));
+        assertEquals(1, profile.invocations(Event.USER_EVENT_TRIGGERED));
+
+        // The head does the actual writes and flushes.
+        assertEquals(1, profiles.get(0).invocations(Event.WRITE));
+        assertEquals(1, profiles.get(0).invocations(Event.FLUSH));
+
+        ChannelHandlerProfile aggregated = ChannelPipelineProfiler.profileByHandlerType().get(SlowHandler.class);
+        assertNull(aggregated.name());
+        assertTrue(aggregated.invocations(Event.CHANNEL_READ) >= 2);
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    @Timeout(value = 5000, unit = TimeUnit.MILLISECONDS)
+    public void testHandlersAddedByDifferentThreadsShareTypeProfile() throws Exception {
+        ChannelPipelineProfiler.setEnabled(true);
+        readOnce();
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                readOnce();
+            }
+        });
+        thread.start();
+        thread.join();
+
+        ChannelHandlerProfile aggregated = ChannelPipelineProfiler.profileByHandlerType().get(ReadOnceHandler.class);
+        assertEquals(2, aggregated.invocations(Event.CHANNEL_READ));
+    }
+
+    private static void readOnce() {
+        EmbeddedChannel channel = new EmbeddedChannel(new ReadOnceHandler());
+        channel.writeInbound("msg");
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testSampling() {
+        ChannelPipelineProfiler.setEnabled(true);
+        ChannelPipelineProfiler.setSampleInterval(4);
+        EmbeddedChannel channel = new EmbeddedChannel();
+        channel.pipeline().addLast("slow", new SlowHandler());
+        for (int i = 0; i < 8; i++) {
+            channel.writeInbound(i);
+        }
+
+        ChannelHandlerProfile profile = ChannelPipelineProfiler.profile(channel.pipeline()).get(1);
+        assertEquals(8, profile.invocations(Event.CHANNEL_READ));
+        assertEquals(2, profile.sampledInvocations(Event.CHANNEL_READ));
+        assertEquals(profile.sampledNanos(Event.CHANNEL_READ) * 4, profile.estimatedNanos(Event.CHANNEL_READ), 1);
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    @Timeout(value = 10000, unit = TimeUnit.MILLISECONDS)
+    public void testHandlerTypeCanBeUnloaded() throws Exception {
+        ChannelPipelineProfiler.setEnabled(true);
+        WeakReference<Class<?>> handlerType = profileHandlerOfOwnClassLoader();
+        while (handlerType.get() != null) {
+            System.gc();
+            Thread.sleep(10);
+        }
+    }
+
+    private static WeakReference<Class<?>> profileHandlerOfOwnClassLoader() throws Exception {
+        Class<?> handlerType = new HandlerClassLoader().loadHandler();
+        assertNotSame(PassThroughHandler.class, handlerType);
+        EmbeddedChannel channel = new EmbeddedChannel((ChannelHandler) handlerType.newInstance());
+        channel.writeInbound("msg");
+        assertTrue(ChannelPipelineProfiler.profileByHandlerType().containsKey(handlerType));
+        assertTrue(channel.finishAndReleaseAll());
+        assertFalse(channel.isOpen());
+        return new WeakReference<Class<?>>(handlerType);
+    }
+
+    private static final class HandlerClassLoader extends ClassLoader {
+        HandlerClassLoader() {
+            super(ChannelPipelineProfilerTest.class.getClassLoader());
+        }
+
+        Class<?> loadHandler() throws Exception {
+            String name = PassThroughHandler.class.getName();
+            InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class");
+            try {
+                byte[] bytes = new byte[in.available()];
+                int read = 0;
+                while (read < bytes.length) {
+                    read += in.read(bytes, read, bytes.length - read);
+                }
+                return defineClass(name, bytes, 0, bytes.length);
+            } finally {
+                in.close();
+            }
+        }
+    }
+
+    public static final class PassThroughHandler extends ChannelInboundHandlerAdapter {
+    }
+
+    private static final class ReadOnceHandler extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ctx.fireChannelRead(msg);
+        }
+    }
+
+    private static final class SlowHandler extends ChannelDuplexHandler {
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+            Thread.sleep(1);
+            ctx.fireChannelRead(msg);
+        }
+
+        @Override
+        public void userEventTriggered(ChannelHandlerContext ctx, Object evt) {
+            ctx.fireUserEventTriggered(evt);
+        }
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            ctx.write(msg, promise);
+        }
+
+        @Override
+        public void flush(ChannelHandlerContext ctx) {
+            ctx.flush();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.ScratchRecvByteBufAllocator.ScratchHandle;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.CharsetUtil;
+import io.netty.util.NetUtil;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ScratchRecvByteBufAllocatorTest {
+    private static final ByteBufAllocator ALLOC = UnpooledByteBufAllocator.DEFAULT;
+
+    @Test
+    public void testScratchBufferIsSharedAndDetachCopies() {
+        ScratchHandle handle = (ScratchHandle) new ScratchRecvByteBufAllocator(1024).newHandle();
+        ByteBuf scratch = handle.allocateScratch();
+        assertTrue(scratch.isDirect());
+        assertTrue(scratch.capacity() >= 1024);
+        assertEquals(2, scratch.refCnt());
+        scratch.writeBytes(new byte[] { 1, 2, 3 });
+
+        ByteBuf received = handle.detach(ALLOC, scratch);
+        assertEquals(1, scratch.refCnt());
+        assertNotSame(scratch, received);
+        assertEquals(3, received.readableBytes());
+        assertEquals(3, received.capacity());
+        assertEquals(2, received.getByte(1));
+        received.release();
+
+        // All handles of the thread share the same scratch buffer, which is empty again.
+        ScratchHandle other = (ScratchHandle) new ScratchRecvByteBufAllocator(512).newHandle();
+        ByteBuf scratch2 = other.allocateScratch();
+        assertSame(scratch, scratch2);
+        assertFalse(scratch2.isReadable());
+        scratch2.release();
+    }
+
+    @Test
+    public void testAllocateFallsBackToAdaptive() {
+        RecvByteBufAllocator.Handle handle = new ScratchRecvByteBufAllocator().newHandle();
+        ByteBuf scratch = ((ScratchHandle) handle).allocateScratch();
+        ByteBuf buf = handle.allocate(ALLOC);
+        try {
+            assertNotSame(scratch, buf);
+            assertEquals(AdaptiveRecvByteBufAllocator.DEFAULT_INITIAL, buf.capacity());
+        } finally {
+            buf.release();
+            scratch.release();
+        }
+    }
+
+    @Test
+    public void testNioReadsIntoScratchBuffer() throws Exception {
+        NioEventLoopGroup group = new NioEventLoopGroup(1);
+        final BlockingQueue<ByteBuf> received = new LinkedBlockingQueue<ByteBuf>();
+        try {
+            ServerBootstrap sb = new ServerBootstrap();
+            sb.group(group).channel(NioServerSocketChannel.class);
+            sb.childOption(ChannelOption.RCVBUF_ALLOCATOR, new ScratchRecvByteBufAllocator());
+            sb.childHandler(new ChannelInboundHandlerAdapter() {
+                @Override
+                public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                    received.add((ByteBuf) msg);
+                }
+            });
+            SocketAddress address = sb.bind(0).sync().channel().localAddress();
+
+            Socket s = new Socket(NetUtil.LOCALHOST, ((InetSocketAddress) address).getPort());
+            try {
+                OutputStream out = s.getOutputStream();
+                out.write("hello".getBytes(CharsetUtil.US_ASCII));
+                out.flush();
+
+                ByteBuf buf = received.poll(5, TimeUnit.SECONDS);
+                assertNotNull(buf);
+                try {
+                    // Only the received bytes are kept.
+                    assertEquals("hello", buf.toString(CharsetUtil.US_ASCII));
+                    assertEquals(buf.readableBytes(), buf.capacity());
+                } finally {
+                    buf.release();
+                }
+            } finally {
+                s.close();
+            }
+        } finally {
+            group.shutdownGracefully();
+        }
+    }
+}
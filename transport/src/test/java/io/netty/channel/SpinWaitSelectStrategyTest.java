@@ -0,0 +1,100 @@
+/*
+ * Copyright 2021 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.util.IntSupplier;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SpinWaitSelectStrategyTest {
+
+    private static final IntSupplier NOTHING_READY = new IntSupplier() {
+        @Override
+        public int get() {
+            return 0;
+        }
+    };
+
+    private static final IntSupplier ONE_READY = new IntSupplier() {
+        @Override
+        public int get() {
+            return 1;
+        }
+    };
+
+    @Test
+    public void testReturnsReadyAndTasks() throws Exception {
+        SelectStrategy strategy = SpinWaitSelectStrategyFactory.busySpin().newSelectStrategy();
+        assertEquals(1, strategy.calculateStrategy(ONE_READY, false));
+        assertEquals(0, strategy.calculateStrategy(NOTHING_READY, true));
+    }
+
+    @Test
+    public void testBusySpinNeverParks() throws Exception {
+        SpinWaitSelectStrategy strategy =
+                (SpinWaitSelectStrategy) SpinWaitSelectStrategyFactory.busySpin().newSelectStrategy();
+        // The idle time starts with the first call, so only take the deadline after it.
+        assertEquals(0, strategy.calculateStrategy(NOTHING_READY, false));
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            assertEquals(0, strategy.calculateStrategy(NOTHING_READY, false));
+        }
+        assertEquals(0, strategy.parks());
+
+        // The idle time is accounted once there is work again.
+        assertEquals(1, strategy.calculateStrategy(ONE_READY, false));
+        assertTrue(strategy.spinTimeNanos() >= TimeUnit.MILLISECONDS.toNanos(10));
+    }
+
+    @Test
+    public void testSpinThenPark() throws Exception {
+        SpinWaitSelectStrategy strategy = (SpinWaitSelectStrategy) SpinWaitSelectStrategyFactory.spinThenPark(
+                1, 1, TimeUnit.MILLISECONDS).newSelectStrategy();
+        int result;
+        do {
+            result = strategy.calculateStrategy(NOTHING_READY, false);
+        } while (result == 0);
+        assertEquals(SelectStrategy.SELECT, result);
+        assertEquals(1, strategy.parks());
+        assertTrue(strategy.spinTimeNanos() >= TimeUnit.MILLISECONDS.toNanos(2));
+
+        // After the park the next idle period starts spinning again.
+        assertEquals(0, strategy.calculateStrategy(NOTHING_READY, false));
+    }
+
+    @Test
+    public void testSpinThenParkWithoutBudget() throws Exception {
+        SpinWaitSelectStrategy strategy = (SpinWaitSelectStrategy) SpinWaitSelectStrategyFactory.spinThenPark(
+                0, 0, TimeUnit.MILLISECONDS).newSelectStrategy();
+        // The first empty poll starts the idle period, the next one uses up the budget.
+        assertEquals(0, strategy.calculateStrategy(NOTHING_READY, false));
+        assertEquals(SelectStrategy.SELECT, strategy.calculateStrategy(NOTHING_READY, false));
+    }
+
+    @Test
+    public void testWorkTime() throws Exception {
+        SpinWaitSelectStrategy strategy = (SpinWaitSelectStrategy) SpinWaitSelectStrategyFactory.spinThenYield(
+                1, TimeUnit.MILLISECONDS).newSelectStrategy();
+        assertEquals(1, strategy.calculateStrategy(ONE_READY, false));
+        Thread.sleep(5);
+        assertEquals(0, strategy.calculateStrategy(NOTHING_READY, false));
+        assertTrue(strategy.workTimeNanos() >= TimeUnit.MILLISECONDS.toNanos(5));
+    }
+}
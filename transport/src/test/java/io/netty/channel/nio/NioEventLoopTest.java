@@ -24,6 +24,8 @@ import io.netty.channel.EventLoopTaskQueueFactory;
 import io.netty.channel.SelectStrategy;
 import io.netty.channel.SelectStrategyFactory;
 import io.netty.channel.SingleThreadEventLoop;
+import io.netty.channel.SpinWaitSelectStrategy;
+import io.netty.channel.SpinWaitSelectStrategyFactory;
 import io.netty.channel.socket.ServerSocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.util.IntSupplier;
@@ -31,6 +33,7 @@ import io.netty.util.concurrent.DefaultEventExecutorChooserFactory;
 import io.netty.util.concurrent.DefaultThreadFactory;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.RejectedExecutionHandlers;
+import io.netty.util.concurrent.SingleThreadEventExecutorMetrics;
 import io.netty.util.concurrent.ThreadPerTaskExecutor;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Timeout;
@@ -234,6 +237,116 @@ public class NioEventLoopTest extends AbstractEventLoopTest {
         }
     }
 
+    @Test
+    @Timeout(value = 5000, unit = TimeUnit.MILLISECONDS)
+    public void testBusySpin() throws Exception {
+        SpinWaitSelectStrategyFactory factory = SpinWaitSelectStrategyFactory.busySpin();
+        NioEventLoopGroup group = new NioEventLoopGroup(1, new DefaultThreadFactory("ioPool"),
+                SelectorProvider.provider(), factory);
+        NioEventLoop loop = (NioEventLoop) group.next();
+        try {
+            Channel channel = new NioServerSocketChannel();
+            loop.register(channel).syncUninterruptibly();
+            channel.bind(new InetSocketAddress(0)).syncUninterruptibly();
+            Selector selector = loop.unwrappedSelector();
+
+            // Let the loop spin for a while, which must not be mistaken for the selector returning prematurely.
+            loop.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    // NOOP
+                }
+            }, 200, TimeUnit.MILLISECONDS).syncUninterruptibly();
+            assertSame(selector, loop.unwrappedSelector());
+
+            SocketChannel selectableChannel = SocketChannel.open();
+            selectableChannel.configureBlocking(false);
+            selectableChannel.connect(channel.localAddress());
+
+            final CountDownLatch latch = new CountDownLatch(1);
+            loop.register(selectableChannel, SelectionKey.OP_CONNECT, new NioTask<SocketChannel>() {
+                @Override
+                public void channelReady(SocketChannel ch, SelectionKey key) {
+                    latch.countDown();
+                }
+
+                @Override
+                public void channelUnregistered(SocketChannel ch, Throwable cause) {
+                }
+            });
+            latch.await();
+
+            SpinWaitSelectStrategy strategy = (SpinWaitSelectStrategy) loop.selectStrategy();
+            assertTrue(strategy.spinTimeNanos() > 0);
+            assertEquals(0, strategy.parks());
+
+            selectableChannel.close();
+            channel.close().syncUninterruptibly();
+        } finally {
+            group.shutdownGracefully();
+        }
+    }
+
+    @Test
+    @Timeout(value = 5000, unit = TimeUnit.MILLISECONDS)
+    public void testMetrics() throws Exception {
+        NioEventLoopGroup group = new NioEventLoopGroup(1);
+        NioEventLoop loop = (NioEventLoop) group.next();
+        try {
+            Channel channel = new NioServerSocketChannel();
+            loop.register(channel).syncUninterruptibly();
+            channel.bind(new InetSocketAddress(0)).syncUninterruptibly();
+
+            SocketChannel selectableChannel = SocketChannel.open();
+            selectableChannel.configureBlocking(false);
+            selectableChannel.connect(channel.localAddress());
+
+            final CountDownLatch latch = new CountDownLatch(1);
+            loop.register(selectableChannel, SelectionKey.OP_CONNECT, new NioTask<SocketChannel>() {
+                @Override
+                public void channelReady(SocketChannel ch, SelectionKey key) {
+                    // Stop selecting for OP_CONNECT, the key would stay ready and the loop would never block otherwise.
+                    key.interestOps(0);
+                    latch.countDown();
+                }
+
+                @Override
+                public void channelUnregistered(SocketChannel ch, Throwable cause) {
+                }
+            });
+            latch.await();
+
+            // Give the loop time to block in select, so the task needs to wake it up.
+            Thread.sleep(100);
+            loop.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        Thread.sleep(10);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }).syncUninterruptibly();
+
+            SingleThreadEventExecutorMetrics metrics = loop.metrics();
+            // The task time is recorded once the loop is done with the tasks, which may be after the future completed.
+            while (metrics.taskTimeNanos() < TimeUnit.MILLISECONDS.toNanos(10)) {
+                Thread.sleep(10);
+            }
+            assertTrue(metrics.readyChannels().count() > 0);
+            assertTrue(metrics.readyChannels().max() > 0);
+            assertTrue(metrics.ioTimeNanos() > 0);
+            assertTrue(metrics.wakeups() > 0);
+            assertTrue(metrics.taskWaitTime().count() > 0);
+
+            selectableChannel.close();
+            channel.close().syncUninterruptibly();
+        } finally {
+            group.shutdownGracefully();
+        }
+    }
+
     @Test
     public void testRebuildSelectorOnIOException() {
         SelectStrategyFactory selectStrategyFactory = new SelectStrategyFactory() {
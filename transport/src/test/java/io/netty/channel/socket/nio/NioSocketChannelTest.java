@@ -50,6 +50,7 @@ import java.net.SocketOption;
 import java.net.StandardSocketOptions;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.NetworkChannel;
+import java.util.Arrays;
 import java.util.Queue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -162,6 +163,43 @@ public class NioSocketChannelTest extends AbstractNioChannelTest<NioSocketChanne
         }
     }
 
+    @Test
+    public void testWriteCombining() throws Exception {
+        NioEventLoopGroup group = new NioEventLoopGroup(1);
+        try {
+            final byte[] large = new byte[1024];
+            Arrays.fill(large, (byte) 'x');
+            ServerBootstrap sb = new ServerBootstrap();
+            sb.group(group).channel(NioServerSocketChannel.class);
+            sb.childOption(ChannelOption.WRITE_COMBINING_THRESHOLD, 16);
+            sb.childHandler(new ChannelInboundHandlerAdapter() {
+                @Override
+                public void channelActive(final ChannelHandlerContext ctx) throws Exception {
+                    ctx.write(Unpooled.copiedBuffer("ab", CharsetUtil.US_ASCII));
+                    ctx.write(Unpooled.copiedBuffer("cd", CharsetUtil.US_ASCII));
+                    ctx.write(Unpooled.wrappedBuffer(large));
+                    ctx.write(Unpooled.copiedBuffer("ef", CharsetUtil.US_ASCII));
+                    ctx.writeAndFlush(Unpooled.copiedBuffer("gh", CharsetUtil.US_ASCII));
+                }
+            });
+
+            SocketAddress address = sb.bind(0).sync().channel().localAddress();
+
+            Socket s = new Socket(NetUtil.LOCALHOST, ((InetSocketAddress) address).getPort());
+
+            DataInput in = new DataInputStream(s.getInputStream());
+            byte[] buf = new byte[large.length + 8];
+            in.readFully(buf);
+
+            assertThat(new String(buf, CharsetUtil.US_ASCII),
+                    is("abcd" + new String(large, CharsetUtil.US_ASCII) + "efgh"));
+
+            s.close();
+        } finally {
+            group.shutdownGracefully().sync();
+        }
+    }
+
     // Test for https://github.com/netty/netty/issues/4805
     @Test
     @Timeout(value = 3000, unit = TimeUnit.MILLISECONDS)